@@ -0,0 +1,96 @@
+package mhc.bench.lalg;
+
+import java.util.Random;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.Matrix;
+import mhc.lalg.Vector;
+
+/**
+ * Creates the {@link Matrix}s and {@link Vector}s that the benchmarks work on. The contents
+ * come from a fixed seed so every run works on the same numbers.
+ */
+public class BenchData {
+  
+  private static final long SEED = 20240229L;
+  
+  private BenchData() {
+  }
+  
+  /**
+   * Returns a new {@link Matrix} of the specified type and size filled with values in
+   * <code>[-1, 1)</code>. The types are:
+   * <ul>
+   * <li><code>CMat</code>: a {@link CMat}.
+   * <li><code>SubMatrix</code>: a {@link CMat.SubMatrix} in the middle of a larger
+   * {@link CMat}.
+   * <li><code>NestedSubMatrix</code>: a {@link CMat.SubMatrix} of a {@link CMat.SubMatrix}.
+   * </ul>
+   * 
+   * @param type the type of {@link Matrix}
+   * @param numRows the number of rows
+   * @param numCols the number of columns
+   * @return a new {@link Matrix} of the specified type and size.
+   */
+  public static Matrix matrix(String type, int numRows, int numCols) {
+    Matrix mat;
+    switch (type) {
+      case "CMat":
+        mat = new CMat(numRows, numCols);
+        break;
+      case "SubMatrix":
+        mat = new CMat(numRows + 2, numCols + 2).getSubMatrix(1, numRows, 1, numCols);
+        break;
+      case "NestedSubMatrix":
+        mat = new CMat(numRows + 4, numCols + 4).getSubMatrix(1, numRows + 2, 1, numCols + 2)
+                .getSubMatrix(1, numRows, 1, numCols);
+        break;
+      default:
+        throw new RuntimeException("Unknown matrix type " + type);
+    }
+    Random random = new Random(SEED);
+    for (int rI = 0; rI < numRows; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        mat.set(rI, cI, (2.0 * random.nextDouble()) - 1.0);
+      }
+    }
+    return mat;
+  }
+  
+  /**
+   * Returns a new {@link Vector} of the specified type and dimension filled with values in
+   * <code>[-1, 1)</code>. The types are:
+   * <ul>
+   * <li><code>CVec</code>: a {@link CVec}.
+   * <li><code>RowVec</code>: a row of a {@link CMat}, which is contiguous.
+   * <li><code>ColVec</code>: a column of a {@link CMat}, which is strided.
+   * </ul>
+   * 
+   * @param type the type of {@link Vector}
+   * @param dimension the dimension
+   * @param seedOffset added to the seed so different operands get different values
+   * @return a new {@link Vector} of the specified type and dimension.
+   */
+  public static Vector vector(String type, int dimension, int seedOffset) {
+    Vector vec;
+    switch (type) {
+      case "CVec":
+        vec = new CVec(dimension);
+        break;
+      case "RowVec":
+        vec = new CMat(2, dimension).getRow(1);
+        break;
+      case "ColVec":
+        vec = new CMat(dimension, 2).getCol(1);
+        break;
+      default:
+        throw new RuntimeException("Unknown vector type " + type);
+    }
+    Random random = new Random(SEED + seedOffset);
+    for (int i = 0; i < dimension; i++ ) {
+      vec.set(i, (2.0 * random.nextDouble()) - 1.0);
+    }
+    return vec;
+  }
+}
@@ -0,0 +1,29 @@
+package mhc.bench.lalg;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * An auxiliary JMH counter for the floating point operations done by a benchmark. JMH reports
+ * it as a rate in the same units as the benchmark's throughput.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Flops {
+  
+  /**
+   * The floating point operations done in this iteration.
+   */
+  public long flops;
+  
+  /**
+   * Clears the count at the start of each iteration.
+   */
+  @Setup(Level.Iteration)
+  public void reset() {
+    flops = 0;
+  }
+}
@@ -0,0 +1,196 @@
+package mhc.bench.lalg;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.GF2Mat;
+import mhc.lalg.Mat;
+import mhc.lalg.Matrix;
+import mhc.lalg.Vector;
+
+/**
+ * Benchmarks for the {@link Mat} operations over each kind of {@link Matrix}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatBench {
+  
+  /**
+   * A square {@link Matrix} for copies and transposes.
+   */
+  @State(Scope.Thread)
+  public static class CopyState {
+    
+    @Param({ "8", "64", "512", "2048" })
+    public int size;
+    
+    @Param({ "CMat", "SubMatrix", "NestedSubMatrix" })
+    public String matType;
+    
+    Matrix mat;
+    
+    @Setup
+    public void setUp() {
+      mat = BenchData.matrix(matType, size, size);
+    }
+  }
+  
+  /**
+   * A square {@link Matrix} that is restored before every call, for the echelon form
+   * transformations that change it. The restore is not part of the measured time.
+   */
+  @State(Scope.Thread)
+  public static class EchelonState {
+    
+    @Param({ "8", "32", "128", "512" })
+    public int size;
+    
+    @Param({ "CMat", "SubMatrix" })
+    public String matType;
+    
+    Matrix original;
+    
+    Matrix mat;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+      original = BenchData.matrix(matType, size, size);
+      mat = BenchData.matrix(matType, size, size);
+    }
+    
+    @Setup(Level.Invocation)
+    public void restore() {
+      for (int rI = 0; rI < size; rI++ ) {
+        mat.setRow(rI, original.getRow(rI));
+      }
+    }
+  }
+  
+  /**
+   * A random square {@link GF2Mat} that is copied before every call, as the reduction changes
+   * it. The copy is not part of the measured time.
+   */
+  @State(Scope.Thread)
+  public static class GF2State {
+    
+    @Param({ "512", "4096", "20000" })
+    public int size;
+    
+    GF2Mat original;
+    
+    GF2Mat mat;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random random = new Random(size);
+      original = new GF2Mat(size, size);
+      for (int rI = 0; rI < size; rI++ ) {
+        for (int cI = 0; cI < size; cI++ ) {
+          original.set(rI, cI, random.nextBoolean());
+        }
+      }
+    }
+    
+    @Setup(Level.Invocation)
+    public void restore() {
+      mat = original.copy();
+    }
+  }
+  
+  /**
+   * Operands for the matrix vector and matrix matrix products.
+   */
+  @State(Scope.Thread)
+  public static class ProductState {
+    
+    @Param({ "8", "64", "512", "2048" })
+    public int size;
+    
+    @Param({ "CMat", "SubMatrix" })
+    public String matType;
+    
+    Matrix a;
+    
+    Matrix b;
+    
+    CMat c;
+    
+    Vector x;
+    
+    Vector y;
+    
+    @Setup
+    public void setUp() {
+      a = BenchData.matrix(matType, size, size);
+      b = BenchData.matrix(matType, size, size);
+      c = new CMat(size, size);
+      x = BenchData.vector("CVec", size, 0);
+      y = new CVec(size);
+    }
+  }
+  
+  @Benchmark
+  public CMat copy(CopyState state) {
+    return Mat.copy(state.mat);
+  }
+  
+  @Benchmark
+  public Matrix gemm(ProductState state, Flops flops) {
+    flops.flops += 2L * state.size * state.size * state.size;
+    return Mat.gemm(1.0, state.a, state.b, 0.0, state.c);
+  }
+  
+  @Benchmark
+  public int gf2ReducedEchelonForm(GF2State state) {
+    return state.mat.toReducedEchelonForm();
+  }
+  
+  @Benchmark
+  public Vector gemv(ProductState state, Flops flops) {
+    flops.flops += 2L * state.size * state.size;
+    return Mat.gemv(false, 1.0, state.a, state.x, 0.0, state.y);
+  }
+  
+  @Benchmark
+  public Vector gemvTrans(ProductState state, Flops flops) {
+    flops.flops += 2L * state.size * state.size;
+    return Mat.gemv(true, 1.0, state.a, state.x, 0.0, state.y);
+  }
+  
+  @Benchmark
+  public Matrix toEchelonForm(EchelonState state, Flops flops) {
+    flops.flops += (2L * state.size * state.size * state.size) / 3;
+    Mat.toEchelonForm(state.mat);
+    return state.mat;
+  }
+  
+  @Benchmark
+  public Matrix toReducedEchelonForm(EchelonState state, Flops flops) {
+    flops.flops += state.size * (long) state.size * state.size;
+    Mat.toReducedEchelonForm(state.mat);
+    return state.mat;
+  }
+  
+  @Benchmark
+  public CMat transpose(CopyState state) {
+    return Mat.transpose(state.mat);
+  }
+}
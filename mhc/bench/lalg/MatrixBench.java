@@ -0,0 +1,96 @@
+package mhc.bench.lalg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mhc.lalg.Matrix;
+
+/**
+ * Benchmarks for the primitive row operations of {@link Matrix} and for
+ * {@link Matrix#toString()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBench {
+  
+  /**
+   * A {@link Matrix} with a few rows of <code>size</code> columns for the row operations.
+   */
+  @State(Scope.Thread)
+  public static class RowOpState {
+    
+    @Param({ "8", "64", "512", "4096", "8192" })
+    public int size;
+    
+    @Param({ "CMat", "SubMatrix", "NestedSubMatrix" })
+    public String matType;
+    
+    Matrix mat;
+    
+    @Setup
+    public void setUp() {
+      mat = BenchData.matrix(matType, 4, size);
+    }
+  }
+  
+  /**
+   * A square {@link Matrix} for {@link Matrix#toString()}.
+   */
+  @State(Scope.Thread)
+  public static class ToStringState {
+    
+    @Param({ "8", "64", "256" })
+    public int size;
+    
+    @Param({ "CMat", "SubMatrix" })
+    public String matType;
+    
+    Matrix mat;
+    
+    @Setup
+    public void setUp() {
+      mat = BenchData.matrix(matType, size, size);
+    }
+  }
+  
+  @Benchmark
+  public Matrix addRowsWithMult(RowOpState state, Flops flops) {
+    flops.flops += 4L * state.size;
+    /*
+     * Add and then take away so the values stay the same over many calls.
+     */
+    state.mat.addRowsWithMult(0, 1.0, 1);
+    return state.mat.addRowsWithMult(0, -1.0, 1);
+  }
+  
+  @Benchmark
+  public Matrix scaleRow(RowOpState state, Flops flops) {
+    flops.flops += 2L * state.size;
+    state.mat.scaleRow(2, 2.0);
+    return state.mat.scaleRow(2, 0.5);
+  }
+  
+  @Benchmark
+  public Matrix swapRows(RowOpState state) {
+    return state.mat.swapRows(1, 3);
+  }
+  
+  @Benchmark
+  public String toString(ToStringState state) {
+    return state.mat.toString();
+  }
+}
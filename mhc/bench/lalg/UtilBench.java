@@ -0,0 +1,69 @@
+package mhc.bench.lalg;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mhc.lalg.util.QFmt;
+import mhc.lalg.util.Tokenizer;
+
+/**
+ * Benchmarks for the {@link Tokenizer} and {@link QFmt} utilities.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBench {
+  
+  /**
+   * The number of fields in the line that is tokenized.
+   */
+  @Param({ "8", "64", "512" })
+  public int numFields;
+  
+  private String line;
+  
+  private Tokenizer tokenizer;
+  
+  @Setup
+  public void setUp() {
+    StringBuilder buf = new StringBuilder();
+    for (int i = 0; i < numFields; i++ ) {
+      if (i > 0) {
+        buf.append(", ");
+      }
+      buf.append((i % 3 == 0) ? "\"quoted, " + i + "\"" : Double.toString(i * 1.25));
+    }
+    line = buf.toString();
+    tokenizer = new Tokenizer();
+  }
+  
+  @Benchmark
+  public String fmtDouble() {
+    return QFmt.fmt(numFields * 1234.5678, "#,##0.00");
+  }
+  
+  @Benchmark
+  public String fmtLongWithCommas() {
+    return QFmt.fmt(numFields * 123456789L, true);
+  }
+  
+  @Benchmark
+  public ArrayList<String> getAllTokens() {
+    return tokenizer.getAllTokens(line);
+  }
+}
@@ -0,0 +1,161 @@
+package mhc.bench.lalg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mhc.lalg.CVec;
+import mhc.lalg.Vec;
+import mhc.lalg.Vec.Reduction;
+import mhc.lalg.Vector;
+
+/**
+ * Benchmarks for the {@link Vec} operations over each kind of {@link Vector}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VecBench {
+  
+  @Param({ "8", "64", "512", "4096", "8192" })
+  public int size;
+  
+  @Param({ "CVec", "RowVec", "ColVec" })
+  public String vecType;
+  
+  private Vector x;
+  
+  private Vector y;
+  
+  private Vector z;
+  
+  private CVec result;
+  
+  @Setup
+  public void setUp() {
+    x = BenchData.vector(vecType, size, 0);
+    y = BenchData.vector(vecType, size, 1);
+    z = BenchData.vector(vecType, size, 2);
+    result = new CVec(size);
+  }
+  
+  @Benchmark
+  public Vector add(Flops flops) {
+    flops.flops += size;
+    return Vec.add(x, y, result);
+  }
+  
+  @Benchmark
+  public double asum(Flops flops) {
+    flops.flops += size;
+    return Vec.asum(x);
+  }
+  
+  @Benchmark
+  public Vector axpby(Flops flops) {
+    flops.flops += 3L * size;
+    /*
+     * alpha and beta keep the values bounded over many calls.
+     */
+    return Vec.axpby(0.5, x, 0.5, y);
+  }
+  
+  @Benchmark
+  public Vector axpy(Flops flops) {
+    flops.flops += 4L * size;
+    Vec.axpy(1.0, x, y);
+    return Vec.axpy( -1.0, x, y);
+  }
+  
+  @Benchmark
+  public double axpyDot(Flops flops) {
+    flops.flops += 8L * size;
+    double dp = Vec.axpyDot(1.0, x, y, z);
+    return dp + Vec.axpyDot( -1.0, x, y, z);
+  }
+  
+  @Benchmark
+  public CVec copy() {
+    return Vec.copy(x);
+  }
+  
+  @Benchmark
+  public double dotProduct(Flops flops) {
+    flops.flops += 2L * size;
+    return Vec.dotProduct(x, y);
+  }
+  
+  @Benchmark
+  public double dotProductCompensated(Flops flops) {
+    flops.flops += 2L * size;
+    return Vec.dotProduct(x, y, Reduction.COMPENSATED);
+  }
+  
+  @Benchmark
+  public double dotProductPairwise(Flops flops) {
+    flops.flops += 2L * size;
+    return Vec.dotProduct(x, y, Reduction.PAIRWISE);
+  }
+  
+  @Benchmark
+  public double dotProductParallel(Flops flops) {
+    flops.flops += 2L * size;
+    return Vec.dotProduct(x, y, Reduction.PARALLEL);
+  }
+  
+  @Benchmark
+  public double dotProductUnrolled(Flops flops) {
+    flops.flops += 2L * size;
+    return Vec.dotProduct(x, y, Reduction.UNROLLED);
+  }
+  
+  @Benchmark
+  public int iamax() {
+    return Vec.iamax(x);
+  }
+  
+  @Benchmark
+  public Vector mult(Flops flops) {
+    flops.flops += size;
+    return Vec.mult(2.0, x, result);
+  }
+  
+  @Benchmark
+  public double nrm2(Flops flops) {
+    flops.flops += 2L * size;
+    return Vec.nrm2(x);
+  }
+  
+  @Benchmark
+  public Vector rot(Flops flops) {
+    flops.flops += 6L * size;
+    Vec.rot(x, y, 0.6, 0.8);
+    return x;
+  }
+  
+  @Benchmark
+  public Vector scal(Flops flops) {
+    flops.flops += 2L * size;
+    Vec.scal(2.0, x);
+    return Vec.scal(0.5, x);
+  }
+  
+  @Benchmark
+  public Vector swap() {
+    Vec.swap(x, y);
+    return x;
+  }
+}
@@ -0,0 +1,18 @@
+/**
+ * JMH benchmarks for the {@link mhc.lalg} kernels and the {@link mhc.lalg.util} utilities.
+ * <p>
+ * The benchmarks are compiled with the JMH annotation processor into a self contained
+ * benchmark jar that is run with, for example:
+ * 
+ * <pre>
+ * java -jar benchmarks.jar -prof gc          # every benchmark, with allocation rates
+ * java -jar benchmarks.jar VecBench -p size=8192 -prof gc
+ * </pre>
+ * 
+ * Each benchmark that does floating point work counts it in the {@link mhc.bench.lalg.Flops}
+ * auxiliary counter, which JMH reports as a rate, so the <code>flops</code> line of a
+ * throughput run in operations per second divided by 10^9 is GFLOP/s. The
+ * <code>gc.alloc.rate.norm</code> line of the <code>-prof gc</code> output is the number of
+ * bytes allocated per call.
+ */
+package mhc.bench.lalg;
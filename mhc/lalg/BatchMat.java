@@ -0,0 +1,365 @@
+package mhc.lalg;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A batch of small {@link Matrix}s that all have the same dimensions, stored interleaved in
+ * one array so that element <code>[r, c]</code> of every {@link Matrix} in the batch is
+ * contiguous. That is, element <code>[r, c]</code> of {@link Matrix} <code>b</code> is at
+ * <code>values[(r * numCols + c) * count + b]</code>.
+ * <p>
+ * The LU factorization and solve work on the whole batch at once. Every step of the
+ * elimination is done for all the {@link Matrix}s before the next step, so the innermost loops
+ * run over the batch along the array, with no dependence between iterations, and the JIT can
+ * vectorize them with each SIMD lane working on a different {@link Matrix}. No objects are
+ * created per {@link Matrix}. Large batches are split into chunks of lanes that are
+ * factored in parallel on the common {@link ForkJoinPool}.
+ * <p>
+ * Each {@link Matrix} is factored with partial pivoting, so the rows that are swapped differ
+ * from lane to lane. A singular {@link Matrix} does not stop the others, it is reported in the
+ * <code>info</code> array returned by {@link #luDecompose(int[])}.
+ */
+public class BatchMat {
+  
+  /**
+   * Batches with at least this many elements in total are split across the common
+   * {@link ForkJoinPool}.
+   */
+  private static final int PARALLEL_BATCH_SIZE = 64 * 1024;
+  
+  /**
+   * The number of lanes in each parallel chunk. It is a multiple of 8, so every chunk starts a
+   * multiple of 8 lanes into each row of the interleaved array. That puts chunk boundaries on
+   * 64 byte cache lines only when <code>count % 8 == 0</code> and the array itself starts on a
+   * cache line, which the JVM does not promise.
+   */
+  private static final int LANE_CHUNK_SIZE = 256;
+  
+  /**
+   * The most elements an array may have, as some JVMs reserve a few header words.
+   */
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+  
+  /**
+   * The number of {@link Matrix}s in the batch.
+   */
+  final int count;
+  
+  final int numRows;
+  
+  final int numCols;
+  
+  /**
+   * The interleaved elements of the batch.
+   */
+  final double[] values;
+  
+  /**
+   * Creates a batch of <code>count</code> zero {@link Matrix}s with the specified dimensions.
+   * 
+   * @param count the number of {@link Matrix}s in the batch
+   * @param numRows the number of rows in each {@link Matrix}
+   * @param numCols the number of columns in each {@link Matrix}
+   */
+  public BatchMat(int count, int numRows, int numCols) {
+    this.count = count;
+    this.numRows = numRows;
+    this.numCols = numCols;
+    values = new double[arraySize((long) count * numRows * numCols)];
+  }
+  
+  /**
+   * Returns the specified size of a batch array, checking that an array can be that large.
+   */
+  static int arraySize(long size) {
+    if (size > MAX_ARRAY_SIZE)
+      throw new RuntimeException("A batch can hold at most " + MAX_ARRAY_SIZE
+              + " elements, not " + size);
+    return (int) size;
+  }
+  
+  /**
+   * Returns a new {@link BatchMat} holding copies of the specified {@link Matrix}s, which must
+   * all have the same dimensions.
+   * 
+   * @param mats the {@link Matrix}s
+   * @return a new {@link BatchMat} holding copies of the specified {@link Matrix}s.
+   */
+  public static BatchMat of(Matrix... mats) {
+    BatchMat batch = new BatchMat(mats.length, mats[0].getNumRows(), mats[0].getNumCols());
+    for (int b = 0; b < mats.length; b++ ) {
+      batch.setMatrix(b, mats[b]);
+    }
+    return batch;
+  }
+  
+  /**
+   * Returns the value of the indicated element of the indicated {@link Matrix}.
+   * 
+   * @param b the index of the {@link Matrix} in the batch
+   * @param rowIndex the row
+   * @param colIndex the column
+   * @return the value of the indicated element of the indicated {@link Matrix}.
+   */
+  public double get(int b, int rowIndex, int colIndex) {
+    return values[(((rowIndex * numCols) + colIndex) * count) + b];
+  }
+  
+  /**
+   * Returns the number of {@link Matrix}s in the batch.
+   * 
+   * @return the number of {@link Matrix}s in the batch.
+   */
+  public int getCount() {
+    return count;
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding a copy of the indicated {@link Matrix}.
+   * 
+   * @param b the index of the {@link Matrix} in the batch
+   * @return a new {@link CMat} holding a copy of the indicated {@link Matrix}.
+   */
+  public CMat getMatrix(int b) {
+    CMat mat = new CMat(numRows, numCols);
+    int size = numRows * numCols;
+    for (int e = 0; e < size; e++ ) {
+      mat.values[e] = values[(e * count) + b];
+    }
+    return mat;
+  }
+  
+  /**
+   * Returns the number of columns in each {@link Matrix}.
+   * 
+   * @return the number of columns in each {@link Matrix}.
+   */
+  public int getNumCols() {
+    return numCols;
+  }
+  
+  /**
+   * Returns the number of rows in each {@link Matrix}.
+   * 
+   * @return the number of rows in each {@link Matrix}.
+   */
+  public int getNumRows() {
+    return numRows;
+  }
+  
+  /**
+   * Replaces every {@link Matrix} in the batch with its LU factorization with partial
+   * pivoting, <code>P * A = L * U</code>. <code>U</code> is left in the upper triangle and the
+   * multipliers of the unit lower triangular <code>L</code> below the diagonal. The row that
+   * was swapped with row <code>k</code> at step <code>k</code> of {@link Matrix}
+   * <code>b</code> is saved in <code>pivots[k * count + b]</code>.
+   * <p>
+   * The returned array holds 0 for each {@link Matrix} that was factored, or
+   * <code>k + 1</code> if the first zero pivot of the {@link Matrix} was found at step
+   * <code>k</code>. The elimination of a singular {@link Matrix} carries on past its zero
+   * pivots, but its factors can not be used to solve.
+   * 
+   * @param pivots an array of at least <code>numRows * count</code> elements that the pivot
+   *          rows are saved in.
+   * @return the info array, one element for each {@link Matrix} in the batch.
+   */
+  public int[] luDecompose(int[] pivots) {
+    if (numRows != numCols)
+      throw new RuntimeException("Only a batch of square matrices can be factored");
+    assert pivots.length >= numRows * count;
+    int[] info = new int[count];
+    if (values.length >= PARALLEL_BATCH_SIZE) {
+      int numChunks = (count + LANE_CHUNK_SIZE - 1) / LANE_CHUNK_SIZE;
+      IntStream.range(0, numChunks).parallel().forEach(chunk -> luLanes(pivots, info,
+              chunk * LANE_CHUNK_SIZE, Math.min(count, (chunk + 1) * LANE_CHUNK_SIZE)));
+    } else {
+      luLanes(pivots, info, 0, count);
+    }
+    return info;
+  }
+  
+  /**
+   * Does the LU factorization of the {@link Matrix}s in the lanes
+   * <code>[laneStart, laneEnd)</code>.
+   */
+  private void luLanes(int[] pivots, int[] info, int laneStart, int laneEnd) {
+    int n = numRows;
+    double[] a = values;
+    int numLanes = laneEnd - laneStart;
+    double[] maxValues = new double[numLanes];
+    int[] maxRows = new int[numLanes];
+    double[] invPivots = new double[numLanes];
+    for (int k = 0; k < n; k++ ) {
+      /*
+       * Find the pivot row of each lane.
+       */
+      int kkPos = ((k * n) + k) * count;
+      for (int l = 0; l < numLanes; l++ ) {
+        maxValues[l] = Math.abs(a[kkPos + laneStart + l]);
+        maxRows[l] = k;
+      }
+      for (int rI = k + 1; rI < n; rI++ ) {
+        int rkPos = (((rI * n) + k) * count) + laneStart;
+        for (int l = 0; l < numLanes; l++ ) {
+          double nextVal = Math.abs(a[rkPos + l]);
+          if (nextVal > maxValues[l]) {
+            maxValues[l] = nextVal;
+            maxRows[l] = rI;
+          }
+        }
+      }
+      /*
+       * Swap the pivot rows into place, the rows differ from lane to lane.
+       */
+      for (int l = 0; l < numLanes; l++ ) {
+        int b = laneStart + l;
+        int pivotRow = maxRows[l];
+        pivots[(k * count) + b] = pivotRow;
+        if (pivotRow != k) {
+          for (int cI = 0; cI < n; cI++ ) {
+            int kPos = (((k * n) + cI) * count) + b;
+            int pPos = (((pivotRow * n) + cI) * count) + b;
+            double temp = a[kPos];
+            a[kPos] = a[pPos];
+            a[pPos] = temp;
+          }
+        }
+        double pivot = a[kkPos + b];
+        if (pivot == 0.0) {
+          if (info[b] == 0) {
+            info[b] = k + 1;
+          }
+          invPivots[l] = 0.0; // leave the column as it is so the lane does not fill with NaN
+        } else {
+          invPivots[l] = 1.0 / pivot;
+        }
+      }
+      /*
+       * Eliminate below the pivots, every lane does the same arithmetic.
+       */
+      for (int rI = k + 1; rI < n; rI++ ) {
+        int rkPos = (((rI * n) + k) * count) + laneStart;
+        for (int l = 0; l < numLanes; l++ ) {
+          a[rkPos + l] *= invPivots[l];
+        }
+        for (int cI = k + 1; cI < n; cI++ ) {
+          int rcPos = (((rI * n) + cI) * count) + laneStart;
+          int kcPos = (((k * n) + cI) * count) + laneStart;
+          for (int l = 0; l < numLanes; l++ ) {
+            a[rcPos + l] -= a[rkPos + l] * a[kcPos + l];
+          }
+        }
+      }
+    }
+  }
+  
+  /**
+   * Solves <code>A * x = rhs</code> for every {@link Matrix} in the batch, using the
+   * factorization and pivots from {@link #luDecompose(int[])}. The solutions replace the
+   * contents of <code>rhs</code>. The solutions for singular {@link Matrix}s are not
+   * meaningful.
+   * 
+   * @param pivots the pivots from {@link #luDecompose(int[])}
+   * @param rhs the right hand sides, which are replaced by the solutions.
+   * @return rhs after it has been updated.
+   */
+  public BatchVec luSolve(int[] pivots, BatchVec rhs) {
+    assert (rhs.count == count) && (rhs.dimension == numRows);
+    if (values.length >= PARALLEL_BATCH_SIZE) {
+      int numChunks = (count + LANE_CHUNK_SIZE - 1) / LANE_CHUNK_SIZE;
+      IntStream.range(0, numChunks).parallel().forEach(chunk -> solveLanes(pivots, rhs,
+              chunk * LANE_CHUNK_SIZE, Math.min(count, (chunk + 1) * LANE_CHUNK_SIZE)));
+    } else {
+      solveLanes(pivots, rhs, 0, count);
+    }
+    return rhs;
+  }
+  
+  /**
+   * Replaces the value of the indicated element of the indicated {@link Matrix}.
+   * 
+   * @param b the index of the {@link Matrix} in the batch
+   * @param rowIndex the row
+   * @param colIndex the column
+   * @param value the new value
+   */
+  public void set(int b, int rowIndex, int colIndex, double value) {
+    values[(((rowIndex * numCols) + colIndex) * count) + b] = value;
+  }
+  
+  /**
+   * Replaces the indicated {@link Matrix} with the contents of the specified {@link Matrix}.
+   * 
+   * @param b the index of the {@link Matrix} in the batch
+   * @param mat the {@link Matrix} to copy
+   */
+  public void setMatrix(int b, Matrix mat) {
+    assert (mat.getNumRows() == numRows) && (mat.getNumCols() == numCols);
+    for (int rI = 0; rI < numRows; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        values[(((rI * numCols) + cI) * count) + b] = mat.get(rI, cI);
+      }
+    }
+  }
+  
+  /**
+   * Solves <code>A * x = rhs</code> for every {@link Matrix} in the batch. This
+   * {@link BatchMat} is replaced by the LU factors of its {@link Matrix}s and <code>rhs</code>
+   * by the solutions, as by {@link #luDecompose(int[])} and
+   * {@link #luSolve(int[], BatchVec)}.
+   * 
+   * @param rhs the right hand sides, which are replaced by the solutions.
+   * @return the info array from {@link #luDecompose(int[])}, a non-zero element marks a
+   *         singular {@link Matrix} whose solution is not meaningful.
+   */
+  public int[] solve(BatchVec rhs) {
+    int[] pivots = new int[arraySize((long) numRows * count)];
+    int[] info = luDecompose(pivots);
+    luSolve(pivots, rhs);
+    return info;
+  }
+  
+  /**
+   * Does the forward and back substitution for the lanes <code>[laneStart, laneEnd)</code>.
+   */
+  private void solveLanes(int[] pivots, BatchVec rhs, int laneStart, int laneEnd) {
+    int n = numRows;
+    double[] a = values;
+    double[] x = rhs.values;
+    for (int k = 0; k < n; k++ ) {
+      for (int b = laneStart; b < laneEnd; b++ ) {
+        int pivotRow = pivots[(k * count) + b];
+        if (pivotRow != k) {
+          double temp = x[(k * count) + b];
+          x[(k * count) + b] = x[(pivotRow * count) + b];
+          x[(pivotRow * count) + b] = temp;
+        }
+      }
+    }
+    for (int rI = 1; rI < n; rI++ ) {
+      int xrPos = rI * count;
+      for (int cI = 0; cI < rI; cI++ ) {
+        int rcPos = ((rI * n) + cI) * count;
+        int xcPos = cI * count;
+        for (int b = laneStart; b < laneEnd; b++ ) {
+          x[xrPos + b] -= a[rcPos + b] * x[xcPos + b];
+        }
+      }
+    }
+    for (int rI = n - 1; rI >= 0; rI-- ) {
+      int xrPos = rI * count;
+      for (int cI = rI + 1; cI < n; cI++ ) {
+        int rcPos = ((rI * n) + cI) * count;
+        int xcPos = cI * count;
+        for (int b = laneStart; b < laneEnd; b++ ) {
+          x[xrPos + b] -= a[rcPos + b] * x[xcPos + b];
+        }
+      }
+      int rrPos = ((rI * n) + rI) * count;
+      for (int b = laneStart; b < laneEnd; b++ ) {
+        x[xrPos + b] /= a[rrPos + b];
+      }
+    }
+  }
+}
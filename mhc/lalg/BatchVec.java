@@ -0,0 +1,120 @@
+package mhc.lalg;
+
+/**
+ * A batch of {@link Vector}s that all have the same dimension, stored interleaved in one array
+ * so that element <code>i</code> of every {@link Vector} in the batch is contiguous. That is,
+ * element <code>i</code> of {@link Vector} <code>b</code> is at
+ * <code>values[i * count + b]</code>. This is the layout {@link BatchMat} works on, where a
+ * loop over the batch runs along the array.
+ */
+public class BatchVec {
+  
+  /**
+   * The number of {@link Vector}s in the batch.
+   */
+  final int count;
+  
+  /**
+   * The dimension of each {@link Vector} in the batch.
+   */
+  final int dimension;
+  
+  /**
+   * The interleaved elements of the batch.
+   */
+  final double[] values;
+  
+  /**
+   * Creates a batch of <code>count</code> zero {@link Vector}s of the specified dimension.
+   * 
+   * @param count the number of {@link Vector}s in the batch
+   * @param dimension the dimension of each {@link Vector}
+   */
+  public BatchVec(int count, int dimension) {
+    this.count = count;
+    this.dimension = dimension;
+    values = new double[BatchMat.arraySize((long) count * dimension)];
+  }
+  
+  /**
+   * Returns a new {@link BatchVec} holding copies of the specified {@link Vector}s, which must
+   * all have the same dimension.
+   * 
+   * @param vecs the {@link Vector}s
+   * @return a new {@link BatchVec} holding copies of the specified {@link Vector}s.
+   */
+  public static BatchVec of(Vector... vecs) {
+    BatchVec batch = new BatchVec(vecs.length, vecs[0].dimension());
+    for (int b = 0; b < vecs.length; b++ ) {
+      batch.setVector(b, vecs[b]);
+    }
+    return batch;
+  }
+  
+  /**
+   * Returns the dimension of each {@link Vector} in the batch.
+   * 
+   * @return the dimension of each {@link Vector} in the batch.
+   */
+  public int dimension() {
+    return dimension;
+  }
+  
+  /**
+   * Returns the value of the indicated element of the indicated {@link Vector}.
+   * 
+   * @param b the index of the {@link Vector} in the batch
+   * @param index the index of the element
+   * @return the value of the indicated element of the indicated {@link Vector}.
+   */
+  public double get(int b, int index) {
+    return values[(index * count) + b];
+  }
+  
+  /**
+   * Returns the number of {@link Vector}s in the batch.
+   * 
+   * @return the number of {@link Vector}s in the batch.
+   */
+  public int getCount() {
+    return count;
+  }
+  
+  /**
+   * Returns a new {@link CVec} holding a copy of the indicated {@link Vector}.
+   * 
+   * @param b the index of the {@link Vector} in the batch
+   * @return a new {@link CVec} holding a copy of the indicated {@link Vector}.
+   */
+  public CVec getVector(int b) {
+    CVec vec = new CVec(dimension);
+    for (int i = 0; i < dimension; i++ ) {
+      vec.values[i] = values[(i * count) + b];
+    }
+    return vec;
+  }
+  
+  /**
+   * Replaces the value of the indicated element of the indicated {@link Vector}.
+   * 
+   * @param b the index of the {@link Vector} in the batch
+   * @param index the index of the element
+   * @param value the new value
+   */
+  public void set(int b, int index, double value) {
+    values[(index * count) + b] = value;
+  }
+  
+  /**
+   * Replaces the indicated {@link Vector} with the contents of the specified {@link Vector}.
+   * 
+   * @param b the index of the {@link Vector} in the batch
+   * @param vec the {@link Vector} to copy
+   */
+  public void setVector(int b, Vector vec) {
+    assert vec.dimension() == dimension;
+    for (int i = 0; i < dimension; i++ ) {
+      values[(i * count) + b] = vec.get(i);
+    }
+  }
+}
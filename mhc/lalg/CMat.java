@@ -6,20 +6,28 @@ package mhc.lalg;
 public class CMat extends Matrix {
   
   /**
-   * Implements a {@link Vector} view of a col in this matrix.
+   * Implements a {@link Vector} view of a col in this matrix. It reads and writes the array of
+   * the matrix directly, and {@link #moveTo(int)} re-points it at another column so one view
+   * can walk every column without allocating.
    */
   public class ColVec extends Vector {
     
-    private final int colIndex;
+    private int colIndex;
     
     private final int firstRow;
     
     private final int cntRows;
     
+    /**
+     * The position of element 0 in {@link CMat#values}.
+     */
+    private int offset;
+    
     public ColVec(int colIndex, int firstRow, int numRows) {
       this.colIndex = colIndex;
       this.firstRow = firstRow;
       cntRows = numRows;
+      offset = pos(firstRow, colIndex);
     }
     
     @Override
@@ -29,30 +37,90 @@ public class CMat extends Matrix {
     
     @Override
     public double get(int index) {
-      return CMat.this.get(firstRow + index, colIndex);
+      return values[offset + (index * numCols)];
+    }
+    
+    /**
+     * Returns the array holding the elements of this view, which is that of its {@link CMat}.
+     * 
+     * @return the backing array.
+     */
+    @Override
+    public double[] getArray() {
+      return values;
+    }
+    
+    /**
+     * Returns the index of the column this view is on.
+     * 
+     * @return the column index.
+     */
+    public int getColIndex() {
+      return colIndex;
+    }
+    
+    /**
+     * Returns the position of element 0 of this view in {@link #getArray()}.
+     * 
+     * @return the position of element 0.
+     */
+    @Override
+    public int getOffset() {
+      return offset;
+    }
+    
+    /**
+     * Returns the distance between elements of this view in {@link #getArray()}, the number of
+     * columns of its {@link CMat}.
+     * 
+     * @return the distance between elements.
+     */
+    @Override
+    public int getStride() {
+      return numCols;
+    }
+    
+    /**
+     * Re-points this view at the same rows of another column.
+     * 
+     * @param colIndex the index of the column
+     * @return this {@link ColVec}.
+     */
+    public ColVec moveTo(int colIndex) {
+      this.colIndex = colIndex;
+      offset = pos(firstRow, colIndex);
+      return this;
     }
     
     @Override
     public void set(int index, double value) {
-      CMat.this.set(firstRow + index, colIndex, value);
+      values[offset + (index * numCols)] = value;
     }
   }
   
   /**
-   * Implements a {@link Vector} view of a row in this matrix.
+   * Implements a {@link Vector} view of a row in this matrix. It reads and writes the array of
+   * the matrix directly, and {@link #moveTo(int)} re-points it at another row so one view can
+   * walk every row without allocating.
    */
   public class RowVec extends Vector {
     
-    private final int rowIndex;
+    private int rowIndex;
     
     private final int firstCol;
     
     private final int cntCols;
     
+    /**
+     * The position of element 0 in {@link CMat#values}.
+     */
+    private int offset;
+    
     public RowVec(int rowIndex, int firstCol, int numCols) {
       this.rowIndex = rowIndex;
       this.firstCol = firstCol;
       cntCols = numCols;
+      offset = pos(rowIndex, firstCol);
     }
     
     @Override
@@ -62,12 +130,63 @@ public class CMat extends Matrix {
     
     @Override
     public double get(int index) {
-      return CMat.this.get(rowIndex, firstCol + index);
+      return values[offset + index];
+    }
+    
+    /**
+     * Returns the array holding the elements of this view, which is that of its {@link CMat}.
+     * 
+     * @return the backing array.
+     */
+    @Override
+    public double[] getArray() {
+      return values;
+    }
+    
+    /**
+     * Returns the position of element 0 of this view in {@link #getArray()}.
+     * 
+     * @return the position of element 0.
+     */
+    @Override
+    public int getOffset() {
+      return offset;
+    }
+    
+    /**
+     * Returns the index of the row this view is on.
+     * 
+     * @return the row index.
+     */
+    public int getRowIndex() {
+      return rowIndex;
+    }
+    
+    /**
+     * Returns the distance between elements of this view in {@link #getArray()}, which is 1.
+     * 
+     * @return the distance between elements.
+     */
+    @Override
+    public int getStride() {
+      return 1;
+    }
+    
+    /**
+     * Re-points this view at the same columns of another row.
+     * 
+     * @param rowIndex the index of the row
+     * @return this {@link RowVec}.
+     */
+    public RowVec moveTo(int rowIndex) {
+      this.rowIndex = rowIndex;
+      offset = pos(rowIndex, firstCol);
+      return this;
     }
     
     @Override
     public void set(int index, double value) {
-      CMat.this.set(rowIndex, firstCol + index, value);
+      values[offset + index] = value;
     }
   }
   
@@ -84,6 +203,11 @@ public class CMat extends Matrix {
     
     final int cntRows;
     
+    /**
+     * The position of element <code>[0, 0]</code> in {@link CMat#values}.
+     */
+    private final int offset;
+    
     /**
      * Creates a new {@link SubMatrix} view of its containing {@link Matrix}. This sub-matrix
      * just a view on the containing {@link Matrix} so updates to the {@link SubMatrix} will be
@@ -99,11 +223,32 @@ public class CMat extends Matrix {
       cntRows = numRows;
       this.firstCol = firstCol;
       cntCols = numCols;
+      offset = pos(firstRow, firstCol);
     }
     
     @Override
     public double get(int rowIndex, int colIndex) {
-      return CMat.this.get(toOuterRowIndex(rowIndex), toOuterColIndex(colIndex));
+      return values[offset + (rowIndex * numCols) + colIndex];
+    }
+    
+    /**
+     * Returns the array holding the elements of this {@link SubMatrix}, which is that of its
+     * containing {@link CMat}.
+     * 
+     * @return the backing array.
+     */
+    @Override
+    public double[] getArray() {
+      return values;
+    }
+    
+    /**
+     * Returns the {@link CMat} that contains this {@link SubMatrix}.
+     * 
+     * @return the {@link CMat} that contains this {@link SubMatrix}.
+     */
+    public CMat getContainingMatrix() {
+      return CMat.this;
     }
     
     @Override
@@ -116,6 +261,28 @@ public class CMat extends Matrix {
       return cntRows;
     }
     
+    /**
+     * Returns the position of element <code>[0, 0]</code> of this {@link SubMatrix} in
+     * {@link #getArray()}.
+     * 
+     * @return the position of element <code>[0, 0]</code>.
+     */
+    @Override
+    public int getOffset() {
+      return offset;
+    }
+    
+    /**
+     * Returns the distance between rows of this {@link SubMatrix} in {@link #getArray()}, the
+     * number of columns of its containing {@link CMat}.
+     * 
+     * @return the distance between rows.
+     */
+    @Override
+    public int getRowStride() {
+      return numCols;
+    }
+    
     /**
      * Overrides: getSubCol
      * 
@@ -145,7 +312,7 @@ public class CMat extends Matrix {
     
     @Override
     public void set(int rowIndex, int colIndex, double value) {
-      CMat.this.set(toOuterRowIndex(rowIndex), toOuterColIndex(colIndex), value);
+      values[offset + (rowIndex * numCols) + colIndex] = value;
     }
     
     /**
@@ -182,7 +349,7 @@ public class CMat extends Matrix {
   /**
    * The array that holds the elements of this {@link CMat} in row major order.
    */
-  private final double[] values;
+  final double[] values;
   
   /**
    * 
@@ -194,6 +361,17 @@ public class CMat extends Matrix {
     values = new double[size];
   }
   
+  /**
+   * Creates a {@link CMat} that holds its elements in the specified array, which may be longer
+   * than needed. Used by {@link Workspace} to wrap a pooled buffer.
+   */
+  CMat(int rowDimension, int colDimension, double[] values) {
+    numRows = rowDimension;
+    numCols = colDimension;
+    size = rowDimension * colDimension;
+    this.values = values;
+  }
+  
   public CMat(Vector... rows) {
     this(rows.length, rows[0].dimension());
   }
@@ -218,6 +396,18 @@ public class CMat extends Matrix {
     return values[pos(rowIndex, colIndex)];
   }
   
+  /**
+   * Returns the array holding the elements of this {@link CMat} in row major order, element
+   * <code>[r, c]</code> at position <code>r * getNumCols() + c</code>. Changes to the array
+   * are changes to the {@link CMat}.
+   * 
+   * @return the backing array.
+   */
+  @Override
+  public double[] getArray() {
+    return values;
+  }
+  
   /**
    * Overrides: getNumCols
    * 
@@ -279,7 +469,7 @@ public class CMat extends Matrix {
    * @return the index in the {@link #values} array that corresponds the the indicated row and
    *         col indices.
    */
-  private final int pos(int rowIndex, int colIndex) {
+  final int pos(int rowIndex, int colIndex) {
     return (rowIndex * numCols) + colIndex;
   }
   
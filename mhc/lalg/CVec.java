@@ -17,6 +17,15 @@ public class CVec extends Vector {
     values = new double[dimension];
   }
   
+  /**
+   * Creates a {@link CVec} that holds its elements in the specified array, which may be longer
+   * than needed. Used by {@link Workspace} to wrap a pooled buffer.
+   */
+  CVec(int dimension, double[] values) {
+    this.dimension = dimension;
+    this.values = values;
+  }
+  
   /**
    * Returns a new {@link Vector} with the specified values.
    * 
@@ -51,6 +60,16 @@ public class CVec extends Vector {
     return values[index];
   }
   
+  /**
+   * Returns the array holding the elements of this {@link CVec}, from position 0.
+   * 
+   * @see mhc.lalg.Vector#getArray()
+   */
+  @Override
+  public double[] getArray() {
+    return values;
+  }
+  
   /**
    * Overrides: set
    * 
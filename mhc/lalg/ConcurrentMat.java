@@ -0,0 +1,522 @@
+package mhc.lalg;
+
+import java.util.concurrent.locks.StampedLock;
+
+import mhc.lalg.util.OpCounters;
+
+/**
+ * A {@link Matrix} that can be read and updated by many threads at once. The rows are guarded
+ * by a fixed set of {@link StampedLock}s, row <code>r</code> by stripe
+ * <code>r % numStripes</code>, so writers of different rows seldom meet. Reads take the
+ * optimistic path of the {@link StampedLock}: the row is read without locking and the read is
+ * only repeated under the read lock if a writer got in, so readers never write to shared
+ * memory and their throughput grows with the number of cores.
+ * <p>
+ * Every row operation is atomic: {@link #addRowsWithMult(int, double, int)},
+ * {@link #scaleRow(int, double)}, {@link #swapRows(int, int)}, {@link #setRow(int, Vector)}
+ * and {@link #addToRow(int, double, Vector)} hold the locks of the rows they touch for the
+ * whole operation, and {@link #getRowValues(int, double[])} and
+ * {@link #dotRow(int, Vector)} see a row either wholly before or wholly after any of them,
+ * never part way through. When two rows are locked the lower stripe is always locked first.
+ * Single elements are atomic too. An operation over the whole {@link Matrix}, such as
+ * {@link #toCMat()} or the methods of {@link Mat}, is atomic a row or an element at a time
+ * only.
+ */
+public class ConcurrentMat extends Matrix {
+  
+  /**
+   * A {@link Vector} view of part of a row or column, read and written an element at a time.
+   */
+  private class LineVec extends Vector {
+    
+    private final int firstPos;
+    
+    private final int step;
+    
+    private final int cnt;
+    
+    LineVec(int firstPos, int step, int cnt) {
+      this.firstPos = firstPos;
+      this.step = step;
+      this.cnt = cnt;
+    }
+    
+    @Override
+    public int dimension() {
+      return cnt;
+    }
+    
+    @Override
+    public double get(int index) {
+      int pos = firstPos + (index * step);
+      return ConcurrentMat.this.get(pos / numCols, pos % numCols);
+    }
+    
+    @Override
+    public void set(int index, double value) {
+      int pos = firstPos + (index * step);
+      ConcurrentMat.this.set(pos / numCols, pos % numCols, value);
+    }
+  }
+  
+  /**
+   * A {@link Matrix} view of a block of the {@link ConcurrentMat}, read and written an element
+   * at a time.
+   */
+  private class BlockView extends Matrix {
+    
+    private final int firstRow;
+    
+    private final int cntRows;
+    
+    private final int firstCol;
+    
+    private final int cntCols;
+    
+    BlockView(int firstRow, int numRows, int firstCol, int numCols) {
+      this.firstRow = firstRow;
+      cntRows = numRows;
+      this.firstCol = firstCol;
+      cntCols = numCols;
+    }
+    
+    @Override
+    public double get(int rowIndex, int colIndex) {
+      return ConcurrentMat.this.get(firstRow + rowIndex, firstCol + colIndex);
+    }
+    
+    @Override
+    public int getNumCols() {
+      return cntCols;
+    }
+    
+    @Override
+    public int getNumRows() {
+      return cntRows;
+    }
+    
+    @Override
+    public Vector getSubCol(int colIndex, int firstRow, int numRows) {
+      return ConcurrentMat.this.getSubCol(firstCol + colIndex, this.firstRow + firstRow,
+              numRows);
+    }
+    
+    @Override
+    public Matrix getSubMatrix(int rowIndex, int numRows, int colIndex, int numCols) {
+      return new BlockView(firstRow + rowIndex, numRows, firstCol + colIndex, numCols);
+    }
+    
+    @Override
+    public Vector getSubRow(int rowIndex, int firstCol, int numCols) {
+      return ConcurrentMat.this.getSubRow(firstRow + rowIndex, this.firstCol + firstCol,
+              numCols);
+    }
+    
+    @Override
+    public void set(int rowIndex, int colIndex, double value) {
+      ConcurrentMat.this.set(firstRow + rowIndex, firstCol + colIndex, value);
+    }
+  }
+  
+  private final int numRows;
+  
+  private final int numCols;
+  
+  /**
+   * The elements, row major.
+   */
+  private final double[] values;
+  
+  private final StampedLock[] locks;
+  
+  /**
+   * Creates a {@link ConcurrentMat} of zeros with enough stripes that threads on all the
+   * available processors seldom share one.
+   * 
+   * @param numRows the number of rows
+   * @param numCols the number of columns
+   */
+  public ConcurrentMat(int numRows, int numCols) {
+    this(numRows, numCols, 4 * Runtime.getRuntime().availableProcessors());
+  }
+  
+  /**
+   * Creates a {@link ConcurrentMat} of zeros with the specified number of stripes, which is
+   * reduced to the number of rows if there are fewer.
+   * 
+   * @param numRows the number of rows
+   * @param numCols the number of columns
+   * @param numStripes the number of locks the rows are shared among
+   */
+  public ConcurrentMat(int numRows, int numCols, int numStripes) {
+    this.numRows = numRows;
+    this.numCols = numCols;
+    values = new double[numRows * numCols];
+    locks = new StampedLock[Math.max(1, Math.min(numRows, numStripes))];
+    for (int i = 0; i < locks.length; i++ ) {
+      locks[i] = new StampedLock();
+    }
+  }
+  
+  /**
+   * Returns a new {@link ConcurrentMat} holding a copy of the specified {@link Matrix}.
+   * 
+   * @param mat the {@link Matrix} to be copied
+   * @return a new {@link ConcurrentMat} holding a copy of the {@link Matrix}.
+   */
+  public static ConcurrentMat of(Matrix mat) {
+    ConcurrentMat copy = new ConcurrentMat(mat.getNumRows(), mat.getNumCols());
+    for (int rI = 0; rI < copy.numRows; rI++ ) {
+      copy.setRow(rI, mat.getRow(rI));
+    }
+    return copy;
+  }
+  
+  /**
+   * Adds <code>multiplier</code> times the source row to the target row as one atomic
+   * operation. The source row is not changed.
+   * 
+   * @param sourceRowIndex the index of the source row.
+   * @param multiplier the multiplier to use.
+   * @param targetRowIndex the index of the target row.
+   * @return this {@link ConcurrentMat}.
+   */
+  @Override
+  public Matrix addRowsWithMult(int sourceRowIndex, double multiplier, int targetRowIndex) {
+    if (OpCounters.ENABLED) {
+      OpCounters.rowAdd(numCols);
+    }
+    StampedLock sourceLock = lock(sourceRowIndex);
+    StampedLock targetLock = lock(targetRowIndex);
+    int sourcePos = sourceRowIndex * numCols;
+    int targetPos = targetRowIndex * numCols;
+    if (sourceLock == targetLock) {
+      long stamp = targetLock.writeLock();
+      try {
+        addRow(sourcePos, multiplier, targetPos);
+      } finally {
+        targetLock.unlockWrite(stamp);
+      }
+      return this;
+    }
+    /*
+     * The source only needs a read lock, but both locks are taken in stripe order so that two
+     * threads locking the same pair cannot deadlock.
+     */
+    boolean sourceFirst = stripe(sourceRowIndex) < stripe(targetRowIndex);
+    long firstStamp = sourceFirst ? sourceLock.readLock() : targetLock.writeLock();
+    try {
+      long secondStamp = sourceFirst ? targetLock.writeLock() : sourceLock.readLock();
+      try {
+        addRow(sourcePos, multiplier, targetPos);
+      } finally {
+        (sourceFirst ? targetLock : sourceLock).unlock(secondStamp);
+      }
+    } finally {
+      (sourceFirst ? sourceLock : targetLock).unlock(firstStamp);
+    }
+    return this;
+  }
+  
+  /**
+   * Adds <code>multiplier</code> times the row at <code>sourcePos</code> to the row at
+   * <code>targetPos</code>. The caller holds the locks.
+   */
+  private void addRow(int sourcePos, double multiplier, int targetPos) {
+    for (int cI = 0; cI < numCols; cI++ ) {
+      values[targetPos + cI] += values[sourcePos + cI] * multiplier;
+    }
+  }
+  
+  /**
+   * Adds <code>alpha * x</code> to the indicated row as one atomic operation, the usual update
+   * of a row of weights.
+   * 
+   * @param rowIndex the index of the row
+   * @param alpha the multiplier for <code>x</code>
+   * @param x the {@link Vector} to add, which is not changed
+   */
+  public void addToRow(int rowIndex, double alpha, Vector x) {
+    assert x.dimension() == numCols;
+    double[] delta = new double[numCols];
+    for (int cI = 0; cI < numCols; cI++ ) {
+      delta[cI] = alpha * x.get(cI);
+    }
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * numCols, 2L * numCols, numCols);
+    }
+    int rowPos = rowIndex * numCols;
+    StampedLock lock = lock(rowIndex);
+    long stamp = lock.writeLock();
+    try {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        values[rowPos + cI] += delta[cI];
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+  
+  /**
+   * Returns the dot product of the indicated row with <code>x</code>, computed from a single
+   * consistent state of the row.
+   * 
+   * @param rowIndex the index of the row
+   * @param x the {@link Vector}, which is not changed
+   * @return the dot product.
+   */
+  public double dotRow(int rowIndex, Vector x) {
+    assert x.dimension() == numCols;
+    double[] xValues = Vec.copy(x).values;
+    int rowPos = rowIndex * numCols;
+    StampedLock lock = lock(rowIndex);
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * numCols, 2L * numCols, 0);
+    }
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      double sum = dot(rowPos, xValues);
+      if (lock.validate(stamp))
+        return sum;
+    }
+    stamp = lock.readLock();
+    try {
+      return dot(rowPos, xValues);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+  
+  /**
+   * Returns the dot product of the row at <code>rowPos</code> with <code>x</code>.
+   */
+  private double dot(int rowPos, double[] x) {
+    double sum = 0.0;
+    for (int cI = 0; cI < numCols; cI++ ) {
+      sum += values[rowPos + cI] * x[cI];
+    }
+    return sum;
+  }
+  
+  @Override
+  public double get(int rowIndex, int colIndex) {
+    int pos = (rowIndex * numCols) + colIndex;
+    StampedLock lock = lock(rowIndex);
+    long stamp = lock.tryOptimisticRead();
+    double value = values[pos];
+    if ((stamp != 0) && lock.validate(stamp))
+      return value;
+    stamp = lock.readLock();
+    try {
+      return values[pos];
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+  
+  @Override
+  public int getNumCols() {
+    return numCols;
+  }
+  
+  @Override
+  public int getNumRows() {
+    return numRows;
+  }
+  
+  /**
+   * Returns the number of locks the rows are shared among.
+   * 
+   * @return the number of stripes.
+   */
+  public int getNumStripes() {
+    return locks.length;
+  }
+  
+  /**
+   * Copies the indicated row into <code>dst</code> from a single consistent state of the row.
+   * 
+   * @param rowIndex the index of the row
+   * @param dst the array to copy into, with at least {@link #getNumCols()} elements, or null
+   * @return <code>dst</code>, or a new array if it was null.
+   */
+  public double[] getRowValues(int rowIndex, double[] dst) {
+    double[] row = (dst == null) ? new double[numCols] : dst;
+    int rowPos = rowIndex * numCols;
+    StampedLock lock = lock(rowIndex);
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, numCols, numCols);
+    }
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      System.arraycopy(values, rowPos, row, 0, numCols);
+      if (lock.validate(stamp))
+        return row;
+    }
+    stamp = lock.readLock();
+    try {
+      System.arraycopy(values, rowPos, row, 0, numCols);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    return row;
+  }
+  
+  /**
+   * Returns a view of part of a column that reads and writes an element at a time.
+   * 
+   * @see mhc.lalg.Matrix#getSubCol(int, int, int)
+   */
+  @Override
+  public Vector getSubCol(int colIndex, int firstRow, int numRows) {
+    return new LineVec((firstRow * numCols) + colIndex, numCols, numRows);
+  }
+  
+  /**
+   * Returns a view of a block that reads and writes an element at a time.
+   * 
+   * @see mhc.lalg.Matrix#getSubMatrix(int, int, int, int)
+   */
+  @Override
+  public Matrix getSubMatrix(int firstRow, int numRows, int firstCol, int numCols) {
+    return new BlockView(firstRow, numRows, firstCol, numCols);
+  }
+  
+  /**
+   * Returns a view of part of a row that reads and writes an element at a time. Use
+   * {@link #getRowValues(int, double[])} for a consistent copy of a row.
+   * 
+   * @see mhc.lalg.Matrix#getSubRow(int, int, int)
+   */
+  @Override
+  public Vector getSubRow(int rowIndex, int firstCol, int numCols) {
+    return new LineVec((rowIndex * this.numCols) + firstCol, 1, numCols);
+  }
+  
+  /**
+   * Returns the lock that guards the indicated row.
+   */
+  private StampedLock lock(int rowIndex) {
+    return locks[stripe(rowIndex)];
+  }
+  
+  /**
+   * Scales the indicated row as one atomic operation.
+   * 
+   * @param rowIndex the index of the row to be scaled
+   * @param scaleFactor the factor to scale the row by
+   * @return this {@link ConcurrentMat}.
+   */
+  @Override
+  public Matrix scaleRow(int rowIndex, double scaleFactor) {
+    if (OpCounters.ENABLED) {
+      OpCounters.rowScale(numCols);
+    }
+    int rowPos = rowIndex * numCols;
+    StampedLock lock = lock(rowIndex);
+    long stamp = lock.writeLock();
+    try {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        values[rowPos + cI] *= scaleFactor;
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    return this;
+  }
+  
+  @Override
+  public void set(int rowIndex, int colIndex, double value) {
+    StampedLock lock = lock(rowIndex);
+    long stamp = lock.writeLock();
+    try {
+      values[(rowIndex * numCols) + colIndex] = value;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+  
+  /**
+   * Replaces the indicated row with the values of the specified {@link Vector} as one atomic
+   * operation.
+   * 
+   * @param rowIndex the row
+   * @param vec the {@link Vector}, which is not changed
+   */
+  @Override
+  public void setRow(int rowIndex, Vector vec) {
+    assert vec.dimension() == numCols;
+    double[] row = Vec.copy(vec).values;
+    int rowPos = rowIndex * numCols;
+    StampedLock lock = lock(rowIndex);
+    long stamp = lock.writeLock();
+    try {
+      System.arraycopy(row, 0, values, rowPos, numCols);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+  
+  /**
+   * Returns the stripe of the indicated row.
+   */
+  private int stripe(int rowIndex) {
+    return rowIndex % locks.length;
+  }
+  
+  /**
+   * Swaps the two rows as one atomic operation.
+   * 
+   * @param row1Index the index of the first row
+   * @param row2Index the index of the second row
+   * @return this {@link ConcurrentMat}.
+   */
+  @Override
+  public Matrix swapRows(int row1Index, int row2Index) {
+    if (row1Index == row2Index)
+      return this; // there is nothing to do
+    if (OpCounters.ENABLED) {
+      OpCounters.rowSwap(numCols);
+    }
+    int stripe1 = stripe(row1Index);
+    int stripe2 = stripe(row2Index);
+    StampedLock first = locks[Math.min(stripe1, stripe2)];
+    StampedLock second = locks[Math.max(stripe1, stripe2)];
+    long firstStamp = first.writeLock();
+    try {
+      long secondStamp = (first == second) ? 0 : second.writeLock();
+      try {
+        int pos1 = row1Index * numCols;
+        int pos2 = row2Index * numCols;
+        for (int cI = 0; cI < numCols; cI++ ) {
+          double temp = values[pos1 + cI];
+          values[pos1 + cI] = values[pos2 + cI];
+          values[pos2 + cI] = temp;
+        }
+      } finally {
+        if (first != second) {
+          second.unlockWrite(secondStamp);
+        }
+      }
+    } finally {
+      first.unlockWrite(firstStamp);
+    }
+    return this;
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding a copy of this {@link ConcurrentMat}. Each row is
+   * copied from a single consistent state of that row, but rows may change between the
+   * copies of different rows.
+   * 
+   * @return a new {@link CMat} holding a copy.
+   */
+  public CMat toCMat() {
+    CMat copy = new CMat(numRows, numCols);
+    double[] row = new double[numCols];
+    for (int rI = 0; rI < numRows; rI++ ) {
+      System.arraycopy(getRowValues(rI, row), 0, copy.values, rI * numCols, numCols);
+    }
+    return copy;
+  }
+}
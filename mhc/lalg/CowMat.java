@@ -0,0 +1,331 @@
+package mhc.lalg;
+
+import java.util.Arrays;
+
+import mhc.lalg.util.OpCounters;
+
+/**
+ * A mutable {@link Matrix} that shares the array of an {@link ImmutableMat} until it is
+ * changed, and then copies only the rows that are written. Each row is held as an array and a
+ * position in it: at first every row points into the {@link ImmutableMat}, and the first write
+ * to a row copies that row into an array of its own. {@link #swapRows(int, int)} only swaps
+ * the two pointers, so it copies nothing.
+ * <p>
+ * {@link #fork()} returns a second {@link CowMat} with the same contents that shares every row
+ * with this one, copied row by row as either is written, and {@link #toImmutableMat()} returns
+ * the original {@link ImmutableMat} itself when nothing has been changed. Like {@link CMat} a
+ * {@link CowMat} is not thread safe, but different forks may be used by different threads.
+ */
+public class CowMat extends Matrix {
+  
+  /**
+   * A {@link Vector} view of part of a row or column.
+   */
+  private class LineVec extends Vector {
+    
+    private final int rowIndex;
+    
+    private final int colIndex;
+    
+    private final boolean isRow;
+    
+    private final int cnt;
+    
+    LineVec(int rowIndex, int colIndex, boolean isRow, int cnt) {
+      this.rowIndex = rowIndex;
+      this.colIndex = colIndex;
+      this.isRow = isRow;
+      this.cnt = cnt;
+    }
+    
+    @Override
+    public int dimension() {
+      return cnt;
+    }
+    
+    @Override
+    public double get(int index) {
+      return isRow ? CowMat.this.get(rowIndex, colIndex + index)
+              : CowMat.this.get(rowIndex + index, colIndex);
+    }
+    
+    @Override
+    public void set(int index, double value) {
+      if (isRow) {
+        CowMat.this.set(rowIndex, colIndex + index, value);
+      } else {
+        CowMat.this.set(rowIndex + index, colIndex, value);
+      }
+    }
+  }
+  
+  /**
+   * A {@link Matrix} view of a block of the {@link CowMat}.
+   */
+  private class BlockView extends Matrix {
+    
+    private final int firstRow;
+    
+    private final int cntRows;
+    
+    private final int firstCol;
+    
+    private final int cntCols;
+    
+    BlockView(int firstRow, int numRows, int firstCol, int numCols) {
+      this.firstRow = firstRow;
+      cntRows = numRows;
+      this.firstCol = firstCol;
+      cntCols = numCols;
+    }
+    
+    @Override
+    public double get(int rowIndex, int colIndex) {
+      return CowMat.this.get(firstRow + rowIndex, firstCol + colIndex);
+    }
+    
+    @Override
+    public int getNumCols() {
+      return cntCols;
+    }
+    
+    @Override
+    public int getNumRows() {
+      return cntRows;
+    }
+    
+    @Override
+    public Vector getSubCol(int colIndex, int firstRow, int numRows) {
+      return new LineVec(this.firstRow + firstRow, firstCol + colIndex, false, numRows);
+    }
+    
+    @Override
+    public Matrix getSubMatrix(int rowIndex, int numRows, int colIndex, int numCols) {
+      return new BlockView(firstRow + rowIndex, numRows, firstCol + colIndex, numCols);
+    }
+    
+    @Override
+    public Vector getSubRow(int rowIndex, int firstCol, int numCols) {
+      return new LineVec(firstRow + rowIndex, this.firstCol + firstCol, true, numCols);
+    }
+    
+    @Override
+    public void set(int rowIndex, int colIndex, double value) {
+      CowMat.this.set(firstRow + rowIndex, firstCol + colIndex, value);
+    }
+  }
+  
+  private final ImmutableMat base;
+  
+  private final int numRows;
+  
+  private final int numCols;
+  
+  /**
+   * The array that holds each row.
+   */
+  private final double[][] rowArrays;
+  
+  /**
+   * The position of each row in its array.
+   */
+  private final int[] rowOffsets;
+  
+  /**
+   * True for each row whose array belongs to this {@link CowMat} alone and may be written.
+   */
+  private final boolean[] owned;
+  
+  private int numCopiedRows;
+  
+  /**
+   * Creates a {@link CowMat} with the contents of the specified {@link ImmutableMat}, sharing
+   * its array.
+   * 
+   * @param base the {@link ImmutableMat}
+   */
+  public CowMat(ImmutableMat base) {
+    this.base = base;
+    numRows = base.getNumRows();
+    numCols = base.getNumCols();
+    rowArrays = new double[numRows][];
+    rowOffsets = new int[numRows];
+    owned = new boolean[numRows];
+    for (int rI = 0; rI < numRows; rI++ ) {
+      rowArrays[rI] = base.values;
+      rowOffsets[rI] = base.offset + (rI * base.stride);
+    }
+  }
+  
+  /**
+   * Creates a {@link CowMat} that shares the rows of the specified one.
+   */
+  private CowMat(CowMat other) {
+    base = other.base;
+    numRows = other.numRows;
+    numCols = other.numCols;
+    rowArrays = other.rowArrays.clone();
+    rowOffsets = other.rowOffsets.clone();
+    owned = new boolean[numRows];
+  }
+  
+  /**
+   * Adds <code>multiplier</code> times the source row to the target row, copying the target
+   * row first if it is shared.
+   * 
+   * @see mhc.lalg.Matrix#addRowsWithMult(int, double, int)
+   */
+  @Override
+  public Matrix addRowsWithMult(int sourceRowIndex, double multiplier, int targetRowIndex) {
+    if (OpCounters.ENABLED) {
+      OpCounters.rowAdd(numCols);
+    }
+    double[] target = writableRow(targetRowIndex);
+    double[] source = rowArrays[sourceRowIndex];
+    int sourcePos = rowOffsets[sourceRowIndex];
+    for (int cI = 0; cI < numCols; cI++ ) {
+      target[cI] += source[sourcePos + cI] * multiplier;
+    }
+    return this;
+  }
+  
+  /**
+   * Returns a new {@link CowMat} with the same contents as this one. The two share every row
+   * until one of them writes it.
+   * 
+   * @return a new {@link CowMat} sharing the rows of this one.
+   */
+  public CowMat fork() {
+    Arrays.fill(owned, false); // the arrays are now shared with the fork
+    return new CowMat(this);
+  }
+  
+  @Override
+  public double get(int rowIndex, int colIndex) {
+    return rowArrays[rowIndex][rowOffsets[rowIndex] + colIndex];
+  }
+  
+  /**
+   * Returns the number of rows that have been copied because they were written while shared.
+   * 
+   * @return the number of rows copied.
+   */
+  public int getNumCopiedRows() {
+    return numCopiedRows;
+  }
+  
+  @Override
+  public int getNumCols() {
+    return numCols;
+  }
+  
+  @Override
+  public int getNumRows() {
+    return numRows;
+  }
+  
+  @Override
+  public Vector getSubCol(int colIndex, int firstRow, int numRows) {
+    return new LineVec(firstRow, colIndex, false, numRows);
+  }
+  
+  @Override
+  public Matrix getSubMatrix(int firstRow, int numRows, int firstCol, int numCols) {
+    return new BlockView(firstRow, numRows, firstCol, numCols);
+  }
+  
+  @Override
+  public Vector getSubRow(int rowIndex, int firstCol, int numCols) {
+    return new LineVec(rowIndex, firstCol, true, numCols);
+  }
+  
+  /**
+   * Scales the indicated row, copying it first if it is shared.
+   * 
+   * @see mhc.lalg.Matrix#scaleRow(int, double)
+   */
+  @Override
+  public Matrix scaleRow(int rowIndex, double scaleFactor) {
+    if (OpCounters.ENABLED) {
+      OpCounters.rowScale(numCols);
+    }
+    double[] row = writableRow(rowIndex);
+    for (int cI = 0; cI < numCols; cI++ ) {
+      row[cI] *= scaleFactor;
+    }
+    return this;
+  }
+  
+  @Override
+  public void set(int rowIndex, int colIndex, double value) {
+    writableRow(rowIndex)[colIndex] = value;
+  }
+  
+  /**
+   * Swaps the two rows by swapping where they are held, so nothing is copied.
+   * 
+   * @see mhc.lalg.Matrix#swapRows(int, int)
+   */
+  @Override
+  public Matrix swapRows(int row1Index, int row2Index) {
+    if (row1Index == row2Index)
+      return this; // there is nothing to do
+    if (OpCounters.ENABLED) {
+      OpCounters.rowSwap(0);
+    }
+    double[] tempArray = rowArrays[row1Index];
+    rowArrays[row1Index] = rowArrays[row2Index];
+    rowArrays[row2Index] = tempArray;
+    int tempOffset = rowOffsets[row1Index];
+    rowOffsets[row1Index] = rowOffsets[row2Index];
+    rowOffsets[row2Index] = tempOffset;
+    boolean tempOwned = owned[row1Index];
+    owned[row1Index] = owned[row2Index];
+    owned[row2Index] = tempOwned;
+    return this;
+  }
+  
+  /**
+   * Returns an {@link ImmutableMat} with the contents of this {@link CowMat}. That is the
+   * {@link ImmutableMat} it was created from if every row is still the one shared with it,
+   * otherwise a copy.
+   * 
+   * @return an {@link ImmutableMat} with the contents of this {@link CowMat}.
+   */
+  public ImmutableMat toImmutableMat() {
+    boolean unchanged = true;
+    for (int rI = 0; unchanged && (rI < numRows); rI++ ) {
+      unchanged = (rowArrays[rI] == base.values)
+              && (rowOffsets[rI] == base.offset + (rI * base.stride));
+    }
+    if (unchanged)
+      return base;
+    double[] values = new double[numRows * numCols];
+    for (int rI = 0; rI < numRows; rI++ ) {
+      System.arraycopy(rowArrays[rI], rowOffsets[rI], values, rI * numCols, numCols);
+    }
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, values.length, values.length);
+    }
+    return new ImmutableMat(values, 0, numCols, numRows, numCols);
+  }
+  
+  /**
+   * Returns the array of the indicated row after copying the row into an array of its own if
+   * it was shared. The row starts at position 0 of an array that is owned.
+   */
+  private double[] writableRow(int rowIndex) {
+    if ( !owned[rowIndex]) {
+      double[] row = Arrays.copyOfRange(rowArrays[rowIndex], rowOffsets[rowIndex],
+              rowOffsets[rowIndex] + numCols);
+      rowArrays[rowIndex] = row;
+      rowOffsets[rowIndex] = 0;
+      owned[rowIndex] = true;
+      numCopiedRows++ ;
+      if (OpCounters.ENABLED) {
+        OpCounters.count(0, numCols, numCols);
+      }
+    }
+    return rowArrays[rowIndex];
+  }
+}
@@ -0,0 +1,223 @@
+package mhc.lalg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mhc.lalg.util.OpCounters;
+
+/**
+ * A basis of the span of a stream of {@link Vector}s, kept reduced as each one is added. Every
+ * basis vector has a pivot column where it is 1 and every other basis vector is 0. A new
+ * {@link Vector} is reduced against the basis by subtracting, for each basis vector, its value
+ * in that pivot column times the basis vector, which is <code>O(rank * n)</code>. Whatever is
+ * left is zero if the {@link Vector} is in the span, otherwise it becomes a new basis vector,
+ * and is first cleared from the others. This replaces appending a row and rerunning
+ * {@link Mat#toReducedEchelonForm(Matrix)}, which is <code>O(n^3)</code> per insert.
+ * <p>
+ * The pivot of a new basis vector is its largest remaining element rather than its first, the
+ * incremental form of partial pivoting, so the multipliers stay small. Elements of a reduced
+ * {@link Vector} no larger than the tolerance times its largest original element are treated
+ * as zero. {@link #toCMat()} returns the basis in pivot column order.
+ */
+public class EchelonBasis {
+  
+  /**
+   * The default tolerance, relative to the largest element of each {@link Vector}.
+   */
+  public static final double DEFAULT_TOLERANCE = 1e-10;
+  
+  private final int dimension;
+  
+  private final double tolerance;
+  
+  /**
+   * The basis vectors, in the order they were added.
+   */
+  private final List<double[]> basis = new ArrayList<>();
+  
+  /**
+   * The pivot column of each basis vector, in the first {@link #getRank()} elements.
+   */
+  private int[] pivotCols = new int[8];
+  
+  /**
+   * Creates an empty {@link EchelonBasis} for {@link Vector}s of the specified dimension with
+   * the {@link #DEFAULT_TOLERANCE}.
+   * 
+   * @param dimension the dimension of the {@link Vector}s
+   */
+  public EchelonBasis(int dimension) {
+    this(dimension, DEFAULT_TOLERANCE);
+  }
+  
+  /**
+   * Creates an empty {@link EchelonBasis} for {@link Vector}s of the specified dimension.
+   * 
+   * @param dimension the dimension of the {@link Vector}s
+   * @param tolerance the tolerance, relative to the largest element of each {@link Vector},
+   *        below which a reduced element is treated as zero
+   */
+  public EchelonBasis(int dimension, double tolerance) {
+    this.dimension = dimension;
+    this.tolerance = tolerance;
+  }
+  
+  /**
+   * Adds the specified {@link Vector} to the basis if it is linearly independent of the
+   * {@link Vector}s added so far.
+   * 
+   * @param vec the {@link Vector}, which is not changed
+   * @return true if the {@link Vector} was independent and the rank went up.
+   */
+  public boolean add(Vector vec) {
+    double[] reduced = reduce(vec);
+    int pivotCol = -1;
+    double maxValue = threshold(vec);
+    for (int i = 0; i < dimension; i++ ) {
+      double absValue = Math.abs(reduced[i]);
+      if (absValue > maxValue) {
+        maxValue = absValue;
+        pivotCol = i;
+      }
+    }
+    if (OpCounters.ENABLED) {
+      OpCounters.pivotSearch(dimension);
+    }
+    if (pivotCol == -1)
+      return false; // the vector is in the span
+    double scale = 1.0 / reduced[pivotCol];
+    for (int i = 0; i < dimension; i++ ) {
+      reduced[i] *= scale;
+    }
+    for (int k = 0; k < basis.size(); k++ ) {
+      double[] row = basis.get(k);
+      double multiplier = row[pivotCol];
+      if (multiplier == 0.0) {
+        continue; // already zero in the new pivot column
+      }
+      for (int i = 0; i < dimension; i++ ) {
+        row[i] -= multiplier * reduced[i];
+      }
+      row[pivotCol] = 0.0; // exactly
+    }
+    for (int k = 0; k < basis.size(); k++ ) {
+      reduced[pivotCols[k]] = 0.0; // exactly
+    }
+    reduced[pivotCol] = 1.0;
+    if (basis.size() == pivotCols.length) {
+      pivotCols = Arrays.copyOf(pivotCols, 2 * pivotCols.length);
+    }
+    pivotCols[basis.size()] = pivotCol;
+    basis.add(reduced);
+    if (OpCounters.ENABLED) {
+      OpCounters.count((2L * basis.size() + 1) * dimension, (long) basis.size() * dimension,
+              (long) basis.size() * dimension);
+    }
+    return true;
+  }
+  
+  /**
+   * Returns true if the specified {@link Vector} is in the span of the basis, to within the
+   * tolerance.
+   * 
+   * @param vec the {@link Vector}, which is not changed
+   * @return true if the {@link Vector} is in the span of the basis.
+   */
+  public boolean contains(Vector vec) {
+    double[] reduced = reduce(vec);
+    double threshold = threshold(vec);
+    for (int i = 0; i < dimension; i++ ) {
+      if (Math.abs(reduced[i]) > threshold)
+        return false;
+    }
+    return true;
+  }
+  
+  /**
+   * Returns the dimension of the {@link Vector}s.
+   * 
+   * @return the dimension of the {@link Vector}s.
+   */
+  public int dimension() {
+    return dimension;
+  }
+  
+  /**
+   * Returns a new array holding the pivot columns of the basis vectors, in increasing order.
+   * 
+   * @return the pivot columns.
+   */
+  public int[] getPivotColumns() {
+    int[] sorted = Arrays.copyOf(pivotCols, basis.size());
+    Arrays.sort(sorted);
+    return sorted;
+  }
+  
+  /**
+   * Returns the rank, the number of {@link Vector}s in the basis.
+   * 
+   * @return the rank.
+   */
+  public int getRank() {
+    return basis.size();
+  }
+  
+  /**
+   * Returns a copy of the specified {@link Vector} with the basis subtracted from it, so that
+   * it is zero in every pivot column.
+   */
+  private double[] reduce(Vector vec) {
+    assert vec.dimension() == dimension;
+    double[] reduced = new double[dimension];
+    for (int i = 0; i < dimension; i++ ) {
+      reduced[i] = vec.get(i);
+    }
+    for (int k = 0; k < basis.size(); k++ ) {
+      int pivotCol = pivotCols[k];
+      double multiplier = reduced[pivotCol];
+      if (multiplier == 0.0) {
+        continue; // nothing to subtract
+      }
+      double[] row = basis.get(k);
+      for (int i = 0; i < dimension; i++ ) {
+        reduced[i] -= multiplier * row[i];
+      }
+      reduced[pivotCol] = 0.0; // exactly
+    }
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * basis.size() * dimension, (long) (basis.size() + 1) * dimension,
+              dimension);
+    }
+    return reduced;
+  }
+  
+  /**
+   * Returns the largest absolute value a reduced element of the specified {@link Vector} can
+   * have and still be treated as zero.
+   */
+  private double threshold(Vector vec) {
+    int maxIndex = Vec.iamax(vec);
+    return (maxIndex == -1) ? 0.0 : tolerance * Math.abs(vec.get(maxIndex));
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding the basis vectors as rows, in increasing order of their
+   * pivot columns.
+   * 
+   * @return a new {@link CMat} holding the basis.
+   */
+  public CMat toCMat() {
+    int rank = basis.size();
+    Integer[] order = new Integer[rank];
+    for (int k = 0; k < rank; k++ ) {
+      order[k] = k;
+    }
+    Arrays.sort(order, (k1, k2) -> Integer.compare(pivotCols[k1], pivotCols[k2]));
+    CMat mat = new CMat(rank, dimension);
+    for (int rI = 0; rI < rank; rI++ ) {
+      System.arraycopy(basis.get(order[rI]), 0, mat.values, rI * dimension, dimension);
+    }
+    return mat;
+  }
+}
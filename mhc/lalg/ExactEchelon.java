@@ -0,0 +1,445 @@
+package mhc.lalg;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * The exact reduced echelon form of an integer {@link Matrix}, computed by fraction-free
+ * (Bareiss) Gauss-Jordan elimination. Unlike {@link Mat#toReducedEchelonForm(Matrix)} there is
+ * no rounding, so the rank, pivot columns and null space are always right.
+ * <p>
+ * Each step replaces every row <code>i</code> other than the pivot row <code>k</code> with
+ * <code>(p * row[i] - row[i][c] * row[k]) / d</code>, where <code>p</code> is the new pivot
+ * and <code>d</code> the previous one. The division is always exact, every element stays an
+ * integer minor of the original {@link Matrix}, and at the end the rows hold
+ * <code>D * RREF</code> where <code>D</code> is the last pivot. So the result is kept as
+ * integer numerators over the one common {@link #getDenominator() denominator}.
+ * <p>
+ * Rows are held in <code>long</code> and every product is checked for overflow. A row whose
+ * update overflows is redone in {@link BigInteger}, and goes back to <code>long</code> as soon
+ * as its elements fit again, so only the rows that need it pay for {@link BigInteger}.
+ */
+public class ExactEchelon {
+  
+  private final int numRows;
+  
+  private final int numCols;
+  
+  private final int rank;
+  
+  /**
+   * <code>pivotCols[k]</code> is the column of the leading entry of row <code>k</code>.
+   */
+  private final int[] pivotCols;
+  
+  /**
+   * The numerators of each row that fits in <code>long</code>, or null.
+   */
+  private final long[][] small;
+  
+  /**
+   * The numerators of each row that does not fit in <code>long</code>, or null.
+   */
+  private final BigInteger[][] big;
+  
+  /**
+   * The positive common denominator.
+   */
+  private final BigInteger denominator;
+  
+  ExactEchelon(int numCols, int rank, int[] pivotCols, long[][] small, BigInteger[][] big,
+          BigInteger denominator) {
+    this.numRows = small.length;
+    this.numCols = numCols;
+    this.rank = rank;
+    this.pivotCols = pivotCols;
+    this.small = small;
+    this.big = big;
+    this.denominator = denominator;
+  }
+  
+  /**
+   * Returns the exact reduced echelon form of the specified integer matrix, given as an array
+   * of rows of the same length. The array is not changed.
+   * 
+   * @param rows the rows of the matrix
+   * @return the exact reduced echelon form of the matrix.
+   */
+  public static ExactEchelon of(long[][] rows) {
+    int numCols = (rows.length == 0) ? 0 : rows[0].length;
+    long[][] small = new long[rows.length][];
+    for (int rI = 0; rI < rows.length; rI++ ) {
+      assert rows[rI].length == numCols;
+      small[rI] = rows[rI].clone();
+    }
+    return eliminate(numCols, small);
+  }
+  
+  /**
+   * Returns the exact reduced echelon form of the specified {@link Matrix}, which is not
+   * changed. It is an error if an element of the {@link Matrix} is not an integer that fits in
+   * a <code>long</code>.
+   * 
+   * @param mat the {@link Matrix}
+   * @return the exact reduced echelon form of the {@link Matrix}.
+   */
+  public static ExactEchelon of(Matrix mat) {
+    return eliminate(mat.getNumCols(), longRows(mat));
+  }
+  
+  /**
+   * Returns the elements of the indicated row as {@link BigInteger}s.
+   */
+  private static BigInteger[] bigRow(long[][] small, BigInteger[][] big, int rI) {
+    if (big[rI] != null)
+      return big[rI];
+    long[] row = small[rI];
+    BigInteger[] bigRow = new BigInteger[row.length];
+    for (int cI = 0; cI < row.length; cI++ ) {
+      bigRow[cI] = BigInteger.valueOf(row[cI]);
+    }
+    return bigRow;
+  }
+  
+  /**
+   * Does the fraction-free Gauss-Jordan elimination of the specified rows.
+   */
+  private static ExactEchelon eliminate(int numCols, long[][] small) {
+    int numRows = small.length;
+    BigInteger[][] big = new BigInteger[numRows][];
+    for (int rI = 0; rI < numRows; rI++ ) {
+      for (long value : small[rI]) {
+        if (value == Long.MIN_VALUE) {
+          big[rI] = bigRow(small, big, rI); // so it can be negated
+          small[rI] = null;
+          break;
+        }
+      }
+    }
+    int[] pivotCols = new int[Math.min(numRows, numCols)];
+    long[] scratch = new long[numCols];
+    int rank = 0;
+    BigInteger prevPivot = BigInteger.ONE;
+    for (int cI = 0; (cI < numCols) && (rank < numRows); cI++ ) {
+      int pivotRow = -1;
+      for (int rI = rank; rI < numRows; rI++ ) {
+        if (signum(small, big, rI, cI) == 0) {
+          continue;
+        }
+        if (big[rI] == null) {
+          pivotRow = rI;
+          break; // prefer a long pivot row, which keeps more updates in long
+        }
+        if (pivotRow == -1) {
+          pivotRow = rI;
+        }
+      }
+      if (pivotRow == -1) {
+        continue; // the column is already zero below the pivots
+      }
+      swap(small, rank, pivotRow);
+      swap(big, rank, pivotRow);
+      long[] pivotSmall = small[rank];
+      BigInteger[] pivotBig = null;
+      boolean prevFits = prevPivot.bitLength() < 64;
+      long prevValue = prevPivot.longValue();
+      for (int rI = 0; rI < numRows; rI++ ) {
+        if (rI == rank) {
+          continue; // the pivot row is not changed
+        }
+        if ((big[rI] == null) && (pivotSmall != null) && prevFits
+                && updateLong(small[rI], pivotSmall, cI, prevValue, scratch)) {
+          continue;
+        }
+        if (pivotBig == null) {
+          pivotBig = bigRow(small, big, rank);
+        }
+        BigInteger[] row = bigRow(small, big, rI);
+        updateBig(row, pivotBig, cI, prevPivot);
+        small[rI] = toLongs(row);
+        big[rI] = (small[rI] == null) ? row : null;
+      }
+      prevPivot = (pivotSmall != null) ? BigInteger.valueOf(pivotSmall[cI]) : big[rank][cI];
+      pivotCols[rank++ ] = cI;
+    }
+    if (prevPivot.signum() < 0) {
+      prevPivot = prevPivot.negate();
+      for (int rI = 0; rI < rank; rI++ ) {
+        negate(small, big, rI);
+      }
+    }
+    int[] pivots = new int[rank];
+    System.arraycopy(pivotCols, 0, pivots, 0, rank);
+    return new ExactEchelon(numCols, rank, pivots, small, big, prevPivot);
+  }
+  
+  /**
+   * Returns the rows of the specified {@link Matrix} as <code>long</code>s. It is an error if an
+   * element is not an integer that fits in a <code>long</code>.
+   */
+  static long[][] longRows(Matrix mat) {
+    int numRows = mat.getNumRows();
+    int numCols = mat.getNumCols();
+    long[][] rows = new long[numRows][numCols];
+    for (int rI = 0; rI < numRows; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        double value = mat.get(rI, cI);
+        if ((value != Math.rint(value)) || (Math.abs(value) >= 0x1.0p63))
+          throw new RuntimeException("Element [" + rI + "," + cI + "] is not a long integer");
+        rows[rI][cI] = (long) value;
+      }
+    }
+    return rows;
+  }
+  
+  /**
+   * Negates the elements of the indicated row. No <code>long</code> element can be
+   * {@link Long#MIN_VALUE}, see {@link #updateLong}, so this cannot overflow.
+   */
+  private static void negate(long[][] small, BigInteger[][] big, int rI) {
+    if (big[rI] != null) {
+      BigInteger[] row = big[rI];
+      for (int cI = 0; cI < row.length; cI++ ) {
+        row[cI] = row[cI].negate();
+      }
+    } else {
+      long[] row = small[rI];
+      for (int cI = 0; cI < row.length; cI++ ) {
+        row[cI] = -row[cI];
+      }
+    }
+  }
+  
+  /**
+   * Returns the sign of the indicated element.
+   */
+  private static int signum(long[][] small, BigInteger[][] big, int rI, int cI) {
+    return (big[rI] != null) ? big[rI][cI].signum() : Long.signum(small[rI][cI]);
+  }
+  
+  /**
+   * Swaps the indicated rows of the specified array.
+   */
+  private static <T> void swap(T[] rows, int rI1, int rI2) {
+    T temp = rows[rI1];
+    rows[rI1] = rows[rI2];
+    rows[rI2] = temp;
+  }
+  
+  /**
+   * Returns the elements of the specified row as <code>long</code>s, or null if any of them
+   * does not fit. Like {@link #updateLong} this leaves {@link Long#MIN_VALUE} in
+   * {@link BigInteger}.
+   */
+  private static long[] toLongs(BigInteger[] row) {
+    long[] longs = new long[row.length];
+    for (int cI = 0; cI < row.length; cI++ ) {
+      long value = row[cI].longValue();
+      if ((row[cI].bitLength() >= 64) || (value == Long.MIN_VALUE))
+        return null;
+      longs[cI] = value;
+    }
+    return longs;
+  }
+  
+  /**
+   * Does one fraction-free update of the specified row in {@link BigInteger}.
+   */
+  private static void updateBig(BigInteger[] row, BigInteger[] pivotRow, int pivotCol,
+          BigInteger prevPivot) {
+    BigInteger pivot = pivotRow[pivotCol];
+    BigInteger leading = row[pivotCol];
+    boolean divide = !prevPivot.equals(BigInteger.ONE);
+    for (int cI = 0; cI < row.length; cI++ ) {
+      if (cI == pivotCol) {
+        row[cI] = BigInteger.ZERO;
+        continue;
+      }
+      BigInteger value = pivot.multiply(row[cI]);
+      if (leading.signum() != 0) {
+        value = value.subtract(leading.multiply(pivotRow[cI]));
+      }
+      row[cI] = divide ? value.divide(prevPivot) : value;
+    }
+  }
+  
+  /**
+   * Does one fraction-free update of the specified row in <code>long</code>. Returns false,
+   * leaving the row unchanged, if any product overflows or a result is
+   * {@link Long#MIN_VALUE}, which keeps negation and division safe.
+   */
+  private static boolean updateLong(long[] row, long[] pivotRow, int pivotCol, long prevPivot,
+          long[] scratch) {
+    long pivot = pivotRow[pivotCol];
+    long leading = row[pivotCol];
+    try {
+      for (int cI = 0; cI < row.length; cI++ ) {
+        long value = Math.subtractExact(Math.multiplyExact(pivot, row[cI]),
+                Math.multiplyExact(leading, pivotRow[cI]));
+        if (value == Long.MIN_VALUE)
+          return false;
+        scratch[cI] = value / prevPivot;
+      }
+    } catch (ArithmeticException e) {
+      return false;
+    }
+    System.arraycopy(scratch, 0, row, 0, row.length);
+    return true;
+  }
+  
+  /**
+   * Returns the indicated element of the reduced echelon form, rounded to a
+   * <code>double</code>.
+   * 
+   * @param rowIndex the index of the row
+   * @param colIndex the index of the column
+   * @return the indicated element, rounded to a <code>double</code>.
+   */
+  public double get(int rowIndex, int colIndex) {
+    if (big[rowIndex] == null) {
+      long numerator = small[rowIndex][colIndex];
+      if ((numerator == 0) || (denominator.equals(BigInteger.ONE)))
+        return numerator;
+    }
+    return new BigDecimal(getNumerator(rowIndex, colIndex))
+            .divide(new BigDecimal(denominator), MathContext.DECIMAL128).doubleValue();
+  }
+  
+  /**
+   * Returns the positive denominator shared by every element of the reduced echelon form. It
+   * is 1 if the rank is zero. {@link #of(long[][])} gives the last Bareiss pivot, the absolute
+   * value of a nonzero minor of order {@link #getRank()}, and {@link ModularEchelon} gives the
+   * least common denominator of the elements, which divides that minor.
+   * 
+   * @return the common denominator.
+   */
+  public BigInteger getDenominator() {
+    return denominator;
+  }
+  
+  /**
+   * Returns the number of columns of the matrix.
+   * 
+   * @return the number of columns of the matrix.
+   */
+  public int getNumCols() {
+    return numCols;
+  }
+  
+  /**
+   * Returns the numerator of the indicated element of the reduced echelon form, which is the
+   * element times {@link #getDenominator()}.
+   * 
+   * @param rowIndex the index of the row
+   * @param colIndex the index of the column
+   * @return the numerator of the indicated element.
+   */
+  public BigInteger getNumerator(int rowIndex, int colIndex) {
+    return (big[rowIndex] != null) ? big[rowIndex][colIndex]
+            : BigInteger.valueOf(small[rowIndex][colIndex]);
+  }
+  
+  /**
+   * Returns the number of rows of the matrix.
+   * 
+   * @return the number of rows of the matrix.
+   */
+  public int getNumRows() {
+    return numRows;
+  }
+  
+  /**
+   * Returns a new array holding the column of the leading entry of each nonzero row.
+   * 
+   * @return the pivot columns, in increasing order.
+   */
+  public int[] getPivotColumns() {
+    return pivotCols.clone();
+  }
+  
+  /**
+   * Returns the rank of the matrix, the number of nonzero rows in its reduced echelon form.
+   * 
+   * @return the rank of the matrix.
+   */
+  public int getRank() {
+    return rank;
+  }
+  
+  /**
+   * Returns an integer basis of the null space of the matrix, one vector for each column
+   * without a pivot. Each vector is divided by the greatest common divisor of its elements.
+   * 
+   * @return the basis vectors, each an array of length {@link #getNumCols()}.
+   */
+  public BigInteger[][] nullSpace() {
+    BigInteger[][] basis = new BigInteger[numCols - rank][];
+    int bI = 0;
+    int pI = 0;
+    for (int cI = 0; cI < numCols; cI++ ) {
+      if ((pI < rank) && (pivotCols[pI] == cI)) {
+        pI++ ;
+        continue; // a pivot column is not free
+      }
+      BigInteger[] vec = new BigInteger[numCols];
+      Arrays.fill(vec, BigInteger.ZERO);
+      vec[cI] = denominator;
+      BigInteger gcd = denominator;
+      for (int rI = 0; rI < pI; rI++ ) {
+        BigInteger value = getNumerator(rI, cI).negate();
+        vec[pivotCols[rI]] = value;
+        gcd = gcd.gcd(value);
+      }
+      for (int i = 0; i < numCols; i++ ) {
+        vec[i] = vec[i].divide(gcd);
+      }
+      basis[bI++ ] = vec;
+    }
+    return basis;
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding the reduced echelon form rounded to
+   * <code>double</code>.
+   * 
+   * @return a new {@link CMat} holding the reduced echelon form.
+   */
+  public CMat toCMat() {
+    CMat mat = new CMat(numRows, numCols);
+    for (int rI = 0; rI < rank; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        mat.set(rI, cI, get(rI, cI));
+      }
+    }
+    return mat;
+  }
+  
+  /**
+   * Returns the reduced echelon form with each nonzero element written as a fraction in lowest
+   * terms, one row per line.
+   * 
+   * @return the reduced echelon form as a {@link String}.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int rI = 0; rI < numRows; rI++ ) {
+      sb.append('[');
+      for (int cI = 0; cI < numCols; cI++ ) {
+        if (cI > 0) {
+          sb.append(", ");
+        }
+        BigInteger numerator = getNumerator(rI, cI);
+        BigInteger gcd = numerator.gcd(denominator);
+        sb.append(numerator.divide(gcd));
+        if ((numerator.signum() != 0) && !gcd.equals(denominator)) {
+          sb.append('/').append(denominator.divide(gcd));
+        }
+      }
+      sb.append("]\n");
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,184 @@
+package mhc.lalg;
+
+import mhc.lalg.util.OpCounters;
+import mhc.lalg.util.OpCounters.OpEvent;
+
+/**
+ * The LU factorization with partial pivoting, <code>P * A = L * U</code>, of a square
+ * {@link Matrix} done entirely in <code>float</code>. It works like {@link LUDecomp} on half
+ * the memory traffic, at the cost of single precision factors. It is used by
+ * {@link Refinement} as the fast inner solver of mixed precision iterative refinement.
+ * <p>
+ * A {@link Matrix} with an exactly zero pivot is reported as singular by
+ * {@link #isSingular()} rather than by an exception. Elements too large for a
+ * <code>float</code> become infinite, so the factors of such a {@link Matrix} are not finite.
+ */
+public class FLUDecomp {
+  
+  private final int dim;
+  
+  /**
+   * The factors, <code>L</code> below the diagonal and <code>U</code> on and above it.
+   */
+  final float[] lu;
+  
+  /**
+   * <code>pivots[k]</code> is the row that was swapped with row <code>k</code> at step
+   * <code>k</code>.
+   */
+  private final int[] pivots;
+  
+  /**
+   * The step at which the first zero pivot was found, or -1 if there was none.
+   */
+  private final int firstZeroPivot;
+  
+  /**
+   * +1 or -1 as an even or odd number of rows were swapped.
+   */
+  private final int pivotSign;
+  
+  /**
+   * Computes the LU factorization of the specified square {@link Matrix}.
+   * 
+   * @param mat the {@link Matrix} to be factored, which is not changed.
+   */
+  public FLUDecomp(Matrix mat) {
+    if ( !mat.isSquare())
+      throw new RuntimeException("Only a square matrix can be factored");
+    dim = mat.getNumRows();
+    lu = FMat.of(mat).values;
+    pivots = new int[dim];
+    OpEvent event = OpCounters.beginEvent("slu", dim, dim);
+    int zeroPivot = -1;
+    int sign = 1;
+    for (int k = 0; k < dim; k++ ) {
+      int kPos = k * dim;
+      int pivotRow = k;
+      float maxValue = Math.abs(lu[kPos + k]);
+      for (int rI = k + 1; rI < dim; rI++ ) {
+        float nextVal = Math.abs(lu[(rI * dim) + k]);
+        if (nextVal > maxValue) {
+          maxValue = nextVal;
+          pivotRow = rI;
+        }
+      }
+      if (OpCounters.ENABLED) {
+        OpCounters.pivotSearch(dim - k);
+      }
+      pivots[k] = pivotRow;
+      if (pivotRow != k) {
+        int pPos = pivotRow * dim;
+        for (int cI = 0; cI < dim; cI++ ) {
+          float temp = lu[kPos + cI];
+          lu[kPos + cI] = lu[pPos + cI];
+          lu[pPos + cI] = temp;
+        }
+        sign = -sign;
+      }
+      float pivot = lu[kPos + k];
+      if (pivot == 0.0f) {
+        if (zeroPivot == -1) {
+          zeroPivot = k;
+        }
+        continue; // the column is already zero below the pivot
+      }
+      for (int rI = k + 1; rI < dim; rI++ ) {
+        int rPos = rI * dim;
+        float multiplier = lu[rPos + k] / pivot;
+        lu[rPos + k] = multiplier;
+        if (multiplier == 0.0f) {
+          continue; // the row adds nothing
+        }
+        for (int cI = k + 1; cI < dim; cI++ ) {
+          lu[rPos + cI] -= multiplier * lu[kPos + cI];
+        }
+      }
+    }
+    firstZeroPivot = zeroPivot;
+    pivotSign = sign;
+    long numFlops = (2L * dim * dim * dim) / 3;
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, (long) dim * dim, (long) dim * dim);
+    }
+    OpCounters.commitEvent(event, numFlops);
+  }
+  
+  /**
+   * Returns the determinant of the factored {@link Matrix}.
+   * 
+   * @return the determinant of the factored {@link Matrix}.
+   */
+  public double determinant() {
+    double det = pivotSign;
+    for (int k = 0; k < dim; k++ ) {
+      det *= lu[(k * dim) + k];
+    }
+    return det;
+  }
+  
+  /**
+   * Returns the dimension of the factored {@link Matrix}.
+   * 
+   * @return the dimension of the factored {@link Matrix}.
+   */
+  public int dimension() {
+    return dim;
+  }
+  
+  /**
+   * Returns true if a zero pivot was found, that is if the factored {@link Matrix} is
+   * singular.
+   * 
+   * @return true if the factored {@link Matrix} is singular.
+   */
+  public boolean isSingular() {
+    return firstZeroPivot != -1;
+  }
+  
+  /**
+   * Returns the solution <code>x</code> of <code>A * x = b</code>, with <code>b</code> rounded
+   * to <code>float</code>. It is an error if the factored {@link Matrix} is singular.
+   * 
+   * @param b the right hand side
+   * @return a new {@link FVec} holding the solution.
+   */
+  public FVec solve(Vector b) {
+    assert b.dimension() == dim;
+    FVec x = FVec.of(b);
+    solveInPlace(x.values);
+    return x;
+  }
+  
+  /**
+   * Replaces the right hand side held in the specified array by the solution.
+   */
+  void solveInPlace(float[] x) {
+    if (isSingular())
+      throw new RuntimeException("Matrix is singular");
+    for (int k = 0; k < dim; k++ ) {
+      int pivotRow = pivots[k];
+      if (pivotRow != k) {
+        float temp = x[k];
+        x[k] = x[pivotRow];
+        x[pivotRow] = temp;
+      }
+    }
+    for (int rI = 1; rI < dim; rI++ ) {
+      int rPos = rI * dim;
+      float sum = x[rI];
+      for (int cI = 0; cI < rI; cI++ ) {
+        sum -= lu[rPos + cI] * x[cI];
+      }
+      x[rI] = sum;
+    }
+    for (int rI = dim - 1; rI >= 0; rI-- ) {
+      int rPos = rI * dim;
+      float sum = x[rI];
+      for (int cI = rI + 1; cI < dim; cI++ ) {
+        sum -= lu[rPos + cI] * x[cI];
+      }
+      x[rI] = sum / lu[rPos + rI];
+    }
+  }
+}
@@ -0,0 +1,245 @@
+package mhc.lalg;
+
+/**
+ * A concrete implementation of {@link Matrix} that stores its elements as <code>float</code>s
+ * in row major order, which halves the memory it uses and the bandwidth needed to stream it.
+ * Values are rounded to <code>float</code> when they are set and widened to
+ * <code>double</code> when they are read.
+ * <p>
+ * {@link Mat#sgemv(boolean, float, FMat, FVec, float, FVec, boolean)} and
+ * {@link Mat#sgemm(float, FMat, FMat, float, FMat, boolean)} work directly on the backing
+ * arrays and can accumulate in either <code>float</code> or <code>double</code>.
+ */
+public class FMat extends Matrix {
+  
+  /**
+   * Implements a {@link Vector} view of a col in this matrix.
+   */
+  public class ColVec extends Vector {
+    
+    private final int colIndex;
+    
+    private final int firstRow;
+    
+    private final int cntRows;
+    
+    public ColVec(int colIndex, int firstRow, int numRows) {
+      this.colIndex = colIndex;
+      this.firstRow = firstRow;
+      cntRows = numRows;
+    }
+    
+    @Override
+    public int dimension() {
+      return cntRows;
+    }
+    
+    @Override
+    public double get(int index) {
+      return FMat.this.get(firstRow + index, colIndex);
+    }
+    
+    @Override
+    public void set(int index, double value) {
+      FMat.this.set(firstRow + index, colIndex, value);
+    }
+  }
+  
+  /**
+   * Implements a {@link Vector} view of a row in this matrix.
+   */
+  public class RowVec extends Vector {
+    
+    private final int rowIndex;
+    
+    private final int firstCol;
+    
+    private final int cntCols;
+    
+    public RowVec(int rowIndex, int firstCol, int numCols) {
+      this.rowIndex = rowIndex;
+      this.firstCol = firstCol;
+      cntCols = numCols;
+    }
+    
+    @Override
+    public int dimension() {
+      return cntCols;
+    }
+    
+    @Override
+    public double get(int index) {
+      return FMat.this.get(rowIndex, firstCol + index);
+    }
+    
+    @Override
+    public void set(int index, double value) {
+      FMat.this.set(rowIndex, firstCol + index, value);
+    }
+  }
+  
+  /**
+   * Implements a {@link Matrix} view of a portion of its containing {@link FMat}.
+   */
+  public class SubMatrix extends Matrix {
+    
+    final int firstRow;
+    
+    final int cntCols;
+    
+    final int firstCol;
+    
+    final int cntRows;
+    
+    /**
+     * Creates a new {@link SubMatrix} view of its containing {@link FMat}, so updates to the
+     * {@link SubMatrix} will be updates to the containing {@link FMat}.
+     * 
+     * @param firstRow the index of the first row in the {@link SubMatrix}.
+     * @param numRows the number of rows in the {@link SubMatrix}.
+     * @param firstCol the index of the first column in the {@link SubMatrix}.
+     * @param numCols the number of columns in the {@link SubMatrix}.
+     */
+    public SubMatrix(int firstRow, int numRows, int firstCol, int numCols) {
+      this.firstRow = firstRow;
+      cntRows = numRows;
+      this.firstCol = firstCol;
+      cntCols = numCols;
+    }
+    
+    @Override
+    public double get(int rowIndex, int colIndex) {
+      return FMat.this.get(rowIndex + firstRow, colIndex + firstCol);
+    }
+    
+    @Override
+    public int getNumCols() {
+      return cntCols;
+    }
+    
+    @Override
+    public int getNumRows() {
+      return cntRows;
+    }
+    
+    @Override
+    public Vector getSubCol(int colIndex, int firstRow, int numRows) {
+      return FMat.this.getSubCol(colIndex + firstCol, firstRow + this.firstRow, numRows);
+    }
+    
+    @Override
+    public Matrix getSubMatrix(int rowIndex, int numRows, int colIndex, int numCols) {
+      return new SubMatrix(rowIndex + firstRow, numRows, colIndex + firstCol, numCols);
+    }
+    
+    @Override
+    public Vector getSubRow(int rowIndex, int firstCol, int numCols) {
+      return FMat.this.getSubRow(rowIndex + firstRow, firstCol + this.firstCol, numCols);
+    }
+    
+    @Override
+    public void set(int rowIndex, int colIndex, double value) {
+      FMat.this.set(rowIndex + firstRow, colIndex + firstCol, value);
+    }
+  }
+  
+  private final int numRows;
+  
+  private final int numCols;
+  
+  /**
+   * The array that holds the elements of this {@link FMat} in row major order.
+   */
+  final float[] values;
+  
+  /**
+   * Creates a zero {@link FMat} with the specified dimensions.
+   * 
+   * @param rowDimension the number of rows
+   * @param colDimension the number of columns
+   */
+  public FMat(int rowDimension, int colDimension) {
+    numRows = rowDimension;
+    numCols = colDimension;
+    values = new float[rowDimension * colDimension];
+  }
+  
+  /**
+   * Returns a new {@link FMat} holding the elements of the specified {@link Matrix} rounded to
+   * <code>float</code>. A {@link CMat} is converted in one pass over its backing array.
+   * 
+   * @param mat the {@link Matrix}
+   * @return a new {@link FMat} holding the elements of the specified {@link Matrix}.
+   */
+  public static FMat of(Matrix mat) {
+    int numRows = mat.getNumRows();
+    int numCols = mat.getNumCols();
+    FMat fMat = new FMat(numRows, numCols);
+    float[] fValues = fMat.values;
+    if (mat instanceof CMat cMat) {
+      double[] src = cMat.values;
+      int size = numRows * numCols;
+      for (int i = 0; i < size; i++ ) {
+        fValues[i] = (float) src[i];
+      }
+      return fMat;
+    }
+    for (int rI = 0; rI < numRows; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        fValues[(rI * numCols) + cI] = (float) mat.get(rI, cI);
+      }
+    }
+    return fMat;
+  }
+  
+  @Override
+  public double get(int rowIndex, int colIndex) {
+    return values[(rowIndex * numCols) + colIndex];
+  }
+  
+  @Override
+  public int getNumCols() {
+    return numCols;
+  }
+  
+  @Override
+  public int getNumRows() {
+    return numRows;
+  }
+  
+  @Override
+  public Vector getSubCol(int colIndex, int firstRow, int numRows) {
+    return new ColVec(colIndex, firstRow, numRows);
+  }
+  
+  @Override
+  public Matrix getSubMatrix(int firstRow, int numRows, int firstCol, int numCols) {
+    return new SubMatrix(firstRow, numRows, firstCol, numCols);
+  }
+  
+  @Override
+  public Vector getSubRow(int rowIndex, int colIndex, int numCols) {
+    return new RowVec(rowIndex, colIndex, numCols);
+  }
+  
+  @Override
+  public void set(int rowIndex, int colIndex, double value) {
+    values[(rowIndex * numCols) + colIndex] = (float) value;
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding the elements of this {@link FMat}, converted in one
+   * pass over the backing arrays.
+   * 
+   * @return a new {@link CMat} holding the elements of this {@link FMat}.
+   */
+  public CMat toCMat() {
+    CMat mat = new CMat(numRows, numCols);
+    double[] dst = mat.values;
+    int size = numRows * numCols;
+    for (int i = 0; i < size; i++ ) {
+      dst[i] = values[i];
+    }
+    return mat;
+  }
+}
@@ -0,0 +1,268 @@
+package mhc.lalg;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import mhc.lalg.util.OpCounters;
+
+/**
+ * A bounded cache of {@link LUDecomp}s, so a coefficient {@link Matrix} that recurs is factored
+ * once rather than on every solve. Entries are keyed by a 128 bit fingerprint of the dimensions
+ * and the exact contents of the {@link Matrix}, which costs one pass over the elements against
+ * the <code>2n<sup>3</sup>/3</code> flops of a factorization. A {@link Matrix} changed through
+ * {@link Matrix#set(int, int, double)} or a row operation therefore has a different
+ * fingerprint and misses, so a stale factorization is never returned; the old entry is left to
+ * be evicted.
+ * <p>
+ * The cache holds at most <code>maxBytes</code> of factors and evicts the least recently used
+ * entries to stay under it. A factorization larger than the whole cache is returned but not
+ * kept. The cache is thread safe: a lookup holds a lock only while the map is touched, and a
+ * miss factors outside it, so two threads that miss on the same {@link Matrix} at once may both
+ * factor it.
+ */
+public class FactorizationCache {
+  
+  /**
+   * The fingerprint of a {@link Matrix}: its dimensions and two independent 64 bit hashes of
+   * its elements in row major order.
+   */
+  private static final class Key {
+    
+    private final int numRows;
+    
+    private final int numCols;
+    
+    private final long hash1;
+    
+    private final long hash2;
+    
+    Key(int numRows, int numCols, long hash1, long hash2) {
+      this.numRows = numRows;
+      this.numCols = numCols;
+      this.hash1 = hash1;
+      this.hash2 = hash2;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+      return (o instanceof Key other) && (hash1 == other.hash1) && (hash2 == other.hash2)
+              && (numRows == other.numRows) && (numCols == other.numCols);
+    }
+    
+    @Override
+    public int hashCode() {
+      return (int) hash1;
+    }
+  }
+  
+  /**
+   * The bytes an entry takes besides its factors: the key, the map entry and the object
+   * headers.
+   */
+  private static final long ENTRY_OVERHEAD = 128;
+  
+  private final long maxBytes;
+  
+  private final ReentrantLock lock = new ReentrantLock();
+  
+  /**
+   * The entries in order of use, least recent first. Guarded by {@link #lock}.
+   */
+  private final LinkedHashMap<Key, LUDecomp> entries = new LinkedHashMap<>(16, 0.75f, true);
+  
+  /**
+   * The bytes held by {@link #entries}. Guarded by {@link #lock}.
+   */
+  private long numBytes;
+  
+  private final LongAdder numHits = new LongAdder();
+  
+  private final LongAdder numMisses = new LongAdder();
+  
+  private final LongAdder numEvictions = new LongAdder();
+  
+  /**
+   * Creates an empty {@link FactorizationCache}.
+   * 
+   * @param maxBytes the most bytes of factors to keep
+   */
+  public FactorizationCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+  
+  /**
+   * Returns the bytes taken by the factorization of an <code>n x n</code> {@link Matrix}.
+   */
+  private static long bytesOf(int dim) {
+    return (8L * dim * dim) + (4L * dim) + ENTRY_OVERHEAD;
+  }
+  
+  /**
+   * Returns the fingerprint of the specified {@link Matrix}.
+   */
+  private static Key fingerprint(Matrix mat) {
+    int numRows = mat.getNumRows();
+    int numCols = mat.getNumCols();
+    long hash1 = 0x9E3779B97F4A7C15L;
+    long hash2 = 0xC2B2AE3D27D4EB4FL;
+    if (mat instanceof CMat cmat) {
+      double[] values = cmat.values;
+      int size = numRows * numCols;
+      for (int i = 0; i < size; i++ ) {
+        long bits = Double.doubleToLongBits(values[i]);
+        hash1 = Long.rotateLeft(hash1 ^ (bits * 0x87C37B91114253D5L), 31) * 0x4CF5AD432745937FL;
+        hash2 = (Long.rotateLeft(hash2, 27) + bits) * 0x94D049BB133111EBL;
+      }
+    } else {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          long bits = Double.doubleToLongBits(mat.get(rI, cI));
+          hash1 = Long.rotateLeft(hash1 ^ (bits * 0x87C37B91114253D5L), 31)
+                  * 0x4CF5AD432745937FL;
+          hash2 = (Long.rotateLeft(hash2, 27) + bits) * 0x94D049BB133111EBL;
+        }
+      }
+    }
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, (long) numRows * numCols, 0);
+    }
+    return new Key(numRows, numCols, mix(hash1), mix(hash2));
+  }
+  
+  /**
+   * Spreads the bits of a hash, the finalizer of MurmurHash3.
+   */
+  private static long mix(long hash) {
+    hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+    hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return hash ^ (hash >>> 33);
+  }
+  
+  /**
+   * Removes every entry. The counters are not reset.
+   */
+  public void clear() {
+    lock.lock();
+    try {
+      entries.clear();
+      numBytes = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  /**
+   * Returns the number of bytes of factors held now.
+   * 
+   * @return the number of bytes held.
+   */
+  public long getNumBytes() {
+    lock.lock();
+    try {
+      return numBytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  /**
+   * Returns the number of factorizations held now.
+   * 
+   * @return the number of entries.
+   */
+  public int getNumEntries() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  /**
+   * Returns the number of entries evicted to make room so far.
+   * 
+   * @return the number of evictions.
+   */
+  public long getNumEvictions() {
+    return numEvictions.sum();
+  }
+  
+  /**
+   * Returns the number of lookups that found a factorization so far.
+   * 
+   * @return the number of hits.
+   */
+  public long getNumHits() {
+    return numHits.sum();
+  }
+  
+  /**
+   * Returns the number of lookups that had to factor so far.
+   * 
+   * @return the number of misses.
+   */
+  public long getNumMisses() {
+    return numMisses.sum();
+  }
+  
+  /**
+   * Returns the {@link LUDecomp} of the specified square {@link Matrix}, from the cache if one
+   * of a {@link Matrix} with the same contents is held, otherwise computed and added.
+   * 
+   * @param mat the square {@link Matrix}, which is not changed.
+   * @return the {@link LUDecomp} of <code>mat</code>, which may be shared with other callers.
+   */
+  public LUDecomp lu(Matrix mat) {
+    if ( !mat.isSquare())
+      throw new RuntimeException("Only a square matrix can be factored");
+    Key key = fingerprint(mat);
+    lock.lock();
+    try {
+      LUDecomp cached = entries.get(key);
+      if (cached != null) {
+        numHits.increment();
+        return cached;
+      }
+    } finally {
+      lock.unlock();
+    }
+    numMisses.increment();
+    LUDecomp decomp = new LUDecomp(mat);
+    long bytes = bytesOf(decomp.dimension());
+    if (bytes > maxBytes)
+      return decomp; // it would push out everything else
+    lock.lock();
+    try {
+      if (entries.put(key, decomp) == null) {
+        numBytes += bytes;
+      }
+      Iterator<Map.Entry<Key, LUDecomp>> it = entries.entrySet().iterator();
+      while (numBytes > maxBytes) {
+        LUDecomp evicted = it.next().getValue();
+        it.remove();
+        numBytes -= bytesOf(evicted.dimension());
+        numEvictions.increment();
+      }
+    } finally {
+      lock.unlock();
+    }
+    return decomp;
+  }
+  
+  /**
+   * Returns the solution <code>x</code> of <code>a * x = b</code>, using the cached
+   * {@link LUDecomp} of <code>a</code> if there is one. It is an error if <code>a</code> is
+   * singular.
+   * 
+   * @param a the square {@link Matrix}, which is not changed.
+   * @param b the right hand side
+   * @return a new {@link CVec} holding the solution.
+   */
+  public CVec solve(Matrix a, Vector b) {
+    return lu(a).solve(b);
+  }
+}
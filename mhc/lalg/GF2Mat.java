@@ -0,0 +1,477 @@
+package mhc.lalg;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A matrix over <code>GF(2)</code>, the field with elements 0 and 1, with its bits packed 64 to
+ * a <code>long</code>. Each row starts on a new word, and column <code>c</code> of a row is bit
+ * <code>c % 64</code> of word <code>c / 64</code>, so the leading entry of a row is found with
+ * {@link Long#numberOfTrailingZeros(long)}. Over <code>GF(2)</code> adding one row to another
+ * is the only row operation that is needed, and it is a word by word XOR, so a row is 64 times
+ * smaller than in a {@link CMat} and is processed 64 columns at a time.
+ * <p>
+ * {@link #toReducedEchelonForm()} uses plain Gauss-Jordan elimination for small matrices and
+ * the Method of Four Russians for large ones. The latter finds the pivots in a strip of
+ * columns, builds a table of all the sums of each group of {@value #FOUR_RUSSIANS_BITS} pivot
+ * rows, and then clears every other row of the pivot columns with one table lookup per group
+ * and a single pass over the row, rather than one row addition per pivot.
+ */
+public class GF2Mat {
+  
+  /**
+   * The number of pivot columns the Method of Four Russians takes at once. The table of their
+   * sums has <code>2^FOUR_RUSSIANS_BITS</code> rows.
+   */
+  private static final int FOUR_RUSSIANS_BITS = 8;
+  
+  /**
+   * The number of tables the Method of Four Russians applies in each pass over the rows, which
+   * divides the number of passes over the whole matrix by the same amount.
+   */
+  private static final int FOUR_RUSSIANS_TABLES = 4;
+  
+  /**
+   * Matrices with at least this many rows and columns are reduced by the Method of Four
+   * Russians.
+   */
+  private static final int FOUR_RUSSIANS_SIZE = 256;
+  
+  /**
+   * Table applications touching at least this many words are split across the common
+   * {@link java.util.concurrent.ForkJoinPool}.
+   */
+  private static final int PARALLEL_GF2_SIZE = 64 * 1024;
+  
+  private final int numRows;
+  
+  private final int numCols;
+  
+  /**
+   * The number of words in each row.
+   */
+  final int rowWords;
+  
+  /**
+   * The rows of this {@link GF2Mat}, one after the other. The bits past the last column are
+   * always zero.
+   */
+  final long[] words;
+  
+  /**
+   * Creates a zero {@link GF2Mat} with the specified dimensions.
+   * 
+   * @param numRows the number of rows
+   * @param numCols the number of columns
+   */
+  public GF2Mat(int numRows, int numCols) {
+    this.numRows = numRows;
+    this.numCols = numCols;
+    rowWords = (numCols + 63) >>> 6;
+    words = new long[numRows * rowWords];
+  }
+  
+  /**
+   * Returns a new {@link GF2Mat} with a 1 wherever the specified {@link Matrix} has an odd
+   * integer element. It is an error if an element is not an integer.
+   * 
+   * @param mat the {@link Matrix}
+   * @return a new {@link GF2Mat} holding the elements of the {@link Matrix} modulo 2.
+   */
+  public static GF2Mat of(Matrix mat) {
+    GF2Mat bits = new GF2Mat(mat.getNumRows(), mat.getNumCols());
+    for (int rI = 0; rI < bits.numRows; rI++ ) {
+      for (int cI = 0; cI < bits.numCols; cI++ ) {
+        double value = mat.get(rI, cI);
+        if (value != Math.rint(value))
+          throw new RuntimeException("Element [" + rI + "," + cI + "] is not an integer");
+        bits.set(rI, cI, Math.IEEEremainder(value, 2.0) != 0.0);
+      }
+    }
+    return bits;
+  }
+  
+  /**
+   * Adds the source row to the destination row, an XOR of their words.
+   * 
+   * @param srcRowIndex the index of the row that is added
+   * @param dstRowIndex the index of the row that is changed
+   */
+  public void addRows(int srcRowIndex, int dstRowIndex) {
+    xorRow(srcRowIndex, dstRowIndex, 0);
+  }
+  
+  /**
+   * Builds the table of the sums of every subset of the <code>numPivots</code> pivot rows that
+   * start at <code>firstRow</code>, in the table region that starts at row
+   * <code>firstEntry</code>. Row <code>s</code> of the region, from word
+   * <code>firstWord</code> on, is the sum of the pivot rows whose bits are set in
+   * <code>s</code>, and each is one XOR away from an earlier row. Row 0 is always zero.
+   */
+  private void buildTable(int firstRow, int numPivots, int firstWord, long[] table,
+          int firstEntry) {
+    for (int s = 1; s < (1 << numPivots); s++ ) {
+      int tPos = (firstEntry + s) * rowWords;
+      int prevPos = (firstEntry + (s & (s - 1))) * rowWords;
+      int pPos = (firstRow + Integer.numberOfTrailingZeros(s)) * rowWords;
+      for (int w = firstWord; w < rowWords; w++ ) {
+        table[tPos + w] = table[prevPos + w] ^ words[pPos + w];
+      }
+    }
+  }
+  
+  /**
+   * Clears the pivot columns of every row outside the pivot rows, by looking up the sums of
+   * the pivot rows that match each row's bits in the pivot columns and adding them.
+   */
+  private void clearPivotColumns(int firstRow, int numPivots, int[] pivotCols, int firstCol,
+          long[] table) {
+    int firstWord = firstCol >>> 6;
+    if ((long) numRows * (rowWords - firstWord) >= PARALLEL_GF2_SIZE) {
+      IntStream.range(0, numRows).parallel().forEach(rI -> clearPivotColumns(rI, firstRow,
+              numPivots, pivotCols, firstCol, table));
+    } else {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        clearPivotColumns(rI, firstRow, numPivots, pivotCols, firstCol, table);
+      }
+    }
+  }
+  
+  /**
+   * Clears the pivot columns of the indicated row, if it is not a pivot row.
+   */
+  private void clearPivotColumns(int rI, int firstRow, int numPivots, int[] pivotCols,
+          int firstCol, long[] table) {
+    if ((rI >= firstRow) && (rI < firstRow + numPivots)) {
+      return; // a pivot row
+    }
+    long window = window(rI, firstCol);
+    long s = 0;
+    for (int t = 0; t < numPivots; t++ ) {
+      s |= ((window >>> (pivotCols[t] - firstCol)) & 1) << t;
+    }
+    if (s == 0) {
+      return; // the pivot columns are already zero
+    }
+    /*
+     * Each group of pivots picks one row of its table, and unused tables add their zero row.
+     * The loop is unrolled for FOUR_RUSSIANS_TABLES = 4.
+     */
+    int tableSize = 1 << FOUR_RUSSIANS_BITS;
+    int mask = tableSize - 1;
+    int tPos0 = (int) (s & mask) * rowWords;
+    int tPos1 = (tableSize + (int) ((s >>> FOUR_RUSSIANS_BITS) & mask)) * rowWords;
+    int tPos2 = ((2 * tableSize) + (int) ((s >>> (2 * FOUR_RUSSIANS_BITS)) & mask)) * rowWords;
+    int tPos3 = ((3 * tableSize) + (int) ((s >>> (3 * FOUR_RUSSIANS_BITS)) & mask)) * rowWords;
+    int rPos = rI * rowWords;
+    for (int w = firstCol >>> 6; w < rowWords; w++ ) {
+      words[rPos + w] ^= table[tPos0 + w] ^ table[tPos1 + w] ^ table[tPos2 + w]
+              ^ table[tPos3 + w];
+    }
+  }
+  
+  /**
+   * Returns a new {@link GF2Mat} that is a copy of this one.
+   * 
+   * @return a new {@link GF2Mat} that is a copy of this one.
+   */
+  public GF2Mat copy() {
+    GF2Mat copy = new GF2Mat(numRows, numCols);
+    System.arraycopy(words, 0, copy.words, 0, words.length);
+    return copy;
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if ( !(obj instanceof GF2Mat))
+      return false;
+    GF2Mat other = (GF2Mat) obj;
+    return (numRows == other.numRows) && (numCols == other.numCols)
+            && Arrays.equals(words, other.words);
+  }
+  
+  /**
+   * Finds up to <code>width</code> pivots in the columns from <code>firstCol</code> among the
+   * rows from <code>firstRow</code>, moves them up to start at <code>firstRow</code> in column
+   * order, and reduces them so each is zero in the others' pivot columns. Each candidate row is
+   * reduced by the pivots found so far only in a 64 bit window of the columns, and the lowest
+   * bit left is its leading entry, so a row that is not chosen costs no more than a few word
+   * operations.
+   */
+  private int findPivots(int firstRow, int firstCol, int width, int[] pivotCols,
+          long[] pivotWindows) {
+    int firstWord = firstCol >>> 6;
+    long mask = (1L << width) - 1;
+    int numPivots = 0;
+    for (int rI = firstRow; (rI < numRows) && (numPivots < width); rI++ ) {
+      long window = window(rI, firstCol) & mask;
+      int used = 0;
+      for (int t = 0; t < numPivots; t++ ) {
+        if (((window >>> (pivotCols[t] - firstCol)) & 1) != 0) {
+          window ^= pivotWindows[t];
+          used |= 1 << t;
+        }
+      }
+      if (window == 0) {
+        continue; // the row is a sum of the pivot rows in these columns
+      }
+      int leadingCol = firstCol + Long.numberOfTrailingZeros(window);
+      for (int t = 0; t < numPivots; t++ ) {
+        if ((used & (1 << t)) != 0) {
+          xorRow(firstRow + t, rI, firstWord);
+        }
+      }
+      int pivotRow = firstRow + numPivots;
+      swapRows(pivotRow, rI);
+      for (int t = 0; t < numPivots; t++ ) {
+        if (((pivotWindows[t] >>> (leadingCol - firstCol)) & 1) != 0) {
+          xorRow(pivotRow, firstRow + t, firstWord);
+          pivotWindows[t] ^= window;
+        }
+      }
+      pivotCols[numPivots] = leadingCol;
+      pivotWindows[numPivots] = window;
+      numPivots++ ;
+    }
+    /*
+     * The pivots were found in row order, so sort them into column order.
+     */
+    for (int t = 0; t < numPivots; t++ ) {
+      int min = t;
+      for (int u = t + 1; u < numPivots; u++ ) {
+        if (pivotCols[u] < pivotCols[min]) {
+          min = u;
+        }
+      }
+      if (min != t) {
+        swapRows(firstRow + t, firstRow + min);
+        int col = pivotCols[t];
+        pivotCols[t] = pivotCols[min];
+        pivotCols[min] = col;
+        long window = pivotWindows[t];
+        pivotWindows[t] = pivotWindows[min];
+        pivotWindows[min] = window;
+      }
+    }
+    return numPivots;
+  }
+  
+  /**
+   * Reduces this {@link GF2Mat} by the Method of Four Russians, and returns the rank.
+   */
+  private int fourRussians() {
+    int stripWidth = FOUR_RUSSIANS_BITS * FOUR_RUSSIANS_TABLES;
+    int tableSize = 1 << FOUR_RUSSIANS_BITS;
+    long[] table = new long[FOUR_RUSSIANS_TABLES * tableSize * rowWords];
+    int[] pivotCols = new int[stripWidth];
+    long[] pivotWindows = new long[stripWidth];
+    int rank = 0;
+    for (int cI = 0; (cI < numCols) && (rank < numRows); cI += stripWidth) {
+      int width = Math.min(stripWidth, numCols - cI);
+      int numPivots = findPivots(rank, cI, width, pivotCols, pivotWindows);
+      if (numPivots == 0) {
+        continue; // the columns are already zero below the pivots
+      }
+      for (int g = 0; g < FOUR_RUSSIANS_TABLES; g++ ) {
+        int first = g * FOUR_RUSSIANS_BITS;
+        int groupSize = Math.max(0, Math.min(FOUR_RUSSIANS_BITS, numPivots - first));
+        if (groupSize > 0) {
+          buildTable(rank + first, groupSize, cI >>> 6, table, g * tableSize);
+        }
+      }
+      clearPivotColumns(rank, numPivots, pivotCols, cI, table);
+      rank += numPivots;
+    }
+    return rank;
+  }
+  
+  /**
+   * Returns the value of the indicated element.
+   * 
+   * @param rowIndex the index of the row
+   * @param colIndex the index of the column
+   * @return true if the element is 1.
+   */
+  public boolean get(int rowIndex, int colIndex) {
+    assert (colIndex >= 0) && (colIndex < numCols);
+    return ((words[(rowIndex * rowWords) + (colIndex >>> 6)] >>> colIndex) & 1) != 0;
+  }
+  
+  /**
+   * Returns the index of the column of the leading entry, the first 1, in the indicated row,
+   * or -1 if the row is all zeros.
+   * 
+   * @param rowIndex the index of the row
+   * @return the index of the column of the leading entry or -1.
+   */
+  public int getLeadingEntryCol(int rowIndex) {
+    int rPos = rowIndex * rowWords;
+    for (int w = 0; w < rowWords; w++ ) {
+      long word = words[rPos + w];
+      if (word != 0) {
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+      }
+    }
+    return -1;
+  }
+  
+  /**
+   * Returns the number of columns.
+   * 
+   * @return the number of columns.
+   */
+  public int getNumCols() {
+    return numCols;
+  }
+  
+  /**
+   * Returns the number of rows.
+   * 
+   * @return the number of rows.
+   */
+  public int getNumRows() {
+    return numRows;
+  }
+  
+  /**
+   * Reduces this {@link GF2Mat} by Gauss-Jordan elimination, a column at a time, and returns
+   * the rank.
+   */
+  private int gaussJordan() {
+    int rank = 0;
+    for (int cI = 0; (cI < numCols) && (rank < numRows); cI++ ) {
+      int word = cI >>> 6;
+      long bit = 1L << cI;
+      int pivotRow = rank;
+      while ((pivotRow < numRows) && ((words[(pivotRow * rowWords) + word] & bit) == 0)) {
+        pivotRow++ ;
+      }
+      if (pivotRow == numRows) {
+        continue; // the column is already zero below the pivots
+      }
+      swapRows(rank, pivotRow);
+      for (int rI = 0; rI < numRows; rI++ ) {
+        if ((rI != rank) && ((words[(rI * rowWords) + word] & bit) != 0)) {
+          xorRow(rank, rI, word);
+        }
+      }
+      rank++ ;
+    }
+    return rank;
+  }
+  
+  @Override
+  public int hashCode() {
+    return (31 * ((31 * numRows) + numCols)) + Arrays.hashCode(words);
+  }
+  
+  /**
+   * Replaces the value of the indicated element.
+   * 
+   * @param rowIndex the index of the row
+   * @param colIndex the index of the column
+   * @param value true for 1, false for 0
+   */
+  public void set(int rowIndex, int colIndex, boolean value) {
+    assert (colIndex >= 0) && (colIndex < numCols);
+    int pos = (rowIndex * rowWords) + (colIndex >>> 6);
+    if (value) {
+      words[pos] |= 1L << colIndex;
+    } else {
+      words[pos] &= ~(1L << colIndex);
+    }
+  }
+  
+  /**
+   * Swaps the indicated rows.
+   * 
+   * @param rowIndex1 the index of one row
+   * @param rowIndex2 the index of the other row
+   */
+  public void swapRows(int rowIndex1, int rowIndex2) {
+    if (rowIndex1 == rowIndex2)
+      return;
+    int pos1 = rowIndex1 * rowWords;
+    int pos2 = rowIndex2 * rowWords;
+    for (int w = 0; w < rowWords; w++ ) {
+      long temp = words[pos1 + w];
+      words[pos1 + w] = words[pos2 + w];
+      words[pos2 + w] = temp;
+    }
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding this {@link GF2Mat} as zeros and ones.
+   * 
+   * @return a new {@link CMat} holding this {@link GF2Mat}.
+   */
+  public CMat toCMat() {
+    CMat mat = new CMat(numRows, numCols);
+    for (int rI = 0; rI < numRows; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        if (get(rI, cI)) {
+          mat.set(rI, cI, 1.0);
+        }
+      }
+    }
+    return mat;
+  }
+  
+  /**
+   * Puts this {@link GF2Mat} into reduced echelon form with row swaps and row additions, and
+   * returns its rank. The nonzero rows end up at the top, each with its leading 1 the only 1
+   * in its column.
+   * 
+   * @return the rank of this {@link GF2Mat}.
+   */
+  public int toReducedEchelonForm() {
+    if ((numRows >= FOUR_RUSSIANS_SIZE) && (numCols >= FOUR_RUSSIANS_SIZE))
+      return fourRussians();
+    return gaussJordan();
+  }
+  
+  /**
+   * Returns the rows as strings of zeros and ones, one per line.
+   * 
+   * @return this {@link GF2Mat} as a {@link String}.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder((numCols + 3) * numRows);
+    for (int rI = 0; rI < numRows; rI++ ) {
+      sb.append('|');
+      for (int cI = 0; cI < numCols; cI++ ) {
+        sb.append(get(rI, cI) ? '1' : '0');
+      }
+      sb.append("|\n");
+    }
+    return sb.toString();
+  }
+  
+  /**
+   * Returns the 64 columns of the indicated row that start at <code>firstCol</code>, with
+   * <code>firstCol</code> in the lowest bit.
+   */
+  private long window(int rowIndex, int firstCol) {
+    int pos = (rowIndex * rowWords) + (firstCol >>> 6);
+    int shift = firstCol & 63;
+    long window = words[pos] >>> shift;
+    if ((shift != 0) && ((firstCol >>> 6) + 1 < rowWords)) {
+      window |= words[pos + 1] << (64 - shift);
+    }
+    return window;
+  }
+  
+  /**
+   * Adds the source row to the destination row from the indicated word on.
+   */
+  private void xorRow(int srcRowIndex, int dstRowIndex, int firstWord) {
+    int srcPos = srcRowIndex * rowWords;
+    int dstPos = dstRowIndex * rowWords;
+    for (int w = firstWord; w < rowWords; w++ ) {
+      words[dstPos + w] ^= words[srcPos + w];
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package mhc.lalg;
+
+/**
+ * A {@link Matrix} whose elements can not be changed, so it can be handed between threads and
+ * stages without copying. {@link #set(int, int, double)} and every row operation throw a
+ * {@link RuntimeException}. {@link #of(Matrix)} copies a mutable {@link Matrix} once and
+ * returns an {@link ImmutableMat} as it is, so it can be called at every boundary where a
+ * defensive {@link Mat#copy(Matrix)} was needed before.
+ * <p>
+ * The elements are held in a row major array with an offset and a row stride, so
+ * {@link #getSubMatrix(int, int, int, int)}, {@link #getSubRow(int, int, int)} and
+ * {@link #getSubCol(int, int, int)} share the array instead of copying it. {@link CowMat}
+ * gives a mutable {@link Matrix} that shares the array until it is changed.
+ */
+public final class ImmutableMat extends Matrix {
+  
+  /**
+   * The array holding the elements, which is never written after construction.
+   */
+  final double[] values;
+  
+  /**
+   * The position of element <code>[0, 0]</code> in {@link #values}.
+   */
+  final int offset;
+  
+  /**
+   * The distance between rows in {@link #values}.
+   */
+  final int stride;
+  
+  private final int numRows;
+  
+  private final int numCols;
+  
+  ImmutableMat(double[] values, int offset, int stride, int numRows, int numCols) {
+    this.values = values;
+    this.offset = offset;
+    this.stride = stride;
+    this.numRows = numRows;
+    this.numCols = numCols;
+  }
+  
+  /**
+   * Returns an {@link ImmutableMat} holding the elements of the specified {@link Matrix}. The
+   * {@link Matrix} is returned as it is if it is already an {@link ImmutableMat}, otherwise it
+   * is copied.
+   * 
+   * @param mat the {@link Matrix}
+   * @return an {@link ImmutableMat} holding its elements.
+   */
+  public static ImmutableMat of(Matrix mat) {
+    if (mat instanceof ImmutableMat immutable)
+      return immutable;
+    CMat copy = Mat.copy(mat);
+    return new ImmutableMat(copy.values, 0, copy.getNumCols(), copy.getNumRows(),
+            copy.getNumCols());
+  }
+  
+  /**
+   * Returns the exception thrown by every method that would change an {@link ImmutableMat}.
+   */
+  static RuntimeException immutable() {
+    return new RuntimeException("An immutable matrix can not be changed");
+  }
+  
+  /**
+   * Throws a {@link RuntimeException}, as an {@link ImmutableMat} can not be changed.
+   * 
+   * @see mhc.lalg.Matrix#addRowsWithMult(int, double, int)
+   */
+  @Override
+  public Matrix addRowsWithMult(int sourceRowIndex, double multiplier, int targetRowIndex) {
+    throw immutable();
+  }
+  
+  @Override
+  public double get(int rowIndex, int colIndex) {
+    return values[offset + (rowIndex * stride) + colIndex];
+  }
+  
+  @Override
+  public int getNumCols() {
+    return numCols;
+  }
+  
+  @Override
+  public int getNumRows() {
+    return numRows;
+  }
+  
+  /**
+   * Returns an {@link ImmutableVec} that shares the elements of part of a column.
+   * 
+   * @see mhc.lalg.Matrix#getSubCol(int, int, int)
+   */
+  @Override
+  public Vector getSubCol(int colIndex, int firstRow, int numRows) {
+    return new ImmutableVec(values, offset + (firstRow * stride) + colIndex, stride, numRows);
+  }
+  
+  /**
+   * Returns an {@link ImmutableMat} that shares the elements of a block.
+   * 
+   * @see mhc.lalg.Matrix#getSubMatrix(int, int, int, int)
+   */
+  @Override
+  public Matrix getSubMatrix(int firstRow, int numRows, int firstCol, int numCols) {
+    return new ImmutableMat(values, offset + (firstRow * stride) + firstCol, stride, numRows,
+            numCols);
+  }
+  
+  /**
+   * Returns an {@link ImmutableVec} that shares the elements of part of a row.
+   * 
+   * @see mhc.lalg.Matrix#getSubRow(int, int, int)
+   */
+  @Override
+  public Vector getSubRow(int rowIndex, int firstCol, int numCols) {
+    return new ImmutableVec(values, offset + (rowIndex * stride) + firstCol, 1, numCols);
+  }
+  
+  /**
+   * Throws a {@link RuntimeException}, as an {@link ImmutableMat} can not be changed.
+   * 
+   * @see mhc.lalg.Matrix#normalize(int)
+   */
+  @Override
+  public void normalize(int rowIndex) {
+    throw immutable();
+  }
+  
+  /**
+   * Throws a {@link RuntimeException}, as an {@link ImmutableMat} can not be changed.
+   * 
+   * @see mhc.lalg.Matrix#scaleRow(int, double)
+   */
+  @Override
+  public Matrix scaleRow(int rowIndex, double scaleFactor) {
+    throw immutable();
+  }
+  
+  /**
+   * Throws a {@link RuntimeException}, as an {@link ImmutableMat} can not be changed.
+   * 
+   * @see mhc.lalg.Matrix#set(int, int, double)
+   */
+  @Override
+  public void set(int rowIndex, int colIndex, double value) {
+    throw immutable();
+  }
+  
+  /**
+   * Throws a {@link RuntimeException}, as an {@link ImmutableMat} can not be changed.
+   * 
+   * @see mhc.lalg.Matrix#setSubCol(int, int, mhc.lalg.Vector)
+   */
+  @Override
+  public void setSubCol(int colIndex, int firstRow, Vector vec) {
+    throw immutable();
+  }
+  
+  /**
+   * Throws a {@link RuntimeException}, as an {@link ImmutableMat} can not be changed.
+   * 
+   * @see mhc.lalg.Matrix#setSubRow(int, int, mhc.lalg.Vector)
+   */
+  @Override
+  public void setSubRow(int rowIndex, int firstCol, Vector vec) {
+    throw immutable();
+  }
+  
+  /**
+   * Throws a {@link RuntimeException}, as an {@link ImmutableMat} can not be changed.
+   * 
+   * @see mhc.lalg.Matrix#swapRows(int, int)
+   */
+  @Override
+  public Matrix swapRows(int row1Index, int row2Index) {
+    throw immutable();
+  }
+}
@@ -0,0 +1,79 @@
+package mhc.lalg;
+
+/**
+ * A {@link Vector} whose elements can not be changed, so it can be handed between threads and
+ * stages without copying. {@link #set(int, double)} throws a {@link RuntimeException}.
+ * {@link #of(Vector)} copies a mutable {@link Vector} once and returns an {@link ImmutableVec}
+ * as it is. The rows and columns of an {@link ImmutableMat} are {@link ImmutableVec}s that
+ * share its array.
+ */
+public final class ImmutableVec extends Vector {
+  
+  /**
+   * The array holding the elements, which is never written after construction.
+   */
+  private final double[] values;
+  
+  /**
+   * The position of element 0 in {@link #values}.
+   */
+  private final int offset;
+  
+  /**
+   * The distance between elements in {@link #values}.
+   */
+  private final int stride;
+  
+  private final int dimension;
+  
+  ImmutableVec(double[] values, int offset, int stride, int dimension) {
+    this.values = values;
+    this.offset = offset;
+    this.stride = stride;
+    this.dimension = dimension;
+  }
+  
+  /**
+   * Returns an {@link ImmutableVec} holding the elements of the specified {@link Vector}. The
+   * {@link Vector} is returned as it is if it is already an {@link ImmutableVec}, otherwise
+   * it is copied.
+   * 
+   * @param vec the {@link Vector}
+   * @return an {@link ImmutableVec} holding its elements.
+   */
+  public static ImmutableVec of(Vector vec) {
+    if (vec instanceof ImmutableVec immutable)
+      return immutable;
+    return new ImmutableVec(Vec.copy(vec).values, 0, 1, vec.dimension());
+  }
+  
+  /**
+   * Returns a new {@link ImmutableVec} holding a copy of the specified values.
+   * 
+   * @param values the values
+   * @return a new {@link ImmutableVec} holding the values.
+   */
+  public static ImmutableVec vec(double... values) {
+    return new ImmutableVec(values.clone(), 0, 1, values.length);
+  }
+  
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+  
+  @Override
+  public double get(int index) {
+    return values[offset + (index * stride)];
+  }
+  
+  /**
+   * Throws a {@link RuntimeException}, as an {@link ImmutableVec} can not be changed.
+   * 
+   * @see mhc.lalg.Vector#set(int, double)
+   */
+  @Override
+  public void set(int index, double value) {
+    throw new RuntimeException("An immutable vector can not be changed");
+  }
+}
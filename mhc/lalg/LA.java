@@ -1,5 +1,7 @@
 package mhc.lalg;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Provides static methods for doing linear algebra
  */
@@ -7,4 +9,89 @@ public class LA {
   
   private LA() {
   }
+  
+  /**
+   * Returns a future of the product <code>a * b</code>, computed by the shared
+   * {@link SolveService}.
+   * 
+   * @param a the left hand {@link Matrix}, which must not change until the future completes
+   * @param b the right hand {@link Matrix}, which must not change until the future completes
+   * @return a future of a new {@link CMat} holding the product.
+   */
+  public static CompletableFuture<CMat> multiplyAsync(Matrix a, Matrix b) {
+    return SolveService.getDefault().multiplyAsync(a, b);
+  }
+  
+  /**
+   * Returns a future of the product <code>a * x</code>, computed by the shared
+   * {@link SolveService}.
+   * 
+   * @param a the {@link Matrix}, which must not change until the future completes
+   * @param x the {@link Vector}, which is copied
+   * @return a future of a new {@link CVec} holding the product.
+   */
+  public static CompletableFuture<CVec> multiplyAsync(Matrix a, Vector x) {
+    return SolveService.getDefault().multiplyAsync(a, x);
+  }
+  
+  /**
+   * Returns the solution <code>x</code> of <code>a * x = b</code>, computed with a
+   * {@link LUDecomp}. It is an error if <code>a</code> is singular.
+   * 
+   * @param a the square {@link Matrix}, which is not changed.
+   * @param b the right hand side
+   * @return a new {@link CVec} holding the solution.
+   */
+  public static CVec solve(Matrix a, Vector b) {
+    return new LUDecomp(a).solve(b);
+  }
+  
+  /**
+   * Returns the solution <code>x</code> of <code>a * x = b</code>, computed with a
+   * {@link LUDecomp} whose factors are held in the specified {@link Workspace} only for the
+   * call. The solution is also held in the {@link Workspace}, so it may only be used until the
+   * enclosing {@link Workspace.Scope} is closed. It is an error if <code>a</code> is singular.
+   * 
+   * @param a the square {@link Matrix}, which is not changed.
+   * @param b the right hand side
+   * @param workspace the {@link Workspace} to take the factors and the solution from
+   * @return a {@link CVec} from <code>workspace</code> holding the solution.
+   */
+  public static CVec solve(Matrix a, Vector b, Workspace workspace) {
+    assert b.dimension() == a.getNumRows();
+    CVec x = workspace.copy(b);
+    Workspace.Scope scope = workspace.open();
+    try {
+      new LUDecomp(a, workspace).solveInPlace(x.values);
+    } finally {
+      scope.close();
+    }
+    return x;
+  }
+  
+  /**
+   * Returns a future of the solution <code>x</code> of <code>a * x = b</code>, computed by the
+   * shared {@link SolveService}. The future fails if <code>a</code> is singular, or at once if
+   * too many requests are in flight.
+   * 
+   * @param a the square {@link Matrix}, which must not change until the future completes
+   * @param b the right hand side, which is copied
+   * @return a future of a new {@link CVec} holding the solution.
+   */
+  public static CompletableFuture<CVec> solveAsync(Matrix a, Vector b) {
+    return SolveService.getDefault().solveAsync(a, b);
+  }
+  
+  /**
+   * Solves <code>a * x = b</code> by mixed precision iterative refinement, see
+   * {@link Refinement}.
+   * 
+   * @param a the square {@link Matrix}, which is not changed.
+   * @param b the right hand side
+   * @return the {@link Refinement.Result} holding the solution, the number of iterations and
+   *         the backward error.
+   */
+  public static Refinement.Result solveRefined(Matrix a, Vector b) {
+    return Refinement.solve(a, b);
+  }
 }
@@ -0,0 +1,222 @@
+package mhc.lalg;
+
+import mhc.lalg.util.OpCounters;
+import mhc.lalg.util.OpCounters.OpEvent;
+
+/**
+ * The LU factorization with partial pivoting, <code>P * A = L * U</code>, of a square
+ * {@link Matrix}. The {@link Matrix} is copied first so it is not changed. The factors are
+ * kept in one row major array, <code>U</code> in the upper triangle and the multipliers of
+ * the unit lower triangular <code>L</code> below the diagonal, and the elimination works a row
+ * at a time so every inner loop runs along the array.
+ * <p>
+ * A {@link Matrix} with an exactly zero pivot is reported as singular by
+ * {@link #isSingular()} rather than by an exception, so callers can decide what to do.
+ */
+public class LUDecomp {
+  
+  private final int dim;
+  
+  /**
+   * The factors, <code>L</code> below the diagonal and <code>U</code> on and above it.
+   */
+  final double[] lu;
+  
+  /**
+   * <code>pivots[k]</code> is the row that was swapped with row <code>k</code> at step
+   * <code>k</code>.
+   */
+  private final int[] pivots;
+  
+  /**
+   * The step at which the first zero pivot was found, or -1 if there was none.
+   */
+  private final int firstZeroPivot;
+  
+  /**
+   * +1 or -1 as an even or odd number of rows were swapped.
+   */
+  private final int pivotSign;
+  
+  /**
+   * Computes the LU factorization of the specified square {@link Matrix}.
+   * 
+   * @param mat the {@link Matrix} to be factored, which is not changed.
+   */
+  public LUDecomp(Matrix mat) {
+    this(mat, null);
+  }
+  
+  /**
+   * Computes the LU factorization of the specified square {@link Matrix}, holding the factors
+   * in a buffer from the specified {@link Workspace}. The {@link LUDecomp} may only be used
+   * until the {@link Workspace.Scope} it was created in is closed.
+   * 
+   * @param mat the {@link Matrix} to be factored, which is not changed.
+   * @param workspace the {@link Workspace} to hold the factors, or null to allocate them
+   */
+  public LUDecomp(Matrix mat, Workspace workspace) {
+    if ( !mat.isSquare())
+      throw new RuntimeException("Only a square matrix can be factored");
+    dim = mat.getNumRows();
+    lu = ((workspace == null) ? Mat.copy(mat) : workspace.copy(mat)).values;
+    pivots = new int[dim];
+    OpEvent event = OpCounters.beginEvent("lu", dim, dim);
+    int zeroPivot = -1;
+    int sign = 1;
+    for (int k = 0; k < dim; k++ ) {
+      int kPos = k * dim;
+      int pivotRow = k;
+      double maxValue = Math.abs(lu[kPos + k]);
+      for (int rI = k + 1; rI < dim; rI++ ) {
+        double nextVal = Math.abs(lu[(rI * dim) + k]);
+        if (nextVal > maxValue) {
+          maxValue = nextVal;
+          pivotRow = rI;
+        }
+      }
+      if (OpCounters.ENABLED) {
+        OpCounters.pivotSearch(dim - k);
+      }
+      pivots[k] = pivotRow;
+      if (pivotRow != k) {
+        int pPos = pivotRow * dim;
+        for (int cI = 0; cI < dim; cI++ ) {
+          double temp = lu[kPos + cI];
+          lu[kPos + cI] = lu[pPos + cI];
+          lu[pPos + cI] = temp;
+        }
+        sign = -sign;
+      }
+      double pivot = lu[kPos + k];
+      if (pivot == 0.0) {
+        if (zeroPivot == -1) {
+          zeroPivot = k;
+        }
+        continue; // the column is already zero below the pivot
+      }
+      for (int rI = k + 1; rI < dim; rI++ ) {
+        int rPos = rI * dim;
+        double multiplier = lu[rPos + k] / pivot;
+        lu[rPos + k] = multiplier;
+        if (multiplier == 0.0) {
+          continue; // the row adds nothing
+        }
+        for (int cI = k + 1; cI < dim; cI++ ) {
+          lu[rPos + cI] -= multiplier * lu[kPos + cI];
+        }
+      }
+    }
+    firstZeroPivot = zeroPivot;
+    pivotSign = sign;
+    long numFlops = (2L * dim * dim * dim) / 3;
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, (long) dim * dim, (long) dim * dim);
+    }
+    OpCounters.commitEvent(event, numFlops);
+  }
+  
+  /**
+   * Wraps factors computed elsewhere, in the same layout, such as those of
+   * {@link TiledLA#lu(Matrix)}.
+   * 
+   * @param dim the dimension of the factored {@link Matrix}
+   * @param lu the factors, row major
+   * @param pivots the row swapped with each row in turn
+   */
+  LUDecomp(int dim, double[] lu, int[] pivots) {
+    this.dim = dim;
+    this.lu = lu;
+    this.pivots = pivots;
+    int zeroPivot = -1;
+    int sign = 1;
+    for (int k = 0; k < dim; k++ ) {
+      if ((zeroPivot == -1) && (lu[(k * dim) + k] == 0.0)) {
+        zeroPivot = k;
+      }
+      if (pivots[k] != k) {
+        sign = -sign;
+      }
+    }
+    firstZeroPivot = zeroPivot;
+    pivotSign = sign;
+  }
+  
+  /**
+   * Returns the determinant of the factored {@link Matrix}.
+   * 
+   * @return the determinant of the factored {@link Matrix}.
+   */
+  public double determinant() {
+    double det = pivotSign;
+    for (int k = 0; k < dim; k++ ) {
+      det *= lu[(k * dim) + k];
+    }
+    return det;
+  }
+  
+  /**
+   * Returns the dimension of the factored {@link Matrix}.
+   * 
+   * @return the dimension of the factored {@link Matrix}.
+   */
+  public int dimension() {
+    return dim;
+  }
+  
+  /**
+   * Returns true if a zero pivot was found, that is if the factored {@link Matrix} is
+   * singular.
+   * 
+   * @return true if the factored {@link Matrix} is singular.
+   */
+  public boolean isSingular() {
+    return firstZeroPivot != -1;
+  }
+  
+  /**
+   * Returns the solution <code>x</code> of <code>A * x = b</code>. It is an error if the
+   * factored {@link Matrix} is singular.
+   * 
+   * @param b the right hand side
+   * @return a new {@link CVec} holding the solution.
+   */
+  public CVec solve(Vector b) {
+    assert b.dimension() == dim;
+    CVec x = Vec.copy(b);
+    solveInPlace(x.values);
+    return x;
+  }
+  
+  /**
+   * Replaces the right hand side held in the specified array by the solution.
+   */
+  void solveInPlace(double[] x) {
+    if (isSingular())
+      throw new RuntimeException("Matrix is singular");
+    for (int k = 0; k < dim; k++ ) {
+      int pivotRow = pivots[k];
+      if (pivotRow != k) {
+        double temp = x[k];
+        x[k] = x[pivotRow];
+        x[pivotRow] = temp;
+      }
+    }
+    for (int rI = 1; rI < dim; rI++ ) {
+      int rPos = rI * dim;
+      double sum = x[rI];
+      for (int cI = 0; cI < rI; cI++ ) {
+        sum -= lu[rPos + cI] * x[cI];
+      }
+      x[rI] = sum;
+    }
+    for (int rI = dim - 1; rI >= 0; rI-- ) {
+      int rPos = rI * dim;
+      double sum = x[rI];
+      for (int cI = rI + 1; cI < dim; cI++ ) {
+        sum -= lu[rPos + cI] * x[cI];
+      }
+      x[rI] = sum / lu[rPos + rI];
+    }
+  }
+}
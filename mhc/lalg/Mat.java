@@ -1,5 +1,13 @@
 package mhc.lalg;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+import mhc.lalg.CMat.SubMatrix;
+import mhc.lalg.util.OpCounters;
+import mhc.lalg.util.OpCounters.OpEvent;
 import mhc.lalg.util.Out;
 
 /**
@@ -7,9 +15,211 @@ import mhc.lalg.util.Out;
  */
 public class Mat {
   
+  /**
+   * A {@link RecursiveAction} that swaps the elements of a block below the diagonal of a
+   * square region with their mirror images above the diagonal. This is the off-diagonal part
+   * of an in-place transpose.
+   */
+  private static class SwapBlocksTask extends RecursiveAction {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final double[] values;
+    
+    private final int offset;
+    
+    private final int stride;
+    
+    private final int rowStart;
+    
+    private final int rowEnd;
+    
+    private final int colStart;
+    
+    private final int colEnd;
+    
+    SwapBlocksTask(double[] values, int offset, int stride, int rowStart, int rowEnd,
+            int colStart, int colEnd) {
+      this.values = values;
+      this.offset = offset;
+      this.stride = stride;
+      this.rowStart = rowStart;
+      this.rowEnd = rowEnd;
+      this.colStart = colStart;
+      this.colEnd = colEnd;
+    }
+    
+    @Override
+    protected void compute() {
+      int numRows = rowEnd - rowStart;
+      int numCols = colEnd - colStart;
+      if ((long) numRows * numCols < PARALLEL_TRANSPOSE_SIZE) {
+        swapBlocks(values, offset, stride, rowStart, rowEnd, colStart, colEnd);
+      } else if (numRows >= numCols) {
+        int mid = rowStart + (numRows / 2);
+        invokeAll(new SwapBlocksTask(values, offset, stride, rowStart, mid, colStart, colEnd),
+                new SwapBlocksTask(values, offset, stride, mid, rowEnd, colStart, colEnd));
+      } else {
+        int mid = colStart + (numCols / 2);
+        invokeAll(new SwapBlocksTask(values, offset, stride, rowStart, rowEnd, colStart, mid),
+                new SwapBlocksTask(values, offset, stride, rowStart, rowEnd, mid, colEnd));
+      }
+    }
+  }
+  
+  /**
+   * A {@link RecursiveAction} that transposes a block of a row major source array into a
+   * destination array by splitting the longer side of the block in half until the blocks are
+   * small enough to be done serially.
+   */
+  private static class TransposeTask extends RecursiveAction {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final double[] src;
+    
+    private final int srcOffset;
+    
+    private final int srcStride;
+    
+    private final double[] dst;
+    
+    private final int dstOffset;
+    
+    private final int dstStride;
+    
+    private final int rowStart;
+    
+    private final int rowEnd;
+    
+    private final int colStart;
+    
+    private final int colEnd;
+    
+    TransposeTask(double[] src, int srcOffset, int srcStride, double[] dst, int dstOffset,
+            int dstStride, int rowStart, int rowEnd, int colStart, int colEnd) {
+      this.src = src;
+      this.srcOffset = srcOffset;
+      this.srcStride = srcStride;
+      this.dst = dst;
+      this.dstOffset = dstOffset;
+      this.dstStride = dstStride;
+      this.rowStart = rowStart;
+      this.rowEnd = rowEnd;
+      this.colStart = colStart;
+      this.colEnd = colEnd;
+    }
+    
+    @Override
+    protected void compute() {
+      int numRows = rowEnd - rowStart;
+      int numCols = colEnd - colStart;
+      if ((long) numRows * numCols < PARALLEL_TRANSPOSE_SIZE) {
+        transposeBlock(src, srcOffset, srcStride, dst, dstOffset, dstStride, rowStart, rowEnd,
+                colStart, colEnd);
+      } else if (numRows >= numCols) {
+        int mid = rowStart + (numRows / 2);
+        invokeAll(new TransposeTask(src, srcOffset, srcStride, dst, dstOffset, dstStride,
+                rowStart, mid, colStart, colEnd),
+                new TransposeTask(src, srcOffset, srcStride, dst, dstOffset, dstStride, mid,
+                        rowEnd, colStart, colEnd));
+      } else {
+        int mid = colStart + (numCols / 2);
+        invokeAll(new TransposeTask(src, srcOffset, srcStride, dst, dstOffset, dstStride,
+                rowStart, rowEnd, colStart, mid),
+                new TransposeTask(src, srcOffset, srcStride, dst, dstOffset, dstStride,
+                        rowStart, rowEnd, mid, colEnd));
+      }
+    }
+  }
+  
+  /**
+   * Blocks with no more than this many elements are transposed with a simple double loop. A
+   * 32 x 32 block of doubles (8K for the source and 8K for the destination) fits comfortably
+   * in the L1 cache.
+   */
+  private static final int TRANSPOSE_TILE_SIZE = 32 * 32;
+  
+  /**
+   * The number of rows in each band of an in-place transpose.
+   */
+  private static final int TRANSPOSE_BAND_SIZE = 32;
+  
+  /**
+   * Transposes of at least this many elements are split across the common
+   * {@link ForkJoinPool}.
+   */
+  private static final int PARALLEL_TRANSPOSE_SIZE = 256 * 256;
+  
+  /**
+   * Matrix vector operations on matrices with at least this many elements are split across
+   * the common {@link ForkJoinPool}.
+   */
+  private static final int PARALLEL_GEMV_SIZE = 512 * 512;
+  
+  /**
+   * The fewest rows or columns given to one task of a parallel matrix vector operation.
+   */
+  private static final int GEMV_CHUNK_SIZE = 64;
+  
+  /**
+   * The pivot searches and row operations of {@link #toEchelonForm(Matrix)} are split across
+   * the common {@link ForkJoinPool} while the active sub-matrix has at least this many
+   * elements.
+   */
+  private static final int PARALLEL_ECHELON_SIZE = 256 * 256;
+  
   private Mat() {
   }
   
+  /**
+   * Returns the specified {@link Matrix} if its elements are held in a row major array, that
+   * is if it exposes {@link Matrix#getArray()} or is an {@link ImmutableMat}, otherwise
+   * returns a {@link CMat} copy of it. The array of an {@link ImmutableMat} must only be read.
+   */
+  private static Matrix arrayBacked(Matrix mat) {
+    if ((mat.getArray() != null) || (mat instanceof ImmutableMat))
+      return mat;
+    return copy(mat);
+  }
+  
+  /**
+   * Returns the position of element <code>[0, 0]</code> in the array returned by
+   * {@link #arrayValues(Matrix)}.
+   */
+  private static int arrayOffset(Matrix mat) {
+    if (mat instanceof ImmutableMat immutable)
+      return immutable.offset;
+    return mat.getOffset();
+  }
+  
+  /**
+   * Returns the distance between rows in the array returned by {@link #arrayValues(Matrix)}.
+   */
+  private static int arrayStride(Matrix mat) {
+    if (mat instanceof ImmutableMat immutable)
+      return immutable.stride;
+    return mat.getRowStride();
+  }
+  
+  /**
+   * Returns the row major array that holds the elements of a {@link Matrix} returned by
+   * {@link #arrayBacked(Matrix)}.
+   */
+  private static double[] arrayValues(Matrix mat) {
+    if (mat instanceof ImmutableMat immutable)
+      return immutable.values;
+    return mat.getArray();
+  }
+  
+  /**
+   * Returns the first row or column of the indicated chunk when the specified number of rows
+   * or columns is split into <code>numChunks</code> nearly equal chunks.
+   */
+  private static int chunkStart(int chunk, int numChunks, int count) {
+    return (int) (((long) chunk * count) / numChunks);
+  }
+  
   /**
    * Returns a concrete copy ({@link CMat}) of the contents of the specified {@link Matrix}.
    * 
@@ -18,9 +228,45 @@ public class Mat {
    *         the
    */
   public static CMat copy(Matrix mat) {
+    return copy(mat, new CMat(mat.getNumRows(), mat.getNumCols()));
+  }
+  
+  /**
+   * Copies the contents of the specified {@link Matrix} into the specified {@link CMat} of the
+   * same dimensions, such as one handed out by a {@link Workspace}.
+   * 
+   * @param mat the {@link Matrix} to be copied.
+   * @param copyMat the {@link CMat} to copy into
+   * @return <code>copyMat</code>.
+   */
+  static CMat copy(Matrix mat, CMat copyMat) {
     int numRows = mat.getNumRows();
     int numCols = mat.getNumCols();
-    CMat copyMat = new CMat(numRows, numCols);
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, (long) numRows * numCols, (long) numRows * numCols);
+    }
+    if (mat instanceof CMat cMat) {
+      System.arraycopy(cMat.values, 0, copyMat.values, 0, numRows * numCols);
+      return copyMat;
+    }
+    if (mat instanceof SubMatrix subMat) {
+      /*
+       * Each row of a sub-matrix is a contiguous run in the containing matrix.
+       */
+      CMat outer = subMat.getContainingMatrix();
+      for (int rI = 0; rI < numRows; rI++ ) {
+        int srcPos = outer.pos(subMat.toOuterRowIndex(rI), subMat.firstCol);
+        System.arraycopy(outer.values, srcPos, copyMat.values, rI * numCols, numCols);
+      }
+      return copyMat;
+    }
+    if (mat instanceof ImmutableMat immutable) {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        System.arraycopy(immutable.values, immutable.offset + (rI * immutable.stride),
+                copyMat.values, rI * numCols, numCols);
+      }
+      return copyMat;
+    }
     for (int rI = 0; rI < numRows; rI++ ) {
       for (int cI = 0; cI < numCols; cI++ ) {
         copyMat.set(rI, cI, mat.get(rI, cI));
@@ -29,6 +275,91 @@ public class Mat {
     return copyMat;
   }
   
+  /**
+   * Returns an estimate of the floating point operations needed to put a {@link Matrix} with
+   * the specified dimensions into echelon form, assuming every pivot is in the next column.
+   */
+  private static long echelonFlops(int numRows, int numCols) {
+    long numFlops = 0;
+    int numPivots = Math.min(numRows, numCols);
+    for (int k = 0; k < numPivots; k++ ) {
+      numFlops += 2L * (numRows - k - 1) * (numCols - k);
+    }
+    return numFlops;
+  }
+  
+  /**
+   * Does the work of {@link #toEchelonForm(Matrix, boolean)}, one pivot at a time.
+   */
+  private static void echelonForm(Matrix mat, boolean parallel) {
+    Out.trace(false, "Mat at entry %n%s%n", mat);
+    int numRows = mat.getNumRows();
+    int numCols = mat.getNumCols();
+    if (numRows <= 1)
+      return; // there is nothing left to do
+    boolean split = parallel && splitEchelon(mat);
+    int pivotCol = findPivotColumn(mat, split);
+    if (pivotCol == -1)
+      return; // there are no non-zero entries left
+    if (pivotCol > 0) {
+      /*
+       * some left-most columns are all zeros so reduce the matrix to ignore them.
+       */
+      mat = mat.getSubMatrix(0, numRows, pivotCol, numCols - pivotCol);
+      numCols = mat.getNumCols(); // in the sub-matrix, not needed but this keeps it accurate
+      pivotCol = 0; // in the sub-matrix, not needed but this keeps it accurate
+    }
+    /*
+     * the pivot column is now column zero and it must have a non-zero entry.
+     */
+    int pivotRow = findPivotRow(mat, split);
+    mat.swapRows(0, pivotRow);
+    pivotRow = 0; // not needed, but this keeps it accurate
+    /*
+     * The non-zero pivot element is now at [0,0]. So zero all the elements below it. Each row
+     * is changed only by its own row operation, so the rows can be split into chunks and the
+     * result does not depend on how they are.
+     */
+    if (split) {
+      Matrix active = mat;
+      int numBelow = numRows - 1;
+      int numChunks = numChunks(numBelow);
+      IntStream.range(0, numChunks).parallel().forEach(chunk -> eliminateRows(active,
+              1 + chunkStart(chunk, numChunks, numBelow),
+              1 + chunkStart(chunk + 1, numChunks, numBelow)));
+    } else {
+      eliminateRows(mat, 1, numRows);
+    }
+    /*
+     * The pivot column is now all zeros except for the pivot value [0,0]. So recurse to
+     * complete the process on the sub matrix below the pivot row (0) and the column to the
+     * left of the pivot column (0).
+     */
+    Out.trace(false, "Mat after zero reduction %n%s%n", mat);
+    mat = mat.getSubMatrix(1, numRows - 1, 1, numCols - 1);
+    echelonForm(mat, parallel);
+  }
+  
+  /**
+   * Zeroes column 0 of rows <code>rowStart</code> to <code>rowEnd - 1</code> by adding a
+   * multiple of the pivot row, row 0.
+   */
+  private static void eliminateRows(Matrix mat, int rowStart, int rowEnd) {
+    double pivotValue = mat.get(0, 0);
+    for (int rI = rowStart; rI < rowEnd; rI++ ) {
+      double leadingValue = mat.get(rI, 0);
+      if (leadingValue == 0) {
+        continue; // there is nothing to do
+      }
+      double multFactor = -1 * (leadingValue / pivotValue);
+      /*
+       * Make the leading value 0 by subtracting the appropriate multiple of the pivot row from
+       * the current row.
+       */
+      mat.addRowsWithMult(0, multFactor, rI);
+    }
+  }
+  
   /**
    * Returns the index of the left-most column in the specified {@link Matrix} that has a
    * non-zero element or -1 if no column in the {@link Matrix} has a non-zero element.
@@ -38,14 +369,51 @@ public class Mat {
    *         non-zero element or -1 if no column in the {@link Matrix} has a non-zero element.
    */
   public static int findPivotColumn(Matrix mat) {
+    return findPivotColumn(mat, splitEchelon(mat));
+  }
+  
+  /**
+   * Does the work of {@link #findPivotColumn(Matrix)}. In parallel each chunk of rows finds
+   * the left-most non-zero element in its rows and the smallest column wins, which is the
+   * column the serial search, a column at a time, stops at.
+   */
+  private static int findPivotColumn(Matrix mat, boolean parallel) {
     int numCols = mat.getNumCols();
     int numRows = mat.getNumRows();
+    if (parallel) {
+      int numChunks = numChunks(numRows);
+      int pivotCol = IntStream.range(0, numChunks).parallel()
+              .map(chunk -> firstNonZeroCol(mat, chunkStart(chunk, numChunks, numRows),
+                      chunkStart(chunk + 1, numChunks, numRows)))
+              .min().getAsInt();
+      if (pivotCol == numCols) {
+        if (OpCounters.ENABLED) {
+          OpCounters.pivotSearch((long) numCols * numRows);
+        }
+        return -1; // no non-zero element found
+      }
+      if (OpCounters.ENABLED) {
+        int pivotRow = 0;
+        while (mat.get(pivotRow, pivotCol) == 0.0) {
+          pivotRow++ ;
+        }
+        OpCounters.pivotSearch(((long) pivotCol * numRows) + pivotRow + 1);
+      }
+      return pivotCol;
+    }
     for (int cI = 0; cI < numCols; cI++ ) {
       for (int rI = 0; rI < numRows; rI++ ) {
-        if (mat.get(rI, cI) != 0.0)
+        if (mat.get(rI, cI) != 0.0) {
+          if (OpCounters.ENABLED) {
+            OpCounters.pivotSearch(((long) cI * numRows) + rI + 1);
+          }
           return cI;
+        }
       }
     }
+    if (OpCounters.ENABLED) {
+      OpCounters.pivotSearch((long) numCols * numRows);
+    }
     /*
      * No non-zero element found.
      */
@@ -61,21 +429,336 @@ public class Mat {
    *         column 0.
    */
   public static int findPivotRow(Matrix mat) {
+    return findPivotRow(mat, splitEchelon(mat));
+  }
+  
+  /**
+   * Does the work of {@link #findPivotRow(Matrix)}. In parallel each chunk of rows finds its
+   * first largest value, and the chunks are combined in order with the same strict comparison
+   * as the serial search, so ties go to the lowest row either way.
+   */
+  private static int findPivotRow(Matrix mat, boolean parallel) {
     int numRows = mat.getNumRows();
     double maxValue = Math.abs(mat.get(0, 0));
     int maxRowIndex = 0;
-    for (int rI = 1; rI < numRows; rI++ ) {
+    if (OpCounters.ENABLED) {
+      OpCounters.pivotSearch(numRows);
+    }
+    if (parallel) {
+      int numChunks = numChunks(numRows);
+      int[] chunkRows = new int[numChunks];
+      IntStream.range(0, numChunks).parallel().forEach(chunk -> chunkRows[chunk] = maxAbsRow(mat,
+              chunkStart(chunk, numChunks, numRows), chunkStart(chunk + 1, numChunks, numRows)));
+      for (int rI : chunkRows) {
+        if (rI == -1) {
+          continue; // the chunk has only NaN
+        }
+        double nextVal = Math.abs(mat.get(rI, 0));
+        if (nextVal > maxValue) {
+          maxValue = nextVal;
+          maxRowIndex = rI;
+        }
+      }
+    } else {
+      for (int rI = 1; rI < numRows; rI++ ) {
+        double nextVal = Math.abs(mat.get(rI, 0));
+        if (nextVal > maxValue) {
+          maxValue = nextVal;
+          maxRowIndex = rI;
+        }
+      }
+    }
+    if (maxValue == 0.0)
+      throw new RuntimeException("No non-zero pivot value");
+    return maxRowIndex;
+  }
+  
+  /**
+   * Returns the left-most column with a non-zero element in rows <code>rowStart</code> to
+   * <code>rowEnd - 1</code>, or the number of columns if there is none.
+   */
+  private static int firstNonZeroCol(Matrix mat, int rowStart, int rowEnd) {
+    int firstCol = mat.getNumCols();
+    for (int rI = rowStart; rI < rowEnd; rI++ ) {
+      for (int cI = 0; cI < firstCol; cI++ ) {
+        if (mat.get(rI, cI) != 0.0) {
+          firstCol = cI;
+          break;
+        }
+      }
+    }
+    return firstCol;
+  }
+  
+  /**
+   * Computes the general matrix product <code>c = alpha * a * b + beta * c</code>. When
+   * <code>beta</code> is 0 the original contents of <code>c</code> are ignored, so they may be
+   * anything, including NaN. <code>c</code> must not share storage with <code>a</code> or
+   * <code>b</code>.
+   * <p>
+   * The product is accumulated a row of <code>b</code> at a time so that all the inner loops
+   * run along rows, and {@link CMat} operands are worked on directly through their backing
+   * arrays.
+   * 
+   * @param alpha the multiplier for the product
+   * @param a the left hand {@link Matrix} of the product
+   * @param b the right hand {@link Matrix} of the product
+   * @param beta the multiplier for the original contents of <code>c</code>
+   * @param c the {@link Matrix} the result is saved in
+   * @return c after it has been updated.
+   */
+  public static Matrix gemm(double alpha, Matrix a, Matrix b, double beta, Matrix c) {
+    int numRows = a.getNumRows();
+    int inner = a.getNumCols();
+    int numCols = b.getNumCols();
+    assert (inner == b.getNumRows()) && (numRows == c.getNumRows())
+            && (numCols == c.getNumCols());
+    long numFlops = 2L * numRows * inner * numCols;
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, ((long) numRows * inner) + ((long) inner * numCols)
+              + ((beta == 0.0) ? 0L : (long) numRows * numCols), (long) numRows * numCols);
+    }
+    OpEvent event = OpCounters.beginEvent("gemm", numRows, numCols);
+    if ((a instanceof CMat aMat) && (b instanceof CMat bMat) && (c instanceof CMat cMat)) {
+      double[] aValues = aMat.values;
+      double[] bValues = bMat.values;
+      double[] cValues = cMat.values;
+      for (int rI = 0; rI < numRows; rI++ ) {
+        int cPos = rI * numCols;
+        if (beta == 0.0) {
+          Arrays.fill(cValues, cPos, cPos + numCols, 0.0);
+        } else if (beta != 1.0) {
+          for (int cI = 0; cI < numCols; cI++ ) {
+            cValues[cPos + cI] *= beta;
+          }
+        }
+        for (int k = 0; k < inner; k++ ) {
+          double aik = alpha * aValues[(rI * inner) + k];
+          if (aik == 0.0) {
+            continue; // the row of b adds nothing
+          }
+          int bPos = k * numCols;
+          for (int cI = 0; cI < numCols; cI++ ) {
+            cValues[cPos + cI] += aik * bValues[bPos + cI];
+          }
+        }
+      }
+      OpCounters.commitEvent(event, numFlops);
+      return c;
+    }
+    for (int rI = 0; rI < numRows; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        c.set(rI, cI, (beta == 0.0) ? 0.0 : beta * c.get(rI, cI));
+      }
+      for (int k = 0; k < inner; k++ ) {
+        double aik = alpha * a.get(rI, k);
+        if (aik == 0.0) {
+          continue; // the row of b adds nothing
+        }
+        for (int cI = 0; cI < numCols; cI++ ) {
+          c.set(rI, cI, c.get(rI, cI) + (aik * b.get(k, cI)));
+        }
+      }
+    }
+    OpCounters.commitEvent(event, numFlops);
+    return c;
+  }
+  
+  /**
+   * Computes the matrix vector product <code>y = alpha * a * x + beta * y</code>, or
+   * <code>y = alpha * transpose(a) * x + beta * y</code> if <code>trans</code> is true. When
+   * <code>beta</code> is 0 the original contents of <code>y</code> are ignored.
+   * <p>
+   * {@link CMat} and {@link SubMatrix} operands are worked on directly through their backing
+   * arrays, so no row views are created, other {@link Matrix}s are copied first. Large
+   * products are split across the common {@link ForkJoinPool} by rows of <code>a</code>, or
+   * by columns of <code>a</code> when it is transposed, so every element of <code>y</code> is
+   * computed by one thread in the same order as the serial version.
+   * 
+   * @param trans true if the transpose of a is to be used.
+   * @param alpha the multiplier for the product
+   * @param a the {@link Matrix}
+   * @param x the {@link Vector} a is multiplied by
+   * @param beta the multiplier for the original contents of y
+   * @param y the {@link Vector} the result is saved in, this may be a view of a.
+   * @return y after it has been updated.
+   */
+  public static Vector gemv(boolean trans, double alpha, Matrix a, Vector x, double beta,
+          Vector y) {
+    int numRows = a.getNumRows();
+    int numCols = a.getNumCols();
+    assert x.dimension() == (trans ? numRows : numCols);
+    assert y.dimension() == (trans ? numCols : numRows);
+    long numFlops = 2L * numRows * numCols;
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, ((long) numRows * numCols) + x.dimension()
+              + ((beta == 0.0) ? 0 : y.dimension()), y.dimension());
+    }
+    OpEvent event = OpCounters.beginEvent("gemv", numRows, numCols);
+    Matrix arrayMat = arrayBacked(a);
+    double[] values = arrayValues(arrayMat);
+    int offset = arrayOffset(arrayMat);
+    int stride = arrayStride(arrayMat);
+    double[] xValues = vectorValues(x);
+    double[] yValues = vectorValues(y);
+    boolean parallel = (long) numRows * numCols >= PARALLEL_GEMV_SIZE;
+    if ( !trans) {
+      if (parallel) {
+        int numChunks = numChunks(numRows);
+        IntStream.range(0, numChunks).parallel().forEach(chunk -> gemvRows(alpha, values,
+                offset, stride, numCols, xValues, beta, yValues,
+                chunkStart(chunk, numChunks, numRows),
+                chunkStart(chunk + 1, numChunks, numRows)));
+      } else {
+        gemvRows(alpha, values, offset, stride, numCols, xValues, beta, yValues, 0, numRows);
+      }
+    } else {
+      if (parallel) {
+        int numChunks = numChunks(numCols);
+        IntStream.range(0, numChunks).parallel().forEach(chunk -> gemvCols(alpha, values,
+                offset, stride, numRows, xValues, beta, yValues,
+                chunkStart(chunk, numChunks, numCols),
+                chunkStart(chunk + 1, numChunks, numCols)));
+      } else {
+        gemvCols(alpha, values, offset, stride, numRows, xValues, beta, yValues, 0, numCols);
+      }
+    }
+    storeValues(yValues, y);
+    OpCounters.commitEvent(event, numFlops);
+    return y;
+  }
+  
+  /**
+   * Computes <code>y[c] = alpha * sum(a[r, c] * x[r]) + beta * y[c]</code> for the columns
+   * <code>c</code> in <code>[colStart, colEnd)</code>, a row of <code>a</code> at a time.
+   */
+  private static void gemvCols(double alpha, double[] values, int offset, int stride,
+          int numRows, double[] x, double beta, double[] y, int colStart, int colEnd) {
+    if (beta == 0.0) {
+      Arrays.fill(y, colStart, colEnd, 0.0);
+    } else if (beta != 1.0) {
+      for (int cI = colStart; cI < colEnd; cI++ ) {
+        y[cI] *= beta;
+      }
+    }
+    for (int rI = 0; rI < numRows; rI++ ) {
+      double multiplier = alpha * x[rI];
+      if (multiplier == 0.0) {
+        continue; // the row adds nothing
+      }
+      int rowPos = offset + (rI * stride);
+      for (int cI = colStart; cI < colEnd; cI++ ) {
+        y[cI] += multiplier * values[rowPos + cI];
+      }
+    }
+  }
+  
+  /**
+   * Computes <code>y[r] = alpha * sum(a[r, c] * x[c]) + beta * y[r]</code> for the rows
+   * <code>r</code> in <code>[rowStart, rowEnd)</code>.
+   */
+  private static void gemvRows(double alpha, double[] values, int offset, int stride,
+          int numCols, double[] x, double beta, double[] y, int rowStart, int rowEnd) {
+    for (int rI = rowStart; rI < rowEnd; rI++ ) {
+      int rowPos = offset + (rI * stride);
+      double dp = 0.0;
+      for (int cI = 0; cI < numCols; cI++ ) {
+        dp += values[rowPos + cI] * x[cI];
+      }
+      y[rI] = (beta == 0.0) ? alpha * dp : (alpha * dp) + (beta * y[rI]);
+    }
+  }
+  
+  /**
+   * Computes the rank one update <code>a = alpha * x * transpose(y) + a</code>, that is
+   * <code>alpha * x[r] * y</code> is added to each row <code>r</code> of <code>a</code>.
+   * {@link CMat} and {@link SubMatrix} operands are updated directly through their backing
+   * arrays and large updates are split by rows across the common {@link ForkJoinPool}.
+   * 
+   * @param alpha the multiplier for the update
+   * @param x the {@link Vector} with an element for each row of a
+   * @param y the {@link Vector} with an element for each column of a
+   * @param a the {@link Matrix} to be updated
+   * @return a after it has been updated.
+   */
+  public static Matrix ger(double alpha, Vector x, Vector y, Matrix a) {
+    int numRows = a.getNumRows();
+    int numCols = a.getNumCols();
+    assert (x.dimension() == numRows) && (y.dimension() == numCols);
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * numRows * numCols, ((long) numRows * numCols) + numRows + numCols,
+              (long) numRows * numCols);
+    }
+    double[] xValues = vectorValues(x);
+    double[] yValues = vectorValues(y);
+    if ( !((a instanceof CMat) || (a instanceof SubMatrix))) {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        double multiplier = alpha * xValues[rI];
+        for (int cI = 0; cI < numCols; cI++ ) {
+          a.set(rI, cI, a.get(rI, cI) + (multiplier * yValues[cI]));
+        }
+      }
+      return a;
+    }
+    double[] values = arrayValues(a);
+    int offset = arrayOffset(a);
+    int stride = arrayStride(a);
+    if ((long) numRows * numCols >= PARALLEL_GEMV_SIZE) {
+      int numChunks = numChunks(numRows);
+      IntStream.range(0, numChunks).parallel().forEach(chunk -> gerRows(alpha, xValues,
+              yValues, numCols, values, offset, stride, chunkStart(chunk, numChunks, numRows),
+              chunkStart(chunk + 1, numChunks, numRows)));
+    } else {
+      gerRows(alpha, xValues, yValues, numCols, values, offset, stride, 0, numRows);
+    }
+    return a;
+  }
+  
+  /**
+   * Adds <code>alpha * x[r] * y</code> to each row <code>r</code> in
+   * <code>[rowStart, rowEnd)</code>. Only the first <code>numCols</code> elements of
+   * <code>y</code> are used, as its array may be longer.
+   */
+  private static void gerRows(double alpha, double[] x, double[] y, int numCols,
+          double[] values, int offset, int stride, int rowStart, int rowEnd) {
+    for (int rI = rowStart; rI < rowEnd; rI++ ) {
+      double multiplier = alpha * x[rI];
+      if (multiplier == 0.0) {
+        continue; // the row is unchanged
+      }
+      int rowPos = offset + (rI * stride);
+      for (int cI = 0; cI < numCols; cI++ ) {
+        values[rowPos + cI] += multiplier * y[cI];
+      }
+    }
+  }
+  
+  /**
+   * Returns the first row in <code>rowStart</code> to <code>rowEnd - 1</code> with the largest
+   * absolute value in column 0, or -1 if every one of them is NaN.
+   */
+  private static int maxAbsRow(Matrix mat, int rowStart, int rowEnd) {
+    double maxValue = Double.NEGATIVE_INFINITY;
+    int maxRowIndex = -1;
+    for (int rI = rowStart; rI < rowEnd; rI++ ) {
       double nextVal = Math.abs(mat.get(rI, 0));
       if (nextVal > maxValue) {
         maxValue = nextVal;
         maxRowIndex = rI;
       }
     }
-    if (maxValue == 0.0)
-      throw new RuntimeException("No non-zero pivot value");
     return maxRowIndex;
   }
   
+  /**
+   * Returns the number of tasks a parallel operation over the specified number of rows or
+   * columns is split in to.
+   */
+  private static int numChunks(int count) {
+    int maxChunks = 4 * ForkJoinPool.getCommonPoolParallelism();
+    return Math.max(1, Math.min(maxChunks, count / GEMV_CHUNK_SIZE));
+  }
+  
   /**
    * Takes a matrix that is already in echelon form and reduces it to be in reduced echelon
    * form.
@@ -132,6 +815,270 @@ public class Mat {
     }
   }
   
+  /**
+   * Computes the general matrix product <code>c = alpha * a * b + beta * c</code> for
+   * {@link FMat}s. Each row of the product is accumulated in a <code>double</code> buffer if
+   * <code>accumulateDouble</code> is true, otherwise in a <code>float</code> one, and rounded to
+   * <code>float</code> once when it is stored. When <code>beta</code> is 0 the original
+   * contents of <code>c</code> are ignored. <code>c</code> must not share storage with
+   * <code>a</code> or <code>b</code>.
+   * 
+   * @param alpha the multiplier for the product
+   * @param a the left hand {@link FMat} of the product
+   * @param b the right hand {@link FMat} of the product
+   * @param beta the multiplier for the original contents of <code>c</code>
+   * @param c the {@link FMat} the result is saved in
+   * @param accumulateDouble true if the sums are accumulated in <code>double</code>
+   * @return c after it has been updated.
+   */
+  public static FMat sgemm(float alpha, FMat a, FMat b, float beta, FMat c,
+          boolean accumulateDouble) {
+    int numRows = a.getNumRows();
+    int inner = a.getNumCols();
+    int numCols = b.getNumCols();
+    assert (inner == b.getNumRows()) && (numRows == c.getNumRows())
+            && (numCols == c.getNumCols());
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * numRows * inner * numCols, ((long) numRows * inner)
+              + ((long) inner * numCols), (long) numRows * numCols);
+    }
+    float[] aValues = a.values;
+    float[] bValues = b.values;
+    float[] cValues = c.values;
+    double[] dRow = accumulateDouble ? new double[numCols] : null;
+    float[] fRow = accumulateDouble ? null : new float[numCols];
+    for (int rI = 0; rI < numRows; rI++ ) {
+      int cPos = rI * numCols;
+      if (accumulateDouble) {
+        Arrays.fill(dRow, 0.0);
+        for (int k = 0; k < inner; k++ ) {
+          double aik = aValues[(rI * inner) + k];
+          int bPos = k * numCols;
+          for (int cI = 0; cI < numCols; cI++ ) {
+            dRow[cI] += aik * bValues[bPos + cI];
+          }
+        }
+        for (int cI = 0; cI < numCols; cI++ ) {
+          double old = (beta == 0.0f) ? 0.0 : (double) beta * cValues[cPos + cI];
+          cValues[cPos + cI] = (float) ((alpha * dRow[cI]) + old);
+        }
+      } else {
+        Arrays.fill(fRow, 0.0f);
+        for (int k = 0; k < inner; k++ ) {
+          float aik = aValues[(rI * inner) + k];
+          int bPos = k * numCols;
+          for (int cI = 0; cI < numCols; cI++ ) {
+            fRow[cI] += aik * bValues[bPos + cI];
+          }
+        }
+        for (int cI = 0; cI < numCols; cI++ ) {
+          float old = (beta == 0.0f) ? 0.0f : beta * cValues[cPos + cI];
+          cValues[cPos + cI] = (alpha * fRow[cI]) + old;
+        }
+      }
+    }
+    return c;
+  }
+  
+  /**
+   * Computes the matrix vector product <code>y = alpha * a * x + beta * y</code>, or
+   * <code>y = alpha * transpose(a) * x + beta * y</code> if <code>trans</code> is true, for
+   * {@link FMat}s and {@link FVec}s. The sums are accumulated in <code>double</code> if
+   * <code>accumulateDouble</code> is true, otherwise in <code>float</code>. When
+   * <code>beta</code> is 0 the original contents of <code>y</code> are ignored.
+   * 
+   * @param trans true if the transpose of a is to be used.
+   * @param alpha the multiplier for the product
+   * @param a the {@link FMat}
+   * @param x the {@link FVec} a is multiplied by
+   * @param beta the multiplier for the original contents of y
+   * @param y the {@link FVec} the result is saved in, this must not be x.
+   * @param accumulateDouble true if the sums are accumulated in <code>double</code>
+   * @return y after it has been updated.
+   */
+  public static FVec sgemv(boolean trans, float alpha, FMat a, FVec x, float beta, FVec y,
+          boolean accumulateDouble) {
+    int numRows = a.getNumRows();
+    int numCols = a.getNumCols();
+    assert x.dimension() == (trans ? numRows : numCols);
+    assert y.dimension() == (trans ? numCols : numRows);
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * numRows * numCols, ((long) numRows * numCols) + x.dimension(),
+              y.dimension());
+    }
+    float[] values = a.values;
+    float[] xValues = x.values;
+    float[] yValues = y.values;
+    int yDim = y.dimension();
+    double[] dSums = new double[yDim];
+    float[] fSums = accumulateDouble ? null : new float[yDim];
+    if ( !trans) {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        int rowPos = rI * numCols;
+        if (accumulateDouble) {
+          double sum = 0.0;
+          for (int cI = 0; cI < numCols; cI++ ) {
+            sum += (double) values[rowPos + cI] * xValues[cI];
+          }
+          dSums[rI] = sum;
+        } else {
+          float sum = 0.0f;
+          for (int cI = 0; cI < numCols; cI++ ) {
+            sum += values[rowPos + cI] * xValues[cI];
+          }
+          dSums[rI] = sum;
+        }
+      }
+    } else if (accumulateDouble) {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        int rowPos = rI * numCols;
+        double xr = xValues[rI];
+        for (int cI = 0; cI < numCols; cI++ ) {
+          dSums[cI] += values[rowPos + cI] * xr;
+        }
+      }
+    } else {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        int rowPos = rI * numCols;
+        float xr = xValues[rI];
+        for (int cI = 0; cI < numCols; cI++ ) {
+          fSums[cI] += values[rowPos + cI] * xr;
+        }
+      }
+      for (int i = 0; i < yDim; i++ ) {
+        dSums[i] = fSums[i];
+      }
+    }
+    for (int i = 0; i < yDim; i++ ) {
+      double old = (beta == 0.0f) ? 0.0 : (double) beta * yValues[i];
+      yValues[i] = (float) ((alpha * dSums[i]) + old);
+    }
+    return y;
+  }
+  
+  /**
+   * Returns true if the pivot searches and row operations on the specified active sub-matrix
+   * should be split across the common {@link ForkJoinPool}. Only a {@link Matrix} held in a
+   * row major array is split, as its rows can be written by different threads.
+   */
+  private static boolean splitEchelon(Matrix mat) {
+    return ((mat instanceof CMat) || (mat instanceof SubMatrix))
+            && ((long) mat.getNumRows() * mat.getNumCols() >= PARALLEL_ECHELON_SIZE);
+  }
+  
+  /**
+   * Copies the array returned by {@link #vectorValues(Vector)} back in to the
+   * specified {@link Vector} if it is not the {@link Vector}'s own backing array.
+   */
+  private static void storeValues(double[] values, Vector vec) {
+    if (vec instanceof CVec)
+      return; // the values are already in place
+    int dim = vec.dimension();
+    for (int i = 0; i < dim; i++ ) {
+      vec.set(i, values[i]);
+    }
+  }
+  
+  /**
+   * Swaps element <code>[r, c]</code> with element <code>[c, r]</code> for each
+   * <code>r</code> in <code>[rowStart, rowEnd)</code> and <code>c</code> in
+   * <code>[colStart, colEnd)</code> of the square region of <code>values</code> that starts
+   * at <code>offset</code> and has rows <code>stride</code> elements apart. The block must not
+   * intersect the diagonal. Large blocks are split recursively so that both the block and its
+   * mirror image stay in cache.
+   */
+  private static void swapBlocks(double[] values, int offset, int stride, int rowStart,
+          int rowEnd, int colStart, int colEnd) {
+    int numRows = rowEnd - rowStart;
+    int numCols = colEnd - colStart;
+    if (numRows * numCols <= TRANSPOSE_TILE_SIZE) {
+      for (int rI = rowStart; rI < rowEnd; rI++ ) {
+        int rowPos = offset + (rI * stride);
+        for (int cI = colStart; cI < colEnd; cI++ ) {
+          int mirrorPos = offset + (cI * stride) + rI;
+          double temp = values[rowPos + cI];
+          values[rowPos + cI] = values[mirrorPos];
+          values[mirrorPos] = temp;
+        }
+      }
+    } else if (numRows >= numCols) {
+      int mid = rowStart + (numRows / 2);
+      swapBlocks(values, offset, stride, rowStart, mid, colStart, colEnd);
+      swapBlocks(values, offset, stride, mid, rowEnd, colStart, colEnd);
+    } else {
+      int mid = colStart + (numCols / 2);
+      swapBlocks(values, offset, stride, rowStart, rowEnd, colStart, mid);
+      swapBlocks(values, offset, stride, rowStart, rowEnd, mid, colEnd);
+    }
+  }
+  
+  /**
+   * Swaps each element below the diagonal with its mirror image above the diagonal for the
+   * rows and columns in <code>[start, end)</code> of the square region of <code>values</code>
+   * that starts at <code>offset</code> and has rows <code>stride</code> elements apart.
+   */
+  private static void swapTriangle(double[] values, int offset, int stride, int start,
+          int end) {
+    for (int rI = start + 1; rI < end; rI++ ) {
+      int rowPos = offset + (rI * stride);
+      for (int cI = start; cI < rI; cI++ ) {
+        int mirrorPos = offset + (cI * stride) + rI;
+        double temp = values[rowPos + cI];
+        values[rowPos + cI] = values[mirrorPos];
+        values[mirrorPos] = temp;
+      }
+    }
+  }
+  
+  /**
+   * Computes <code>y = alpha * a * x + beta * y</code> for a symmetric {@link Matrix}
+   * <code>a</code> of which only the upper, or lower, triangle is used. Each row of the used
+   * triangle is read once and contributes both to its own element of <code>y</code> and, as
+   * the mirrored column, to the elements of <code>y</code> past the diagonal.
+   * 
+   * @param upper true if the upper triangle of a is to be used, false for the lower.
+   * @param alpha the multiplier for the product
+   * @param a the square, symmetric, {@link Matrix}
+   * @param x the {@link Vector} a is multiplied by
+   * @param beta the multiplier for the original contents of y
+   * @param y the {@link Vector} the result is saved in
+   * @return y after it has been updated.
+   */
+  public static Vector symv(boolean upper, double alpha, Matrix a, Vector x, double beta,
+          Vector y) {
+    int dim = a.getNumRows();
+    assert a.isSquare() && (x.dimension() == dim) && (y.dimension() == dim);
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * dim * dim, (((long) dim * (dim + 1)) / 2) + (2L * dim), dim);
+    }
+    Matrix arrayMat = arrayBacked(a);
+    double[] values = arrayValues(arrayMat);
+    int offset = arrayOffset(arrayMat);
+    int stride = arrayStride(arrayMat);
+    double[] xValues = vectorValues(x);
+    double[] yValues = vectorValues(y);
+    double[] result = new double[dim];
+    for (int rI = 0; rI < dim; rI++ ) {
+      int rowPos = offset + (rI * stride);
+      int colStart = upper ? rI + 1 : 0;
+      int colEnd = upper ? dim : rI;
+      double xValue = xValues[rI];
+      double dp = values[rowPos + rI] * xValue;
+      for (int cI = colStart; cI < colEnd; cI++ ) {
+        double value = values[rowPos + cI];
+        dp += value * xValues[cI];
+        result[cI] += value * xValue;
+      }
+      result[rI] += dp;
+    }
+    for (int i = 0; i < dim; i++ ) {
+      yValues[i] = (beta == 0.0) ? alpha * result[i]
+              : (alpha * result[i]) + (beta * yValues[i]);
+    }
+    storeValues(yValues, y);
+    return y;
+  }
+  
   /**
    * Uses primitive row operators to put the specified {@link Matrix} into echelon form.
    * <p>
@@ -153,56 +1100,34 @@ public class Mat {
    * <p>
    * <b>Note:</b> This method uses a recursive algorithm the that starts by transforming the
    * largest possible sub-matrix and the recursing on the next largest sub-matrix.
+   * <p>
+   * A large {@link CMat} or sub-matrix of one is worked on in parallel, see
+   * {@link #toEchelonForm(Matrix, boolean)}.
    * 
    * @param mat the {@link Matrix} to be transformed.
    */
   public static void toEchelonForm(Matrix mat) {
-    Out.trace(false, "Mat at entry %n%s%n", mat);
-    int numRows = mat.getNumRows();
-    int numCols = mat.getNumCols();
-    if (numRows <= 1)
-      return; // there is nothing left to do
-    int pivotCol = findPivotColumn(mat);
-    if (pivotCol == -1)
-      return; // there are no non-zero entries left
-    if (pivotCol > 0) {
-      /*
-       * some left-most columns are all zeros so reduce the matrix to ignore them.
-       */
-      mat = mat.getSubMatrix(0, numRows, pivotCol, numCols - pivotCol);
-      numCols = mat.getNumCols(); // in the sub-matrix, not needed but this keeps it accurate
-      pivotCol = 0; // in the sub-matrix, not needed but this keeps it accurate
-    }
-    /*
-     * the pivot column is now column zero and it must have a non-zero entry.
-     */
-    int pivotRow = findPivotRow(mat);
-    mat.swapRows(0, pivotRow);
-    pivotRow = 0; // not needed, but this keeps it accurate
-    /*
-     * The non-zero pivot element is now at [0,0]. So zero all the elements below it.
-     */
-    double pivotValue = mat.get(0, 0);
-    for (int rI = 1; rI < numRows; rI++ ) {
-      double leadingValue = mat.get(rI, 0);
-      if (leadingValue == 0) {
-        continue; // there is nothing to do
-      }
-      double multFactor = -1 * (leadingValue / pivotValue);
-      /*
-       * Make the leading value 0 by subtracting the appropriate multiple of the pivot row from
-       * the current row.
-       */
-      mat.addRowsWithMult(0, multFactor, rI);
-    }
-    /*
-     * The pivot column is now all zeros except for the pivot value [0,0]. So recurse to
-     * complete the process on the sub matrix below the pivot row (0) and the column to the
-     * left of the pivot column (0).
-     */
-    Out.trace(false, "Mat after zero reduction %n%s%n", mat);
-    mat = mat.getSubMatrix(1, numRows - 1, 1, numCols - 1);
-    toEchelonForm(mat);
+    toEchelonForm(mat, true);
+  }
+  
+  /**
+   * Uses primitive row operators to put the specified {@link Matrix} into echelon form, as
+   * {@link #toEchelonForm(Matrix)} does, optionally in parallel.
+   * <p>
+   * In parallel, while the active sub-matrix of a {@link CMat} or sub-matrix of one has at
+   * least <code>256 * 256</code> elements the rows below the pivot are split into chunks that
+   * are eliminated on the common {@link ForkJoinPool}, and the searches for the pivot column
+   * and pivot row are done as reductions over the same chunks. Every row sees the same
+   * operations in the same order either way and ties in the pivot search go to the lowest
+   * row, so the result is identical to the serial one bit for bit.
+   * 
+   * @param mat the {@link Matrix} to be transformed.
+   * @param parallel true if large steps may be split across threads
+   */
+  public static void toEchelonForm(Matrix mat, boolean parallel) {
+    OpEvent event = OpCounters.beginEvent("toEchelonForm", mat.getNumRows(), mat.getNumCols());
+    echelonForm(mat, parallel);
+    OpCounters.commitEvent(event, echelonFlops(mat.getNumRows(), mat.getNumCols()));
   }
   
   /**
@@ -231,11 +1156,291 @@ public class Mat {
    * <li>The leading entry in each nonzero row is 1.
    * <li>Each leading 1 is the only nonzero entry in its column.
    * </ol>
+   * <p>
+   * <b>Note:</b> Rounding can make a dependent row look independent, so the rank read from the
+   * result may be wrong. For an integer {@link Matrix} use {@link ExactEchelon} instead.
    * 
    * @param mat the {@link Matrix} to be transformed.
    */
   public static void toReducedEchelonForm(Matrix mat) {
+    int numRows = mat.getNumRows();
+    int numCols = mat.getNumCols();
+    OpEvent event = OpCounters.beginEvent("toReducedEchelonForm", numRows, numCols);
     toEchelonForm(mat);
     reduceEchelonForm(mat);
+    OpCounters.commitEvent(event, 2 * echelonFlops(numRows, numCols));
+  }
+  
+  /**
+   * Returns a new {@link CMat} that is the transpose of the specified {@link Matrix}. As
+   * {@link CMat} is row major, the values array of the result holds the specified
+   * {@link Matrix} in column major order.
+   * <p>
+   * When the source is a {@link CMat} or a {@link SubMatrix} the transpose is done directly on
+   * the backing arrays by a cache-oblivious recursive kernel, and large transposes are split
+   * across the common {@link ForkJoinPool}.
+   * 
+   * @param mat the {@link Matrix} to be transposed.
+   * @return a new {@link CMat} that is the transpose of the specified {@link Matrix}.
+   */
+  public static CMat transpose(Matrix mat) {
+    int numRows = mat.getNumRows();
+    int numCols = mat.getNumCols();
+    CMat transMat = new CMat(numCols, numRows);
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, (long) numRows * numCols, (long) numRows * numCols);
+    }
+    double[] src;
+    int srcOffset;
+    int srcStride;
+    if (mat instanceof CMat cMat) {
+      src = cMat.values;
+      srcOffset = 0;
+      srcStride = numCols;
+    } else if (mat instanceof SubMatrix subMat) {
+      CMat outer = subMat.getContainingMatrix();
+      src = outer.values;
+      srcOffset = outer.pos(subMat.firstRow, subMat.firstCol);
+      srcStride = outer.getNumCols();
+    } else {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          transMat.set(cI, rI, mat.get(rI, cI));
+        }
+      }
+      return transMat;
+    }
+    if ((long) numRows * numCols < PARALLEL_TRANSPOSE_SIZE) {
+      transposeBlock(src, srcOffset, srcStride, transMat.values, 0, numRows, 0, numRows, 0,
+              numCols);
+    } else {
+      ForkJoinPool.commonPool().invoke(new TransposeTask(src, srcOffset, srcStride,
+              transMat.values, 0, numRows, 0, numRows, 0, numCols));
+    }
+    return transMat;
+  }
+  
+  /**
+   * Copies the transpose of a block of the row major <code>src</code> array into the row
+   * major <code>dst</code> array. Element <code>[r, c]</code> of the source is at
+   * <code>srcOffset + r * srcStride + c</code> and is copied to
+   * <code>dstOffset + c * dstStride + r</code> for each <code>r</code> in
+   * <code>[rowStart, rowEnd)</code> and <code>c</code> in <code>[colStart, colEnd)</code>.
+   * The longer side of the block is halved recursively until a block fits in a tile, so every
+   * level of the cache is used well without knowing its size.
+   */
+  private static void transposeBlock(double[] src, int srcOffset, int srcStride, double[] dst,
+          int dstOffset, int dstStride, int rowStart, int rowEnd, int colStart, int colEnd) {
+    int numRows = rowEnd - rowStart;
+    int numCols = colEnd - colStart;
+    if (numRows * numCols <= TRANSPOSE_TILE_SIZE) {
+      for (int rI = rowStart; rI < rowEnd; rI++ ) {
+        int srcPos = srcOffset + (rI * srcStride);
+        for (int cI = colStart; cI < colEnd; cI++ ) {
+          dst[dstOffset + (cI * dstStride) + rI] = src[srcPos + cI];
+        }
+      }
+    } else if (numRows >= numCols) {
+      int mid = rowStart + (numRows / 2);
+      transposeBlock(src, srcOffset, srcStride, dst, dstOffset, dstStride, rowStart, mid,
+              colStart, colEnd);
+      transposeBlock(src, srcOffset, srcStride, dst, dstOffset, dstStride, mid, rowEnd,
+              colStart, colEnd);
+    } else {
+      int mid = colStart + (numCols / 2);
+      transposeBlock(src, srcOffset, srcStride, dst, dstOffset, dstStride, rowStart, rowEnd,
+              colStart, mid);
+      transposeBlock(src, srcOffset, srcStride, dst, dstOffset, dstStride, rowStart, rowEnd,
+              mid, colEnd);
+    }
+  }
+  
+  /**
+   * Transposes the specified square {@link CMat} in place. The diagonal is left alone and
+   * each element below it is swapped with its mirror image above it, working on blocks so
+   * that both sides of the swap stay in cache. Large matrices are split across the common
+   * {@link ForkJoinPool}.
+   * 
+   * @param mat the square {@link CMat} to be transposed.
+   * @return the specified {@link CMat} after it has been transposed.
+   */
+  public static CMat transposeInPlace(CMat mat) {
+    if ( !mat.isSquare())
+      throw new RuntimeException("Only a square matrix can be transposed in place");
+    int dim = mat.getNumRows();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, (long) dim * dim, (long) dim * dim);
+    }
+    /*
+     * Split the matrix in to horizontal bands of rows, the part of each band that is left of
+     * the diagonal is swapped with the matching band of columns above the diagonal.
+     */
+    long size = (long) dim * dim;
+    if (size < PARALLEL_TRANSPOSE_SIZE) {
+      for (int rI = 0; rI < dim; rI += TRANSPOSE_BAND_SIZE) {
+        int rowEnd = Math.min(rI + TRANSPOSE_BAND_SIZE, dim);
+        swapBlocks(mat.values, 0, dim, rI, rowEnd, 0, rI);
+        swapTriangle(mat.values, 0, dim, rI, rowEnd);
+      }
+    } else {
+      int numBands = (dim + TRANSPOSE_BAND_SIZE - 1) / TRANSPOSE_BAND_SIZE;
+      RecursiveAction[] tasks = new RecursiveAction[numBands];
+      for (int bI = 0; bI < numBands; bI++ ) {
+        int rowStart = bI * TRANSPOSE_BAND_SIZE;
+        int rowEnd = Math.min(rowStart + TRANSPOSE_BAND_SIZE, dim);
+        tasks[bI] = new SwapBlocksTask(mat.values, 0, dim, rowStart, rowEnd, 0, rowStart);
+      }
+      ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+        
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+      for (int rI = 0; rI < dim; rI += TRANSPOSE_BAND_SIZE) {
+        swapTriangle(mat.values, 0, dim, rI, Math.min(rI + TRANSPOSE_BAND_SIZE, dim));
+      }
+    }
+    return mat;
+  }
+  
+  /**
+   * Computes the triangular matrix vector product <code>x = a * x</code>, or
+   * <code>x = transpose(a) * x</code> if <code>trans</code> is true, in place. Only the upper,
+   * or lower, triangle of <code>a</code> is used and if <code>unitDiagonal</code> is true the
+   * diagonal is taken to be all ones without being read.
+   * 
+   * @param upper true if a is upper triangular, false if it is lower triangular.
+   * @param trans true if the transpose of a is to be used.
+   * @param unitDiagonal true if the diagonal of a is all ones.
+   * @param a the square {@link Matrix}
+   * @param x the {@link Vector} which is replaced by the product.
+   * @return x after it has been updated.
+   */
+  public static Vector trmv(boolean upper, boolean trans, boolean unitDiagonal, Matrix a,
+          Vector x) {
+    int dim = a.getNumRows();
+    assert a.isSquare() && (x.dimension() == dim);
+    if (OpCounters.ENABLED) {
+      OpCounters.count((long) dim * dim, (((long) dim * (dim + 1)) / 2) + dim, dim);
+    }
+    Matrix arrayMat = arrayBacked(a);
+    double[] values = arrayValues(arrayMat);
+    int offset = arrayOffset(arrayMat);
+    int stride = arrayStride(arrayMat);
+    double[] xValues = vectorValues(x);
+    if ( !trans) {
+      /*
+       * Each element is the dot product of its row with the elements of x that are not yet
+       * replaced, so work away from the zeros in the triangle.
+       */
+      for (int step = 0; step < dim; step++ ) {
+        int rI = upper ? step : dim - 1 - step;
+        int rowPos = offset + (rI * stride);
+        int colStart = upper ? rI + 1 : 0;
+        int colEnd = upper ? dim : rI;
+        double dp = unitDiagonal ? xValues[rI] : values[rowPos + rI] * xValues[rI];
+        for (int cI = colStart; cI < colEnd; cI++ ) {
+          dp += values[rowPos + cI] * xValues[cI];
+        }
+        xValues[rI] = dp;
+      }
+    } else {
+      /*
+       * Each row of the transpose is a column of a, so add each row of a, scaled by its
+       * original element of x, to the elements that are already complete.
+       */
+      for (int step = 0; step < dim; step++ ) {
+        int rI = upper ? dim - 1 - step : step;
+        int rowPos = offset + (rI * stride);
+        int colStart = upper ? rI + 1 : 0;
+        int colEnd = upper ? dim : rI;
+        double xValue = xValues[rI];
+        if ( !unitDiagonal) {
+          xValues[rI] = values[rowPos + rI] * xValue;
+        }
+        for (int cI = colStart; cI < colEnd; cI++ ) {
+          xValues[cI] += values[rowPos + cI] * xValue;
+        }
+      }
+    }
+    storeValues(xValues, x);
+    return x;
+  }
+  
+  /**
+   * Solves the triangular system <code>a * x = b</code>, or
+   * <code>transpose(a) * x = b</code> if <code>trans</code> is true, in place. On entry
+   * <code>x</code> holds <code>b</code> and on exit it holds the solution. Only the upper, or
+   * lower, triangle of <code>a</code> is used and if <code>unitDiagonal</code> is true the
+   * diagonal is taken to be all ones without being read. No test for singularity is done.
+   * 
+   * @param upper true if a is upper triangular, false if it is lower triangular.
+   * @param trans true if the transpose of a is to be used.
+   * @param unitDiagonal true if the diagonal of a is all ones.
+   * @param a the square {@link Matrix}
+   * @param x the {@link Vector} that holds b on entry and the solution on exit.
+   * @return x after it has been updated.
+   */
+  public static Vector trsv(boolean upper, boolean trans, boolean unitDiagonal, Matrix a,
+          Vector x) {
+    int dim = a.getNumRows();
+    assert a.isSquare() && (x.dimension() == dim);
+    if (OpCounters.ENABLED) {
+      OpCounters.count((long) dim * dim, (((long) dim * (dim + 1)) / 2) + dim, dim);
+    }
+    Matrix arrayMat = arrayBacked(a);
+    double[] values = arrayValues(arrayMat);
+    int offset = arrayOffset(arrayMat);
+    int stride = arrayStride(arrayMat);
+    double[] xValues = vectorValues(x);
+    if ( !trans) {
+      /*
+       * Substitute the solved elements into each row, working away from the corner of the
+       * triangle that has just one element.
+       */
+      for (int step = 0; step < dim; step++ ) {
+        int rI = upper ? dim - 1 - step : step;
+        int rowPos = offset + (rI * stride);
+        int colStart = upper ? rI + 1 : 0;
+        int colEnd = upper ? dim : rI;
+        double sum = xValues[rI];
+        for (int cI = colStart; cI < colEnd; cI++ ) {
+          sum -= values[rowPos + cI] * xValues[cI];
+        }
+        xValues[rI] = unitDiagonal ? sum : sum / values[rowPos + rI];
+      }
+    } else {
+      /*
+       * Each row of a is a column of the transpose, so once an element is solved subtract
+       * its multiple of the row from the elements still to be solved.
+       */
+      for (int step = 0; step < dim; step++ ) {
+        int rI = upper ? step : dim - 1 - step;
+        int rowPos = offset + (rI * stride);
+        int colStart = upper ? rI + 1 : 0;
+        int colEnd = upper ? dim : rI;
+        double xValue = unitDiagonal ? xValues[rI] : xValues[rI] / values[rowPos + rI];
+        xValues[rI] = xValue;
+        for (int cI = colStart; cI < colEnd; cI++ ) {
+          xValues[cI] -= values[rowPos + cI] * xValue;
+        }
+      }
+    }
+    storeValues(xValues, x);
+    return x;
+  }
+  
+  /**
+   * Returns the backing array of the specified {@link Vector} if it is a {@link CVec}, or an
+   * array copy of its elements otherwise. If the {@link Vector} is to be updated the array
+   * must be passed to {@link #storeValues(double[], Vector)} when done.
+   */
+  private static double[] vectorValues(Vector vec) {
+    if (vec instanceof CVec cVec)
+      return cVec.values;
+    return Vec.copy(vec).values;
   }
 }
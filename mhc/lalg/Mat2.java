@@ -0,0 +1,209 @@
+package mhc.lalg;
+
+/**
+ * An immutable 2 x 2 matrix held in final fields rather than an array. The operations are
+ * written out element by element with no loops, array accesses or virtual calls, and every
+ * result is a new {@link Mat2} or {@link Vec2}, so a temporary that does not escape can be
+ * scalar replaced by the JIT and never allocated. Use {@link #of(Matrix)} and
+ * {@link #toCMat()} to convert to and from the general {@link Matrix}s.
+ * <p>
+ * The field <code>mRC</code> holds the element in row <code>R</code> and column
+ * <code>C</code>.
+ */
+public final class Mat2 {
+  
+  /**
+   * The identity matrix.
+   */
+  public static final Mat2 IDENTITY = new Mat2(
+          1.0, 0.0,
+          0.0, 1.0);
+  
+  public final double m00, m01;
+  
+  public final double m10, m11;
+  
+  /**
+   * Creates a {@link Mat2} with the specified elements, given in row major order.
+   */
+  public Mat2(double m00, double m01, double m10, double m11) {
+    this.m00 = m00;
+    this.m01 = m01;
+    this.m10 = m10;
+    this.m11 = m11;
+  }
+  
+  /**
+   * Returns a new {@link Mat2} holding the elements of the specified {@link Matrix}, which
+   * must be 2 x 2.
+   * 
+   * @param mat the {@link Matrix}
+   * @return a new {@link Mat2} holding the elements of the specified {@link Matrix}.
+   */
+  public static Mat2 of(Matrix mat) {
+    assert (mat.getNumRows() == 2) && (mat.getNumCols() == 2);
+    return new Mat2(mat.get(0, 0), mat.get(0, 1), mat.get(1, 0), mat.get(1, 1));
+  }
+  
+  /**
+   * Returns the determinant of this {@link Mat2}.
+   * 
+   * @return the determinant of this {@link Mat2}.
+   */
+  public double determinant() {
+    return (m00 * m11) - (m01 * m10);
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof Mat2 o) && (Double.compare(m00, o.m00) == 0)
+            && (Double.compare(m01, o.m01) == 0) && (Double.compare(m10, o.m10) == 0)
+            && (Double.compare(m11, o.m11) == 0);
+  }
+  
+  /**
+   * Returns the element of this {@link Mat2} at the specified coordinates.
+   * 
+   * @param rowIndex the row
+   * @param colIndex the column
+   * @return the element of this {@link Mat2} at the specified coordinates.
+   */
+  public double get(int rowIndex, int colIndex) {
+    if ((rowIndex < 0) || (rowIndex >= 2) || (colIndex < 0) || (colIndex >= 2))
+      throw new RuntimeException("Index out of range: [" + rowIndex + ", " + colIndex + "]");
+    switch ((rowIndex * 2) + colIndex) {
+      case 0:
+        return m00;
+      case 1:
+        return m01;
+      case 2:
+        return m10;
+      case 3:
+        return m11;
+      default:
+        throw new RuntimeException("Index out of range: [" + rowIndex + ", " + colIndex + "]");
+    }
+  }
+  
+  @Override
+  public int hashCode() {
+    int hash = Double.hashCode(m00);
+    hash = (31 * hash) + Double.hashCode(m01);
+    hash = (31 * hash) + Double.hashCode(m10);
+    hash = (31 * hash) + Double.hashCode(m11);
+    return hash;
+  }
+  
+  /**
+   * Returns the inverse of this {@link Mat2}, computed from its cofactors. It is an error if
+   * this {@link Mat2} is singular.
+   * 
+   * @return the inverse of this {@link Mat2}.
+   */
+  public Mat2 inverse() {
+    double det = determinant();
+    if (det == 0.0)
+      throw new RuntimeException("Matrix is singular");
+    double invDet = 1.0 / det;
+    return new Mat2(invDet * m11, -invDet * m01, -invDet * m10, invDet * m00);
+  }
+  
+  /**
+   * Returns the difference of this {@link Mat2} and the specified {@link Mat2}.
+   * 
+   * @param o the {@link Mat2} to subtract
+   * @return the difference of this {@link Mat2} and the specified {@link Mat2}.
+   */
+  public Mat2 minus(Mat2 o) {
+    return new Mat2(m00 - o.m00, m01 - o.m01, m10 - o.m10, m11 - o.m11);
+  }
+  
+  /**
+   * Returns the sum of this {@link Mat2} and the specified {@link Mat2}.
+   * 
+   * @param o the {@link Mat2} to add
+   * @return the sum of this {@link Mat2} and the specified {@link Mat2}.
+   */
+  public Mat2 plus(Mat2 o) {
+    return new Mat2(m00 + o.m00, m01 + o.m01, m10 + o.m10, m11 + o.m11);
+  }
+  
+  /**
+   * Returns the solution <code>x</code> of <code>this * x = b</code>, computed from the
+   * inverse. It is an error if this {@link Mat2} is singular.
+   * 
+   * @param b the right hand side
+   * @return the solution <code>x</code> of <code>this * x = b</code>.
+   */
+  public Vec2 solve(Vec2 b) {
+    return inverse().times(b);
+  }
+  
+  /**
+   * Returns this {@link Mat2} multiplied by the specified factor.
+   * 
+   * @param factor the scale factor
+   * @return this {@link Mat2} multiplied by the specified factor.
+   */
+  public Mat2 times(double factor) {
+    return new Mat2(factor * m00, factor * m01, factor * m10, factor * m11);
+  }
+  
+  /**
+   * Returns the product of this {@link Mat2} and the specified {@link Mat2}.
+   * 
+   * @param o the right hand side of the product
+   * @return the product of this {@link Mat2} and the specified {@link Mat2}.
+   */
+  public Mat2 times(Mat2 o) {
+    return new Mat2(
+            (m00 * o.m00) + (m01 * o.m10),
+            (m00 * o.m01) + (m01 * o.m11),
+            (m10 * o.m00) + (m11 * o.m10),
+            (m10 * o.m01) + (m11 * o.m11));
+  }
+  
+  /**
+   * Returns the product of this {@link Mat2} and the specified {@link Vec2}.
+   * 
+   * @param v the {@link Vec2} to multiply by
+   * @return the product of this {@link Mat2} and the specified {@link Vec2}.
+   */
+  public Vec2 times(Vec2 v) {
+    return new Vec2(
+            (m00 * v.x) + (m01 * v.y),
+            (m10 * v.x) + (m11 * v.y));
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding the elements of this {@link Mat2}.
+   * 
+   * @return a new {@link CMat} holding the elements of this {@link Mat2}.
+   */
+  public CMat toCMat() {
+    CMat mat = new CMat(2, 2);
+    double[] values = mat.values;
+    values[0] = m00;
+    values[1] = m01;
+    values[2] = m10;
+    values[3] = m11;
+    return mat;
+  }
+  
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder();
+    buf.append("|%6.2f, %6.2f|\n".formatted(m00, m01));
+    buf.append("|%6.2f, %6.2f|\n".formatted(m10, m11));
+    return buf.toString();
+  }
+  
+  /**
+   * Returns the transpose of this {@link Mat2}.
+   * 
+   * @return the transpose of this {@link Mat2}.
+   */
+  public Mat2 transpose() {
+    return new Mat2(m00, m10, m01, m11);
+  }
+}
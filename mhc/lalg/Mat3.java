@@ -0,0 +1,259 @@
+package mhc.lalg;
+
+/**
+ * An immutable 3 x 3 matrix held in final fields rather than an array. The operations are
+ * written out element by element with no loops, array accesses or virtual calls, and every
+ * result is a new {@link Mat3} or {@link Vec3}, so a temporary that does not escape can be
+ * scalar replaced by the JIT and never allocated. Use {@link #of(Matrix)} and
+ * {@link #toCMat()} to convert to and from the general {@link Matrix}s.
+ * <p>
+ * The field <code>mRC</code> holds the element in row <code>R</code> and column
+ * <code>C</code>.
+ */
+public final class Mat3 {
+  
+  /**
+   * The identity matrix.
+   */
+  public static final Mat3 IDENTITY = new Mat3(
+          1.0, 0.0, 0.0,
+          0.0, 1.0, 0.0,
+          0.0, 0.0, 1.0);
+  
+  public final double m00, m01, m02;
+  
+  public final double m10, m11, m12;
+  
+  public final double m20, m21, m22;
+  
+  /**
+   * Creates a {@link Mat3} with the specified elements, given in row major order.
+   */
+  public Mat3(double m00, double m01, double m02, double m10, double m11, double m12, double m20,
+          double m21, double m22) {
+    this.m00 = m00;
+    this.m01 = m01;
+    this.m02 = m02;
+    this.m10 = m10;
+    this.m11 = m11;
+    this.m12 = m12;
+    this.m20 = m20;
+    this.m21 = m21;
+    this.m22 = m22;
+  }
+  
+  /**
+   * Returns a new {@link Mat3} holding the elements of the specified {@link Matrix}, which
+   * must be 3 x 3.
+   * 
+   * @param mat the {@link Matrix}
+   * @return a new {@link Mat3} holding the elements of the specified {@link Matrix}.
+   */
+  public static Mat3 of(Matrix mat) {
+    assert (mat.getNumRows() == 3) && (mat.getNumCols() == 3);
+    return new Mat3(mat.get(0, 0), mat.get(0, 1), mat.get(0, 2), mat.get(1, 0), mat.get(1, 1),
+            mat.get(1, 2), mat.get(2, 0), mat.get(2, 1), mat.get(2, 2));
+  }
+  
+  /**
+   * Returns the determinant of this {@link Mat3}.
+   * 
+   * @return the determinant of this {@link Mat3}.
+   */
+  public double determinant() {
+    return (m00 * ((m11 * m22) - (m12 * m21))) - (m01 * ((m10 * m22) - (m12 * m20)))
+            + (m02 * ((m10 * m21) - (m11 * m20)));
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof Mat3 o) && (Double.compare(m00, o.m00) == 0)
+            && (Double.compare(m01, o.m01) == 0) && (Double.compare(m02, o.m02) == 0)
+            && (Double.compare(m10, o.m10) == 0) && (Double.compare(m11, o.m11) == 0)
+            && (Double.compare(m12, o.m12) == 0) && (Double.compare(m20, o.m20) == 0)
+            && (Double.compare(m21, o.m21) == 0) && (Double.compare(m22, o.m22) == 0);
+  }
+  
+  /**
+   * Returns the element of this {@link Mat3} at the specified coordinates.
+   * 
+   * @param rowIndex the row
+   * @param colIndex the column
+   * @return the element of this {@link Mat3} at the specified coordinates.
+   */
+  public double get(int rowIndex, int colIndex) {
+    if ((rowIndex < 0) || (rowIndex >= 3) || (colIndex < 0) || (colIndex >= 3))
+      throw new RuntimeException("Index out of range: [" + rowIndex + ", " + colIndex + "]");
+    switch ((rowIndex * 3) + colIndex) {
+      case 0:
+        return m00;
+      case 1:
+        return m01;
+      case 2:
+        return m02;
+      case 3:
+        return m10;
+      case 4:
+        return m11;
+      case 5:
+        return m12;
+      case 6:
+        return m20;
+      case 7:
+        return m21;
+      case 8:
+        return m22;
+      default:
+        throw new RuntimeException("Index out of range: [" + rowIndex + ", " + colIndex + "]");
+    }
+  }
+  
+  @Override
+  public int hashCode() {
+    int hash = Double.hashCode(m00);
+    hash = (31 * hash) + Double.hashCode(m01);
+    hash = (31 * hash) + Double.hashCode(m02);
+    hash = (31 * hash) + Double.hashCode(m10);
+    hash = (31 * hash) + Double.hashCode(m11);
+    hash = (31 * hash) + Double.hashCode(m12);
+    hash = (31 * hash) + Double.hashCode(m20);
+    hash = (31 * hash) + Double.hashCode(m21);
+    hash = (31 * hash) + Double.hashCode(m22);
+    return hash;
+  }
+  
+  /**
+   * Returns the inverse of this {@link Mat3}, computed from its cofactors. It is an error if
+   * this {@link Mat3} is singular.
+   * 
+   * @return the inverse of this {@link Mat3}.
+   */
+  public Mat3 inverse() {
+    double c00 = (m11 * m22) - (m12 * m21);
+    double c01 = (m12 * m20) - (m10 * m22);
+    double c02 = (m10 * m21) - (m11 * m20);
+    double det = (m00 * c00) + (m01 * c01) + (m02 * c02);
+    if (det == 0.0)
+      throw new RuntimeException("Matrix is singular");
+    double invDet = 1.0 / det;
+    return new Mat3(invDet * c00, invDet * ((m02 * m21) - (m01 * m22)),
+            invDet * ((m01 * m12) - (m02 * m11)), invDet * c01,
+            invDet * ((m00 * m22) - (m02 * m20)), invDet * ((m02 * m10) - (m00 * m12)),
+            invDet * c02, invDet * ((m01 * m20) - (m00 * m21)),
+            invDet * ((m00 * m11) - (m01 * m10)));
+  }
+  
+  /**
+   * Returns the difference of this {@link Mat3} and the specified {@link Mat3}.
+   * 
+   * @param o the {@link Mat3} to subtract
+   * @return the difference of this {@link Mat3} and the specified {@link Mat3}.
+   */
+  public Mat3 minus(Mat3 o) {
+    return new Mat3(m00 - o.m00, m01 - o.m01, m02 - o.m02, m10 - o.m10, m11 - o.m11, m12 - o.m12,
+            m20 - o.m20, m21 - o.m21, m22 - o.m22);
+  }
+  
+  /**
+   * Returns the sum of this {@link Mat3} and the specified {@link Mat3}.
+   * 
+   * @param o the {@link Mat3} to add
+   * @return the sum of this {@link Mat3} and the specified {@link Mat3}.
+   */
+  public Mat3 plus(Mat3 o) {
+    return new Mat3(m00 + o.m00, m01 + o.m01, m02 + o.m02, m10 + o.m10, m11 + o.m11, m12 + o.m12,
+            m20 + o.m20, m21 + o.m21, m22 + o.m22);
+  }
+  
+  /**
+   * Returns the solution <code>x</code> of <code>this * x = b</code>, computed from the
+   * inverse. It is an error if this {@link Mat3} is singular.
+   * 
+   * @param b the right hand side
+   * @return the solution <code>x</code> of <code>this * x = b</code>.
+   */
+  public Vec3 solve(Vec3 b) {
+    return inverse().times(b);
+  }
+  
+  /**
+   * Returns this {@link Mat3} multiplied by the specified factor.
+   * 
+   * @param factor the scale factor
+   * @return this {@link Mat3} multiplied by the specified factor.
+   */
+  public Mat3 times(double factor) {
+    return new Mat3(factor * m00, factor * m01, factor * m02, factor * m10, factor * m11,
+            factor * m12, factor * m20, factor * m21, factor * m22);
+  }
+  
+  /**
+   * Returns the product of this {@link Mat3} and the specified {@link Mat3}.
+   * 
+   * @param o the right hand side of the product
+   * @return the product of this {@link Mat3} and the specified {@link Mat3}.
+   */
+  public Mat3 times(Mat3 o) {
+    return new Mat3(
+            (m00 * o.m00) + (m01 * o.m10) + (m02 * o.m20),
+            (m00 * o.m01) + (m01 * o.m11) + (m02 * o.m21),
+            (m00 * o.m02) + (m01 * o.m12) + (m02 * o.m22),
+            (m10 * o.m00) + (m11 * o.m10) + (m12 * o.m20),
+            (m10 * o.m01) + (m11 * o.m11) + (m12 * o.m21),
+            (m10 * o.m02) + (m11 * o.m12) + (m12 * o.m22),
+            (m20 * o.m00) + (m21 * o.m10) + (m22 * o.m20),
+            (m20 * o.m01) + (m21 * o.m11) + (m22 * o.m21),
+            (m20 * o.m02) + (m21 * o.m12) + (m22 * o.m22));
+  }
+  
+  /**
+   * Returns the product of this {@link Mat3} and the specified {@link Vec3}.
+   * 
+   * @param v the {@link Vec3} to multiply by
+   * @return the product of this {@link Mat3} and the specified {@link Vec3}.
+   */
+  public Vec3 times(Vec3 v) {
+    return new Vec3(
+            (m00 * v.x) + (m01 * v.y) + (m02 * v.z),
+            (m10 * v.x) + (m11 * v.y) + (m12 * v.z),
+            (m20 * v.x) + (m21 * v.y) + (m22 * v.z));
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding the elements of this {@link Mat3}.
+   * 
+   * @return a new {@link CMat} holding the elements of this {@link Mat3}.
+   */
+  public CMat toCMat() {
+    CMat mat = new CMat(3, 3);
+    double[] values = mat.values;
+    values[0] = m00;
+    values[1] = m01;
+    values[2] = m02;
+    values[3] = m10;
+    values[4] = m11;
+    values[5] = m12;
+    values[6] = m20;
+    values[7] = m21;
+    values[8] = m22;
+    return mat;
+  }
+  
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder();
+    buf.append("|%6.2f, %6.2f, %6.2f|\n".formatted(m00, m01, m02));
+    buf.append("|%6.2f, %6.2f, %6.2f|\n".formatted(m10, m11, m12));
+    buf.append("|%6.2f, %6.2f, %6.2f|\n".formatted(m20, m21, m22));
+    return buf.toString();
+  }
+  
+  /**
+   * Returns the transpose of this {@link Mat3}.
+   * 
+   * @return the transpose of this {@link Mat3}.
+   */
+  public Mat3 transpose() {
+    return new Mat3(m00, m10, m20, m01, m11, m21, m02, m12, m22);
+  }
+}
@@ -0,0 +1,348 @@
+package mhc.lalg;
+
+/**
+ * An immutable 4 x 4 matrix held in final fields rather than an array. The operations are
+ * written out element by element with no loops, array accesses or virtual calls, and every
+ * result is a new {@link Mat4} or {@link Vec4}, so a temporary that does not escape can be
+ * scalar replaced by the JIT and never allocated. Use {@link #of(Matrix)} and
+ * {@link #toCMat()} to convert to and from the general {@link Matrix}s.
+ * <p>
+ * The field <code>mRC</code> holds the element in row <code>R</code> and column
+ * <code>C</code>.
+ */
+public final class Mat4 {
+  
+  /**
+   * The identity matrix.
+   */
+  public static final Mat4 IDENTITY = new Mat4(
+          1.0, 0.0, 0.0, 0.0,
+          0.0, 1.0, 0.0, 0.0,
+          0.0, 0.0, 1.0, 0.0,
+          0.0, 0.0, 0.0, 1.0);
+  
+  public final double m00, m01, m02, m03;
+  
+  public final double m10, m11, m12, m13;
+  
+  public final double m20, m21, m22, m23;
+  
+  public final double m30, m31, m32, m33;
+  
+  /**
+   * Creates a {@link Mat4} with the specified elements, given in row major order.
+   */
+  public Mat4(double m00, double m01, double m02, double m03, double m10, double m11, double m12,
+          double m13, double m20, double m21, double m22, double m23, double m30, double m31,
+          double m32, double m33) {
+    this.m00 = m00;
+    this.m01 = m01;
+    this.m02 = m02;
+    this.m03 = m03;
+    this.m10 = m10;
+    this.m11 = m11;
+    this.m12 = m12;
+    this.m13 = m13;
+    this.m20 = m20;
+    this.m21 = m21;
+    this.m22 = m22;
+    this.m23 = m23;
+    this.m30 = m30;
+    this.m31 = m31;
+    this.m32 = m32;
+    this.m33 = m33;
+  }
+  
+  /**
+   * Returns a new {@link Mat4} holding the elements of the specified {@link Matrix}, which
+   * must be 4 x 4.
+   * 
+   * @param mat the {@link Matrix}
+   * @return a new {@link Mat4} holding the elements of the specified {@link Matrix}.
+   */
+  public static Mat4 of(Matrix mat) {
+    assert (mat.getNumRows() == 4) && (mat.getNumCols() == 4);
+    return new Mat4(mat.get(0, 0), mat.get(0, 1), mat.get(0, 2), mat.get(0, 3), mat.get(1, 0),
+            mat.get(1, 1), mat.get(1, 2), mat.get(1, 3), mat.get(2, 0), mat.get(2, 1),
+            mat.get(2, 2), mat.get(2, 3), mat.get(3, 0), mat.get(3, 1), mat.get(3, 2),
+            mat.get(3, 3));
+  }
+  
+  /**
+   * Returns the determinant of this {@link Mat4}.
+   * 
+   * @return the determinant of this {@link Mat4}.
+   */
+  public double determinant() {
+    double s0 = (m00 * m11) - (m10 * m01);
+    double s1 = (m00 * m12) - (m10 * m02);
+    double s2 = (m00 * m13) - (m10 * m03);
+    double s3 = (m01 * m12) - (m11 * m02);
+    double s4 = (m01 * m13) - (m11 * m03);
+    double s5 = (m02 * m13) - (m12 * m03);
+    double c5 = (m22 * m33) - (m32 * m23);
+    double c4 = (m21 * m33) - (m31 * m23);
+    double c3 = (m21 * m32) - (m31 * m22);
+    double c2 = (m20 * m33) - (m30 * m23);
+    double c1 = (m20 * m32) - (m30 * m22);
+    double c0 = (m20 * m31) - (m30 * m21);
+    return (s0 * c5) - (s1 * c4) + (s2 * c3) + (s3 * c2) - (s4 * c1) + (s5 * c0);
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof Mat4 o) && (Double.compare(m00, o.m00) == 0)
+            && (Double.compare(m01, o.m01) == 0) && (Double.compare(m02, o.m02) == 0)
+            && (Double.compare(m03, o.m03) == 0) && (Double.compare(m10, o.m10) == 0)
+            && (Double.compare(m11, o.m11) == 0) && (Double.compare(m12, o.m12) == 0)
+            && (Double.compare(m13, o.m13) == 0) && (Double.compare(m20, o.m20) == 0)
+            && (Double.compare(m21, o.m21) == 0) && (Double.compare(m22, o.m22) == 0)
+            && (Double.compare(m23, o.m23) == 0) && (Double.compare(m30, o.m30) == 0)
+            && (Double.compare(m31, o.m31) == 0) && (Double.compare(m32, o.m32) == 0)
+            && (Double.compare(m33, o.m33) == 0);
+  }
+  
+  /**
+   * Returns the element of this {@link Mat4} at the specified coordinates.
+   * 
+   * @param rowIndex the row
+   * @param colIndex the column
+   * @return the element of this {@link Mat4} at the specified coordinates.
+   */
+  public double get(int rowIndex, int colIndex) {
+    if ((rowIndex < 0) || (rowIndex >= 4) || (colIndex < 0) || (colIndex >= 4))
+      throw new RuntimeException("Index out of range: [" + rowIndex + ", " + colIndex + "]");
+    switch ((rowIndex * 4) + colIndex) {
+      case 0:
+        return m00;
+      case 1:
+        return m01;
+      case 2:
+        return m02;
+      case 3:
+        return m03;
+      case 4:
+        return m10;
+      case 5:
+        return m11;
+      case 6:
+        return m12;
+      case 7:
+        return m13;
+      case 8:
+        return m20;
+      case 9:
+        return m21;
+      case 10:
+        return m22;
+      case 11:
+        return m23;
+      case 12:
+        return m30;
+      case 13:
+        return m31;
+      case 14:
+        return m32;
+      case 15:
+        return m33;
+      default:
+        throw new RuntimeException("Index out of range: [" + rowIndex + ", " + colIndex + "]");
+    }
+  }
+  
+  @Override
+  public int hashCode() {
+    int hash = Double.hashCode(m00);
+    hash = (31 * hash) + Double.hashCode(m01);
+    hash = (31 * hash) + Double.hashCode(m02);
+    hash = (31 * hash) + Double.hashCode(m03);
+    hash = (31 * hash) + Double.hashCode(m10);
+    hash = (31 * hash) + Double.hashCode(m11);
+    hash = (31 * hash) + Double.hashCode(m12);
+    hash = (31 * hash) + Double.hashCode(m13);
+    hash = (31 * hash) + Double.hashCode(m20);
+    hash = (31 * hash) + Double.hashCode(m21);
+    hash = (31 * hash) + Double.hashCode(m22);
+    hash = (31 * hash) + Double.hashCode(m23);
+    hash = (31 * hash) + Double.hashCode(m30);
+    hash = (31 * hash) + Double.hashCode(m31);
+    hash = (31 * hash) + Double.hashCode(m32);
+    hash = (31 * hash) + Double.hashCode(m33);
+    return hash;
+  }
+  
+  /**
+   * Returns the inverse of this {@link Mat4}, computed from its cofactors. It is an error if
+   * this {@link Mat4} is singular.
+   * 
+   * @return the inverse of this {@link Mat4}.
+   */
+  public Mat4 inverse() {
+    double s0 = (m00 * m11) - (m10 * m01);
+    double s1 = (m00 * m12) - (m10 * m02);
+    double s2 = (m00 * m13) - (m10 * m03);
+    double s3 = (m01 * m12) - (m11 * m02);
+    double s4 = (m01 * m13) - (m11 * m03);
+    double s5 = (m02 * m13) - (m12 * m03);
+    double c5 = (m22 * m33) - (m32 * m23);
+    double c4 = (m21 * m33) - (m31 * m23);
+    double c3 = (m21 * m32) - (m31 * m22);
+    double c2 = (m20 * m33) - (m30 * m23);
+    double c1 = (m20 * m32) - (m30 * m22);
+    double c0 = (m20 * m31) - (m30 * m21);
+    double det = (s0 * c5) - (s1 * c4) + (s2 * c3) + (s3 * c2) - (s4 * c1) + (s5 * c0);
+    if (det == 0.0)
+      throw new RuntimeException("Matrix is singular");
+    double invDet = 1.0 / det;
+    return new Mat4(
+            invDet * ((m11 * c5) - (m12 * c4) + (m13 * c3)),
+            invDet * ((m02 * c4) - (m01 * c5) - (m03 * c3)),
+            invDet * ((m31 * s5) - (m32 * s4) + (m33 * s3)),
+            invDet * ((m22 * s4) - (m21 * s5) - (m23 * s3)),
+            invDet * ((m12 * c2) - (m10 * c5) - (m13 * c1)),
+            invDet * ((m00 * c5) - (m02 * c2) + (m03 * c1)),
+            invDet * ((m32 * s2) - (m30 * s5) - (m33 * s1)),
+            invDet * ((m20 * s5) - (m22 * s2) + (m23 * s1)),
+            invDet * ((m10 * c4) - (m11 * c2) + (m13 * c0)),
+            invDet * ((m01 * c2) - (m00 * c4) - (m03 * c0)),
+            invDet * ((m30 * s4) - (m31 * s2) + (m33 * s0)),
+            invDet * ((m21 * s2) - (m20 * s4) - (m23 * s0)),
+            invDet * ((m11 * c1) - (m10 * c3) - (m12 * c0)),
+            invDet * ((m00 * c3) - (m01 * c1) + (m02 * c0)),
+            invDet * ((m31 * s1) - (m30 * s3) - (m32 * s0)),
+            invDet * ((m20 * s3) - (m21 * s1) + (m22 * s0)));
+  }
+  
+  /**
+   * Returns the difference of this {@link Mat4} and the specified {@link Mat4}.
+   * 
+   * @param o the {@link Mat4} to subtract
+   * @return the difference of this {@link Mat4} and the specified {@link Mat4}.
+   */
+  public Mat4 minus(Mat4 o) {
+    return new Mat4(m00 - o.m00, m01 - o.m01, m02 - o.m02, m03 - o.m03, m10 - o.m10, m11 - o.m11,
+            m12 - o.m12, m13 - o.m13, m20 - o.m20, m21 - o.m21, m22 - o.m22, m23 - o.m23,
+            m30 - o.m30, m31 - o.m31, m32 - o.m32, m33 - o.m33);
+  }
+  
+  /**
+   * Returns the sum of this {@link Mat4} and the specified {@link Mat4}.
+   * 
+   * @param o the {@link Mat4} to add
+   * @return the sum of this {@link Mat4} and the specified {@link Mat4}.
+   */
+  public Mat4 plus(Mat4 o) {
+    return new Mat4(m00 + o.m00, m01 + o.m01, m02 + o.m02, m03 + o.m03, m10 + o.m10, m11 + o.m11,
+            m12 + o.m12, m13 + o.m13, m20 + o.m20, m21 + o.m21, m22 + o.m22, m23 + o.m23,
+            m30 + o.m30, m31 + o.m31, m32 + o.m32, m33 + o.m33);
+  }
+  
+  /**
+   * Returns the solution <code>x</code> of <code>this * x = b</code>, computed from the
+   * inverse. It is an error if this {@link Mat4} is singular.
+   * 
+   * @param b the right hand side
+   * @return the solution <code>x</code> of <code>this * x = b</code>.
+   */
+  public Vec4 solve(Vec4 b) {
+    return inverse().times(b);
+  }
+  
+  /**
+   * Returns this {@link Mat4} multiplied by the specified factor.
+   * 
+   * @param factor the scale factor
+   * @return this {@link Mat4} multiplied by the specified factor.
+   */
+  public Mat4 times(double factor) {
+    return new Mat4(factor * m00, factor * m01, factor * m02, factor * m03, factor * m10,
+            factor * m11, factor * m12, factor * m13, factor * m20, factor * m21, factor * m22,
+            factor * m23, factor * m30, factor * m31, factor * m32, factor * m33);
+  }
+  
+  /**
+   * Returns the product of this {@link Mat4} and the specified {@link Mat4}.
+   * 
+   * @param o the right hand side of the product
+   * @return the product of this {@link Mat4} and the specified {@link Mat4}.
+   */
+  public Mat4 times(Mat4 o) {
+    return new Mat4(
+            (m00 * o.m00) + (m01 * o.m10) + (m02 * o.m20) + (m03 * o.m30),
+            (m00 * o.m01) + (m01 * o.m11) + (m02 * o.m21) + (m03 * o.m31),
+            (m00 * o.m02) + (m01 * o.m12) + (m02 * o.m22) + (m03 * o.m32),
+            (m00 * o.m03) + (m01 * o.m13) + (m02 * o.m23) + (m03 * o.m33),
+            (m10 * o.m00) + (m11 * o.m10) + (m12 * o.m20) + (m13 * o.m30),
+            (m10 * o.m01) + (m11 * o.m11) + (m12 * o.m21) + (m13 * o.m31),
+            (m10 * o.m02) + (m11 * o.m12) + (m12 * o.m22) + (m13 * o.m32),
+            (m10 * o.m03) + (m11 * o.m13) + (m12 * o.m23) + (m13 * o.m33),
+            (m20 * o.m00) + (m21 * o.m10) + (m22 * o.m20) + (m23 * o.m30),
+            (m20 * o.m01) + (m21 * o.m11) + (m22 * o.m21) + (m23 * o.m31),
+            (m20 * o.m02) + (m21 * o.m12) + (m22 * o.m22) + (m23 * o.m32),
+            (m20 * o.m03) + (m21 * o.m13) + (m22 * o.m23) + (m23 * o.m33),
+            (m30 * o.m00) + (m31 * o.m10) + (m32 * o.m20) + (m33 * o.m30),
+            (m30 * o.m01) + (m31 * o.m11) + (m32 * o.m21) + (m33 * o.m31),
+            (m30 * o.m02) + (m31 * o.m12) + (m32 * o.m22) + (m33 * o.m32),
+            (m30 * o.m03) + (m31 * o.m13) + (m32 * o.m23) + (m33 * o.m33));
+  }
+  
+  /**
+   * Returns the product of this {@link Mat4} and the specified {@link Vec4}.
+   * 
+   * @param v the {@link Vec4} to multiply by
+   * @return the product of this {@link Mat4} and the specified {@link Vec4}.
+   */
+  public Vec4 times(Vec4 v) {
+    return new Vec4(
+            (m00 * v.x) + (m01 * v.y) + (m02 * v.z) + (m03 * v.w),
+            (m10 * v.x) + (m11 * v.y) + (m12 * v.z) + (m13 * v.w),
+            (m20 * v.x) + (m21 * v.y) + (m22 * v.z) + (m23 * v.w),
+            (m30 * v.x) + (m31 * v.y) + (m32 * v.z) + (m33 * v.w));
+  }
+  
+  /**
+   * Returns a new {@link CMat} holding the elements of this {@link Mat4}.
+   * 
+   * @return a new {@link CMat} holding the elements of this {@link Mat4}.
+   */
+  public CMat toCMat() {
+    CMat mat = new CMat(4, 4);
+    double[] values = mat.values;
+    values[0] = m00;
+    values[1] = m01;
+    values[2] = m02;
+    values[3] = m03;
+    values[4] = m10;
+    values[5] = m11;
+    values[6] = m12;
+    values[7] = m13;
+    values[8] = m20;
+    values[9] = m21;
+    values[10] = m22;
+    values[11] = m23;
+    values[12] = m30;
+    values[13] = m31;
+    values[14] = m32;
+    values[15] = m33;
+    return mat;
+  }
+  
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder();
+    buf.append("|%6.2f, %6.2f, %6.2f, %6.2f|\n".formatted(m00, m01, m02, m03));
+    buf.append("|%6.2f, %6.2f, %6.2f, %6.2f|\n".formatted(m10, m11, m12, m13));
+    buf.append("|%6.2f, %6.2f, %6.2f, %6.2f|\n".formatted(m20, m21, m22, m23));
+    buf.append("|%6.2f, %6.2f, %6.2f, %6.2f|\n".formatted(m30, m31, m32, m33));
+    return buf.toString();
+  }
+  
+  /**
+   * Returns the transpose of this {@link Mat4}.
+   * 
+   * @return the transpose of this {@link Mat4}.
+   */
+  public Mat4 transpose() {
+    return new Mat4(m00, m10, m20, m30, m01, m11, m21, m31, m02, m12, m22, m32, m03, m13, m23, m33);
+  }
+}
@@ -0,0 +1,396 @@
+package mhc.lalg;
+
+import java.util.Arrays;
+
+/**
+ * A lazily evaluated expression that produces a {@link Matrix}. An expression is built from
+ * {@link Matrix}s, scale factors, sums and products, and nothing is computed until
+ * {@link #assignTo(Matrix)} is called. At that time the expression is flattened into a linear
+ * combination of {@link Matrix}s and {@link Matrix} products. The {@link Matrix} terms are
+ * computed in one pass over the target and each product is added with
+ * {@link Mat#gemm(double, Matrix, Matrix, double, Matrix)}, so
+ * 
+ * <pre>
+ * MatExpr.of(a).times(MatExpr.of(b)).times(alpha).plus(MatExpr.of(c).times(beta)).assignTo(c);
+ * </pre>
+ * 
+ * is a single call to {@link Mat#gemm(double, Matrix, Matrix, double, Matrix)}.
+ * <p>
+ * Multiplying a {@link MatExpr} by a {@link Vector} gives a {@link VecExpr}. Products of
+ * {@link Matrix}s in such an expression are applied to the {@link Vector} one at a time, so
+ * <code>a * b * x</code> is computed as <code>a * (b * x)</code> and the {@link Matrix}
+ * product is never formed.
+ * <p>
+ * <b>Note:</b> An operand of a product is copied first if it is the target or is itself an
+ * expression. Other views that share storage with the target are not detected.
+ */
+public abstract class MatExpr {
+  
+  /**
+   * The product of two expressions.
+   */
+  static class Product extends MatExpr {
+    
+    private final MatExpr left;
+    
+    private final MatExpr right;
+    
+    Product(MatExpr left, MatExpr right) {
+      assert left.getNumCols() == right.getNumRows();
+      this.left = left;
+      this.right = right;
+    }
+    
+    @Override
+    void collect(double coef, Terms terms) {
+      terms.addProduct(coef, left, right);
+    }
+    
+    @Override
+    void collectTimes(double coef, VecExpr x, VecExpr.Terms terms) {
+      left.collectTimes(coef, new VecExpr.MatVec(right, x), terms);
+    }
+    
+    @Override
+    public int getNumCols() {
+      return right.getNumCols();
+    }
+    
+    @Override
+    public int getNumRows() {
+      return left.getNumRows();
+    }
+  }
+  
+  /**
+   * A leaf of an expression that refers to a {@link Matrix}.
+   */
+  static class Ref extends MatExpr {
+    
+    final Matrix mat;
+    
+    Ref(Matrix mat) {
+      this.mat = mat;
+    }
+    
+    @Override
+    void collect(double coef, Terms terms) {
+      terms.addMat(coef, mat);
+    }
+    
+    @Override
+    void collectTimes(double coef, VecExpr x, VecExpr.Terms terms) {
+      terms.addMatVec(coef, mat, x);
+    }
+    
+    @Override
+    public int getNumCols() {
+      return mat.getNumCols();
+    }
+    
+    @Override
+    public int getNumRows() {
+      return mat.getNumRows();
+    }
+  }
+  
+  /**
+   * An expression multiplied by a scale factor.
+   */
+  static class Scaled extends MatExpr {
+    
+    private final double factor;
+    
+    private final MatExpr expr;
+    
+    Scaled(double factor, MatExpr expr) {
+      this.factor = factor;
+      this.expr = expr;
+    }
+    
+    @Override
+    void collect(double coef, Terms terms) {
+      expr.collect(coef * factor, terms);
+    }
+    
+    @Override
+    void collectTimes(double coef, VecExpr x, VecExpr.Terms terms) {
+      expr.collectTimes(coef * factor, x, terms);
+    }
+    
+    @Override
+    public int getNumCols() {
+      return expr.getNumCols();
+    }
+    
+    @Override
+    public int getNumRows() {
+      return expr.getNumRows();
+    }
+  }
+  
+  /**
+   * The sum of two expressions.
+   */
+  static class Sum extends MatExpr {
+    
+    private final MatExpr left;
+    
+    private final MatExpr right;
+    
+    Sum(MatExpr left, MatExpr right) {
+      assert (left.getNumRows() == right.getNumRows())
+              && (left.getNumCols() == right.getNumCols());
+      this.left = left;
+      this.right = right;
+    }
+    
+    @Override
+    void collect(double coef, Terms terms) {
+      left.collect(coef, terms);
+      right.collect(coef, terms);
+    }
+    
+    @Override
+    void collectTimes(double coef, VecExpr x, VecExpr.Terms terms) {
+      left.collectTimes(coef, x, terms);
+      right.collectTimes(coef, x, terms);
+    }
+    
+    @Override
+    public int getNumCols() {
+      return left.getNumCols();
+    }
+    
+    @Override
+    public int getNumRows() {
+      return left.getNumRows();
+    }
+  }
+  
+  /**
+   * The flattened form of an expression: <code>sum(matCoefs[k] * mats[k])</code> plus
+   * <code>sum(prodCoefs[k] * lefts[k] * rights[k])</code>.
+   */
+  static class Terms {
+    
+    int numMats = 0;
+    
+    double[] matCoefs = new double[4];
+    
+    Matrix[] mats = new Matrix[4];
+    
+    int numProducts = 0;
+    
+    double[] prodCoefs = new double[2];
+    
+    MatExpr[] lefts = new MatExpr[2];
+    
+    MatExpr[] rights = new MatExpr[2];
+    
+    /**
+     * Adds the term <code>coef * mat</code>, combining it with an earlier term for the same
+     * {@link Matrix}.
+     */
+    void addMat(double coef, Matrix mat) {
+      for (int k = 0; k < numMats; k++ ) {
+        if (mats[k] == mat) {
+          matCoefs[k] += coef;
+          return;
+        }
+      }
+      if (numMats == mats.length) {
+        matCoefs = Arrays.copyOf(matCoefs, numMats * 2);
+        mats = Arrays.copyOf(mats, numMats * 2);
+      }
+      matCoefs[numMats] = coef;
+      mats[numMats] = mat;
+      numMats++ ;
+    }
+    
+    /**
+     * Adds the term <code>coef * left * right</code>.
+     */
+    void addProduct(double coef, MatExpr left, MatExpr right) {
+      if (numProducts == lefts.length) {
+        prodCoefs = Arrays.copyOf(prodCoefs, numProducts * 2);
+        lefts = Arrays.copyOf(lefts, numProducts * 2);
+        rights = Arrays.copyOf(rights, numProducts * 2);
+      }
+      prodCoefs[numProducts] = coef;
+      lefts[numProducts] = left;
+      rights[numProducts] = right;
+      numProducts++ ;
+    }
+  }
+  
+  /**
+   * Returns an expression that refers to the specified {@link Matrix}. The {@link Matrix} is
+   * not copied so changes to it before the expression is evaluated will be seen.
+   * 
+   * @param mat the {@link Matrix}
+   * @return an expression that refers to the specified {@link Matrix}.
+   */
+  public static MatExpr of(Matrix mat) {
+    return new Ref(mat);
+  }
+  
+  /**
+   * Evaluates this expression and saves the result in the target {@link Matrix}, which may be
+   * referred to by the expression.
+   * 
+   * @param target the {@link Matrix} that the result is saved in.
+   * @return the target {@link Matrix} after it has been updated.
+   */
+  public Matrix assignTo(Matrix target) {
+    int numRows = getNumRows();
+    int numCols = getNumCols();
+    assert (numRows == target.getNumRows()) && (numCols == target.getNumCols());
+    Terms terms = new Terms();
+    collect(1.0, terms);
+    Matrix[] lefts = new Matrix[terms.numProducts];
+    Matrix[] rights = new Matrix[terms.numProducts];
+    for (int k = 0; k < terms.numProducts; k++ ) {
+      lefts[k] = operand(terms.lefts[k], target);
+      rights[k] = operand(terms.rights[k], target);
+    }
+    /*
+     * The first product can scale the target itself when the only other term is the target.
+     */
+    int firstProduct = 0;
+    if ((terms.numProducts > 0) && (terms.numMats <= 1)
+            && ((terms.numMats == 0) || (terms.mats[0] == target))) {
+      double beta = (terms.numMats == 0) ? 0.0 : terms.matCoefs[0];
+      Mat.gemm(terms.prodCoefs[0], lefts[0], rights[0], beta, target);
+      firstProduct = 1;
+    } else {
+      for (int rI = 0; rI < numRows; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          double sum = 0.0;
+          for (int k = 0; k < terms.numMats; k++ ) {
+            sum += terms.matCoefs[k] * terms.mats[k].get(rI, cI);
+          }
+          target.set(rI, cI, sum);
+        }
+      }
+    }
+    for (int k = firstProduct; k < terms.numProducts; k++ ) {
+      Mat.gemm(terms.prodCoefs[k], lefts[k], rights[k], 1.0, target);
+    }
+    return target;
+  }
+  
+  /**
+   * Adds the terms of this expression, each multiplied by the specified coefficient, to the
+   * specified {@link Terms}.
+   */
+  abstract void collect(double coef, Terms terms);
+  
+  /**
+   * Adds the terms of the product of this expression and the specified {@link VecExpr}, each
+   * multiplied by the specified coefficient, to the specified {@link VecExpr.Terms}.
+   */
+  abstract void collectTimes(double coef, VecExpr x, VecExpr.Terms terms);
+  
+  /**
+   * Evaluates this expression into a new {@link CMat}.
+   * 
+   * @return a new {@link CMat} holding the value of this expression.
+   */
+  public CMat eval() {
+    CMat result = new CMat(getNumRows(), getNumCols());
+    assignTo(result);
+    return result;
+  }
+  
+  /**
+   * Returns the number of columns in the {@link Matrix} this expression produces.
+   * 
+   * @return the number of columns in the {@link Matrix} this expression produces.
+   */
+  public abstract int getNumCols();
+  
+  /**
+   * Returns the number of rows in the {@link Matrix} this expression produces.
+   * 
+   * @return the number of rows in the {@link Matrix} this expression produces.
+   */
+  public abstract int getNumRows();
+  
+  /**
+   * Returns an expression for the difference of this expression and the specified
+   * expression.
+   * 
+   * @param other the expression to subtract
+   * @return an expression for the difference of this expression and the specified
+   *         expression.
+   */
+  public MatExpr minus(MatExpr other) {
+    return new Sum(this, new Scaled( -1.0, other));
+  }
+  
+  /**
+   * Returns a {@link Matrix} holding the value of the specified expression, which is the
+   * referred to {@link Matrix} itself if the expression is just a reference to a
+   * {@link Matrix} other than the target, otherwise it is a new {@link CMat}.
+   */
+  static Matrix operand(MatExpr expr, Matrix target) {
+    if ((expr instanceof Ref ref) && (ref.mat != target))
+      return ref.mat;
+    return expr.eval();
+  }
+  
+  /**
+   * Returns an expression for the sum of this expression and the specified expression.
+   * 
+   * @param other the expression to add
+   * @return an expression for the sum of this expression and the specified expression.
+   */
+  public MatExpr plus(MatExpr other) {
+    return new Sum(this, other);
+  }
+  
+  /**
+   * Returns an expression for this expression multiplied by the specified factor.
+   * 
+   * @param factor the scale factor
+   * @return an expression for this expression multiplied by the specified factor.
+   */
+  public MatExpr times(double factor) {
+    return new Scaled(factor, this);
+  }
+  
+  /**
+   * Returns an expression for the product of this expression and the specified expression.
+   * 
+   * @param other the right hand side of the product
+   * @return an expression for the product of this expression and the specified expression.
+   */
+  public MatExpr times(MatExpr other) {
+    return new Product(this, other);
+  }
+  
+  /**
+   * Returns an expression for the product of this expression and the specified
+   * {@link VecExpr}.
+   * 
+   * @param vec the {@link VecExpr} to multiply by
+   * @return an expression for the product of this expression and the specified
+   *         {@link VecExpr}.
+   */
+  public VecExpr times(VecExpr vec) {
+    return new VecExpr.MatVec(this, vec);
+  }
+  
+  /**
+   * Returns an expression for the product of this expression and the specified
+   * {@link Vector}.
+   * 
+   * @param vec the {@link Vector} to multiply by
+   * @return an expression for the product of this expression and the specified
+   *         {@link Vector}.
+   */
+  public VecExpr times(Vector vec) {
+    return times(VecExpr.of(vec));
+  }
+}
@@ -3,6 +3,7 @@ package mhc.lalg;
 import java.io.StringWriter;
 
 import mhc.lalg.CMat.SubMatrix;
+import mhc.lalg.util.OpCounters;
 
 /**
  * Class: Matrix
@@ -24,6 +25,9 @@ public abstract class Matrix {
    */
   public Matrix addRowsWithMult(int sourceRowIndex, double multiplier, int targetRowIndex) {
     int len = getNumCols();
+    if (OpCounters.ENABLED) {
+      OpCounters.rowAdd(len);
+    }
     for (int colIndex = 0; colIndex < len; colIndex++ ) {
       double targetRowValue = get(targetRowIndex, colIndex);
       double sourceRowValue = get(sourceRowIndex, colIndex);
@@ -43,6 +47,17 @@ public abstract class Matrix {
    */
   public abstract double get(int rowIndex, int colIndex);
   
+  /**
+   * Returns the row major array that holds the elements of this {@link Matrix} if they can be
+   * read and written there directly, otherwise null. Element <code>[r, c]</code> is at
+   * position <code>getOffset() + r * getRowStride() + c</code>.
+   * 
+   * @return the backing array, or null if there is none.
+   */
+  public double[] getArray() {
+    return null;
+  }
+  
   /**
    * Returns a view on the contents of the specified column as a {@link Vector}.
    * 
@@ -104,6 +119,15 @@ public abstract class Matrix {
    */
   public abstract int getNumRows();
   
+  /**
+   * Returns the position of element <code>[0, 0]</code> in {@link #getArray()}.
+   * 
+   * @return the position of element <code>[0, 0]</code>.
+   */
+  public int getOffset() {
+    return 0;
+  }
+  
   /**
    * Returns a view on the contents of the specified row as a {@link Vector}.
    * 
@@ -114,6 +138,15 @@ public abstract class Matrix {
     return getSubRow(rowIndex, 0, getNumCols());
   }
   
+  /**
+   * Returns the distance between rows in {@link #getArray()}.
+   * 
+   * @return the distance between rows.
+   */
+  public int getRowStride() {
+    return getNumCols();
+  }
+  
   /**
    * Returns a view on the contents of the specified part of a column as a {@link Vector}.
    * 
@@ -197,6 +230,9 @@ public abstract class Matrix {
    * @return this {@link Matrix} after the change.
    */
   public Matrix scaleRow(int rowIndex, double scaleFactor) {
+    if (OpCounters.ENABLED) {
+      OpCounters.rowScale(getNumCols());
+    }
     for (int colIndex = 0; colIndex < getNumCols(); colIndex++ ) {
       set(rowIndex, colIndex, scaleFactor * get(rowIndex, colIndex));
     }
@@ -276,6 +312,9 @@ public abstract class Matrix {
        * There is nothing to do as the two rows are the same.
        */
       return this;
+    if (OpCounters.ENABLED) {
+      OpCounters.rowSwap(getNumCols());
+    }
     for (int colIndex = 0; colIndex < getNumCols(); colIndex++ ) {
       double temp = get(row1Index, colIndex);
       set(row1Index, colIndex, get(row2Index, colIndex));
@@ -0,0 +1,382 @@
+package mhc.lalg;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the exact reduced echelon form of an integer matrix by multi-modular elimination.
+ * The matrix is reduced modulo several primes just below <code>2^31</code>, each image is put
+ * into reduced echelon form over <code>GF(p)</code> in parallel, and the exact rational
+ * elements are rebuilt with the Chinese Remainder Theorem and rational reconstruction. The
+ * result is the same {@link ExactEchelon} that fraction-free elimination gives, but the work
+ * is done in machine words rather than ever growing integers, which pays off for large
+ * systems.
+ * <p>
+ * Every element of the result is a ratio of minors, so by the Hadamard bound <code>H</code>
+ * the product of the primes only has to exceed <code>2 * H^2</code>. A prime that divides the
+ * leading nonzero minor gives the wrong rank profile. That is detected by keeping only the
+ * primes with the highest rank and then the earliest pivot columns, and replacing the others.
+ * As the unlucky primes all divide one minor no larger than <code>H</code>, at least one of
+ * the first batch is always right.
+ * <p>
+ * Arithmetic modulo <code>p</code> uses Barrett reduction, a multiply and a
+ * {@link Math#multiplyHigh(long, long)} instead of a division, and the elimination of each
+ * image works in place on one row major <code>int</code> array without allocating.
+ */
+public class ModularEchelon {
+  
+  /**
+   * The number of bits each prime adds to the modulus, rounded down.
+   */
+  private static final int PRIME_BITS = 30;
+  
+  private ModularEchelon() {
+  }
+  
+  /**
+   * Returns the Barrett factor <code>floor(2^62 / p)</code> of the specified prime.
+   */
+  private static long barrettFactor(long p) {
+    return Long.divideUnsigned(1L << 62, p);
+  }
+  
+  /**
+   * Returns true if the first rank profile is better than the second, that is it has more
+   * pivots or, with the same number, the earlier pivot columns.
+   */
+  private static boolean better(int rank1, int[] pivots1, int rank2, int[] pivots2) {
+    if (rank1 != rank2)
+      return rank1 > rank2;
+    return Arrays.compare(pivots1, 0, rank1, pivots2, 0, rank2) < 0;
+  }
+  
+  /**
+   * Puts the specified row major image of a matrix into reduced echelon form modulo
+   * <code>p</code>, saving the pivot columns in <code>pivots</code>, and returns the rank.
+   * Nothing is allocated.
+   * 
+   * @param values the elements, each in <code>[0, p)</code>
+   * @param numRows the number of rows
+   * @param numCols the number of columns
+   * @param p a prime below <code>2^31</code>
+   * @param pivots the array the pivot columns are saved in
+   * @return the rank modulo <code>p</code>.
+   */
+  static int eliminate(int[] values, int numRows, int numCols, long p, int[] pivots) {
+    long barrett = barrettFactor(p);
+    int rank = 0;
+    for (int cI = 0; (cI < numCols) && (rank < numRows); cI++ ) {
+      int pivotRow = rank;
+      while ((pivotRow < numRows) && (values[(pivotRow * numCols) + cI] == 0)) {
+        pivotRow++ ;
+      }
+      if (pivotRow == numRows) {
+        continue; // the column is already zero below the pivots
+      }
+      int kPos = rank * numCols;
+      if (pivotRow != rank) {
+        int pPos = pivotRow * numCols;
+        for (int j = cI; j < numCols; j++ ) {
+          int temp = values[kPos + j];
+          values[kPos + j] = values[pPos + j];
+          values[pPos + j] = temp;
+        }
+      }
+      /*
+       * Scale the pivot row so the pivot is 1. Everything left of the pivot is already zero.
+       */
+      long inverse = inverse(values[kPos + cI], p, barrett);
+      for (int j = cI; j < numCols; j++ ) {
+        values[kPos + j] = (int) reduce(values[kPos + j] * inverse, p, barrett);
+      }
+      for (int rI = 0; rI < numRows; rI++ ) {
+        int rPos = rI * numCols;
+        long leading = values[rPos + cI];
+        if ((rI == rank) || (leading == 0)) {
+          continue; // the pivot row, or there is nothing to eliminate
+        }
+        long multiplier = p - leading;
+        for (int j = cI; j < numCols; j++ ) {
+          values[rPos + j] = (int) reduce(values[rPos + j] + (multiplier * values[kPos + j]), p,
+                  barrett);
+        }
+      }
+      pivots[rank++ ] = cI;
+    }
+    return rank;
+  }
+  
+  /**
+   * Returns the Hadamard bound on the absolute value of any minor of the specified rows, as a
+   * base 2 logarithm. The smaller of the row and column bounds is used.
+   */
+  private static double hadamardLog2(long[][] rows, int numCols) {
+    double[] colSquares = new double[numCols];
+    double rowLog = 0.0;
+    for (long[] row : rows) {
+      double rowSquares = 0.0;
+      for (int cI = 0; cI < numCols; cI++ ) {
+        double square = (double) row[cI] * row[cI];
+        rowSquares += square;
+        colSquares[cI] += square;
+      }
+      if (rowSquares > 0.0) {
+        rowLog += 0.5 * Math.log(rowSquares);
+      }
+    }
+    double colLog = 0.0;
+    for (double square : colSquares) {
+      if (square > 0.0) {
+        colLog += 0.5 * Math.log(square);
+      }
+    }
+    return Math.min(rowLog, colLog) / Math.log(2.0);
+  }
+  
+  /**
+   * Returns the inverse of <code>a</code> modulo <code>p</code>, as <code>a^(p - 2)</code>.
+   */
+  private static long inverse(long a, long p, long barrett) {
+    long result = 1;
+    long base = a;
+    for (long e = p - 2; e > 0; e >>= 1) {
+      if ((e & 1) != 0) {
+        result = reduce(result * base, p, barrett);
+      }
+      base = reduce(base * base, p, barrett);
+    }
+    return result;
+  }
+  
+  /**
+   * Returns the largest prime below the specified value.
+   */
+  private static long nextPrimeBelow(long value) {
+    long candidate = value - 1;
+    while ( !BigInteger.valueOf(candidate).isProbablePrime(40)) {
+      candidate-- ;
+    }
+    return candidate;
+  }
+  
+  /**
+   * Returns the exact reduced echelon form of the specified integer matrix, given as an array
+   * of rows of the same length. The array is not changed.
+   * 
+   * @param rows the rows of the matrix
+   * @return the exact reduced echelon form of the matrix.
+   */
+  public static ExactEchelon of(long[][] rows) {
+    int numRows = rows.length;
+    int numCols = (numRows == 0) ? 0 : rows[0].length;
+    int needed = 1 + (int) Math.ceil((2.0 + (2.0 * hadamardLog2(rows, numCols))) / PRIME_BITS);
+    List<long[]> lucky = new ArrayList<>(); // each holds p then the residues
+    int bestRank = -1;
+    int[] bestPivots = new int[Math.min(numRows, numCols)];
+    long nextPrime = 1L << 31;
+    int batch = needed + 1;
+    while (lucky.size() < needed) {
+      long[] primes = new long[batch];
+      for (int i = 0; i < batch; i++ ) {
+        nextPrime = nextPrimeBelow(nextPrime);
+        primes[i] = nextPrime;
+      }
+      int[][] images = new int[batch][];
+      int[][] pivots = new int[batch][bestPivots.length];
+      int[] ranks = new int[batch];
+      IntStream.range(0, batch).parallel().forEach(i -> {
+        images[i] = reduceAll(rows, numCols, primes[i]);
+        ranks[i] = eliminate(images[i], numRows, numCols, primes[i], pivots[i]);
+      });
+      for (int i = 0; i < batch; i++ ) {
+        if ((bestRank == -1) || better(ranks[i], pivots[i], bestRank, bestPivots)) {
+          lucky.clear(); // every prime kept so far was unlucky
+          bestRank = ranks[i];
+          bestPivots = pivots[i];
+        } else if (better(bestRank, bestPivots, ranks[i], pivots[i])) {
+          continue; // this prime is unlucky
+        }
+        lucky.add(pack(primes[i], images[i], numRows, numCols, bestRank, bestPivots));
+      }
+      batch = Math.max(1, needed - lucky.size());
+    }
+    return reconstruct(lucky, numRows, numCols, bestRank,
+            Arrays.copyOf(bestPivots, bestRank));
+  }
+  
+  /**
+   * Returns the exact reduced echelon form of the specified {@link Matrix}, which is not
+   * changed. It is an error if an element of the {@link Matrix} is not an integer that fits in
+   * a <code>long</code>.
+   * 
+   * @param mat the {@link Matrix}
+   * @return the exact reduced echelon form of the {@link Matrix}.
+   */
+  public static ExactEchelon of(Matrix mat) {
+    return of(ExactEchelon.longRows(mat));
+  }
+  
+  /**
+   * Returns the prime followed by the residues that have to be reconstructed, the elements of
+   * the nonzero rows in the columns that are not pivots.
+   */
+  private static long[] pack(long p, int[] image, int numRows, int numCols, int rank,
+          int[] pivots) {
+    long[] packed = new long[1 + (rank * (numCols - rank))];
+    packed[0] = p;
+    int i = 1;
+    for (int rI = 0; rI < rank; rI++ ) {
+      int pI = 0;
+      for (int cI = 0; cI < numCols; cI++ ) {
+        if ((pI < rank) && (pivots[pI] == cI)) {
+          pI++ ;
+          continue;
+        }
+        packed[i++ ] = image[(rI * numCols) + cI];
+      }
+    }
+    return packed;
+  }
+  
+  /**
+   * Returns the rational <code>n / d</code> congruent to <code>x</code> modulo <code>m</code>
+   * with <code>|n|</code> and <code>d</code> at most <code>bound</code>, as
+   * <code>{n, d}</code>.
+   */
+  private static BigInteger[] rationalReconstruction(BigInteger x, BigInteger m,
+          BigInteger bound) {
+    BigInteger r0 = m;
+    BigInteger r1 = x;
+    BigInteger t0 = BigInteger.ZERO;
+    BigInteger t1 = BigInteger.ONE;
+    while (r1.compareTo(bound) > 0) {
+      BigInteger[] qr = r0.divideAndRemainder(r1);
+      r0 = r1;
+      r1 = qr[1];
+      BigInteger t = t0.subtract(qr[0].multiply(t1));
+      t0 = t1;
+      t1 = t;
+    }
+    if ((t1.abs().compareTo(bound) > 0) || !r1.gcd(t1).equals(BigInteger.ONE))
+      throw new RuntimeException("Rational reconstruction failed");
+    return (t1.signum() < 0) ? new BigInteger[] { r1.negate(), t1.negate() }
+            : new BigInteger[] { r1, t1 };
+  }
+  
+  /**
+   * Rebuilds the exact {@link ExactEchelon} from the residues of the lucky primes.
+   */
+  private static ExactEchelon reconstruct(List<long[]> lucky, int numRows, int numCols,
+          int rank, int[] pivots) {
+    /*
+     * x = sum(r[i] * crt[i]) mod m where crt[i] = (m / p[i]) * ((m / p[i])^-1 mod p[i]).
+     */
+    BigInteger m = BigInteger.ONE;
+    for (long[] packed : lucky) {
+      m = m.multiply(BigInteger.valueOf(packed[0]));
+    }
+    BigInteger[] crt = new BigInteger[lucky.size()];
+    for (int i = 0; i < crt.length; i++ ) {
+      BigInteger p = BigInteger.valueOf(lucky.get(i)[0]);
+      BigInteger cofactor = m.divide(p);
+      crt[i] = cofactor.multiply(cofactor.mod(p).modInverse(p));
+    }
+    BigInteger bound = m.shiftRight(1).sqrt();
+    BigInteger halfM = m.shiftRight(1);
+    int numFree = numCols - rank;
+    BigInteger[] numerators = new BigInteger[rank * numFree];
+    BigInteger[] denominators = new BigInteger[rank * numFree];
+    BigInteger denominator = BigInteger.ONE;
+    for (int i = 0; i < numerators.length; i++ ) {
+      BigInteger x = BigInteger.ZERO;
+      for (int pI = 0; pI < crt.length; pI++ ) {
+        x = x.add(crt[pI].multiply(BigInteger.valueOf(lucky.get(pI)[i + 1])));
+      }
+      x = x.mod(m);
+      /*
+       * Most elements share the denominator found so far, which is much cheaper to try than a
+       * reconstruction.
+       */
+      BigInteger y = x.multiply(denominator).mod(m);
+      if (y.compareTo(halfM) > 0) {
+        y = y.subtract(m);
+      }
+      if ((y.abs().compareTo(bound) <= 0) && (denominator.compareTo(bound) <= 0)) {
+        numerators[i] = y;
+        denominators[i] = denominator;
+        continue;
+      }
+      BigInteger[] nd = rationalReconstruction(x, m, bound);
+      numerators[i] = nd[0];
+      denominators[i] = nd[1];
+      denominator = denominator.divide(denominator.gcd(nd[1])).multiply(nd[1]);
+    }
+    /*
+     * Scale every element to the final common denominator.
+     */
+    long[][] small = new long[numRows][numCols];
+    BigInteger[][] big = new BigInteger[numRows][];
+    BigInteger[] row = new BigInteger[numCols];
+    for (int rI = 0; rI < rank; rI++ ) {
+      Arrays.fill(row, BigInteger.ZERO);
+      row[pivots[rI]] = denominator;
+      int fI = 0;
+      int pI = 0;
+      for (int cI = 0; cI < numCols; cI++ ) {
+        if ((pI < rank) && (pivots[pI] == cI)) {
+          pI++ ;
+          continue;
+        }
+        int i = (rI * numFree) + fI++ ;
+        row[cI] = numerators[i].multiply(denominator.divide(denominators[i]));
+      }
+      boolean fits = true;
+      for (int cI = 0; cI < numCols; cI++ ) {
+        long value = row[cI].longValue();
+        fits &= (row[cI].bitLength() < 64) && (value != Long.MIN_VALUE);
+        small[rI][cI] = value;
+      }
+      if ( !fits) {
+        small[rI] = null;
+        big[rI] = row.clone();
+      }
+    }
+    return new ExactEchelon(numCols, rank, pivots, small, big, denominator);
+  }
+  
+  /**
+   * Returns <code>x mod p</code> for <code>0 &lt;= x &lt; 2^62 + 2^31</code>, computed by
+   * Barrett reduction.
+   */
+  private static long reduce(long x, long p, long barrett) {
+    /*
+     * q = floor(x * barrett / 2^62) is the high part of the 128 bit product shifted left by 2,
+     * and it is at most 2 short of x / p.
+     */
+    long q = (Math.multiplyHigh(x, barrett) << 2) | ((x * barrett) >>> 62);
+    long r = x - (q * p);
+    if (r >= p) {
+      r -= p;
+      if (r >= p) {
+        r -= p;
+      }
+    }
+    return r;
+  }
+  
+  /**
+   * Returns a new row major image of the specified rows modulo <code>p</code>.
+   */
+  private static int[] reduceAll(long[][] rows, int numCols, long p) {
+    int[] image = new int[rows.length * numCols];
+    for (int rI = 0; rI < rows.length; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        image[(rI * numCols) + cI] = (int) Math.floorMod(rows[rI][cI], p);
+      }
+    }
+    return image;
+  }
+}
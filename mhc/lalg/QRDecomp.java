@@ -0,0 +1,164 @@
+package mhc.lalg;
+
+import mhc.lalg.util.OpCounters;
+import mhc.lalg.util.OpCounters.OpEvent;
+
+/**
+ * The Householder QR factorization, <code>A = Q * R</code>, of a {@link Matrix} with at least
+ * as many rows as columns. The {@link Matrix} is copied first so it is not changed. The
+ * factors are kept in one row major array in the layout of LAPACK's <code>geqrf</code>:
+ * <code>R</code> on and above the diagonal, and below the diagonal of each column the
+ * Householder vector of that step, whose leading 1 is not stored. <code>Q</code> is never
+ * formed unless {@link #getQ()} is called.
+ * <p>
+ * {@link TiledLA#qr(Matrix)} computes the same factorization as a task graph.
+ */
+public class QRDecomp {
+  
+  private final int numRows;
+  
+  private final int numCols;
+  
+  /**
+   * The factors, the Householder vectors below the diagonal and <code>R</code> on and above
+   * it.
+   */
+  private final double[] qr;
+  
+  /**
+   * The scale of each Householder reflector <code>I - tau * v * v^T</code>.
+   */
+  private final double[] tau;
+  
+  /**
+   * Computes the QR factorization of the specified {@link Matrix}.
+   * 
+   * @param mat the {@link Matrix} to be factored, which is not changed.
+   */
+  public QRDecomp(Matrix mat) {
+    numRows = mat.getNumRows();
+    numCols = mat.getNumCols();
+    if (numRows < numCols)
+      throw new RuntimeException("QR needs at least as many rows as columns");
+    qr = Mat.copy(mat).values;
+    tau = new double[numCols];
+    OpEvent event = OpCounters.beginEvent("qr", numRows, numCols);
+    TiledLA.qrPanel(qr, numRows, numCols, 0, numCols, tau);
+    long numFlops = (2L * numCols * numCols * (3L * numRows - numCols)) / 3;
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, (long) numRows * numCols, (long) numRows * numCols);
+    }
+    OpCounters.commitEvent(event, numFlops);
+  }
+  
+  /**
+   * Wraps factors computed elsewhere, in the same layout, such as those of
+   * {@link TiledLA#qr(Matrix)}.
+   * 
+   * @param numRows the number of rows of the factored {@link Matrix}
+   * @param numCols the number of columns of the factored {@link Matrix}
+   * @param qr the factors, row major
+   * @param tau the scale of each reflector
+   */
+  QRDecomp(int numRows, int numCols, double[] qr, double[] tau) {
+    this.numRows = numRows;
+    this.numCols = numCols;
+    this.qr = qr;
+    this.tau = tau;
+  }
+  
+  /**
+   * Returns the number of columns of the factored {@link Matrix}.
+   * 
+   * @return the number of columns.
+   */
+  public int getNumCols() {
+    return numCols;
+  }
+  
+  /**
+   * Returns the number of rows of the factored {@link Matrix}.
+   * 
+   * @return the number of rows.
+   */
+  public int getNumRows() {
+    return numRows;
+  }
+  
+  /**
+   * Returns the first {@link #getNumCols()} columns of <code>Q</code>, which are orthonormal,
+   * so that <code>A = Q * R</code>.
+   * 
+   * @return a new {@link CMat} holding the thin <code>Q</code>.
+   */
+  public CMat getQ() {
+    CMat q = new CMat(numRows, numCols);
+    double[] values = q.values;
+    for (int k = 0; k < numCols; k++ ) {
+      values[(k * numCols) + k] = 1.0;
+    }
+    double[] w = new double[numCols];
+    for (int k = numCols - 1; k >= 0; k-- ) {
+      TiledLA.applyReflector(qr, k, tau[k], values, numRows, numCols, k, numCols, w);
+    }
+    return q;
+  }
+  
+  /**
+   * Returns the upper triangular <code>R</code>.
+   * 
+   * @return a new {@link CMat} holding <code>R</code>.
+   */
+  public CMat getR() {
+    CMat r = new CMat(numCols, numCols);
+    for (int rI = 0; rI < numCols; rI++ ) {
+      int pos = rI * numCols;
+      System.arraycopy(qr, pos + rI, r.values, pos + rI, numCols - rI);
+    }
+    return r;
+  }
+  
+  /**
+   * Returns the least squares solution <code>x</code> of <code>A * x = b</code>, the one that
+   * minimizes the norm of <code>A * x - b</code>. It is an error if <code>R</code> has a zero
+   * on its diagonal, that is if the columns of the factored {@link Matrix} are dependent.
+   * 
+   * @param b the right hand side
+   * @return a new {@link CVec} holding the solution.
+   */
+  public CVec solve(Vector b) {
+    assert b.dimension() == numRows;
+    double[] y = Vec.copy(b).values;
+    for (int k = 0; k < numCols; k++ ) {
+      if (tau[k] == 0.0) {
+        continue; // the reflector is the identity
+      }
+      double w = y[k];
+      for (int rI = k + 1; rI < numRows; rI++ ) {
+        w += qr[(rI * numCols) + k] * y[rI];
+      }
+      w *= tau[k];
+      y[k] -= w;
+      for (int rI = k + 1; rI < numRows; rI++ ) {
+        y[rI] -= qr[(rI * numCols) + k] * w;
+      }
+    }
+    CVec x = new CVec(numCols);
+    for (int rI = numCols - 1; rI >= 0; rI-- ) {
+      int rPos = rI * numCols;
+      double diag = qr[rPos + rI];
+      if (diag == 0.0)
+        throw new RuntimeException("Matrix is rank deficient");
+      double sum = y[rI];
+      for (int cI = rI + 1; cI < numCols; cI++ ) {
+        sum -= qr[rPos + cI] * x.values[cI];
+      }
+      x.values[rI] = sum / diag;
+    }
+    if (OpCounters.ENABLED) {
+      OpCounters.count((4L * numRows * numCols) + ((long) numCols * numCols),
+              (long) numRows * numCols, numCols);
+    }
+    return x;
+  }
+}
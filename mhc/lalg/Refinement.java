@@ -0,0 +1,200 @@
+package mhc.lalg;
+
+/**
+ * Solves <code>A * x = b</code> by mixed precision iterative refinement. The {@link Matrix} is
+ * factored in <code>float</code> by {@link FLUDecomp}, which is about twice as fast as a
+ * <code>double</code> factorization, and the solution is then improved with corrections
+ * <code>x = x + solve(b - A * x)</code>. Each residual is computed in <code>double</code>
+ * against the original {@link Matrix}, so for a reasonably well conditioned {@link Matrix}
+ * the solution reaches full <code>double</code> accuracy after a few cheap
+ * <code>O(n^2)</code> iterations.
+ * <p>
+ * The iteration stops when the residual satisfies the same test as the LAPACK
+ * <code>dsgesv</code> routine, <code>|r| &lt;= |x| * |A| * eps * sqrt(n)</code> in the
+ * infinity norm. If that does not happen within the iteration limit, if the single precision
+ * factors are singular or not finite, or if the solution stops being finite, the system is
+ * solved again with a <code>double</code> {@link LUDecomp}.
+ */
+public class Refinement {
+  
+  /**
+   * The outcome of a refined solve.
+   */
+  public static class Result {
+    
+    private final CVec solution;
+    
+    private final int iterations;
+    
+    private final double backwardError;
+    
+    private final boolean usedDouble;
+    
+    Result(CVec solution, int iterations, double backwardError, boolean usedDouble) {
+      this.solution = solution;
+      this.iterations = iterations;
+      this.backwardError = backwardError;
+      this.usedDouble = usedDouble;
+    }
+    
+    /**
+     * Returns the normwise backward error of the solution,
+     * <code>|b - A * x| / (|A| * |x| + |b|)</code> in the infinity norm.
+     * 
+     * @return the normwise backward error of the solution.
+     */
+    public double getBackwardError() {
+      return backwardError;
+    }
+    
+    /**
+     * Returns the number of refinement iterations done, including those done before falling
+     * back to a <code>double</code> factorization.
+     * 
+     * @return the number of refinement iterations done.
+     */
+    public int getIterations() {
+      return iterations;
+    }
+    
+    /**
+     * Returns the solution.
+     * 
+     * @return the solution.
+     */
+    public CVec getSolution() {
+      return solution;
+    }
+    
+    /**
+     * Returns true if the refinement did not converge and the solution came from a
+     * <code>double</code> factorization.
+     * 
+     * @return true if the solution came from a <code>double</code> factorization.
+     */
+    public boolean usedDouble() {
+      return usedDouble;
+    }
+  }
+  
+  /**
+   * The default limit on the number of refinement iterations, the same as
+   * <code>dsgesv</code>.
+   */
+  public static final int MAX_ITERATIONS = 30;
+  
+  /**
+   * The unit round off of <code>double</code>.
+   */
+  private static final double EPS = 0x1.0p-53;
+  
+  private Refinement() {
+  }
+  
+  /**
+   * Returns the normwise backward error from the norms of the residual, matrix, solution and
+   * right hand side.
+   */
+  private static double backwardError(double rNorm, double aNorm, double xNorm,
+          double bNorm) {
+    double denom = (aNorm * xNorm) + bNorm;
+    return (denom == 0.0) ? rNorm : rNorm / denom;
+  }
+  
+  /**
+   * Returns the infinity norm of the specified {@link Matrix}, the largest absolute row sum.
+   */
+  private static double normInf(Matrix mat) {
+    int numRows = mat.getNumRows();
+    int numCols = mat.getNumCols();
+    double max = 0.0;
+    for (int rI = 0; rI < numRows; rI++ ) {
+      double sum = 0.0;
+      for (int cI = 0; cI < numCols; cI++ ) {
+        sum += Math.abs(mat.get(rI, cI));
+      }
+      max = Math.max(max, sum);
+    }
+    return max;
+  }
+  
+  /**
+   * Returns the infinity norm of the specified {@link Vector}, the largest absolute value, or
+   * NaN if any element is NaN.
+   */
+  private static double normInf(Vector vec) {
+    int dim = vec.dimension();
+    double max = 0.0;
+    for (int i = 0; i < dim; i++ ) {
+      max = Math.max(max, Math.abs(vec.get(i)));
+    }
+    return max;
+  }
+  
+  /**
+   * Saves <code>b - a * x</code>, computed in <code>double</code>, in <code>r</code>.
+   */
+  private static void residual(Matrix a, CVec x, Vector b, CVec r) {
+    int dim = b.dimension();
+    for (int i = 0; i < dim; i++ ) {
+      r.set(i, b.get(i));
+    }
+    Mat.gemv(false, -1.0, a, x, 1.0, r);
+  }
+  
+  /**
+   * Solves <code>a * x = b</code> by mixed precision iterative refinement with at most
+   * {@link #MAX_ITERATIONS} iterations.
+   * 
+   * @param a the square {@link Matrix}, which is not changed.
+   * @param b the right hand side
+   * @return the {@link Result} holding the solution.
+   */
+  public static Result solve(Matrix a, Vector b) {
+    return solve(a, b, MAX_ITERATIONS);
+  }
+  
+  /**
+   * Solves <code>a * x = b</code> by mixed precision iterative refinement with at most the
+   * specified number of iterations.
+   * 
+   * @param a the square {@link Matrix}, which is not changed.
+   * @param b the right hand side
+   * @param maxIterations the limit on the number of refinement iterations
+   * @return the {@link Result} holding the solution.
+   */
+  public static Result solve(Matrix a, Vector b, int maxIterations) {
+    int dim = a.getNumRows();
+    assert a.isSquare() && (b.dimension() == dim);
+    double aNorm = normInf(a);
+    double bNorm = normInf(b);
+    double tolerance = aNorm * EPS * Math.sqrt(dim);
+    CVec r = new CVec(dim);
+    int iterations = 0;
+    FLUDecomp fLU = new FLUDecomp(a);
+    if ( !fLU.isSingular() && Double.isFinite(aNorm)) {
+      CVec x = fLU.solve(b).toCVec();
+      for (;;) {
+        double xNorm = normInf(x);
+        if ( !Double.isFinite(xNorm)) {
+          break; // the single precision solve overflowed
+        }
+        residual(a, x, b, r);
+        double rNorm = normInf(r);
+        if (rNorm <= xNorm * tolerance)
+          return new Result(x, iterations, backwardError(rNorm, aNorm, xNorm, bNorm), false);
+        if (iterations == maxIterations) {
+          break;
+        }
+        Vec.axpy(1.0, fLU.solve(r), x);
+        iterations++ ;
+      }
+    }
+    /*
+     * Refinement failed, so solve in double.
+     */
+    CVec x = new LUDecomp(a).solve(b);
+    residual(a, x, b, r);
+    return new Result(x, iterations, backwardError(normInf(r), aNorm, normInf(x), bNorm), true);
+  }
+}
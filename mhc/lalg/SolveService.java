@@ -0,0 +1,274 @@
+package mhc.lalg;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs solves and products asynchronously on a fixed pool of compute threads, returning
+ * {@link CompletableFuture}s so a caller never blocks a thread while it waits. At most
+ * <code>maxInFlight</code> requests may be running or queued at once; a request beyond that is
+ * not queued but returned at once as a future that failed with a
+ * {@link RejectedExecutionException}, so callers see backpressure instead of an unbounded
+ * queue.
+ * <p>
+ * A request that is identical to one still in flight, the same operation on the same
+ * {@link Matrix} instances with an equal right hand side, is not run again but completes with
+ * a copy of the result of the first. The right hand side is copied when the request is made,
+ * but the {@link Matrix} is not, so it must not be changed until the request completes; an
+ * {@link ImmutableMat} can be shared that way without copying.
+ * <p>
+ * Submitting a request takes no monitor and never waits, so it is safe from threads that must
+ * not block, such as virtual threads, unlike {@link mhc.lalg.util.Out} which synchronizes.
+ * The shared instance behind {@link LA#solveAsync(Matrix, Vector)} and the other async
+ * methods of {@link LA} is {@link #getDefault()}.
+ */
+public class SolveService implements AutoCloseable {
+  
+  /**
+   * Identifies a request for coalescing: the operation, the identities of its {@link Matrix}
+   * operands and the values of its right hand side.
+   */
+  private static final class Key {
+    
+    private final String operation;
+    
+    private final Object[] operands;
+    
+    private final double[] values;
+    
+    private final int hash;
+    
+    Key(String operation, Object[] operands, double[] values) {
+      this.operation = operation;
+      this.operands = operands;
+      this.values = values;
+      int h = operation.hashCode();
+      for (Object operand : operands) {
+        h = (31 * h) + System.identityHashCode(operand);
+      }
+      hash = (31 * h) + Arrays.hashCode(values);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+      if ( !(o instanceof Key other) || (hash != other.hash)
+              || !operation.equals(other.operation)
+              || (operands.length != other.operands.length))
+        return false;
+      for (int i = 0; i < operands.length; i++ ) {
+        if (operands[i] != other.operands[i])
+          return false;
+      }
+      return Arrays.equals(values, other.values);
+    }
+    
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+  
+  /**
+   * Holds the default instance, which is created the first time it is used.
+   */
+  private static final class DefaultHolder {
+    
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    
+    private static final SolveService INSTANCE = new SolveService(PARALLELISM,
+            64 * PARALLELISM);
+  }
+  
+  private static final double[] NO_VALUES = new double[0];
+  
+  private final ThreadPoolExecutor executor;
+  
+  private final int maxInFlight;
+  
+  /**
+   * One permit for each request that may be running or queued.
+   */
+  private final Semaphore permits;
+  
+  /**
+   * The shared future of each request in flight.
+   */
+  private final ConcurrentHashMap<Key, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+  
+  private final LongAdder numCoalesced = new LongAdder();
+  
+  private final LongAdder numRejected = new LongAdder();
+  
+  /**
+   * Creates a {@link SolveService} with its own pool of daemon threads.
+   * 
+   * @param parallelism the number of compute threads
+   * @param maxInFlight the most requests that may be running or queued at once
+   */
+  public SolveService(int parallelism, int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+    permits = new Semaphore(maxInFlight);
+    AtomicInteger threadNumber = new AtomicInteger();
+    executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), task -> {
+              Thread thread = new Thread(task, "lalg-solve-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+  
+  /**
+   * Returns the shared {@link SolveService}, with a thread for each available processor and
+   * room for 64 requests in flight per thread.
+   * 
+   * @return the shared {@link SolveService}.
+   */
+  public static SolveService getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+  
+  /**
+   * Stops accepting requests. Requests already accepted still complete.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+  
+  /**
+   * Returns the number of requests that were joined to an identical one in flight.
+   * 
+   * @return the number of coalesced requests.
+   */
+  public long getNumCoalesced() {
+    return numCoalesced.sum();
+  }
+  
+  /**
+   * Returns the number of requests running or queued now.
+   * 
+   * @return the number of requests in flight.
+   */
+  public int getNumInFlight() {
+    return maxInFlight - permits.availablePermits();
+  }
+  
+  /**
+   * Returns the number of requests turned away because too many were in flight or the
+   * {@link SolveService} was closed.
+   * 
+   * @return the number of rejected requests.
+   */
+  public long getNumRejected() {
+    return numRejected.sum();
+  }
+  
+  /**
+   * Returns a future of the product <code>a * b</code>.
+   * 
+   * @param a the left hand {@link Matrix}, which must not change until the future completes
+   * @param b the right hand {@link Matrix}, which must not change until the future completes
+   * @return a future of a new {@link CMat} holding the product.
+   */
+  public CompletableFuture<CMat> multiplyAsync(Matrix a, Matrix b) {
+    Key key = new Key("gemm", new Object[] { a, b }, NO_VALUES);
+    return submit(key, () -> {
+      CMat c = new CMat(a.getNumRows(), b.getNumCols());
+      Mat.gemm(1.0, a, b, 0.0, c);
+      return c;
+    }, Mat::copy);
+  }
+  
+  /**
+   * Returns a future of the product <code>a * x</code>.
+   * 
+   * @param a the {@link Matrix}, which must not change until the future completes
+   * @param x the {@link Vector}, which is copied
+   * @return a future of a new {@link CVec} holding the product.
+   */
+  public CompletableFuture<CVec> multiplyAsync(Matrix a, Vector x) {
+    CVec xCopy = Vec.copy(x);
+    Key key = new Key("gemv", new Object[] { a }, xCopy.values);
+    return submit(key, () -> {
+      CVec y = new CVec(a.getNumRows());
+      Mat.gemv(false, 1.0, a, xCopy, 0.0, y);
+      return y;
+    }, Vec::copy);
+  }
+  
+  /**
+   * Returns a future of the solution <code>x</code> of <code>a * x = b</code>, computed as
+   * {@link LA#solve(Matrix, Vector)} does. The future fails if <code>a</code> is singular.
+   * 
+   * @param a the square {@link Matrix}, which must not change until the future completes
+   * @param b the right hand side, which is copied
+   * @return a future of a new {@link CVec} holding the solution.
+   */
+  public CompletableFuture<CVec> solveAsync(Matrix a, Vector b) {
+    CVec bCopy = Vec.copy(b);
+    Key key = new Key("solve", new Object[] { a }, bCopy.values);
+    return submit(key, () -> LA.solve(a, bCopy), Vec::copy);
+  }
+  
+  /**
+   * Runs the work for the specified request, or joins the identical request in flight. Each
+   * caller gets its own copy of the result.
+   */
+  private <T> CompletableFuture<T> submit(Key key, Supplier<T> work, UnaryOperator<T> copy) {
+    CompletableFuture<T> shared = new CompletableFuture<>();
+    @SuppressWarnings("unchecked")
+    CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, shared);
+    if (existing != null) {
+      numCoalesced.increment();
+      return existing.thenApply(copy);
+    }
+    if ( !permits.tryAcquire()) {
+      reject(key, shared, new RejectedExecutionException("Too many requests in flight"));
+      return shared.thenApply(copy);
+    }
+    try {
+      executor.execute(() -> {
+        T result = null;
+        Throwable failure = null;
+        try {
+          result = work.get();
+        } catch (Throwable e) {
+          failure = e;
+        }
+        /*
+         * A request made from now on is run again rather than joined to this one.
+         */
+        inFlight.remove(key, shared);
+        permits.release();
+        if (failure == null) {
+          shared.complete(result);
+        } else {
+          shared.completeExceptionally(failure);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      reject(key, shared, e);
+    }
+    return shared.thenApply(copy);
+  }
+  
+  /**
+   * Fails a request that was not run, along with any request that joined it.
+   */
+  private void reject(Key key, CompletableFuture<?> shared, RejectedExecutionException e) {
+    inFlight.remove(key, shared);
+    numRejected.increment();
+    shared.completeExceptionally(e);
+  }
+}
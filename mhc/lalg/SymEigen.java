@@ -0,0 +1,484 @@
+package mhc.lalg;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import mhc.lalg.util.OpCounters;
+import mhc.lalg.util.OpCounters.OpEvent;
+
+/**
+ * The eigenvalues, and optionally the eigenvectors, of a symmetric {@link Matrix}, so that
+ * <code>A * V = V * diag(values)</code> with the columns of <code>V</code> orthonormal. Only
+ * the lower triangle of the {@link Matrix} is read, and it is copied first so it is not
+ * changed.
+ * <p>
+ * The {@link Matrix} is first reduced to a symmetric tridiagonal <code>T = Q^T * A * Q</code>
+ * by Householder reflectors, in the layout of LAPACK's <code>sytrd</code>, with the
+ * matrix-vector product and the rank 2 update of each step split by rows across the common
+ * {@link ForkJoinPool} for a large {@link Matrix}. The eigenvalues of <code>T</code> are then
+ * found by the implicit QL method, which takes <code>O(n<sup>2</sup>)</code> flops when only
+ * the eigenvalues are wanted. When the eigenvectors are wanted the plane rotations of each QL
+ * sweep are applied to the rows of the eigenvector matrix of <code>T</code> in parallel, and
+ * the selected eigenvectors are multiplied by <code>Q</code> in parallel by columns.
+ * <p>
+ * The eigenvalues are held in ascending order. {@link #byIndex(Matrix, int, int, boolean)}
+ * and {@link #byValue(Matrix, double, double, boolean)} keep only part of them, so only those
+ * eigenvectors are back transformed and stored.
+ */
+public class SymEigen {
+  
+  /**
+   * Chooses the eigenvalues to keep, as the index of the first and the number of them, from
+   * all the eigenvalues in ascending order.
+   */
+  private interface Selection {
+    
+    int[] select(double[] values);
+  }
+  
+  /**
+   * Work on rows or columns <code>[start, end)</code>.
+   */
+  private interface RangeTask {
+    
+    void run(int start, int end);
+  }
+  
+  /**
+   * Steps that touch at least this many elements are split across threads.
+   */
+  private static final int PARALLEL_EIGEN_SIZE = 128 * 128;
+  
+  /**
+   * The fewest rows or columns in each chunk of a parallel step.
+   */
+  private static final int EIGEN_CHUNK_SIZE = 32;
+  
+  /**
+   * The most QL iterations for each eigenvalue, on average, before giving up.
+   */
+  private static final int MAX_ITERATIONS = 30;
+  
+  private static final double EPS = Math.ulp(1.0);
+  
+  private final int dim;
+  
+  private final int firstIndex;
+  
+  /**
+   * The kept eigenvalues in ascending order.
+   */
+  private final double[] values;
+  
+  /**
+   * The kept eigenvectors as the columns of a row major <code>dim x values.length</code>
+   * array, or null if they were not computed.
+   */
+  private final double[] vectors;
+  
+  /**
+   * Computes all the eigenvalues and eigenvectors of the specified symmetric {@link Matrix}.
+   * 
+   * @param mat the symmetric {@link Matrix}, which is not changed.
+   */
+  public SymEigen(Matrix mat) {
+    this(mat, true);
+  }
+  
+  /**
+   * Computes all the eigenvalues, and the eigenvectors if asked, of the specified symmetric
+   * {@link Matrix}.
+   * 
+   * @param mat the symmetric {@link Matrix}, which is not changed.
+   * @param computeVectors true to compute the eigenvectors as well
+   */
+  public SymEigen(Matrix mat, boolean computeVectors) {
+    this(mat, computeVectors, all -> new int[] { 0, all.length });
+  }
+  
+  private SymEigen(Matrix mat, boolean computeVectors, Selection selection) {
+    if ( !mat.isSquare())
+      throw new RuntimeException("Only a square matrix has eigenvalues");
+    dim = mat.getNumRows();
+    OpEvent event = OpCounters.beginEvent("syev", dim, dim);
+    double[] a = Mat.copy(mat).values;
+    for (int rI = 0; rI < dim; rI++ ) {
+      for (int cI = 0; cI < rI; cI++ ) {
+        a[(cI * dim) + rI] = a[(rI * dim) + cI];
+      }
+    }
+    double[] d = new double[dim];
+    double[] e = new double[dim];
+    double[] tau = new double[dim];
+    tridiagonalize(a, dim, d, e, tau);
+    double[] z = null;
+    if (computeVectors) {
+      z = new double[dim * dim];
+      for (int k = 0; k < dim; k++ ) {
+        z[(k * dim) + k] = 1.0;
+      }
+    }
+    tql2(d, e, z, dim);
+    int[] order = IntStream.range(0, dim).boxed()
+            .sorted(Comparator.comparingDouble(k -> d[k])).mapToInt(k -> k).toArray();
+    double[] sorted = new double[dim];
+    for (int k = 0; k < dim; k++ ) {
+      sorted[k] = d[order[k]];
+    }
+    int[] range = selection.select(sorted);
+    firstIndex = range[0];
+    int count = range[1];
+    values = Arrays.copyOfRange(sorted, firstIndex, firstIndex + count);
+    long numFlops = (2L * dim * dim * dim) + (30L * dim * dim);
+    if (computeVectors) {
+      double[] y = new double[dim * count];
+      for (int j = 0; j < count; j++ ) {
+        int col = order[firstIndex + j];
+        for (int rI = 0; rI < dim; rI++ ) {
+          y[(rI * count) + j] = z[(rI * dim) + col];
+        }
+      }
+      backTransform(a, tau, dim, y, count);
+      vectors = y;
+      numFlops += (6L * dim * dim * dim) + (2L * dim * dim * count);
+    } else {
+      vectors = null;
+    }
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, (long) dim * dim, (long) dim * dim);
+    }
+    OpCounters.commitEvent(event, numFlops);
+  }
+  
+  /**
+   * Returns the eigenvalues of the specified symmetric {@link Matrix} with indices
+   * <code>first</code> to <code>first + count - 1</code> in ascending order, and their
+   * eigenvectors if asked.
+   * 
+   * @param mat the symmetric {@link Matrix}, which is not changed.
+   * @param first the index of the first eigenvalue to keep, 0 for the smallest
+   * @param count the number of eigenvalues to keep
+   * @param computeVectors true to compute the eigenvectors of the kept eigenvalues as well
+   * @return a new {@link SymEigen} holding the kept eigenvalues.
+   */
+  public static SymEigen byIndex(Matrix mat, int first, int count, boolean computeVectors) {
+    return new SymEigen(mat, computeVectors, all -> {
+      if ((first < 0) || (count < 0) || (first + count > all.length))
+        throw new RuntimeException("There are no eigenvalues " + first + " to "
+                + (first + count - 1) + " of a " + all.length + " x " + all.length + " matrix");
+      return new int[] { first, count };
+    });
+  }
+  
+  /**
+   * Returns the eigenvalues of the specified symmetric {@link Matrix} in the interval
+   * <code>(lower, upper]</code>, as LAPACK's <code>syevx</code> selects them, and their
+   * eigenvectors if asked.
+   * 
+   * @param mat the symmetric {@link Matrix}, which is not changed.
+   * @param lower the eigenvalues kept are greater than this
+   * @param upper the eigenvalues kept are at most this
+   * @param computeVectors true to compute the eigenvectors of the kept eigenvalues as well
+   * @return a new {@link SymEigen} holding the kept eigenvalues.
+   */
+  public static SymEigen byValue(Matrix mat, double lower, double upper,
+          boolean computeVectors) {
+    return new SymEigen(mat, computeVectors, all -> {
+      int first = 0;
+      while ((first < all.length) && (all[first] <= lower)) {
+        first++ ;
+      }
+      int end = first;
+      while ((end < all.length) && (all[end] <= upper)) {
+        end++ ;
+      }
+      return new int[] { first, end - first };
+    });
+  }
+  
+  /**
+   * Multiplies the columns of the row major <code>n x count</code> array <code>y</code> by the
+   * <code>Q</code> of {@link #tridiagonalize}, splitting the columns across threads.
+   */
+  private static void backTransform(double[] a, double[] tau, int n, double[] y, int count) {
+    forChunks(count, (long) n * count, (col0, col1) -> {
+      double[] w = new double[col1 - col0];
+      for (int k = n - 3; k >= 0; k-- ) {
+        double t = tau[k];
+        if (t == 0.0) {
+          continue; // the reflector is the identity
+        }
+        int k1Pos = (k + 1) * count;
+        for (int q = col0; q < col1; q++ ) {
+          w[q - col0] = y[k1Pos + q];
+        }
+        for (int r = k + 2; r < n; r++ ) {
+          double v = a[(r * n) + k];
+          int rPos = r * count;
+          for (int q = col0; q < col1; q++ ) {
+            w[q - col0] += v * y[rPos + q];
+          }
+        }
+        for (int q = col0; q < col1; q++ ) {
+          w[q - col0] *= t;
+          y[k1Pos + q] -= w[q - col0];
+        }
+        for (int r = k + 2; r < n; r++ ) {
+          double v = a[(r * n) + k];
+          int rPos = r * count;
+          for (int q = col0; q < col1; q++ ) {
+            y[rPos + q] -= v * w[q - col0];
+          }
+        }
+      }
+    });
+  }
+  
+  /**
+   * Runs the task on <code>[0, count)</code>, split into chunks across the common
+   * {@link ForkJoinPool} if the step touches at least {@link #PARALLEL_EIGEN_SIZE} elements.
+   */
+  private static void forChunks(int count, long size, RangeTask task) {
+    int numChunks = 1;
+    if (size >= PARALLEL_EIGEN_SIZE) {
+      int maxChunks = 4 * ForkJoinPool.getCommonPoolParallelism();
+      numChunks = Math.max(1, Math.min(maxChunks, count / EIGEN_CHUNK_SIZE));
+    }
+    if (numChunks == 1) {
+      task.run(0, count);
+      return;
+    }
+    int chunks = numChunks;
+    IntStream.range(0, chunks).parallel()
+            .forEach(chunk -> task.run((int) (((long) chunk * count) / chunks),
+                    (int) (((long) (chunk + 1) * count) / chunks)));
+  }
+  
+  /**
+   * Finds the eigenvalues of the symmetric tridiagonal matrix with diagonal <code>d</code> and
+   * subdiagonal <code>e</code>, <code>e[i]</code> below <code>d[i]</code>, by the implicit QL
+   * method with Wilkinson shifts, as in EISPACK's <code>tql2</code>. The eigenvalues replace
+   * <code>d</code>, unordered. If <code>z</code> is not null the rotations are applied to its
+   * columns, so if it starts as the identity its columns end as the eigenvectors.
+   */
+  private static void tql2(double[] d, double[] e, double[] z, int n) {
+    if (n == 0)
+      return;
+    e[n - 1] = 0.0;
+    double[] cs = (z == null) ? null : new double[n];
+    double[] sn = (z == null) ? null : new double[n];
+    int iterationsLeft = MAX_ITERATIONS * n;
+    double shift = 0.0;
+    double tst1 = 0.0;
+    for (int l = 0; l < n; l++ ) {
+      tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+      int m = l;
+      while ((m < n - 1) && (Math.abs(e[m]) > EPS * tst1)) {
+        m++ ;
+      }
+      while (m > l) {
+        if (iterationsLeft-- == 0)
+          throw new RuntimeException("The eigenvalues did not converge");
+        double g = d[l];
+        double p = (d[l + 1] - g) / (2.0 * e[l]);
+        double r = Math.hypot(p, 1.0);
+        if (p < 0.0) {
+          r = -r;
+        }
+        d[l] = e[l] / (p + r);
+        d[l + 1] = e[l] * (p + r);
+        double dl1 = d[l + 1];
+        double h = g - d[l];
+        for (int i = l + 2; i < n; i++ ) {
+          d[i] -= h;
+        }
+        shift += h;
+        p = d[m];
+        double c = 1.0;
+        double c2 = c;
+        double c3 = c;
+        double el1 = e[l + 1];
+        double s = 0.0;
+        double s2 = 0.0;
+        for (int i = m - 1; i >= l; i-- ) {
+          c3 = c2;
+          c2 = c;
+          s2 = s;
+          g = c * e[i];
+          h = c * p;
+          r = Math.hypot(p, e[i]);
+          e[i + 1] = s * r;
+          s = e[i] / r;
+          c = p / r;
+          p = (c * d[i]) - (s * g);
+          d[i + 1] = h + (s * ((c * g) + (s * d[i])));
+          if (z != null) {
+            cs[i] = c;
+            sn[i] = s;
+          }
+        }
+        if (z != null) {
+          int sweepEnd = m;
+          int sweepStart = l;
+          forChunks(n, (long) n * (m - l), (row0, row1) -> {
+            for (int k = row0; k < row1; k++ ) {
+              int kPos = k * n;
+              for (int i = sweepEnd - 1; i >= sweepStart; i-- ) {
+                double zNext = z[kPos + i + 1];
+                z[kPos + i + 1] = (sn[i] * z[kPos + i]) + (cs[i] * zNext);
+                z[kPos + i] = (cs[i] * z[kPos + i]) - (sn[i] * zNext);
+              }
+            }
+          });
+        }
+        p = (-s * s2 * c3 * el1 * e[l]) / dl1;
+        e[l] = s * p;
+        d[l] = c * p;
+        if (Math.abs(e[l]) <= EPS * tst1) {
+          break;
+        }
+      }
+      d[l] += shift;
+      e[l] = 0.0;
+    }
+  }
+  
+  /**
+   * Reduces the symmetric row major <code>n x n</code> array <code>a</code>, held in full, to
+   * tridiagonal form. The diagonal goes to <code>d</code> and the subdiagonal to
+   * <code>e</code>. The Householder vector of step <code>k</code>, which acts on rows
+   * <code>k + 1</code> on, is left below the subdiagonal of column <code>k</code> with its
+   * leading 1 not stored, and its scale in <code>tau[k]</code>.
+   */
+  private static void tridiagonalize(double[] a, int n, double[] d, double[] e, double[] tau) {
+    double[] v = new double[n];
+    double[] w = new double[n];
+    for (int k = 0; k < n - 2; k++ ) {
+      int k1 = k + 1;
+      double maxValue = 0.0;
+      for (int r = k + 2; r < n; r++ ) {
+        maxValue = Math.max(maxValue, Math.abs(a[(r * n) + k]));
+      }
+      double alpha = a[(k1 * n) + k];
+      if (maxValue == 0.0) {
+        tau[k] = 0.0; // the column is already zero below the subdiagonal
+        e[k] = alpha;
+        continue;
+      }
+      double sumSquares = 0.0;
+      for (int r = k + 2; r < n; r++ ) {
+        double scaled = a[(r * n) + k] / maxValue;
+        sumSquares += scaled * scaled;
+      }
+      double beta = -Math.copySign(Math.hypot(alpha, maxValue * Math.sqrt(sumSquares)), alpha);
+      double t = (beta - alpha) / beta;
+      double scale = 1.0 / (alpha - beta);
+      v[k1] = 1.0;
+      for (int r = k + 2; r < n; r++ ) {
+        a[(r * n) + k] *= scale;
+        v[r] = a[(r * n) + k];
+      }
+      e[k] = beta;
+      tau[k] = t;
+      /*
+       * With p = t * A22 * v and w = p - (t / 2) * (p^T * v) * v the trailing block becomes
+       * H * A22 * H = A22 - v * w^T - w * v^T.
+       */
+      long size = (long) (n - k1) * (n - k1);
+      forChunks(n - k1, size, (row0, row1) -> {
+        for (int r = k1 + row0; r < k1 + row1; r++ ) {
+          int rPos = r * n;
+          double sum = 0.0;
+          for (int c = k1; c < n; c++ ) {
+            sum += a[rPos + c] * v[c];
+          }
+          w[r] = t * sum;
+        }
+      });
+      double kappa = 0.0;
+      for (int r = k1; r < n; r++ ) {
+        kappa += w[r] * v[r];
+      }
+      kappa *= 0.5 * t;
+      for (int r = k1; r < n; r++ ) {
+        w[r] -= kappa * v[r];
+      }
+      forChunks(n - k1, size, (row0, row1) -> {
+        for (int r = k1 + row0; r < k1 + row1; r++ ) {
+          int rPos = r * n;
+          double vr = v[r];
+          double wr = w[r];
+          for (int c = k1; c < n; c++ ) {
+            a[rPos + c] -= (vr * w[c]) + (wr * v[c]);
+          }
+        }
+      });
+    }
+    for (int k = 0; k < n; k++ ) {
+      d[k] = a[(k * n) + k];
+    }
+    if (n >= 2) {
+      e[n - 2] = a[((n - 1) * n) + n - 2];
+    }
+  }
+  
+  /**
+   * Returns the dimension of the {@link Matrix}.
+   * 
+   * @return the dimension of the {@link Matrix}.
+   */
+  public int dimension() {
+    return dim;
+  }
+  
+  /**
+   * Returns the kept eigenvalues in ascending order.
+   * 
+   * @return a new {@link CVec} holding the eigenvalues.
+   */
+  public CVec getEigenvalues() {
+    return new CVec(values.length, values.clone());
+  }
+  
+  /**
+   * Returns the eigenvectors of the kept eigenvalues as the columns of a {@link CMat}, column
+   * <code>j</code> for eigenvalue <code>j</code> of {@link #getEigenvalues()}. It is an error if
+   * they were not computed.
+   * 
+   * @return a new <code>n x getNumEigenvalues()</code> {@link CMat} holding the eigenvectors.
+   */
+  public CMat getEigenvectors() {
+    if (vectors == null)
+      throw new RuntimeException("The eigenvectors were not computed");
+    return new CMat(dim, values.length, vectors.clone());
+  }
+  
+  /**
+   * Returns the index among all the eigenvalues in ascending order of the first one kept.
+   * 
+   * @return the index of the first eigenvalue kept.
+   */
+  public int getFirstIndex() {
+    return firstIndex;
+  }
+  
+  /**
+   * Returns the number of eigenvalues kept.
+   * 
+   * @return the number of eigenvalues kept.
+   */
+  public int getNumEigenvalues() {
+    return values.length;
+  }
+  
+  /**
+   * Returns true if the eigenvectors were computed.
+   * 
+   * @return true if the eigenvectors were computed.
+   */
+  public boolean hasEigenvectors() {
+    return vectors != null;
+  }
+}
@@ -0,0 +1,260 @@
+package mhc.lalg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A directed acyclic graph of tasks over the tiles of a matrix, run dynamically on a
+ * {@link ForkJoinPool}. Tasks are added in the order a serial program would run them, each
+ * with the tiles it reads and writes, and the dependencies are inferred from those: a task
+ * waits for the last writer of every tile it reads or writes, and for every reader since that
+ * writer of each tile it writes. Everything else may run in any order, so there is no
+ * synchronization point between the steps of a factorization and later steps can start as soon
+ * as their own tiles are ready.
+ * <p>
+ * When more tasks are ready than there are workers, the one with the longest path of work
+ * still to do after it, its critical path, runs first. That keeps the panel factorizations,
+ * which everything else waits for, ahead of the bulk updates. Each ready task is handed to the
+ * pool as one job that runs whichever ready task has the highest priority when it starts.
+ */
+public class TaskGraph {
+  
+  /**
+   * A node of the graph.
+   */
+  private static final class Task {
+    
+    private final String name;
+    
+    private final Runnable body;
+    
+    private final double cost;
+    
+    /**
+     * The position of this task in the serial order, which breaks ties in priority.
+     */
+    private final int sequence;
+    
+    private final List<Task> successors = new ArrayList<>();
+    
+    private int numPredecessors;
+    
+    private final AtomicInteger pending = new AtomicInteger();
+    
+    /**
+     * The cost of this task plus the most costly path through its successors.
+     */
+    private double priority;
+    
+    Task(String name, Runnable body, double cost, int sequence) {
+      this.name = name;
+      this.body = body;
+      this.cost = cost;
+      this.sequence = sequence;
+    }
+    
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+  
+  private final List<Task> tasks = new ArrayList<>();
+  
+  /**
+   * The last task added that writes each tile.
+   */
+  private final Map<Long, Task> lastWriters = new HashMap<>();
+  
+  /**
+   * The tasks added since the last writer that read each tile.
+   */
+  private final Map<Long, List<Task>> readers = new HashMap<>();
+  
+  /**
+   * Returns the key of the indicated tile, for the <code>reads</code> and <code>writes</code>
+   * of {@link #add(String, double, Runnable, long[], long[])}.
+   * 
+   * @param rowTile the index of the row of tiles
+   * @param colTile the index of the column of tiles
+   * @return the key of the tile.
+   */
+  public static long tile(int rowTile, int colTile) {
+    return ((long) rowTile << 32) | (colTile & 0xFFFFFFFFL);
+  }
+  
+  /**
+   * Adds a task that runs after every task added before it that it conflicts with. A tile
+   * that is both read and written need only be listed in <code>writes</code>.
+   * 
+   * @param name the name of the task, for messages
+   * @param cost an estimate of the work done by the task, such as its floating point
+   *        operations, used for the critical path
+   * @param body the work
+   * @param reads the keys of the tiles the task reads, see {@link #tile(int, int)}
+   * @param writes the keys of the tiles the task writes
+   */
+  public void add(String name, double cost, Runnable body, long[] reads, long[] writes) {
+    Task task = new Task(name, body, cost, tasks.size());
+    Set<Task> predecessors = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (long key : reads) {
+      Task writer = lastWriters.get(key);
+      if (writer != null) {
+        predecessors.add(writer);
+      }
+    }
+    for (long key : writes) {
+      Task writer = lastWriters.get(key);
+      if (writer != null) {
+        predecessors.add(writer);
+      }
+      List<Task> tileReaders = readers.remove(key);
+      if (tileReaders != null) {
+        predecessors.addAll(tileReaders);
+      }
+    }
+    predecessors.remove(task);
+    for (Task predecessor : predecessors) {
+      predecessor.successors.add(task);
+    }
+    task.numPredecessors = predecessors.size();
+    for (long key : reads) {
+      readers.computeIfAbsent(key, k -> new ArrayList<>()).add(task);
+    }
+    for (long key : writes) {
+      lastWriters.put(key, task);
+      readers.remove(key); // a task that writes a tile does not need to wait for itself
+    }
+    tasks.add(task);
+  }
+  
+  /**
+   * Computes the priority of every task. The tasks were added in a serial order, so every
+   * successor of a task comes after it and one pass from the end is enough.
+   */
+  private void computePriorities() {
+    for (int i = tasks.size() - 1; i >= 0; i-- ) {
+      Task task = tasks.get(i);
+      double max = 0.0;
+      for (Task successor : task.successors) {
+        max = Math.max(max, successor.priority);
+      }
+      task.priority = task.cost + max;
+    }
+  }
+  
+  /**
+   * Returns the cost of the most costly path through the graph, the least time the graph
+   * could take with unlimited workers.
+   * 
+   * @return the cost of the critical path.
+   */
+  public double criticalPath() {
+    computePriorities();
+    double max = 0.0;
+    for (Task task : tasks) {
+      max = Math.max(max, task.priority);
+    }
+    return max;
+  }
+  
+  /**
+   * Returns the number of dependencies, the edges of the graph.
+   * 
+   * @return the number of dependencies.
+   */
+  public int numDependencies() {
+    int count = 0;
+    for (Task task : tasks) {
+      count += task.numPredecessors;
+    }
+    return count;
+  }
+  
+  /**
+   * Returns the number of tasks.
+   * 
+   * @return the number of tasks.
+   */
+  public int numTasks() {
+    return tasks.size();
+  }
+  
+  /**
+   * Runs every task on the common {@link ForkJoinPool} and waits for them to finish.
+   */
+  public void run() {
+    run(ForkJoinPool.commonPool());
+  }
+  
+  /**
+   * Runs every task on the specified {@link ForkJoinPool} and waits for them to finish. This
+   * must not be called from a task of the same pool. If a task throws an exception no more
+   * tasks are started, and the first exception is thrown once those already started are done.
+   * 
+   * @param pool the {@link ForkJoinPool} that runs the tasks
+   */
+  public void run(ForkJoinPool pool) {
+    computePriorities();
+    PriorityBlockingQueue<Task> ready = new PriorityBlockingQueue<>(Math.max(1, tasks.size()),
+            (t1, t2) -> (t1.priority != t2.priority) ? Double.compare(t2.priority, t1.priority)
+                    : Integer.compare(t1.sequence, t2.sequence));
+    CountDownLatch done = new CountDownLatch(tasks.size());
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (Task task : tasks) {
+      task.pending.set(task.numPredecessors);
+      if (task.numPredecessors == 0) {
+        ready.add(task);
+      }
+    }
+    int numReady = ready.size();
+    for (int i = 0; i < numReady; i++ ) {
+      pool.execute(() -> runNext(pool, ready, done, failure));
+    }
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while running the task graph", e);
+    }
+    Throwable thrown = failure.get();
+    if (thrown instanceof RuntimeException)
+      throw (RuntimeException) thrown;
+    if (thrown != null)
+      throw new RuntimeException(thrown);
+  }
+  
+  /**
+   * Runs the ready task with the highest priority, then hands each successor that has become
+   * ready to the pool. There is one call for each task, made after it became ready, so there is
+   * always a ready task to take.
+   */
+  private static void runNext(ForkJoinPool pool, PriorityBlockingQueue<Task> ready,
+          CountDownLatch done, AtomicReference<Throwable> failure) {
+    Task task = ready.poll();
+    if (failure.get() == null) {
+      try {
+        task.body.run();
+      } catch (Throwable e) {
+        failure.compareAndSet(null, e);
+      }
+    }
+    for (Task successor : task.successors) {
+      if (successor.pending.decrementAndGet() == 0) {
+        ready.add(successor);
+        pool.execute(() -> runNext(pool, ready, done, failure));
+      }
+    }
+    done.countDown();
+  }
+}
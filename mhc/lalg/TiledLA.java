@@ -0,0 +1,515 @@
+package mhc.lalg;
+
+import java.util.concurrent.ForkJoinPool;
+
+import mhc.lalg.util.OpCounters;
+import mhc.lalg.util.OpCounters.OpEvent;
+
+/**
+ * Provides tiled LU, Cholesky and QR factorizations that run as a {@link TaskGraph}. The
+ * {@link Matrix} is copied into a row major array and split into square tiles of
+ * <code>tileSize</code> rows and columns. Each factorization is written as its serial loop
+ * over tile kernels, in the style of LAPACK's <code>getrf</code>, <code>potrf</code>,
+ * <code>trsm</code>, <code>syrk</code>, <code>gemm</code> and <code>geqrf</code>, and the
+ * {@link TaskGraph} works out which kernels can run at the same time from the tiles each one
+ * reads and writes. A trailing update of one step therefore overlaps the panel of the next,
+ * instead of every step ending at a barrier.
+ * <p>
+ * The LU factorization uses partial pivoting over the whole column, so its panel task covers
+ * every tile of the column below the diagonal and the row swaps are applied to the other
+ * columns by their own tasks. The QR factorization uses Householder reflectors with the same
+ * panel shape, and the update of each column of tiles to the right is one task.
+ */
+public class TiledLA {
+  
+  /**
+   * The default number of rows and columns in a tile.
+   */
+  public static final int DEFAULT_TILE_SIZE = 128;
+  
+  private static final long[] NONE = new long[0];
+  
+  private TiledLA() {
+  }
+  
+  /**
+   * Applies the Householder reflector <code>I - tau * v * v^T</code> to columns
+   * <code>col0</code> to <code>col1 - 1</code> of rows <code>c</code> to <code>m - 1</code>
+   * of <code>a</code>. The reflector is stored in column <code>c</code> of <code>vs</code>
+   * below row <code>c</code>, with an implicit 1 in row <code>c</code>. Both arrays have
+   * <code>n</code> columns. <code>w</code> needs <code>col1 - col0</code> elements.
+   */
+  static void applyReflector(double[] vs, int c, double tau, double[] a, int m, int n,
+          int col0, int col1, double[] w) {
+    int width = col1 - col0;
+    if ((width <= 0) || (tau == 0.0))
+      return;
+    int cPos = (c * n) + col0;
+    System.arraycopy(a, cPos, w, 0, width);
+    for (int r = c + 1; r < m; r++ ) {
+      double v = vs[(r * n) + c];
+      if (v == 0.0) {
+        continue; // adds nothing
+      }
+      int rPos = (r * n) + col0;
+      for (int q = 0; q < width; q++ ) {
+        w[q] += v * a[rPos + q];
+      }
+    }
+    for (int q = 0; q < width; q++ ) {
+      w[q] *= tau;
+      a[cPos + q] -= w[q];
+    }
+    for (int r = c + 1; r < m; r++ ) {
+      double v = vs[(r * n) + c];
+      if (v == 0.0) {
+        continue; // nothing to subtract
+      }
+      int rPos = (r * n) + col0;
+      for (int q = 0; q < width; q++ ) {
+        a[rPos + q] -= v * w[q];
+      }
+    }
+  }
+  
+  /**
+   * Returns the lower triangular <code>L</code> with <code>L * L^T = mat</code>, the Cholesky
+   * factor of the specified symmetric positive definite {@link Matrix}, with the default tile
+   * size on the common {@link ForkJoinPool}. Only the lower triangle of the {@link Matrix} is
+   * read.
+   * 
+   * @param mat the {@link Matrix}, which is not changed.
+   * @return a new {@link CMat} holding the Cholesky factor.
+   */
+  public static CMat cholesky(Matrix mat) {
+    return cholesky(mat, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+  }
+  
+  /**
+   * Returns the lower triangular <code>L</code> with <code>L * L^T = mat</code>, the Cholesky
+   * factor of the specified symmetric positive definite {@link Matrix}. Only the lower
+   * triangle of the {@link Matrix} is read. It is an error if the {@link Matrix} is not
+   * positive definite.
+   * 
+   * @param mat the {@link Matrix}, which is not changed.
+   * @param tileSize the number of rows and columns in a tile
+   * @param pool the {@link ForkJoinPool} that runs the tasks
+   * @return a new {@link CMat} holding the Cholesky factor.
+   */
+  public static CMat cholesky(Matrix mat, int tileSize, ForkJoinPool pool) {
+    if ( !mat.isSquare())
+      throw new RuntimeException("Only a square matrix can be factored");
+    int n = mat.getNumRows();
+    CMat l = Mat.copy(mat);
+    double[] a = l.values;
+    int b = tileSize;
+    int nt = numTiles(n, b);
+    double tileFlops = (double) b * b * b;
+    TaskGraph graph = new TaskGraph();
+    for (int k = 0; k < nt; k++ ) {
+      int kk = k;
+      graph.add("potrf", tileFlops / 3, () -> cholPanel(a, n, b, kk), NONE, tiles(k, k));
+      for (int i = k + 1; i < nt; i++ ) {
+        int ii = i;
+        graph.add("trsm", tileFlops, () -> cholTrsm(a, n, b, ii, kk), tiles(k, k),
+                tiles(i, k));
+      }
+      for (int i = k + 1; i < nt; i++ ) {
+        int ii = i;
+        graph.add("syrk", tileFlops, () -> cholUpdate(a, n, b, ii, ii, kk), tiles(i, k),
+                tiles(i, i));
+        for (int j = k + 1; j < i; j++ ) {
+          int jj = j;
+          graph.add("gemm", 2 * tileFlops, () -> cholUpdate(a, n, b, ii, jj, kk),
+                  tiles(i, k, j, k), tiles(i, j));
+        }
+      }
+    }
+    OpEvent event = OpCounters.beginEvent("tiledCholesky", n, n);
+    graph.run(pool);
+    for (int r = 0; r < n; r++ ) {
+      for (int c = r + 1; c < n; c++ ) {
+        a[(r * n) + c] = 0.0;
+      }
+    }
+    long numFlops = ((long) n * n * n) / 3;
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, (long) n * n, (long) n * n);
+    }
+    OpCounters.commitEvent(event, numFlops);
+    return l;
+  }
+  
+  /**
+   * Factors the diagonal tile <code>k</code> in place.
+   */
+  private static void cholPanel(double[] a, int n, int b, int k) {
+    int k0 = k * b;
+    int k1 = Math.min(n, k0 + b);
+    for (int j = k0; j < k1; j++ ) {
+      int jPos = j * n;
+      double d = a[jPos + j] - dot(a, jPos + k0, jPos + k0, j - k0);
+      if ( !(d > 0.0))
+        throw new RuntimeException("Matrix is not positive definite");
+      double ljj = Math.sqrt(d);
+      a[jPos + j] = ljj;
+      for (int i = j + 1; i < k1; i++ ) {
+        int iPos = i * n;
+        a[iPos + j] = (a[iPos + j] - dot(a, iPos + k0, jPos + k0, j - k0)) / ljj;
+      }
+    }
+  }
+  
+  /**
+   * Solves <code>X * L[k][k]^T = A[i][k]</code> in place.
+   */
+  private static void cholTrsm(double[] a, int n, int b, int i, int k) {
+    int k0 = k * b;
+    int k1 = Math.min(n, k0 + b);
+    int i1 = Math.min(n, (i * b) + b);
+    for (int r = i * b; r < i1; r++ ) {
+      int rPos = r * n;
+      for (int j = k0; j < k1; j++ ) {
+        int jPos = j * n;
+        a[rPos + j] = (a[rPos + j] - dot(a, rPos + k0, jPos + k0, j - k0)) / a[jPos + j];
+      }
+    }
+  }
+  
+  /**
+   * Computes <code>A[i][j] -= A[i][k] * A[j][k]^T</code>, only on and below the diagonal when
+   * <code>i == j</code>.
+   */
+  private static void cholUpdate(double[] a, int n, int b, int i, int j, int k) {
+    int k0 = k * b;
+    int len = Math.min(n, k0 + b) - k0;
+    int i1 = Math.min(n, (i * b) + b);
+    int j0 = j * b;
+    int j1 = Math.min(n, j0 + b);
+    for (int r = i * b; r < i1; r++ ) {
+      int rPos = r * n;
+      int cEnd = (i == j) ? r + 1 : j1;
+      for (int c = j0; c < cEnd; c++ ) {
+        a[rPos + c] -= dot(a, rPos + k0, (c * n) + k0, len);
+      }
+    }
+  }
+  
+  /**
+   * Returns the dot product of <code>len</code> elements of <code>a</code> from each of the
+   * two positions.
+   */
+  private static double dot(double[] a, int pos1, int pos2, int len) {
+    double sum = 0.0;
+    for (int q = 0; q < len; q++ ) {
+      sum += a[pos1 + q] * a[pos2 + q];
+    }
+    return sum;
+  }
+  
+  /**
+   * Returns the LU factorization with partial pivoting of the specified square {@link Matrix},
+   * with the default tile size on the common {@link ForkJoinPool}.
+   * 
+   * @param mat the {@link Matrix}, which is not changed.
+   * @return the {@link LUDecomp} of the {@link Matrix}.
+   */
+  public static LUDecomp lu(Matrix mat) {
+    return lu(mat, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+  }
+  
+  /**
+   * Returns the LU factorization with partial pivoting of the specified square
+   * {@link Matrix}. A singular {@link Matrix} is reported by {@link LUDecomp#isSingular()}.
+   * 
+   * @param mat the {@link Matrix}, which is not changed.
+   * @param tileSize the number of rows and columns in a tile
+   * @param pool the {@link ForkJoinPool} that runs the tasks
+   * @return the {@link LUDecomp} of the {@link Matrix}.
+   */
+  public static LUDecomp lu(Matrix mat, int tileSize, ForkJoinPool pool) {
+    if ( !mat.isSquare())
+      throw new RuntimeException("Only a square matrix can be factored");
+    int n = mat.getNumRows();
+    double[] a = Mat.copy(mat).values;
+    int[] pivots = new int[n];
+    int b = tileSize;
+    int nt = numTiles(n, b);
+    double tileFlops = (double) b * b * b;
+    TaskGraph graph = new TaskGraph();
+    for (int k = 0; k < nt; k++ ) {
+      int kk = k;
+      graph.add("getrf", (double) (n - (k * b)) * b * b, () -> luPanel(a, n, b, kk, pivots),
+              NONE, column(k, nt, k));
+      for (int j = 0; j < k; j++ ) {
+        int jj = j;
+        graph.add("laswp", (double) b * b, () -> luSwap(a, n, b, kk, jj, pivots), tiles(k, k),
+                column(k, nt, j));
+      }
+      for (int j = k + 1; j < nt; j++ ) {
+        int jj = j;
+        graph.add("trsm", tileFlops, () -> luTrsm(a, n, b, kk, jj, pivots), tiles(k, k),
+                column(k, nt, j));
+        for (int i = k + 1; i < nt; i++ ) {
+          int ii = i;
+          graph.add("gemm", 2 * tileFlops, () -> luUpdate(a, n, b, ii, jj, kk),
+                  tiles(i, k, k, j), tiles(i, j));
+        }
+      }
+    }
+    OpEvent event = OpCounters.beginEvent("tiledLU", n, n);
+    graph.run(pool);
+    long numFlops = (2L * n * n * n) / 3;
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, (long) n * n, (long) n * n);
+    }
+    OpCounters.commitEvent(event, numFlops);
+    return new LUDecomp(n, a, pivots);
+  }
+  
+  /**
+   * Factors the panel of rows <code>k * b</code> on and columns of tile <code>k</code> with
+   * partial pivoting, swapping rows only within the panel.
+   */
+  private static void luPanel(double[] a, int n, int b, int k, int[] pivots) {
+    int k0 = k * b;
+    int k1 = Math.min(n, k0 + b);
+    for (int c = k0; c < k1; c++ ) {
+      int pivotRow = c;
+      double maxValue = Math.abs(a[(c * n) + c]);
+      for (int r = c + 1; r < n; r++ ) {
+        double nextVal = Math.abs(a[(r * n) + c]);
+        if (nextVal > maxValue) {
+          maxValue = nextVal;
+          pivotRow = r;
+        }
+      }
+      pivots[c] = pivotRow;
+      swapRows(a, n, c, pivotRow, k0, k1);
+      int cPos = c * n;
+      double pivot = a[cPos + c];
+      if (pivot == 0.0) {
+        continue; // the column is already zero below the pivot
+      }
+      for (int r = c + 1; r < n; r++ ) {
+        int rPos = r * n;
+        double multiplier = a[rPos + c] / pivot;
+        a[rPos + c] = multiplier;
+        if (multiplier == 0.0) {
+          continue; // the row adds nothing
+        }
+        for (int q = c + 1; q < k1; q++ ) {
+          a[rPos + q] -= multiplier * a[cPos + q];
+        }
+      }
+    }
+  }
+  
+  /**
+   * Applies the row swaps of panel <code>k</code> to the columns of tile <code>j</code>.
+   */
+  private static void luSwap(double[] a, int n, int b, int k, int j, int[] pivots) {
+    int k1 = Math.min(n, (k * b) + b);
+    int j0 = j * b;
+    int j1 = Math.min(n, j0 + b);
+    for (int c = k * b; c < k1; c++ ) {
+      swapRows(a, n, c, pivots[c], j0, j1);
+    }
+  }
+  
+  /**
+   * Applies the row swaps of panel <code>k</code> to the columns of tile <code>j</code>, then
+   * solves <code>L[k][k] * X = A[k][j]</code> in place, with <code>L[k][k]</code> unit lower
+   * triangular.
+   */
+  private static void luTrsm(double[] a, int n, int b, int k, int j, int[] pivots) {
+    luSwap(a, n, b, k, j, pivots);
+    int k0 = k * b;
+    int k1 = Math.min(n, k0 + b);
+    int j0 = j * b;
+    int j1 = Math.min(n, j0 + b);
+    for (int c = k0; c < k1; c++ ) {
+      int cPos = c * n;
+      for (int r = c + 1; r < k1; r++ ) {
+        int rPos = r * n;
+        double multiplier = a[rPos + c];
+        if (multiplier == 0.0) {
+          continue; // the row adds nothing
+        }
+        for (int q = j0; q < j1; q++ ) {
+          a[rPos + q] -= multiplier * a[cPos + q];
+        }
+      }
+    }
+  }
+  
+  /**
+   * Computes <code>A[i][j] -= A[i][k] * A[k][j]</code>.
+   */
+  private static void luUpdate(double[] a, int n, int b, int i, int j, int k) {
+    int k0 = k * b;
+    int k1 = Math.min(n, k0 + b);
+    int i1 = Math.min(n, (i * b) + b);
+    int j0 = j * b;
+    int j1 = Math.min(n, j0 + b);
+    for (int r = i * b; r < i1; r++ ) {
+      int rPos = r * n;
+      for (int p = k0; p < k1; p++ ) {
+        double multiplier = a[rPos + p];
+        if (multiplier == 0.0) {
+          continue; // the row adds nothing
+        }
+        int pPos = p * n;
+        for (int q = j0; q < j1; q++ ) {
+          a[rPos + q] -= multiplier * a[pPos + q];
+        }
+      }
+    }
+  }
+  
+  /**
+   * Returns the number of tiles of size <code>b</code> needed to cover <code>n</code>.
+   */
+  private static int numTiles(int n, int b) {
+    return (n + b - 1) / b;
+  }
+  
+  /**
+   * Returns the QR factorization of the specified {@link Matrix}, which must have at least as
+   * many rows as columns, with the default tile size on the common {@link ForkJoinPool}.
+   * 
+   * @param mat the {@link Matrix}, which is not changed.
+   * @return the {@link QRDecomp} of the {@link Matrix}.
+   */
+  public static QRDecomp qr(Matrix mat) {
+    return qr(mat, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+  }
+  
+  /**
+   * Returns the QR factorization of the specified {@link Matrix}, which must have at least as
+   * many rows as columns.
+   * 
+   * @param mat the {@link Matrix}, which is not changed.
+   * @param tileSize the number of rows and columns in a tile
+   * @param pool the {@link ForkJoinPool} that runs the tasks
+   * @return the {@link QRDecomp} of the {@link Matrix}.
+   */
+  public static QRDecomp qr(Matrix mat, int tileSize, ForkJoinPool pool) {
+    int m = mat.getNumRows();
+    int n = mat.getNumCols();
+    if (m < n)
+      throw new RuntimeException("QR needs at least as many rows as columns");
+    double[] a = Mat.copy(mat).values;
+    double[] tau = new double[n];
+    int b = tileSize;
+    int mt = numTiles(m, b);
+    int nt = numTiles(n, b);
+    TaskGraph graph = new TaskGraph();
+    for (int k = 0; k < nt; k++ ) {
+      int k0 = k * b;
+      int k1 = Math.min(n, k0 + b);
+      double panelRows = m - k0;
+      graph.add("geqrt", 2 * panelRows * b * b, () -> qrPanel(a, m, n, k0, k1, tau), NONE,
+              column(k, mt, k));
+      for (int j = k + 1; j < nt; j++ ) {
+        int j0 = j * b;
+        int j1 = Math.min(n, j0 + b);
+        graph.add("unmqr", 4 * panelRows * b * b, () -> qrUpdate(a, m, n, k0, k1, j0, j1, tau),
+                column(k, mt, k), column(k, mt, j));
+      }
+    }
+    OpEvent event = OpCounters.beginEvent("tiledQR", m, n);
+    graph.run(pool);
+    long numFlops = (2L * n * n * (3L * m - n)) / 3;
+    if (OpCounters.ENABLED) {
+      OpCounters.count(numFlops, (long) m * n, (long) m * n);
+    }
+    OpCounters.commitEvent(event, numFlops);
+    return new QRDecomp(m, n, a, tau);
+  }
+  
+  /**
+   * Computes the Householder QR factorization of columns <code>k0</code> to
+   * <code>k1 - 1</code>, from row <code>k0</code> down, in place. Each reflector is stored
+   * below the diagonal of its column with its scale in <code>tau</code>, and <code>R</code> on
+   * and above the diagonal.
+   */
+  static void qrPanel(double[] a, int m, int n, int k0, int k1, double[] tau) {
+    double[] w = new double[k1 - k0];
+    for (int c = k0; c < k1; c++ ) {
+      int cPos = c * n;
+      double maxValue = 0.0;
+      for (int r = c + 1; r < m; r++ ) {
+        maxValue = Math.max(maxValue, Math.abs(a[(r * n) + c]));
+      }
+      if (maxValue == 0.0) {
+        tau[c] = 0.0; // the column is already zero below the diagonal
+        continue;
+      }
+      double sumSquares = 0.0;
+      for (int r = c + 1; r < m; r++ ) {
+        double scaled = a[(r * n) + c] / maxValue;
+        sumSquares += scaled * scaled;
+      }
+      double alpha = a[cPos + c];
+      double beta = -Math.copySign(Math.hypot(alpha, maxValue * Math.sqrt(sumSquares)), alpha);
+      tau[c] = (beta - alpha) / beta;
+      double scale = 1.0 / (alpha - beta);
+      for (int r = c + 1; r < m; r++ ) {
+        a[(r * n) + c] *= scale;
+      }
+      a[cPos + c] = beta;
+      applyReflector(a, c, tau[c], a, m, n, c + 1, k1, w);
+    }
+  }
+  
+  /**
+   * Applies the reflectors of columns <code>k0</code> to <code>k1 - 1</code> to columns
+   * <code>j0</code> to <code>j1 - 1</code>.
+   */
+  private static void qrUpdate(double[] a, int m, int n, int k0, int k1, int j0, int j1,
+          double[] tau) {
+    double[] w = new double[j1 - j0];
+    for (int c = k0; c < k1; c++ ) {
+      applyReflector(a, c, tau[c], a, m, n, j0, j1, w);
+    }
+  }
+  
+  /**
+   * Swaps columns <code>col0</code> to <code>col1 - 1</code> of the indicated rows.
+   */
+  private static void swapRows(double[] a, int n, int r1, int r2, int col0, int col1) {
+    if (r1 == r2)
+      return;
+    int pos1 = r1 * n;
+    int pos2 = r2 * n;
+    for (int q = col0; q < col1; q++ ) {
+      double temp = a[pos1 + q];
+      a[pos1 + q] = a[pos2 + q];
+      a[pos2 + q] = temp;
+    }
+  }
+  
+  /**
+   * Returns the keys of tiles <code>firstRowTile</code> to <code>numRowTiles - 1</code> of
+   * the indicated column of tiles.
+   */
+  private static long[] column(int firstRowTile, int numRowTiles, int colTile) {
+    long[] keys = new long[numRowTiles - firstRowTile];
+    for (int i = firstRowTile; i < numRowTiles; i++ ) {
+      keys[i - firstRowTile] = TaskGraph.tile(i, colTile);
+    }
+    return keys;
+  }
+  
+  /**
+   * Returns the keys of the tiles given as pairs of row and column tile indexes.
+   */
+  private static long[] tiles(int... rowCols) {
+    long[] keys = new long[rowCols.length / 2];
+    for (int t = 0; t < keys.length; t++ ) {
+      keys[t] = TaskGraph.tile(rowCols[2 * t], rowCols[(2 * t) + 1]);
+    }
+    return keys;
+  }
+}
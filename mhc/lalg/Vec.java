@@ -1,10 +1,82 @@
 package mhc.lalg;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import mhc.lalg.util.OpCounters;
+
 /**
  * Provides static methods for basic operations on {@link Vector}s.
+ * <p>
+ * Besides the basic operations this includes the BLAS level 1 operations: {@link #asum},
+ * {@link #axpby}, {@link #axpy}, {@link #iamax}, {@link #nrm2}, {@link #rot}, {@link #rotg},
+ * {@link #scal} and {@link #swap}, and the fused {@link #axpyDot}. Each of them works
+ * directly on the backing arrays when every {@link Vector} exposes one through
+ * {@link Vector#getArray()}, such as a {@link CVec} or a row or column of a {@link CMat}, with
+ * a plain indexed loop when all the strides are 1 and a strided one otherwise. It falls back
+ * to {@link Vector#get(int)} and {@link Vector#set(int, double)} otherwise.
+ * <p>
+ * The single precision kernels {@link #dsdot}, {@link #saxpy} and {@link #sdot} work on
+ * {@link FVec}s.
  */
 public class Vec {
   
+  /**
+   * The ways the sums in {@link Vec#dotProduct(Vector, Vector, Reduction)},
+   * {@link Vec#asum(Vector, Reduction)} and {@link Vec#nrm2(Vector, Reduction)} can be
+   * computed. All of them give the same result for the same input every time they are run.
+   */
+  public enum Reduction {
+    /**
+     * Sum the terms left to right with one accumulator. This is what
+     * {@link Vec#dotProduct(Vector, Vector)} does.
+     */
+    SERIAL,
+    /**
+     * Sum the terms with four independent accumulators that are combined at the end. This
+     * breaks the chain of dependent additions so the JIT can pipeline and vectorize the loop.
+     */
+    UNROLLED,
+    /**
+     * Sum the terms by recursively halving the range and adding the two half sums, so the
+     * rounding error grows with the log of the dimension rather than the dimension.
+     */
+    PAIRWISE,
+    /**
+     * Sum the terms with Neumaier's compensated summation, which carries the rounding error of
+     * each addition forward so the result is nearly as accurate as if it had been computed
+     * exactly and then rounded.
+     */
+    COMPENSATED,
+    /**
+     * Split the terms into fixed size blocks that are each summed pairwise on the common
+     * {@link ForkJoinPool}, then add the block sums pairwise. The blocks do not depend on the
+     * number of threads, so neither does the result.
+     */
+    PARALLEL
+  }
+  
+  /**
+   * Ranges of at most this many terms are summed with {@link Reduction#UNROLLED} at the
+   * bottom of a pairwise sum.
+   */
+  private static final int PAIRWISE_BLOCK_SIZE = 128;
+  
+  /**
+   * The number of terms in each block of a {@link Reduction#PARALLEL} sum.
+   */
+  private static final int PARALLEL_BLOCK_SIZE = 1 << 14;
+  
+  /**
+   * Sums of squares smaller than this may have lost precision to underflow.
+   */
+  private static final double SSQ_MIN = 0x1.0p-900;
+  
+  /**
+   * Sums of squares larger than this may have overflowed.
+   */
+  private static final double SSQ_MAX = 0x1.0p1000;
+  
   private Vec() {
   }
   
@@ -21,15 +93,236 @@ public class Vec {
   public static Vector add(Vector v1, Vector v2, Vector vSum) {
     int dim = v1.dimension();
     assert (dim == v2.dimension()) && (dim == vSum.dimension());
+    if (OpCounters.ENABLED) {
+      OpCounters.count(dim, 2L * dim, dim);
+    }
+    double[] a1 = v1.getArray();
+    double[] a2 = v2.getArray();
+    double[] aSum = vSum.getArray();
+    if ((a1 != null) && (a2 != null) && (aSum != null)) {
+      int pos1 = v1.getOffset();
+      int pos2 = v2.getOffset();
+      int posSum = vSum.getOffset();
+      int stride1 = v1.getStride();
+      int stride2 = v2.getStride();
+      int strideSum = vSum.getStride();
+      for (int i = 0; i < dim; i++ ) {
+        aSum[posSum] = a1[pos1] + a2[pos2];
+        pos1 += stride1;
+        pos2 += stride2;
+        posSum += strideSum;
+      }
+      return vSum;
+    }
     for (int i = 0; i < dim; i++ ) {
       vSum.set(i, v1.get(i) + v2.get(i));
     }
     return vSum;
   }
   
+  /**
+   * Returns the sum of the absolute values of the elements of the specified {@link Vector}.
+   * 
+   * @param vec the {@link Vector}
+   * @return the sum of the absolute values of the elements of the specified {@link Vector}.
+   */
+  public static double asum(Vector vec) {
+    int dim = vec.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(dim, dim, 0);
+    }
+    double sum = 0.0;
+    double[] values = vec.getArray();
+    if (values != null) {
+      int pos = vec.getOffset();
+      int stride = vec.getStride();
+      for (int i = 0; i < dim; i++ ) {
+        sum += Math.abs(values[pos]);
+        pos += stride;
+      }
+      return sum;
+    }
+    for (int i = 0; i < dim; i++ ) {
+      sum += Math.abs(vec.get(i));
+    }
+    return sum;
+  }
+  
+  /**
+   * Returns the sum of the absolute values of the elements of the specified {@link Vector},
+   * summed as specified by the {@link Reduction}.
+   * 
+   * @param vec the {@link Vector}
+   * @param reduction the way the sum is computed
+   * @return the sum of the absolute values of the elements of the specified {@link Vector}.
+   */
+  public static double asum(Vector vec, Reduction reduction) {
+    if (OpCounters.ENABLED) {
+      OpCounters.count(vec.dimension(), vec.dimension(), 0);
+    }
+    return reduce(reductionValues(vec), null, vec.dimension(), reduction);
+  }
+  
+  /**
+   * Computes <code>y = alpha * x + beta * y</code> in one pass.
+   * 
+   * @param alpha the multiplier for x
+   * @param x the {@link Vector} x
+   * @param beta the multiplier for y
+   * @param y the {@link Vector} y, which is updated
+   * @return y after it has been updated.
+   */
+  public static Vector axpby(double alpha, Vector x, double beta, Vector y) {
+    int dim = x.dimension();
+    assert dim == y.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(3L * dim, 2L * dim, dim);
+    }
+    double[] xValues = x.getArray();
+    double[] yValues = y.getArray();
+    if ((xValues != null) && (yValues != null)) {
+      int xPos = x.getOffset();
+      int yPos = y.getOffset();
+      int xStride = x.getStride();
+      int yStride = y.getStride();
+      if ((xStride == 1) && (yStride == 1)) {
+        for (int i = 0; i < dim; i++ ) {
+          yValues[yPos + i] = (alpha * xValues[xPos + i]) + (beta * yValues[yPos + i]);
+        }
+        return y;
+      }
+      for (int i = 0; i < dim; i++ ) {
+        yValues[yPos] = (alpha * xValues[xPos]) + (beta * yValues[yPos]);
+        xPos += xStride;
+        yPos += yStride;
+      }
+      return y;
+    }
+    for (int i = 0; i < dim; i++ ) {
+      y.set(i, (alpha * x.get(i)) + (beta * y.get(i)));
+    }
+    return y;
+  }
+  
+  /**
+   * Computes <code>y = alpha * x + y</code>.
+   * 
+   * @param alpha the multiplier for x
+   * @param x the {@link Vector} x
+   * @param y the {@link Vector} y, which is updated
+   * @return y after it has been updated.
+   */
+  public static Vector axpy(double alpha, Vector x, Vector y) {
+    int dim = x.dimension();
+    assert dim == y.dimension();
+    if (alpha == 0.0)
+      return y; // there is nothing to do
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * dim, 2L * dim, dim);
+    }
+    double[] xValues = x.getArray();
+    double[] yValues = y.getArray();
+    if ((xValues != null) && (yValues != null)) {
+      int xPos = x.getOffset();
+      int yPos = y.getOffset();
+      int xStride = x.getStride();
+      int yStride = y.getStride();
+      if ((xStride == 1) && (yStride == 1)) {
+        for (int i = 0; i < dim; i++ ) {
+          yValues[yPos + i] += alpha * xValues[xPos + i];
+        }
+        return y;
+      }
+      for (int i = 0; i < dim; i++ ) {
+        yValues[yPos] += alpha * xValues[xPos];
+        xPos += xStride;
+        yPos += yStride;
+      }
+      return y;
+    }
+    for (int i = 0; i < dim; i++ ) {
+      y.set(i, y.get(i) + (alpha * x.get(i)));
+    }
+    return y;
+  }
+  
+  /**
+   * Computes <code>y = alpha * x + y</code> and returns the dot product of the updated
+   * <code>y</code> with <code>z</code>, in one pass. This is the residual update of the
+   * conjugate gradient method, where <code>z</code> is <code>y</code> itself.
+   * 
+   * @param alpha the multiplier for x
+   * @param x the {@link Vector} x
+   * @param y the {@link Vector} y, which is updated
+   * @param z the {@link Vector} the updated y is dotted with, this may be y.
+   * @return the dot product of the updated y with z.
+   */
+  public static double axpyDot(double alpha, Vector x, Vector y, Vector z) {
+    int dim = x.dimension();
+    assert (dim == y.dimension()) && (dim == z.dimension());
+    if (OpCounters.ENABLED) {
+      OpCounters.count(4L * dim, 3L * dim, dim);
+    }
+    double dp = 0.0;
+    double[] xValues = x.getArray();
+    double[] yValues = y.getArray();
+    double[] zValues = z.getArray();
+    if ((xValues != null) && (yValues != null) && (zValues != null)) {
+      int xPos = x.getOffset();
+      int yPos = y.getOffset();
+      int zPos = z.getOffset();
+      int xStride = x.getStride();
+      int yStride = y.getStride();
+      int zStride = z.getStride();
+      for (int i = 0; i < dim; i++ ) {
+        double yValue = yValues[yPos] + (alpha * xValues[xPos]);
+        yValues[yPos] = yValue;
+        dp += yValue * zValues[zPos];
+        xPos += xStride;
+        yPos += yStride;
+        zPos += zStride;
+      }
+      return dp;
+    }
+    for (int i = 0; i < dim; i++ ) {
+      double yValue = y.get(i) + (alpha * x.get(i));
+      y.set(i, yValue);
+      dp += yValue * z.get(i);
+    }
+    return dp;
+  }
+  
   public static CVec copy(Vector vec) {
+    return copy(vec, new CVec(vec.dimension()));
+  }
+  
+  /**
+   * Copies the elements of the specified {@link Vector} into the specified {@link CVec} of the
+   * same dimension, such as one handed out by a {@link Workspace}.
+   * 
+   * @param vec the {@link Vector} to be copied
+   * @param copyVec the {@link CVec} to copy into
+   * @return <code>copyVec</code>.
+   */
+  static CVec copy(Vector vec, CVec copyVec) {
     int len = vec.dimension();
-    CVec copyVec = new CVec(len);
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, len, len);
+    }
+    double[] values = vec.getArray();
+    if (values != null) {
+      int pos = vec.getOffset();
+      int stride = vec.getStride();
+      if (stride == 1) {
+        System.arraycopy(values, pos, copyVec.values, 0, len);
+        return copyVec;
+      }
+      for (int i = 0; i < len; i++ ) {
+        copyVec.values[i] = values[pos];
+        pos += stride;
+      }
+      return copyVec;
+    }
     for (int i = 0; i < len; i++ ) {
       copyVec.set(i, vec.get(i));
     }
@@ -45,13 +338,116 @@ public class Vec {
    */
   public static double dotProduct(Vector v1, Vector v2) {
     assert v1.dimension() == v2.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * v1.dimension(), 2L * v1.dimension(), 0);
+    }
+    int dim = v1.dimension();
     double dp = 0.0;
-    for (int i = 0; i < v1.dimension(); i++ ) {
+    double[] a1 = v1.getArray();
+    double[] a2 = v2.getArray();
+    if ((a1 != null) && (a2 != null)) {
+      int pos1 = v1.getOffset();
+      int pos2 = v2.getOffset();
+      int stride1 = v1.getStride();
+      int stride2 = v2.getStride();
+      for (int i = 0; i < dim; i++ ) {
+        dp += a1[pos1] * a2[pos2];
+        pos1 += stride1;
+        pos2 += stride2;
+      }
+      return dp;
+    }
+    for (int i = 0; i < dim; i++ ) {
       dp += v1.get(i) * v2.get(i);
     }
     return dp;
   }
   
+  /**
+   * Returns the dot product of the two specified {@link Vector}s, summed as specified by the
+   * {@link Reduction}. A {@link Vector} whose elements are contiguous from the start of its
+   * {@link Vector#getArray()} is summed directly from it, others are copied first.
+   * 
+   * @param v1 {@link Vector} 1
+   * @param v2 {@link Vector} 2
+   * @param reduction the way the sum is computed
+   * @return the dot product of the two specified {@link Vector}s.
+   */
+  public static double dotProduct(Vector v1, Vector v2, Reduction reduction) {
+    assert v1.dimension() == v2.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * v1.dimension(), 2L * v1.dimension(), 0);
+    }
+    double[] x = reductionValues(v1);
+    double[] y = (v2 == v1) ? x : reductionValues(v2);
+    return reduce(x, y, v1.dimension(), reduction);
+  }
+  
+  /**
+   * Returns the dot product of the two specified {@link FVec}s, with the products and the sum
+   * computed in <code>double</code>, as the BLAS <code>dsdot</code> does.
+   * 
+   * @param x {@link FVec} x
+   * @param y {@link FVec} y
+   * @return the dot product of the two specified {@link FVec}s.
+   */
+  public static double dsdot(FVec x, FVec y) {
+    int dim = x.dimension();
+    assert dim == y.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * dim, 2L * dim, 0);
+    }
+    float[] xValues = x.values;
+    float[] yValues = y.values;
+    double dp = 0.0;
+    for (int i = 0; i < dim; i++ ) {
+      dp += (double) xValues[i] * yValues[i];
+    }
+    return dp;
+  }
+  
+  /**
+   * Returns the index of the first element of the specified {@link Vector} with the largest
+   * absolute value, or -1 if the {@link Vector} has no elements.
+   * 
+   * @param vec the {@link Vector}
+   * @return the index of the first element of the specified {@link Vector} with the largest
+   *         absolute value, or -1 if the {@link Vector} has no elements.
+   */
+  public static int iamax(Vector vec) {
+    int dim = vec.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, dim, 0);
+    }
+    if (dim == 0)
+      return -1;
+    int maxIndex = 0;
+    double[] values = vec.getArray();
+    if (values != null) {
+      int pos = vec.getOffset();
+      int stride = vec.getStride();
+      double maxValue = Math.abs(values[pos]);
+      for (int i = 1; i < dim; i++ ) {
+        pos += stride;
+        double nextVal = Math.abs(values[pos]);
+        if (nextVal > maxValue) {
+          maxValue = nextVal;
+          maxIndex = i;
+        }
+      }
+      return maxIndex;
+    }
+    double maxValue = Math.abs(vec.get(0));
+    for (int i = 1; i < dim; i++ ) {
+      double nextVal = Math.abs(vec.get(i));
+      if (nextVal > maxValue) {
+        maxValue = nextVal;
+        maxIndex = i;
+      }
+    }
+    return maxIndex;
+  }
+  
   /**
    * Multiples each of the elements in the target {@link Vector} by the specified factor and
    * puts the results in the result {@link Vector} which may be the same at the target
@@ -65,9 +461,421 @@ public class Vec {
   public static Vector mult(double factor, Vector targetV, Vector resultV) {
     int dim = targetV.dimension();
     assert dim == resultV.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(dim, dim, dim);
+    }
+    double[] targetValues = targetV.getArray();
+    double[] resultValues = resultV.getArray();
+    if ((targetValues != null) && (resultValues != null)) {
+      int targetPos = targetV.getOffset();
+      int resultPos = resultV.getOffset();
+      int targetStride = targetV.getStride();
+      int resultStride = resultV.getStride();
+      for (int i = 0; i < dim; i++ ) {
+        resultValues[resultPos] = factor * targetValues[targetPos];
+        targetPos += targetStride;
+        resultPos += resultStride;
+      }
+      return resultV;
+    }
     for (int i = 0; i < dim; i++ ) {
       resultV.set(i, factor * targetV.get(i));
     }
     return resultV;
   }
+  
+  /**
+   * Returns the Euclidean norm of the specified {@link Vector}. The sum of the squares is
+   * first computed directly, and only if that overflows or underflows is it recomputed with
+   * every element scaled by the largest absolute value, so the result is accurate for any
+   * {@link Vector} whose norm can be represented.
+   * 
+   * @param vec the {@link Vector}
+   * @return the Euclidean norm of the specified {@link Vector}.
+   */
+  public static double nrm2(Vector vec) {
+    int dim = vec.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * dim, dim, 0);
+    }
+    double ssq = 0.0;
+    double[] values = vec.getArray();
+    if (values != null) {
+      int pos = vec.getOffset();
+      int stride = vec.getStride();
+      for (int i = 0; i < dim; i++ ) {
+        ssq += values[pos] * values[pos];
+        pos += stride;
+      }
+    } else {
+      for (int i = 0; i < dim; i++ ) {
+        double value = vec.get(i);
+        ssq += value * value;
+      }
+    }
+    if ((ssq >= SSQ_MIN) && (ssq <= SSQ_MAX))
+      return Math.sqrt(ssq);
+    if (Double.isNaN(ssq))
+      return ssq;
+    /*
+     * Some squares overflowed or underflowed so scale by the largest value.
+     */
+    int maxIndex = iamax(vec);
+    if (maxIndex == -1)
+      return 0.0;
+    double scale = Math.abs(vec.get(maxIndex));
+    if ((scale == 0.0) || Double.isInfinite(scale))
+      return scale;
+    double invScale = 1.0 / scale;
+    ssq = 0.0;
+    for (int i = 0; i < dim; i++ ) {
+      double value = vec.get(i) * invScale;
+      ssq += value * value;
+    }
+    return scale * Math.sqrt(ssq);
+  }
+  
+  /**
+   * Returns the Euclidean norm of the specified {@link Vector} with the sum of squares
+   * computed as specified by the {@link Reduction}. If the sum of squares overflows or
+   * underflows the norm is recomputed as by {@link #nrm2(Vector)}.
+   * 
+   * @param vec the {@link Vector}
+   * @param reduction the way the sum of squares is computed
+   * @return the Euclidean norm of the specified {@link Vector}.
+   */
+  public static double nrm2(Vector vec, Reduction reduction) {
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * vec.dimension(), vec.dimension(), 0);
+    }
+    double[] x = reductionValues(vec);
+    double ssq = reduce(x, x, vec.dimension(), reduction);
+    if ((ssq >= SSQ_MIN) && (ssq <= SSQ_MAX))
+      return Math.sqrt(ssq);
+    return nrm2(vec);
+  }
+  
+  /**
+   * Returns the sum of <code>x[i] * y[i]</code>, or of <code>abs(x[i])</code> if
+   * <code>y</code> is null, for <code>i</code> in <code>[0, len)</code> computed as specified
+   * by the {@link Reduction}.
+   */
+  private static double reduce(double[] x, double[] y, int len, Reduction reduction) {
+    switch (reduction) {
+      case SERIAL:
+        return reduceSerial(x, y, 0, len);
+      case UNROLLED:
+        return reduceUnrolled(x, y, 0, len);
+      case PAIRWISE:
+        return reducePairwise(x, y, 0, len);
+      case COMPENSATED:
+        return reduceCompensated(x, y, 0, len);
+      case PARALLEL:
+        return reduceParallel(x, y, len);
+      default:
+        throw new RuntimeException("Unknown reduction " + reduction);
+    }
+  }
+  
+  /**
+   * Neumaier's compensated summation of the terms in <code>[start, end)</code>.
+   */
+  private static double reduceCompensated(double[] x, double[] y, int start, int end) {
+    double sum = 0.0;
+    double compensation = 0.0;
+    for (int i = start; i < end; i++ ) {
+      double term = (y == null) ? Math.abs(x[i]) : x[i] * y[i];
+      double newSum = sum + term;
+      if (Math.abs(sum) >= Math.abs(term)) {
+        compensation += (sum - newSum) + term;
+      } else {
+        compensation += (term - newSum) + sum;
+      }
+      sum = newSum;
+    }
+    return sum + compensation;
+  }
+  
+  /**
+   * Pairwise sum of the terms in <code>[start, end)</code>.
+   */
+  private static double reducePairwise(double[] x, double[] y, int start, int end) {
+    if (end - start <= PAIRWISE_BLOCK_SIZE)
+      return reduceUnrolled(x, y, start, end);
+    int mid = start + ((end - start) / 2);
+    return reducePairwise(x, y, start, mid) + reducePairwise(x, y, mid, end);
+  }
+  
+  /**
+   * Sums the terms in blocks of {@link #PARALLEL_BLOCK_SIZE} in parallel and then adds the
+   * block sums pairwise.
+   */
+  private static double reduceParallel(double[] x, double[] y, int len) {
+    int numBlocks = (len + PARALLEL_BLOCK_SIZE - 1) / PARALLEL_BLOCK_SIZE;
+    if (numBlocks <= 1)
+      return reducePairwise(x, y, 0, len);
+    double[] blockSums = new double[numBlocks];
+    IntStream.range(0, numBlocks).parallel().forEach(block -> {
+      int start = block * PARALLEL_BLOCK_SIZE;
+      blockSums[block] = reducePairwise(x, y, start, Math.min(start + PARALLEL_BLOCK_SIZE, len));
+    });
+    return reducePairwise(blockSums, null, 0, numBlocks);
+  }
+  
+  /**
+   * Left to right sum of the terms in <code>[start, end)</code>.
+   */
+  private static double reduceSerial(double[] x, double[] y, int start, int end) {
+    double sum = 0.0;
+    if (y == null) {
+      for (int i = start; i < end; i++ ) {
+        sum += Math.abs(x[i]);
+      }
+    } else {
+      for (int i = start; i < end; i++ ) {
+        sum += x[i] * y[i];
+      }
+    }
+    return sum;
+  }
+  
+  /**
+   * Sum of the terms in <code>[start, end)</code> with four accumulators.
+   */
+  private static double reduceUnrolled(double[] x, double[] y, int start, int end) {
+    double sum0 = 0.0;
+    double sum1 = 0.0;
+    double sum2 = 0.0;
+    double sum3 = 0.0;
+    int i = start;
+    if (y == null) {
+      for (; i + 3 < end; i += 4) {
+        sum0 += Math.abs(x[i]);
+        sum1 += Math.abs(x[i + 1]);
+        sum2 += Math.abs(x[i + 2]);
+        sum3 += Math.abs(x[i + 3]);
+      }
+      for (; i < end; i++ ) {
+        sum0 += Math.abs(x[i]);
+      }
+    } else {
+      for (; i + 3 < end; i += 4) {
+        sum0 += x[i] * y[i];
+        sum1 += x[i + 1] * y[i + 1];
+        sum2 += x[i + 2] * y[i + 2];
+        sum3 += x[i + 3] * y[i + 3];
+      }
+      for (; i < end; i++ ) {
+        sum0 += x[i] * y[i];
+      }
+    }
+    return (sum0 + sum1) + (sum2 + sum3);
+  }
+  
+  /**
+   * Returns the backing array of the specified {@link Vector} if its elements are contiguous
+   * from the start of it, otherwise an array copy of its elements.
+   */
+  private static double[] reductionValues(Vector vec) {
+    double[] values = vec.getArray();
+    if ((values != null) && (vec.getOffset() == 0) && (vec.getStride() == 1))
+      return values;
+    return copy(vec).values;
+  }
+  
+  /**
+   * Applies the plane rotation defined by <code>c</code> and <code>s</code> to the pairs
+   * <code>(x[i], y[i])</code>, that is <code>x[i] = c * x[i] + s * y[i]</code> and
+   * <code>y[i] = c * y[i] - s * x[i]</code>.
+   * 
+   * @param x the {@link Vector} x, which is updated
+   * @param y the {@link Vector} y, which is updated
+   * @param c the cosine of the rotation
+   * @param s the sine of the rotation
+   */
+  public static void rot(Vector x, Vector y, double c, double s) {
+    int dim = x.dimension();
+    assert dim == y.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(6L * dim, 2L * dim, 2L * dim);
+    }
+    double[] xValues = x.getArray();
+    double[] yValues = y.getArray();
+    if ((xValues != null) && (yValues != null)) {
+      int xPos = x.getOffset();
+      int yPos = y.getOffset();
+      int xStride = x.getStride();
+      int yStride = y.getStride();
+      if ((xStride == 1) && (yStride == 1)) {
+        for (int i = 0; i < dim; i++ ) {
+          double xValue = xValues[xPos + i];
+          double yValue = yValues[yPos + i];
+          xValues[xPos + i] = (c * xValue) + (s * yValue);
+          yValues[yPos + i] = (c * yValue) - (s * xValue);
+        }
+        return;
+      }
+      for (int i = 0; i < dim; i++ ) {
+        double xValue = xValues[xPos];
+        double yValue = yValues[yPos];
+        xValues[xPos] = (c * xValue) + (s * yValue);
+        yValues[yPos] = (c * yValue) - (s * xValue);
+        xPos += xStride;
+        yPos += yStride;
+      }
+      return;
+    }
+    for (int i = 0; i < dim; i++ ) {
+      double xValue = x.get(i);
+      double yValue = y.get(i);
+      x.set(i, (c * xValue) + (s * yValue));
+      y.set(i, (c * yValue) - (s * xValue));
+    }
+  }
+  
+  /**
+   * Returns the plane rotation that zeros out <code>b</code>, as an array holding
+   * <code>{c, s, r}</code> where <code>c * a + s * b = r</code> and
+   * <code>c * b - s * a = 0</code>. The rotation can be applied with
+   * {@link #rot(Vector, Vector, double, double)}.
+   * 
+   * @param a the value to rotate on to
+   * @param b the value to be zeroed out
+   * @return the array <code>{c, s, r}</code>.
+   */
+  public static double[] rotg(double a, double b) {
+    if (b == 0.0)
+      return new double[] { 1.0, 0.0, a };
+    if (a == 0.0)
+      return new double[] { 0.0, 1.0, b };
+    double r = Math.hypot(a, b);
+    if (Math.abs(a) > Math.abs(b) ? a < 0.0 : b < 0.0) {
+      r = -r; // keep the sign of the larger value, or of b on a tie, as the reference BLAS does
+    }
+    return new double[] { a / r, b / r, r };
+  }
+  
+  /**
+   * Computes <code>y = alpha * x + y</code> in <code>float</code>.
+   * 
+   * @param alpha the multiplier for x
+   * @param x the {@link FVec} x
+   * @param y the {@link FVec} y, which is updated
+   * @return y after it has been updated.
+   */
+  public static FVec saxpy(float alpha, FVec x, FVec y) {
+    int dim = x.dimension();
+    assert dim == y.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * dim, 2L * dim, dim);
+    }
+    float[] xValues = x.values;
+    float[] yValues = y.values;
+    for (int i = 0; i < dim; i++ ) {
+      yValues[i] += alpha * xValues[i];
+    }
+    return y;
+  }
+  
+  /**
+   * Multiplies each element of the specified {@link Vector} by the specified factor in
+   * place.
+   * 
+   * @param alpha the multiplication factor
+   * @param x the {@link Vector}, which is updated
+   * @return x after it has been updated.
+   */
+  public static Vector scal(double alpha, Vector x) {
+    int dim = x.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(dim, dim, dim);
+    }
+    double[] values = x.getArray();
+    if (values != null) {
+      int pos = x.getOffset();
+      int stride = x.getStride();
+      if (stride == 1) {
+        for (int i = 0; i < dim; i++ ) {
+          values[pos + i] *= alpha;
+        }
+        return x;
+      }
+      for (int i = 0; i < dim; i++ ) {
+        values[pos] *= alpha;
+        pos += stride;
+      }
+      return x;
+    }
+    for (int i = 0; i < dim; i++ ) {
+      x.set(i, alpha * x.get(i));
+    }
+    return x;
+  }
+  
+  /**
+   * Returns the dot product of the two specified {@link FVec}s computed in
+   * <code>float</code>, as the BLAS <code>sdot</code> does. This is the fastest way but the
+   * rounding error grows much faster than with {@link #dsdot(FVec, FVec)}.
+   * 
+   * @param x {@link FVec} x
+   * @param y {@link FVec} y
+   * @return the dot product of the two specified {@link FVec}s.
+   */
+  public static float sdot(FVec x, FVec y) {
+    int dim = x.dimension();
+    assert dim == y.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(2L * dim, 2L * dim, 0);
+    }
+    float[] xValues = x.values;
+    float[] yValues = y.values;
+    float dp = 0.0f;
+    for (int i = 0; i < dim; i++ ) {
+      dp += xValues[i] * yValues[i];
+    }
+    return dp;
+  }
+  
+  /**
+   * Swaps the contents of the two specified {@link Vector}s.
+   * 
+   * @param x the first {@link Vector}
+   * @param y the second {@link Vector}
+   */
+  public static void swap(Vector x, Vector y) {
+    int dim = x.dimension();
+    assert dim == y.dimension();
+    if (OpCounters.ENABLED) {
+      OpCounters.count(0, 2L * dim, 2L * dim);
+    }
+    double[] xValues = x.getArray();
+    double[] yValues = y.getArray();
+    if ((xValues != null) && (yValues != null)) {
+      int xPos = x.getOffset();
+      int yPos = y.getOffset();
+      int xStride = x.getStride();
+      int yStride = y.getStride();
+      if ((xStride == 1) && (yStride == 1)) {
+        for (int i = 0; i < dim; i++ ) {
+          double temp = xValues[xPos + i];
+          xValues[xPos + i] = yValues[yPos + i];
+          yValues[yPos + i] = temp;
+        }
+        return;
+      }
+      for (int i = 0; i < dim; i++ ) {
+        double temp = xValues[xPos];
+        xValues[xPos] = yValues[yPos];
+        yValues[yPos] = temp;
+        xPos += xStride;
+        yPos += yStride;
+      }
+      return;
+    }
+    for (int i = 0; i < dim; i++ ) {
+      double temp = x.get(i);
+      x.set(i, y.get(i));
+      y.set(i, temp);
+    }
+  }
 }
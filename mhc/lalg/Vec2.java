@@ -0,0 +1,161 @@
+package mhc.lalg;
+
+/**
+ * An immutable 2 element vector held in final fields rather than an array. The operations
+ * are written out element by element with no loops, array accesses or virtual calls, and every
+ * result is a new {@link Vec2}, so a temporary that does not escape can be scalar replaced by
+ * the JIT and never allocated. Use {@link #of(Vector)} and {@link #toCVec()} to convert to and
+ * from the general {@link Vector}s.
+ */
+public final class Vec2 {
+  
+  /**
+   * The zero vector.
+   */
+  public static final Vec2 ZERO = new Vec2(0.0, 0.0);
+  
+  public final double x;
+  
+  public final double y;
+  
+  /**
+   * Creates a {@link Vec2} with the specified elements.
+   * 
+   * @param x element 0
+   * @param y element 1
+   */
+  public Vec2(double x, double y) {
+    this.x = x;
+    this.y = y;
+  }
+  
+  /**
+   * Returns a new {@link Vec2} holding the elements of the specified {@link Vector}, which
+   * must have dimension 2.
+   * 
+   * @param vec the {@link Vector}
+   * @return a new {@link Vec2} holding the elements of the specified {@link Vector}.
+   */
+  public static Vec2 of(Vector vec) {
+    assert vec.dimension() == 2;
+    return new Vec2(vec.get(0), vec.get(1));
+  }
+  
+  /**
+   * Returns the dimension of this {@link Vec2}, which is always 2.
+   * 
+   * @return 2
+   */
+  public int dimension() {
+    return 2;
+  }
+  
+  /**
+   * Returns the dot product of this {@link Vec2} and the specified {@link Vec2}.
+   * 
+   * @param o the other {@link Vec2}
+   * @return the dot product of this {@link Vec2} and the specified {@link Vec2}.
+   */
+  public double dot(Vec2 o) {
+    return (x * o.x) + (y * o.y);
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof Vec2 o) && (Double.compare(x, o.x) == 0)
+            && (Double.compare(y, o.y) == 0);
+  }
+  
+  /**
+   * Returns the indicated element of this {@link Vec2}.
+   * 
+   * @param index the index of the element
+   * @return the indicated element of this {@link Vec2}.
+   */
+  public double get(int index) {
+    switch (index) {
+      case 0:
+        return x;
+      case 1:
+        return y;
+      default:
+        throw new RuntimeException("Index out of range: " + index);
+    }
+  }
+  
+  @Override
+  public int hashCode() {
+    int hash = Double.hashCode(x);
+    hash = (31 * hash) + Double.hashCode(y);
+    return hash;
+  }
+  
+  /**
+   * Returns the Euclidean length of this {@link Vec2}.
+   * 
+   * @return the Euclidean length of this {@link Vec2}.
+   */
+  public double length() {
+    return Math.sqrt(dot(this));
+  }
+  
+  /**
+   * Returns the difference of this {@link Vec2} and the specified {@link Vec2}.
+   * 
+   * @param o the {@link Vec2} to subtract
+   * @return the difference of this {@link Vec2} and the specified {@link Vec2}.
+   */
+  public Vec2 minus(Vec2 o) {
+    return new Vec2(x - o.x, y - o.y);
+  }
+  
+  /**
+   * Returns a {@link Vec2} with the same direction as this one and length 1. It is an error
+   * if this {@link Vec2} is zero.
+   * 
+   * @return a {@link Vec2} with the same direction as this one and length 1.
+   */
+  public Vec2 normalize() {
+    double len = length();
+    if (len == 0.0)
+      throw new RuntimeException("A zero vector can not be normalized");
+    return times(1.0 / len);
+  }
+  
+  /**
+   * Returns the sum of this {@link Vec2} and the specified {@link Vec2}.
+   * 
+   * @param o the {@link Vec2} to add
+   * @return the sum of this {@link Vec2} and the specified {@link Vec2}.
+   */
+  public Vec2 plus(Vec2 o) {
+    return new Vec2(x + o.x, y + o.y);
+  }
+  
+  /**
+   * Returns this {@link Vec2} multiplied by the specified factor.
+   * 
+   * @param factor the scale factor
+   * @return this {@link Vec2} multiplied by the specified factor.
+   */
+  public Vec2 times(double factor) {
+    return new Vec2(factor * x, factor * y);
+  }
+  
+  /**
+   * Returns a new {@link CVec} holding the elements of this {@link Vec2}.
+   * 
+   * @return a new {@link CVec} holding the elements of this {@link Vec2}.
+   */
+  public CVec toCVec() {
+    CVec vec = new CVec(2);
+    vec.values[0] = x;
+    vec.values[1] = y;
+    return vec;
+  }
+  
+  @Override
+  public String toString() {
+    return "<%f, %f>".formatted(x, y);
+  }
+}
@@ -0,0 +1,179 @@
+package mhc.lalg;
+
+/**
+ * An immutable 3 element vector held in final fields rather than an array. The operations
+ * are written out element by element with no loops, array accesses or virtual calls, and every
+ * result is a new {@link Vec3}, so a temporary that does not escape can be scalar replaced by
+ * the JIT and never allocated. Use {@link #of(Vector)} and {@link #toCVec()} to convert to and
+ * from the general {@link Vector}s.
+ */
+public final class Vec3 {
+  
+  /**
+   * The zero vector.
+   */
+  public static final Vec3 ZERO = new Vec3(0.0, 0.0, 0.0);
+  
+  public final double x;
+  
+  public final double y;
+  
+  public final double z;
+  
+  /**
+   * Creates a {@link Vec3} with the specified elements.
+   * 
+   * @param x element 0
+   * @param y element 1
+   * @param z element 2
+   */
+  public Vec3(double x, double y, double z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+  }
+  
+  /**
+   * Returns a new {@link Vec3} holding the elements of the specified {@link Vector}, which
+   * must have dimension 3.
+   * 
+   * @param vec the {@link Vector}
+   * @return a new {@link Vec3} holding the elements of the specified {@link Vector}.
+   */
+  public static Vec3 of(Vector vec) {
+    assert vec.dimension() == 3;
+    return new Vec3(vec.get(0), vec.get(1), vec.get(2));
+  }
+  
+  /**
+   * Returns the cross product of this {@link Vec3} and the specified {@link Vec3}.
+   * 
+   * @param o the right hand side of the product
+   * @return the cross product of this {@link Vec3} and the specified {@link Vec3}.
+   */
+  public Vec3 cross(Vec3 o) {
+    return new Vec3((y * o.z) - (z * o.y), (z * o.x) - (x * o.z), (x * o.y) - (y * o.x));
+  }
+  
+  /**
+   * Returns the dimension of this {@link Vec3}, which is always 3.
+   * 
+   * @return 3
+   */
+  public int dimension() {
+    return 3;
+  }
+  
+  /**
+   * Returns the dot product of this {@link Vec3} and the specified {@link Vec3}.
+   * 
+   * @param o the other {@link Vec3}
+   * @return the dot product of this {@link Vec3} and the specified {@link Vec3}.
+   */
+  public double dot(Vec3 o) {
+    return (x * o.x) + (y * o.y) + (z * o.z);
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof Vec3 o) && (Double.compare(x, o.x) == 0) && (Double.compare(y, o.y) == 0)
+            && (Double.compare(z, o.z) == 0);
+  }
+  
+  /**
+   * Returns the indicated element of this {@link Vec3}.
+   * 
+   * @param index the index of the element
+   * @return the indicated element of this {@link Vec3}.
+   */
+  public double get(int index) {
+    switch (index) {
+      case 0:
+        return x;
+      case 1:
+        return y;
+      case 2:
+        return z;
+      default:
+        throw new RuntimeException("Index out of range: " + index);
+    }
+  }
+  
+  @Override
+  public int hashCode() {
+    int hash = Double.hashCode(x);
+    hash = (31 * hash) + Double.hashCode(y);
+    hash = (31 * hash) + Double.hashCode(z);
+    return hash;
+  }
+  
+  /**
+   * Returns the Euclidean length of this {@link Vec3}.
+   * 
+   * @return the Euclidean length of this {@link Vec3}.
+   */
+  public double length() {
+    return Math.sqrt(dot(this));
+  }
+  
+  /**
+   * Returns the difference of this {@link Vec3} and the specified {@link Vec3}.
+   * 
+   * @param o the {@link Vec3} to subtract
+   * @return the difference of this {@link Vec3} and the specified {@link Vec3}.
+   */
+  public Vec3 minus(Vec3 o) {
+    return new Vec3(x - o.x, y - o.y, z - o.z);
+  }
+  
+  /**
+   * Returns a {@link Vec3} with the same direction as this one and length 1. It is an error
+   * if this {@link Vec3} is zero.
+   * 
+   * @return a {@link Vec3} with the same direction as this one and length 1.
+   */
+  public Vec3 normalize() {
+    double len = length();
+    if (len == 0.0)
+      throw new RuntimeException("A zero vector can not be normalized");
+    return times(1.0 / len);
+  }
+  
+  /**
+   * Returns the sum of this {@link Vec3} and the specified {@link Vec3}.
+   * 
+   * @param o the {@link Vec3} to add
+   * @return the sum of this {@link Vec3} and the specified {@link Vec3}.
+   */
+  public Vec3 plus(Vec3 o) {
+    return new Vec3(x + o.x, y + o.y, z + o.z);
+  }
+  
+  /**
+   * Returns this {@link Vec3} multiplied by the specified factor.
+   * 
+   * @param factor the scale factor
+   * @return this {@link Vec3} multiplied by the specified factor.
+   */
+  public Vec3 times(double factor) {
+    return new Vec3(factor * x, factor * y, factor * z);
+  }
+  
+  /**
+   * Returns a new {@link CVec} holding the elements of this {@link Vec3}.
+   * 
+   * @return a new {@link CVec} holding the elements of this {@link Vec3}.
+   */
+  public CVec toCVec() {
+    CVec vec = new CVec(3);
+    vec.values[0] = x;
+    vec.values[1] = y;
+    vec.values[2] = z;
+    return vec;
+  }
+  
+  @Override
+  public String toString() {
+    return "<%f, %f, %f>".formatted(x, y, z);
+  }
+}
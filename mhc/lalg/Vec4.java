@@ -0,0 +1,177 @@
+package mhc.lalg;
+
+/**
+ * An immutable 4 element vector held in final fields rather than an array. The operations
+ * are written out element by element with no loops, array accesses or virtual calls, and every
+ * result is a new {@link Vec4}, so a temporary that does not escape can be scalar replaced by
+ * the JIT and never allocated. Use {@link #of(Vector)} and {@link #toCVec()} to convert to and
+ * from the general {@link Vector}s.
+ */
+public final class Vec4 {
+  
+  /**
+   * The zero vector.
+   */
+  public static final Vec4 ZERO = new Vec4(0.0, 0.0, 0.0, 0.0);
+  
+  public final double x;
+  
+  public final double y;
+  
+  public final double z;
+  
+  public final double w;
+  
+  /**
+   * Creates a {@link Vec4} with the specified elements.
+   * 
+   * @param x element 0
+   * @param y element 1
+   * @param z element 2
+   * @param w element 3
+   */
+  public Vec4(double x, double y, double z, double w) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    this.w = w;
+  }
+  
+  /**
+   * Returns a new {@link Vec4} holding the elements of the specified {@link Vector}, which
+   * must have dimension 4.
+   * 
+   * @param vec the {@link Vector}
+   * @return a new {@link Vec4} holding the elements of the specified {@link Vector}.
+   */
+  public static Vec4 of(Vector vec) {
+    assert vec.dimension() == 4;
+    return new Vec4(vec.get(0), vec.get(1), vec.get(2), vec.get(3));
+  }
+  
+  /**
+   * Returns the dimension of this {@link Vec4}, which is always 4.
+   * 
+   * @return 4
+   */
+  public int dimension() {
+    return 4;
+  }
+  
+  /**
+   * Returns the dot product of this {@link Vec4} and the specified {@link Vec4}.
+   * 
+   * @param o the other {@link Vec4}
+   * @return the dot product of this {@link Vec4} and the specified {@link Vec4}.
+   */
+  public double dot(Vec4 o) {
+    return (x * o.x) + (y * o.y) + (z * o.z) + (w * o.w);
+  }
+  
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof Vec4 o) && (Double.compare(x, o.x) == 0) && (Double.compare(y, o.y) == 0)
+            && (Double.compare(z, o.z) == 0) && (Double.compare(w, o.w) == 0);
+  }
+  
+  /**
+   * Returns the indicated element of this {@link Vec4}.
+   * 
+   * @param index the index of the element
+   * @return the indicated element of this {@link Vec4}.
+   */
+  public double get(int index) {
+    switch (index) {
+      case 0:
+        return x;
+      case 1:
+        return y;
+      case 2:
+        return z;
+      case 3:
+        return w;
+      default:
+        throw new RuntimeException("Index out of range: " + index);
+    }
+  }
+  
+  @Override
+  public int hashCode() {
+    int hash = Double.hashCode(x);
+    hash = (31 * hash) + Double.hashCode(y);
+    hash = (31 * hash) + Double.hashCode(z);
+    hash = (31 * hash) + Double.hashCode(w);
+    return hash;
+  }
+  
+  /**
+   * Returns the Euclidean length of this {@link Vec4}.
+   * 
+   * @return the Euclidean length of this {@link Vec4}.
+   */
+  public double length() {
+    return Math.sqrt(dot(this));
+  }
+  
+  /**
+   * Returns the difference of this {@link Vec4} and the specified {@link Vec4}.
+   * 
+   * @param o the {@link Vec4} to subtract
+   * @return the difference of this {@link Vec4} and the specified {@link Vec4}.
+   */
+  public Vec4 minus(Vec4 o) {
+    return new Vec4(x - o.x, y - o.y, z - o.z, w - o.w);
+  }
+  
+  /**
+   * Returns a {@link Vec4} with the same direction as this one and length 1. It is an error
+   * if this {@link Vec4} is zero.
+   * 
+   * @return a {@link Vec4} with the same direction as this one and length 1.
+   */
+  public Vec4 normalize() {
+    double len = length();
+    if (len == 0.0)
+      throw new RuntimeException("A zero vector can not be normalized");
+    return times(1.0 / len);
+  }
+  
+  /**
+   * Returns the sum of this {@link Vec4} and the specified {@link Vec4}.
+   * 
+   * @param o the {@link Vec4} to add
+   * @return the sum of this {@link Vec4} and the specified {@link Vec4}.
+   */
+  public Vec4 plus(Vec4 o) {
+    return new Vec4(x + o.x, y + o.y, z + o.z, w + o.w);
+  }
+  
+  /**
+   * Returns this {@link Vec4} multiplied by the specified factor.
+   * 
+   * @param factor the scale factor
+   * @return this {@link Vec4} multiplied by the specified factor.
+   */
+  public Vec4 times(double factor) {
+    return new Vec4(factor * x, factor * y, factor * z, factor * w);
+  }
+  
+  /**
+   * Returns a new {@link CVec} holding the elements of this {@link Vec4}.
+   * 
+   * @return a new {@link CVec} holding the elements of this {@link Vec4}.
+   */
+  public CVec toCVec() {
+    CVec vec = new CVec(4);
+    vec.values[0] = x;
+    vec.values[1] = y;
+    vec.values[2] = z;
+    vec.values[3] = w;
+    return vec;
+  }
+  
+  @Override
+  public String toString() {
+    return "<%f, %f, %f, %f>".formatted(x, y, z, w);
+  }
+}
@@ -0,0 +1,405 @@
+package mhc.lalg;
+
+import java.util.Arrays;
+
+/**
+ * A lazily evaluated expression that produces a {@link Vector}. An expression is built from
+ * {@link Vector}s, scale factors, sums and {@link Matrix} {@link Vector} products, and nothing
+ * is computed until {@link #assignTo(Vector)} is called. At that time the expression is
+ * flattened into a linear combination of terms and the whole combination is computed in one
+ * pass over the target {@link Vector}, without any temporary {@link Vector}s for the
+ * intermediate sums. For example:
+ * 
+ * <pre>
+ * VecExpr.mult(a, x).times(alpha).plus(VecExpr.of(y).times(beta)).assignTo(y);
+ * </pre>
+ * 
+ * computes <code>y = alpha * a * x + beta * y</code> in a single pass.
+ * <p>
+ * <b>Note:</b> A term may refer to the target {@link Vector} as each element of the target is
+ * only read before it is written. The {@link Vector} operand of a {@link Matrix} product is
+ * copied first if it is the target or is itself an expression.
+ */
+public abstract class VecExpr {
+  
+  /**
+   * The product of a {@link MatExpr} and a {@link VecExpr}.
+   */
+  static class MatVec extends VecExpr {
+    
+    private final MatExpr mat;
+    
+    private final VecExpr vec;
+    
+    MatVec(MatExpr mat, VecExpr vec) {
+      assert mat.getNumCols() == vec.dimension();
+      this.mat = mat;
+      this.vec = vec;
+    }
+    
+    @Override
+    void collect(double coef, Terms terms) {
+      mat.collectTimes(coef, vec, terms);
+    }
+    
+    @Override
+    public int dimension() {
+      return mat.getNumRows();
+    }
+  }
+  
+  /**
+   * A leaf of an expression that refers to a {@link Vector}.
+   */
+  static class Ref extends VecExpr {
+    
+    final Vector vec;
+    
+    Ref(Vector vec) {
+      this.vec = vec;
+    }
+    
+    @Override
+    void collect(double coef, Terms terms) {
+      terms.addVec(coef, vec);
+    }
+    
+    @Override
+    public int dimension() {
+      return vec.dimension();
+    }
+  }
+  
+  /**
+   * An expression multiplied by a scale factor.
+   */
+  static class Scaled extends VecExpr {
+    
+    private final double factor;
+    
+    private final VecExpr expr;
+    
+    Scaled(double factor, VecExpr expr) {
+      this.factor = factor;
+      this.expr = expr;
+    }
+    
+    @Override
+    void collect(double coef, Terms terms) {
+      expr.collect(coef * factor, terms);
+    }
+    
+    @Override
+    public int dimension() {
+      return expr.dimension();
+    }
+  }
+  
+  /**
+   * The sum of two expressions.
+   */
+  static class Sum extends VecExpr {
+    
+    private final VecExpr left;
+    
+    private final VecExpr right;
+    
+    Sum(VecExpr left, VecExpr right) {
+      assert left.dimension() == right.dimension();
+      this.left = left;
+      this.right = right;
+    }
+    
+    @Override
+    void collect(double coef, Terms terms) {
+      left.collect(coef, terms);
+      right.collect(coef, terms);
+    }
+    
+    @Override
+    public int dimension() {
+      return left.dimension();
+    }
+  }
+  
+  /**
+   * The flattened form of an expression: <code>sum(vecCoefs[k] * vecs[k])</code> plus
+   * <code>sum(matCoefs[k] * mats[k] * xs[k])</code>.
+   */
+  static class Terms {
+    
+    int numVecs = 0;
+    
+    double[] vecCoefs = new double[4];
+    
+    Vector[] vecs = new Vector[4];
+    
+    int numMats = 0;
+    
+    double[] matCoefs = new double[2];
+    
+    Matrix[] mats = new Matrix[2];
+    
+    VecExpr[] xs = new VecExpr[2];
+    
+    /**
+     * Adds the term <code>coef * mat * x</code>.
+     */
+    void addMatVec(double coef, Matrix mat, VecExpr x) {
+      if (numMats == mats.length) {
+        matCoefs = Arrays.copyOf(matCoefs, numMats * 2);
+        mats = Arrays.copyOf(mats, numMats * 2);
+        xs = Arrays.copyOf(xs, numMats * 2);
+      }
+      matCoefs[numMats] = coef;
+      mats[numMats] = mat;
+      xs[numMats] = x;
+      numMats++ ;
+    }
+    
+    /**
+     * Adds the term <code>coef * vec</code>, combining it with an earlier term for the same
+     * {@link Vector}.
+     */
+    void addVec(double coef, Vector vec) {
+      for (int k = 0; k < numVecs; k++ ) {
+        if (vecs[k] == vec) {
+          vecCoefs[k] += coef;
+          return;
+        }
+      }
+      if (numVecs == vecs.length) {
+        vecCoefs = Arrays.copyOf(vecCoefs, numVecs * 2);
+        vecs = Arrays.copyOf(vecs, numVecs * 2);
+      }
+      vecCoefs[numVecs] = coef;
+      vecs[numVecs] = vec;
+      numVecs++ ;
+    }
+  }
+  
+  /**
+   * Returns an expression for the product of the specified {@link Matrix} and {@link Vector}.
+   * 
+   * @param mat the {@link Matrix}
+   * @param vec the {@link Vector}
+   * @return an expression for the product of the specified {@link Matrix} and {@link Vector}.
+   */
+  public static VecExpr mult(Matrix mat, Vector vec) {
+    return new MatVec(MatExpr.of(mat), of(vec));
+  }
+  
+  /**
+   * Returns an expression that refers to the specified {@link Vector}. The {@link Vector} is
+   * not copied so changes to it before the expression is evaluated will be seen.
+   * 
+   * @param vec the {@link Vector}
+   * @return an expression that refers to the specified {@link Vector}.
+   */
+  public static VecExpr of(Vector vec) {
+    return new Ref(vec);
+  }
+  
+  /**
+   * Evaluates this expression and saves the result in the target {@link Vector}, which may be
+   * referred to by the expression. The whole expression is computed in one pass over the
+   * target. Updates of the target of the form <code>alpha * x + beta * target</code> are
+   * passed to {@link Vec#axpby(double, Vector, double, Vector)} and its relatives, and those
+   * of the form <code>alpha * a * x + beta * target</code> to
+   * {@link Mat#gemv(boolean, double, Matrix, Vector, double, Vector)}.
+   * 
+   * @param target the {@link Vector} that the result is saved in.
+   * @return the target {@link Vector} after it has been updated.
+   */
+  public Vector assignTo(Vector target) {
+    int dim = dimension();
+    assert dim == target.dimension();
+    Terms terms = new Terms();
+    collect(1.0, terms);
+    if (updateInPlace(terms, target))
+      return target;
+    Vector[] xVecs = new Vector[terms.numMats];
+    for (int k = 0; k < terms.numMats; k++ ) {
+      xVecs[k] = operand(terms.xs[k], target);
+    }
+    if ((terms.numMats > 0) && !(target instanceof CVec)) {
+      /*
+       * The target may be a view on one of the matrices, so don't write to it until all the
+       * rows have been used.
+       */
+      CVec result = new CVec(dim);
+      evaluate(terms, xVecs, result);
+      for (int i = 0; i < dim; i++ ) {
+        target.set(i, result.values[i]);
+      }
+      return target;
+    }
+    evaluate(terms, xVecs, target);
+    return target;
+  }
+  
+  /**
+   * Adds the terms of this expression, each multiplied by the specified coefficient, to the
+   * specified {@link Terms}.
+   */
+  abstract void collect(double coef, Terms terms);
+  
+  /**
+   * Returns the dimension of the {@link Vector} this expression produces.
+   * 
+   * @return the dimension of the {@link Vector} this expression produces.
+   */
+  public abstract int dimension();
+  
+  /**
+   * Evaluates this expression into a new {@link CVec}.
+   * 
+   * @return a new {@link CVec} holding the value of this expression.
+   */
+  public CVec eval() {
+    CVec result = new CVec(dimension());
+    assignTo(result);
+    return result;
+  }
+  
+  /**
+   * Computes the flattened terms into the target in one pass.
+   */
+  private static void evaluate(Terms terms, Vector[] xVecs, Vector target) {
+    int dim = target.dimension();
+    for (int i = 0; i < dim; i++ ) {
+      double sum = 0.0;
+      for (int k = 0; k < terms.numVecs; k++ ) {
+        sum += terms.vecCoefs[k] * terms.vecs[k].get(i);
+      }
+      for (int k = 0; k < terms.numMats; k++ ) {
+        sum += terms.matCoefs[k] * rowDot(terms.mats[k], i, xVecs[k]);
+      }
+      target.set(i, sum);
+    }
+  }
+  
+  /**
+   * Returns an expression for the difference of this expression and the specified
+   * expression.
+   * 
+   * @param other the expression to subtract
+   * @return an expression for the difference of this expression and the specified
+   *         expression.
+   */
+  public VecExpr minus(VecExpr other) {
+    return new Sum(this, new Scaled( -1.0, other));
+  }
+  
+  /**
+   * Returns an expression for the difference of this expression and the specified
+   * {@link Vector}.
+   * 
+   * @param vec the {@link Vector} to subtract
+   * @return an expression for the difference of this expression and the specified
+   *         {@link Vector}.
+   */
+  public VecExpr minus(Vector vec) {
+    return minus(of(vec));
+  }
+  
+  /**
+   * Returns a {@link Vector} holding the value of the specified expression, which is the
+   * referred to {@link Vector} itself if the expression is just a reference to a
+   * {@link Vector} other than the target, otherwise it is a new {@link CVec}.
+   */
+  static Vector operand(VecExpr expr, Object target) {
+    if ((expr instanceof Ref ref) && (ref.vec != target))
+      return ref.vec;
+    return expr.eval();
+  }
+  
+  /**
+   * Returns an expression for the sum of this expression and the specified expression.
+   * 
+   * @param other the expression to add
+   * @return an expression for the sum of this expression and the specified expression.
+   */
+  public VecExpr plus(VecExpr other) {
+    return new Sum(this, other);
+  }
+  
+  /**
+   * Returns an expression for the sum of this expression and the specified {@link Vector}.
+   * 
+   * @param vec the {@link Vector} to add
+   * @return an expression for the sum of this expression and the specified {@link Vector}.
+   */
+  public VecExpr plus(Vector vec) {
+    return plus(of(vec));
+  }
+  
+  /**
+   * Returns the dot product of the indicated row of the specified {@link Matrix} with the
+   * specified {@link Vector}.
+   */
+  private static double rowDot(Matrix mat, int rowIndex, Vector x) {
+    int numCols = mat.getNumCols();
+    double dp = 0.0;
+    if ((mat instanceof CMat cMat) && (x instanceof CVec cVec)) {
+      double[] values = cMat.values;
+      double[] xValues = cVec.values;
+      int rowPos = cMat.pos(rowIndex, 0);
+      for (int cI = 0; cI < numCols; cI++ ) {
+        dp += values[rowPos + cI] * xValues[cI];
+      }
+      return dp;
+    }
+    for (int cI = 0; cI < numCols; cI++ ) {
+      dp += mat.get(rowIndex, cI) * x.get(cI);
+    }
+    return dp;
+  }
+  
+  /**
+   * Returns an expression for this expression multiplied by the specified factor.
+   * 
+   * @param factor the scale factor
+   * @return an expression for this expression multiplied by the specified factor.
+   */
+  public VecExpr times(double factor) {
+    return new Scaled(factor, this);
+  }
+  
+  /**
+   * If the flattened terms are one of the BLAS updates of the target,
+   * <code>alpha * target</code>, <code>alpha * x + target</code>,
+   * <code>alpha * x + beta * target</code> or <code>alpha * a * x + beta * target</code>, does
+   * the update with the matching {@link Vec} or {@link Mat} kernel and returns true, otherwise
+   * returns false.
+   */
+  private static boolean updateInPlace(Terms terms, Vector target) {
+    if (terms.numMats == 1) {
+      if ((terms.numVecs > 1) || ((terms.numVecs == 1) && (terms.vecs[0] != target)))
+        return false;
+      double beta = (terms.numVecs == 0) ? 0.0 : terms.vecCoefs[0];
+      Vector x = operand(terms.xs[0], target);
+      Mat.gemv(false, terms.matCoefs[0], terms.mats[0], x, beta, target);
+      return true;
+    }
+    if (terms.numMats > 0)
+      return false;
+    if ((terms.numVecs == 1) && (terms.vecs[0] == target)) {
+      Vec.scal(terms.vecCoefs[0], target);
+      return true;
+    }
+    if (terms.numVecs != 2)
+      return false;
+    int targetIndex = (terms.vecs[0] == target) ? 0 : ((terms.vecs[1] == target) ? 1 : -1);
+    if (targetIndex == -1)
+      return false;
+    int xIndex = 1 - targetIndex;
+    double beta = terms.vecCoefs[targetIndex];
+    if (beta == 1.0) {
+      Vec.axpy(terms.vecCoefs[xIndex], terms.vecs[xIndex], target);
+    } else {
+      Vec.axpby(terms.vecCoefs[xIndex], terms.vecs[xIndex], beta, target);
+    }
+    return true;
+  }
+}
@@ -53,6 +53,37 @@ public abstract class Vector implements Comparable<Vector> {
   
   public abstract double get(int index);
   
+  /**
+   * Returns the array that holds the elements of this {@link Vector} if they can be read and
+   * written there directly, otherwise null. Element <code>i</code> is at position
+   * <code>getOffset() + i * getStride()</code>. The kernels of {@link Vec} work on the array
+   * when every {@link Vector} they are given has one, and fall back to
+   * {@link #get(int)} and {@link #set(int, double)} otherwise.
+   * 
+   * @return the backing array, or null if there is none.
+   */
+  public double[] getArray() {
+    return null;
+  }
+  
+  /**
+   * Returns the position of element 0 in {@link #getArray()}.
+   * 
+   * @return the position of element 0.
+   */
+  public int getOffset() {
+    return 0;
+  }
+  
+  /**
+   * Returns the distance between elements in {@link #getArray()}.
+   * 
+   * @return the distance between elements.
+   */
+  public int getStride() {
+    return 1;
+  }
+  
   public abstract void set(int index, double value);
   
   @Override
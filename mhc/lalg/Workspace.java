@@ -0,0 +1,240 @@
+package mhc.lalg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A pool of <code>double</code> buffers for temporary {@link CMat}s and {@link CVec}s, so a
+ * kernel run in a steady loop reuses the same arrays instead of allocating new ones every
+ * time. Buffers are handed out wrapped as a {@link CMat} or {@link CVec} and are given back in
+ * bulk when the {@link Scope} they were taken in is closed:
+ * 
+ * <pre>
+ * Workspace.Scope scope = workspace.open();
+ * try {
+ *   CMat temp = workspace.mat(n, n);
+ *   ...
+ * } finally {
+ *   scope.close();
+ * }
+ * </pre>
+ * 
+ * Buffers are pooled in size classes of powers of two, at least {@link #MIN_BUFFER_SIZE}
+ * elements and at most {@link #MAX_BUFFER_SIZE}, so a buffer is reused for any request of its
+ * class. A {@link CMat} or {@link CVec} from a {@link Workspace} must not be used after its
+ * {@link Scope} is closed, as its array may then be handed out again. At most
+ * <code>maxPooledBytes</code> of free buffers are kept; a buffer given back beyond that is left
+ * to the garbage collector.
+ * <p>
+ * A {@link Workspace} is not thread safe: each thread should have its own.
+ */
+public class Workspace {
+  
+  /**
+   * A region of a {@link Workspace}. Closing it gives back every buffer taken since it was
+   * opened, including those of inner {@link Scope}s that were not closed.
+   */
+  public final class Scope implements AutoCloseable {
+    
+    private final int mark;
+    
+    private Scope(int mark) {
+      this.mark = mark;
+    }
+    
+    @Override
+    public void close() {
+      release(mark);
+    }
+  }
+  
+  /**
+   * The number of elements in the smallest buffer.
+   */
+  public static final int MIN_BUFFER_SIZE = 16;
+  
+  /**
+   * The number of elements in the largest buffer, the largest power of two an array can hold.
+   */
+  public static final int MAX_BUFFER_SIZE = 1 << 30;
+  
+  /**
+   * The size class of {@link #MIN_BUFFER_SIZE}.
+   */
+  private static final int MIN_CLASS = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+  
+  private final long maxPooledBytes;
+  
+  /**
+   * The free buffers of each size class.
+   */
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private final ArrayDeque<double[]>[] free = new ArrayDeque[Integer.SIZE];
+  
+  /**
+   * The buffers handed out, in the order they were taken.
+   */
+  private final ArrayList<double[]> taken = new ArrayList<>();
+  
+  private long numPooledBytes;
+  
+  private long numAllocated;
+  
+  private long numReused;
+  
+  /**
+   * Creates a {@link Workspace} that keeps at most 64 MB of free buffers.
+   */
+  public Workspace() {
+    this(64L << 20);
+  }
+  
+  /**
+   * Creates a {@link Workspace}.
+   * 
+   * @param maxPooledBytes the most bytes of free buffers to keep
+   */
+  public Workspace(long maxPooledBytes) {
+    this.maxPooledBytes = maxPooledBytes;
+    for (int i = 0; i < free.length; i++ ) {
+      free[i] = new ArrayDeque<>();
+    }
+  }
+  
+  /**
+   * Returns the size class of a buffer of at least the specified number of elements.
+   */
+  private static int sizeClass(int size) {
+    if (size <= MIN_BUFFER_SIZE)
+      return MIN_CLASS;
+    return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+  }
+  
+  /**
+   * Returns a {@link CMat} from this {@link Workspace} holding a copy of the contents of the
+   * specified {@link Matrix}.
+   * 
+   * @param mat the {@link Matrix} to be copied
+   * @return a {@link CMat} from this {@link Workspace} holding a copy of <code>mat</code>.
+   */
+  public CMat copy(Matrix mat) {
+    int numRows = mat.getNumRows();
+    int numCols = mat.getNumCols();
+    return Mat.copy(mat, new CMat(numRows, numCols, take((long) numRows * numCols, false)));
+  }
+  
+  /**
+   * Returns a {@link CVec} from this {@link Workspace} holding a copy of the elements of the
+   * specified {@link Vector}.
+   * 
+   * @param vec the {@link Vector} to be copied
+   * @return a {@link CVec} from this {@link Workspace} holding a copy of <code>vec</code>.
+   */
+  public CVec copy(Vector vec) {
+    int dim = vec.dimension();
+    return Vec.copy(vec, new CVec(dim, take(dim, false)));
+  }
+  
+  /**
+   * Returns the number of buffers that had to be allocated because none was free.
+   * 
+   * @return the number of buffers allocated.
+   */
+  public long getNumAllocated() {
+    return numAllocated;
+  }
+  
+  /**
+   * Returns the number of bytes held in free buffers now.
+   * 
+   * @return the number of bytes pooled.
+   */
+  public long getNumPooledBytes() {
+    return numPooledBytes;
+  }
+  
+  /**
+   * Returns the number of requests served with a free buffer.
+   * 
+   * @return the number of buffers reused.
+   */
+  public long getNumReused() {
+    return numReused;
+  }
+  
+  /**
+   * Returns the number of buffers handed out and not yet given back.
+   * 
+   * @return the number of buffers in use.
+   */
+  public int getNumTaken() {
+    return taken.size();
+  }
+  
+  /**
+   * Returns a zeroed {@link CMat} from this {@link Workspace}.
+   * 
+   * @param numRows the number of rows
+   * @param numCols the number of columns
+   * @return a zeroed {@link CMat} that may be used until the current {@link Scope} is closed.
+   */
+  public CMat mat(int numRows, int numCols) {
+    return new CMat(numRows, numCols, take((long) numRows * numCols, true));
+  }
+  
+  /**
+   * Opens a {@link Scope}. Every buffer taken until it is closed is given back when it is.
+   * 
+   * @return the new {@link Scope}.
+   */
+  public Scope open() {
+    return new Scope(taken.size());
+  }
+  
+  /**
+   * Gives back every buffer taken after the specified number had been taken.
+   */
+  private void release(int mark) {
+    for (int i = taken.size() - 1; i >= mark; i-- ) {
+      double[] buffer = taken.remove(i);
+      long bytes = 8L * buffer.length;
+      if (numPooledBytes + bytes <= maxPooledBytes) {
+        free[sizeClass(buffer.length)].push(buffer);
+        numPooledBytes += bytes;
+      }
+    }
+  }
+  
+  /**
+   * Returns a buffer of at least the specified number of elements, zeroing them if asked.
+   */
+  private double[] take(long size, boolean zero) {
+    if (size > MAX_BUFFER_SIZE)
+      throw new RuntimeException("A workspace buffer can hold at most 2^30 elements, not " + size);
+    int sizeClass = sizeClass((int) size);
+    double[] buffer = free[sizeClass].poll();
+    if (buffer == null) {
+      buffer = new double[1 << sizeClass];
+      numAllocated++ ;
+    } else {
+      numPooledBytes -= 8L * buffer.length;
+      numReused++ ;
+      if (zero) {
+        Arrays.fill(buffer, 0, (int) size, 0.0);
+      }
+    }
+    taken.add(buffer);
+    return buffer;
+  }
+  
+  /**
+   * Returns a zeroed {@link CVec} from this {@link Workspace}.
+   * 
+   * @param dim the dimension
+   * @return a zeroed {@link CVec} that may be used until the current {@link Scope} is closed.
+   */
+  public CVec vec(int dim) {
+    return new CVec(dim, take(dim, true));
+  }
+}
@@ -0,0 +1,389 @@
+package mhc.lalg.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Optional counters of the work done by the linear algebra operations: floating point
+ * operations, elements read and written, the primitive row operations and pivot searches.
+ * <p>
+ * The counters are only updated when the system property <code>mhc.lalg.opCounters</code> is
+ * true when this class is loaded. Every call site is guarded by {@link #ENABLED}, which is a
+ * constant, so when the counters are off the JIT removes the guarded code and they cost
+ * nothing. Each counter is a {@link LongAdder}, so threads update their own cells and do not
+ * contend with each other. Totals are read with {@link #snapshot()}, or through JMX as the
+ * {@link OpCountersMXBean} named {@value #MBEAN_NAME}.
+ * <p>
+ * Factorizations and products of at least {@link #EVENT_SIZE} elements also emit an
+ * {@link OpEvent} to Java Flight Recorder whether or not the counters are enabled. The events
+ * cost nothing unless a recording has them enabled.
+ */
+public final class OpCounters {
+  
+  /**
+   * The counters implementation registered with the platform MBean server.
+   */
+  private static class Bean implements OpCountersMXBean {
+    
+    @Override
+    public long getElementsRead() {
+      return elementsRead.sum();
+    }
+    
+    @Override
+    public long getElementsWritten() {
+      return elementsWritten.sum();
+    }
+    
+    @Override
+    public long getFlops() {
+      return flops.sum();
+    }
+    
+    @Override
+    public long getPivotSearches() {
+      return pivotSearches.sum();
+    }
+    
+    @Override
+    public long getRowAdds() {
+      return rowAdds.sum();
+    }
+    
+    @Override
+    public long getRowScales() {
+      return rowScales.sum();
+    }
+    
+    @Override
+    public long getRowSwaps() {
+      return rowSwaps.sum();
+    }
+    
+    @Override
+    public void reset() {
+      OpCounters.reset();
+    }
+  }
+  
+  /**
+   * A Java Flight Recorder event for one factorization or product.
+   */
+  @Name("mhc.lalg.Operation")
+  @Label("Linear Algebra Operation")
+  @Category({ "mhc", "Linear Algebra" })
+  @Description("A factorization or product of a large matrix")
+  public static final class OpEvent extends Event {
+    
+    @Label("Operation")
+    String operation;
+    
+    @Label("Rows")
+    int numRows;
+    
+    @Label("Columns")
+    int numCols;
+    
+    @Label("Flops")
+    long flops;
+    
+    OpEvent(String operation, int numRows, int numCols) {
+      this.operation = operation;
+      this.numRows = numRows;
+      this.numCols = numCols;
+    }
+  }
+  
+  /**
+   * The counters values at one moment. Counters that are updated while the snapshot is taken
+   * may or may not be included, so the values are only exact when the counters are quiet.
+   */
+  public static final class Snapshot {
+    
+    private final long flops;
+    
+    private final long elementsRead;
+    
+    private final long elementsWritten;
+    
+    private final long rowAdds;
+    
+    private final long rowScales;
+    
+    private final long rowSwaps;
+    
+    private final long pivotSearches;
+    
+    Snapshot(long flops, long elementsRead, long elementsWritten, long rowAdds,
+            long rowScales, long rowSwaps, long pivotSearches) {
+      this.flops = flops;
+      this.elementsRead = elementsRead;
+      this.elementsWritten = elementsWritten;
+      this.rowAdds = rowAdds;
+      this.rowScales = rowScales;
+      this.rowSwaps = rowSwaps;
+      this.pivotSearches = pivotSearches;
+    }
+    
+    /**
+     * Returns the number of elements read.
+     * 
+     * @return the number of elements read.
+     */
+    public long getElementsRead() {
+      return elementsRead;
+    }
+    
+    /**
+     * Returns the number of elements written.
+     * 
+     * @return the number of elements written.
+     */
+    public long getElementsWritten() {
+      return elementsWritten;
+    }
+    
+    /**
+     * Returns the number of floating point operations.
+     * 
+     * @return the number of floating point operations.
+     */
+    public long getFlops() {
+      return flops;
+    }
+    
+    /**
+     * Returns the number of pivot searches.
+     * 
+     * @return the number of pivot searches.
+     */
+    public long getPivotSearches() {
+      return pivotSearches;
+    }
+    
+    /**
+     * Returns the number of row additions.
+     * 
+     * @return the number of row additions.
+     */
+    public long getRowAdds() {
+      return rowAdds;
+    }
+    
+    /**
+     * Returns the number of row scalings.
+     * 
+     * @return the number of row scalings.
+     */
+    public long getRowScales() {
+      return rowScales;
+    }
+    
+    /**
+     * Returns the number of row swaps.
+     * 
+     * @return the number of row swaps.
+     */
+    public long getRowSwaps() {
+      return rowSwaps;
+    }
+    
+    /**
+     * Returns the work done between the specified earlier {@link Snapshot} and this one.
+     * 
+     * @param earlier the earlier {@link Snapshot}
+     * @return the work done between the specified earlier {@link Snapshot} and this one.
+     */
+    public Snapshot minus(Snapshot earlier) {
+      return new Snapshot(flops - earlier.flops, elementsRead - earlier.elementsRead,
+              elementsWritten - earlier.elementsWritten, rowAdds - earlier.rowAdds,
+              rowScales - earlier.rowScales, rowSwaps - earlier.rowSwaps,
+              pivotSearches - earlier.pivotSearches);
+    }
+    
+    @Override
+    public String toString() {
+      return String.format(
+              "flops=%d, read=%d, written=%d, rowAdds=%d, rowScales=%d, rowSwaps=%d, "
+                      + "pivotSearches=%d",
+              flops, elementsRead, elementsWritten, rowAdds, rowScales, rowSwaps,
+              pivotSearches);
+    }
+  }
+  
+  /**
+   * True if the counters are updated, this is set from the system property
+   * <code>mhc.lalg.opCounters</code>.
+   */
+  public static final boolean ENABLED = Boolean.getBoolean("mhc.lalg.opCounters");
+  
+  /**
+   * Operations on at least this many elements emit an {@link OpEvent}, this is set from the
+   * system property <code>mhc.lalg.opEventSize</code> and defaults to 256 * 256.
+   */
+  public static final long EVENT_SIZE = Long.getLong("mhc.lalg.opEventSize", 256 * 256);
+  
+  /**
+   * The name the {@link OpCountersMXBean} is registered under.
+   */
+  public static final String MBEAN_NAME = "mhc.lalg:type=OpCounters";
+  
+  private static final LongAdder flops = new LongAdder();
+  
+  private static final LongAdder elementsRead = new LongAdder();
+  
+  private static final LongAdder elementsWritten = new LongAdder();
+  
+  private static final LongAdder rowAdds = new LongAdder();
+  
+  private static final LongAdder rowScales = new LongAdder();
+  
+  private static final LongAdder rowSwaps = new LongAdder();
+  
+  private static final LongAdder pivotSearches = new LongAdder();
+  
+  static {
+    if (ENABLED) {
+      registerMBean();
+    }
+  }
+  
+  private OpCounters() {
+  }
+  
+  /**
+   * Returns a started {@link OpEvent} for the specified operation if it is large enough to be
+   * recorded, otherwise null. The event is finished by {@link #commitEvent(OpEvent, long)}.
+   * 
+   * @param operation the name of the operation
+   * @param numRows the number of rows in the operand
+   * @param numCols the number of columns in the operand
+   * @return a started {@link OpEvent} or null if the operation is too small.
+   */
+  public static OpEvent beginEvent(String operation, int numRows, int numCols) {
+    if ((long) numRows * numCols < EVENT_SIZE)
+      return null;
+    OpEvent event = new OpEvent(operation, numRows, numCols);
+    event.begin();
+    return event;
+  }
+  
+  /**
+   * Finishes the specified {@link OpEvent}, which may be null, with the specified number of
+   * floating point operations.
+   * 
+   * @param event the event returned by {@link #beginEvent(String, int, int)}
+   * @param numFlops the number of floating point operations the operation did
+   */
+  public static void commitEvent(OpEvent event, long numFlops) {
+    if (event == null)
+      return;
+    event.end();
+    if (event.shouldCommit()) {
+      event.flops = numFlops;
+      event.commit();
+    }
+  }
+  
+  /**
+   * Adds the specified amounts to the counters.
+   * 
+   * @param numFlops the number of floating point operations
+   * @param numRead the number of elements read
+   * @param numWritten the number of elements written
+   */
+  public static void count(long numFlops, long numRead, long numWritten) {
+    flops.add(numFlops);
+    elementsRead.add(numRead);
+    elementsWritten.add(numWritten);
+  }
+  
+  /**
+   * Counts a pivot search that read the specified number of elements.
+   * 
+   * @param numRead the number of elements read
+   */
+  public static void pivotSearch(long numRead) {
+    pivotSearches.increment();
+    elementsRead.add(numRead);
+  }
+  
+  /**
+   * Registers the {@link OpCountersMXBean} with the platform MBean server if it is not
+   * already registered. This is done automatically when the counters are enabled.
+   */
+  public static synchronized void registerMBean() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(MBEAN_NAME);
+      if ( !server.isRegistered(name)) {
+        server.registerMBean(new Bean(), name);
+      }
+    } catch (JMException e) {
+      throw new RuntimeException("Unable to register " + MBEAN_NAME, e);
+    }
+  }
+  
+  /**
+   * Sets all the counters back to zero.
+   */
+  public static void reset() {
+    flops.reset();
+    elementsRead.reset();
+    elementsWritten.reset();
+    rowAdds.reset();
+    rowScales.reset();
+    rowSwaps.reset();
+    pivotSearches.reset();
+  }
+  
+  /**
+   * Counts the addition of a multiple of one row of the specified length to another.
+   * 
+   * @param len the length of the rows
+   */
+  public static void rowAdd(int len) {
+    rowAdds.increment();
+    count(2L * len, 2L * len, len);
+  }
+  
+  /**
+   * Counts the scaling of a row of the specified length.
+   * 
+   * @param len the length of the row
+   */
+  public static void rowScale(int len) {
+    rowScales.increment();
+    count(len, len, len);
+  }
+  
+  /**
+   * Counts the swap of two rows of the specified length.
+   * 
+   * @param len the length of the rows
+   */
+  public static void rowSwap(int len) {
+    rowSwaps.increment();
+    count(0, 2L * len, 2L * len);
+  }
+  
+  /**
+   * Returns the current values of the counters.
+   * 
+   * @return the current values of the counters.
+   */
+  public static Snapshot snapshot() {
+    return new Snapshot(flops.sum(), elementsRead.sum(), elementsWritten.sum(), rowAdds.sum(),
+            rowScales.sum(), rowSwaps.sum(), pivotSearches.sum());
+  }
+}
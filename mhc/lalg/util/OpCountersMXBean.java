@@ -0,0 +1,62 @@
+package mhc.lalg.util;
+
+/**
+ * The management interface of {@link OpCounters}, registered with the platform MBean server
+ * under the name {@value OpCounters#MBEAN_NAME} when the counters are enabled.
+ */
+public interface OpCountersMXBean {
+  
+  /**
+   * Returns the number of elements read so far.
+   * 
+   * @return the number of elements read so far.
+   */
+  long getElementsRead();
+  
+  /**
+   * Returns the number of elements written so far.
+   * 
+   * @return the number of elements written so far.
+   */
+  long getElementsWritten();
+  
+  /**
+   * Returns the number of floating point operations done so far.
+   * 
+   * @return the number of floating point operations done so far.
+   */
+  long getFlops();
+  
+  /**
+   * Returns the number of pivot searches done so far.
+   * 
+   * @return the number of pivot searches done so far.
+   */
+  long getPivotSearches();
+  
+  /**
+   * Returns the number of row additions done so far.
+   * 
+   * @return the number of row additions done so far.
+   */
+  long getRowAdds();
+  
+  /**
+   * Returns the number of row scalings done so far.
+   * 
+   * @return the number of row scalings done so far.
+   */
+  long getRowScales();
+  
+  /**
+   * Returns the number of row swaps done so far.
+   * 
+   * @return the number of row swaps done so far.
+   */
+  long getRowSwaps();
+  
+  /**
+   * Sets all the counters back to zero.
+   */
+  void reset();
+}
@@ -0,0 +1,160 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.BatchMat;
+import mhc.lalg.BatchVec;
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.Mat;
+import mhc.lalg.Vector;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: BatchMatTest
+ */
+class BatchMatTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Returns a random {@link CMat} that is diagonally dominant, so it is well conditioned.
+   */
+  private static CMat randomMat(Random random, int dim) {
+    CMat mat = new CMat(dim, dim);
+    for (int rI = 0; rI < dim; rI++ ) {
+      for (int cI = 0; cI < dim; cI++ ) {
+        mat.set(rI, cI, random.nextDouble() - 0.5);
+      }
+      mat.set(rI, rI, mat.get(rI, rI) + ((rI % 2 == 0) ? dim : -dim));
+    }
+    return mat;
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.BatchMat#BatchMat(int, int, int)} and
+   * {@link mhc.lalg.BatchVec#BatchVec(int, int)} with batches too large for an array.
+   */
+  @Test
+  final void testBatchMat() {
+    assertThrows(RuntimeException.class, () -> new BatchMat(1 << 20, 64, 64));
+    assertThrows(RuntimeException.class, () -> new BatchMat(1 << 21, 32, 33));
+    assertThrows(RuntimeException.class, () -> new BatchVec(1 << 16, 1 << 16));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.BatchMat#getMatrix(int)} and
+   * {@link mhc.lalg.BatchMat#setMatrix(int, mhc.lalg.Matrix)}.
+   */
+  @Test
+  final void testGetMatrix() {
+    CMat m0 = CMat.mat(CVec.vec(1, 2, 3), CVec.vec(4, 5, 6));
+    CMat m1 = CMat.mat(CVec.vec(7, 8, 9), CVec.vec(10, 11, 12));
+    BatchMat batch = BatchMat.of(m0, m1);
+    assertEquals(2, batch.getCount());
+    assertEquals(2, batch.getNumRows());
+    assertEquals(3, batch.getNumCols());
+    assertEquals(6.0, batch.get(0, 1, 2));
+    assertEquals(11.0, batch.get(1, 1, 1));
+    batch.set(1, 0, 0, -7.0);
+    CMat copy = batch.getMatrix(1);
+    assertEquals( -7.0, copy.get(0, 0));
+    assertEquals(12.0, copy.get(1, 2));
+    BatchVec vecs = BatchVec.of(CVec.vec(1, 2), CVec.vec(3, 4));
+    assertEquals(4.0, vecs.get(1, 1));
+    assertEquals(3.0, vecs.getVector(1).get(0));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.BatchMat#solve(mhc.lalg.BatchVec)}.
+   */
+  @Test
+  final void testSolve() {
+    CMat a0 = CMat.mat(CVec.vec(0, 2, 1), CVec.vec(1, 1, 1), CVec.vec(2, 1, 0));
+    CMat singular = CMat.mat(CVec.vec(1, 2, 3), CVec.vec(2, 4, 6), CVec.vec(1, 1, 1));
+    CMat a2 = CMat.mat(CVec.vec(4, 0, 0), CVec.vec(0, 2, 0), CVec.vec(0, 0, 1));
+    BatchMat batch = BatchMat.of(a0, singular, a2);
+    /*
+     * a0 * {1, 2, 3} = {7, 6, 4}
+     */
+    BatchVec rhs = BatchVec.of(CVec.vec(7, 6, 4), CVec.vec(1, 1, 1), CVec.vec(4, 4, 4));
+    int[] info = batch.solve(rhs);
+    assertEquals(0, info[0]);
+    assertEquals(3, info[1]);
+    assertEquals(0, info[2]);
+    assertEquals(1.0, rhs.get(0, 0), 1e-12);
+    assertEquals(2.0, rhs.get(0, 1), 1e-12);
+    assertEquals(3.0, rhs.get(0, 2), 1e-12);
+    assertEquals(1.0, rhs.get(2, 0));
+    assertEquals(2.0, rhs.get(2, 1));
+    assertEquals(4.0, rhs.get(2, 2));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.BatchMat#solve(mhc.lalg.BatchVec)} with a batch large
+   * enough to be solved in parallel.
+   */
+  @Test
+  final void testSolveParallel() {
+    Random random = new Random(33);
+    int count = 1500;
+    int dim = 8;
+    CMat[] mats = new CMat[count];
+    Vector[] xs = new Vector[count];
+    Vector[] rhss = new Vector[count];
+    for (int b = 0; b < count; b++ ) {
+      mats[b] = randomMat(random, dim);
+      xs[b] = new CVec(dim);
+      for (int i = 0; i < dim; i++ ) {
+        xs[b].set(i, random.nextDouble());
+      }
+      rhss[b] = new CVec(dim);
+      Mat.gemv(false, 1.0, mats[b], xs[b], 0.0, rhss[b]);
+    }
+    BatchMat batch = BatchMat.of(mats);
+    BatchVec rhs = BatchVec.of(rhss);
+    int[] info = batch.solve(rhs);
+    for (int b = 0; b < count; b++ ) {
+      assertEquals(0, info[b]);
+      for (int i = 0; i < dim; i++ ) {
+        assertEquals(xs[b].get(i), rhs.get(b, i), 1e-12);
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package mhc.tests.lalg;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.AfterAll;
@@ -90,6 +91,20 @@ class CMatTest {
    */
   @Test
   final void testGetSubCol() {
+    CMat.ColVec col = (CMat.ColVec) tMat.getSubCol(2, 1, 3);
+    testVec(col, 12, 10);
+    assertEquals(8, col.getOffset());
+    assertEquals(6, col.getStride());
+    assertSame(tMat.getArray(), col.getArray());
+    double sum = 0.0;
+    for (int cI = 0; cI < tMat.getNumCols(); cI++ ) {
+      col.moveTo(cI);
+      assertEquals(cI, col.getColIndex());
+      sum += col.get(2);
+    }
+    assertEquals(195.0, sum);
+    col.set(0, -1.0);
+    assertEquals( -1.0, tMat.get(1, 5));
   }
   
   /**
@@ -97,6 +112,15 @@ class CMatTest {
    */
   @Test
   final void testGetSubMatrix() {
+    CMat.SubMatrix sub = (CMat.SubMatrix) tMat.getSubMatrix(1, 3, 2, 3);
+    testMat(sub, 12);
+    assertEquals(8, sub.getOffset());
+    assertEquals(6, sub.getRowStride());
+    Matrix inner = sub.getSubMatrix(1, 2, 1, 2);
+    testMat(inner, 23);
+    inner.set(1, 1, -1.0);
+    assertEquals( -1.0, tMat.get(3, 4));
+    assertEquals( -1.0, tMat.getArray()[sub.getOffset() + (2 * sub.getRowStride()) + 2]);
   }
   
   /**
@@ -104,6 +128,18 @@ class CMatTest {
    */
   @Test
   final void testGetSubRow() {
+    CMat.RowVec row = (CMat.RowVec) tMat.getSubRow(0, 1, 4);
+    testVec(row, 1, 1);
+    assertEquals(1, row.getOffset());
+    assertEquals(1, row.getStride());
+    for (int rI = 0; rI < tMat.getNumRows(); rI++ ) {
+      assertSame(row, row.moveTo(rI));
+      assertEquals(rI, row.getRowIndex());
+      testVec(row, (rI * 10) + 1, 1);
+    }
+    row.set(3, -1.0);
+    assertEquals( -1.0, tMat.get(5, 4));
+    assertEquals(51, row.getArray()[row.getOffset()]);
   }
   
   /**
@@ -0,0 +1,188 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.ConcurrentMat;
+import mhc.lalg.Matrix;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: ConcurrentMatTest
+ */
+class ConcurrentMatTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Runs the specified work on the indicated number of threads at once and waits for them.
+   */
+  private static void runThreads(int numThreads, Runnable work) throws InterruptedException {
+    Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++ ) {
+      threads[t] = new Thread(work);
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ConcurrentMat#addRowsWithMult(int, double, int)}.
+   */
+  @Test
+  final void testAddRowsWithMult() {
+    ConcurrentMat mat = ConcurrentMat.of(CMat.mat(CVec.vec(1, 2), CVec.vec(3, 4), CVec.vec(5,
+            6)));
+    mat.addRowsWithMult(0, 2.0, 2);
+    assertEquals(7.0, mat.get(2, 0));
+    assertEquals(10.0, mat.get(2, 1));
+    mat.addRowsWithMult(1, -1.0, 1);
+    assertEquals(0.0, mat.get(1, 1));
+    mat.scaleRow(0, 3.0);
+    mat.swapRows(0, 2);
+    assertEquals(7.0, mat.get(0, 0));
+    assertEquals(6.0, mat.get(2, 1));
+    ConcurrentMat oneStripe = new ConcurrentMat(3, 2, 1);
+    assertEquals(1, oneStripe.getNumStripes());
+    oneStripe.setRow(0, CVec.vec(1, 1));
+    oneStripe.addRowsWithMult(0, 4.0, 1);
+    oneStripe.swapRows(1, 2);
+    assertEquals(4.0, oneStripe.get(2, 1));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ConcurrentMat#addToRow(int, double, mhc.lalg.Vector)}
+   * from many threads at once, none of whose updates should be lost.
+   * 
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  final void testAddToRow() throws InterruptedException {
+    ConcurrentMat mat = new ConcurrentMat(4, 50);
+    CVec ones = new CVec(50);
+    for (int i = 0; i < 50; i++ ) {
+      ones.set(i, 1.0);
+    }
+    runThreads(4, () -> {
+      for (int k = 0; k < 2000; k++ ) {
+        mat.addToRow(k % 2, 1.0, ones);
+      }
+    });
+    assertEquals(4000.0, mat.get(0, 0));
+    assertEquals(4000.0, mat.get(1, 49));
+    assertEquals(200000.0, mat.dotRow(1, ones));
+    assertEquals(0.0, mat.dotRow(2, ones));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ConcurrentMat#getRowValues(int, double[])} while other
+   * threads change the rows, which should never be seen part way through a change.
+   * 
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  final void testGetRowValues() throws InterruptedException {
+    int numRows = 8;
+    int numCols = 200;
+    ConcurrentMat mat = new ConcurrentMat(numRows, numCols, 3);
+    AtomicInteger numTorn = new AtomicInteger();
+    AtomicInteger nextThread = new AtomicInteger();
+    /*
+     * Every row stays a multiple of all ones, so a torn read shows up as unequal elements.
+     */
+    CVec ones = new CVec(numCols);
+    for (int i = 0; i < numCols; i++ ) {
+      ones.set(i, 1.0);
+    }
+    for (int rI = 0; rI < numRows; rI++ ) {
+      mat.setRow(rI, ones);
+    }
+    runThreads(4, () -> {
+      Random random = new Random(nextThread.incrementAndGet());
+      double[] row = new double[numCols];
+      for (int k = 0; k < 5000; k++ ) {
+        int rI = random.nextInt(numRows);
+        switch (random.nextInt(5)) {
+          case 0 -> mat.scaleRow(rI, -1.0);
+          case 1 -> mat.addRowsWithMult(random.nextInt(numRows), 0.5, rI);
+          case 2 -> mat.swapRows(rI, random.nextInt(numRows));
+          case 3 -> mat.setRow(rI, ones);
+          default -> {
+            mat.getRowValues(rI, row);
+            for (int cI = 1; cI < numCols; cI++ ) {
+              if (row[cI] != row[0]) {
+                numTorn.incrementAndGet();
+                break;
+              }
+            }
+          }
+        }
+      }
+    });
+    assertEquals(0, numTorn.get());
+    CMat copy = mat.toCMat();
+    for (int rI = 0; rI < numRows; rI++ ) {
+      double[] row = mat.getRowValues(rI, null);
+      for (int cI = 0; cI < numCols; cI++ ) {
+        assertEquals(row[0], copy.get(rI, cI));
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ConcurrentMat#getSubMatrix(int, int, int, int)}.
+   */
+  @Test
+  final void testGetSubMatrix() {
+    ConcurrentMat mat = new ConcurrentMat(4, 5);
+    Matrix sub = mat.getSubMatrix(1, 2, 2, 3);
+    sub.set(1, 2, 9.0);
+    assertEquals(9.0, mat.get(2, 4));
+    assertEquals(9.0, sub.getSubMatrix(1, 1, 1, 2).get(0, 1));
+    mat.getSubRow(3, 1, 3).set(2, 4.0);
+    assertEquals(4.0, mat.get(3, 3));
+    mat.getCol(0).set(2, 5.0);
+    assertEquals(5.0, mat.getSubCol(0, 1, 3).get(1));
+    assertEquals(9.0, sub.getRow(1).get(2));
+    assertEquals("|  0.00,   0.00|\n|  0.00,   9.00|\n", sub.getSubMatrix(0, 2, 1, 2).toString());
+  }
+}
@@ -0,0 +1,143 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.CowMat;
+import mhc.lalg.ImmutableMat;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: CowMatTest
+ */
+class CowMatTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.CowMat#fork()}.
+   */
+  @Test
+  final void testFork() {
+    ImmutableMat base = ImmutableMat.of(CMat.mat(CVec.vec(1, 2), CVec.vec(3, 4), CVec.vec(5,
+            6)));
+    CowMat first = new CowMat(base);
+    first.set(0, 0, 10.0);
+    CowMat second = first.fork();
+    assertEquals(10.0, second.get(0, 0));
+    second.set(0, 1, 20.0);
+    first.set(2, 0, 50.0);
+    assertEquals(2.0, first.get(0, 1));
+    assertEquals(20.0, second.get(0, 1));
+    assertEquals(5.0, second.get(2, 0));
+    assertEquals(50.0, first.get(2, 0));
+    /*
+     * Row 0 was shared again by the fork, so writing it copies it again.
+     */
+    first.set(0, 0, 11.0);
+    assertEquals(3, first.getNumCopiedRows());
+    assertEquals(1, second.getNumCopiedRows());
+    assertEquals(10.0, second.get(0, 0));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.CowMat#set(int, int, double)}, which should copy only the
+   * rows it writes.
+   */
+  @Test
+  final void testSet() {
+    CMat source = CMat.mat(CVec.vec(1, 2), CVec.vec(3, 4), CVec.vec(5, 6));
+    ImmutableMat base = ImmutableMat.of(source);
+    CowMat mat = new CowMat(base);
+    assertEquals(3, mat.getNumRows());
+    assertEquals(2, mat.getNumCols());
+    assertEquals(0, mat.getNumCopiedRows());
+    mat.set(1, 0, 30.0);
+    mat.set(1, 1, 40.0);
+    assertEquals(1, mat.getNumCopiedRows());
+    assertEquals(30.0, mat.get(1, 0));
+    assertEquals(3.0, base.get(1, 0));
+    mat.addRowsWithMult(0, 2.0, 2);
+    assertEquals(7.0, mat.get(2, 0));
+    mat.scaleRow(2, 0.5);
+    assertEquals(5.0, mat.get(2, 1));
+    assertEquals(2, mat.getNumCopiedRows());
+    mat.getSubMatrix(0, 2, 1, 1).set(0, 0, 8.0);
+    mat.getRow(2).set(0, 9.0);
+    mat.getCol(0).set(0, 7.0);
+    assertEquals("|  7.00,   8.00|\n| 30.00,  40.00|\n|  9.00,   5.00|\n", mat.toString());
+    assertEquals(3, mat.getNumCopiedRows());
+    assertEquals(source.toString(), base.toString());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.CowMat#swapRows(int, int)}, which should copy nothing.
+   */
+  @Test
+  final void testSwapRows() {
+    ImmutableMat base = ImmutableMat.of(CMat.mat(CVec.vec(1, 2), CVec.vec(3, 4)));
+    CowMat mat = new CowMat(base);
+    mat.swapRows(0, 1);
+    assertEquals(3.0, mat.get(0, 0));
+    assertEquals(2.0, mat.get(1, 1));
+    assertEquals(0, mat.getNumCopiedRows());
+    mat.set(0, 1, 0.0);
+    mat.swapRows(0, 1);
+    assertEquals(0.0, mat.get(1, 1));
+    assertEquals(1, mat.getNumCopiedRows());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.CowMat#toImmutableMat()}.
+   */
+  @Test
+  final void testToImmutableMat() {
+    ImmutableMat base = ImmutableMat.of(CMat.mat(CVec.vec(1, 2), CVec.vec(3, 4)));
+    ImmutableMat sub = (ImmutableMat) base.getSubMatrix(0, 2, 0, 2);
+    CowMat mat = new CowMat(sub);
+    assertSame(sub, mat.toImmutableMat());
+    mat.swapRows(0, 1);
+    ImmutableMat swapped = mat.toImmutableMat();
+    assertEquals(3.0, swapped.get(0, 0));
+    mat.swapRows(0, 1);
+    mat.set(1, 1, 0.0);
+    ImmutableMat changed = mat.toImmutableMat();
+    assertEquals(0.0, changed.get(1, 1));
+    assertEquals(4.0, base.get(1, 1));
+  }
+}
@@ -0,0 +1,114 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.EchelonBasis;
+import mhc.lalg.Vec;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: EchelonBasisTest
+ */
+class EchelonBasisTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.EchelonBasis#add(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testAdd() {
+    EchelonBasis basis = new EchelonBasis(4);
+    assertTrue(basis.add(CVec.vec(1, 2, 0, 1)));
+    assertTrue(basis.add(CVec.vec(0, 1, 1, 0)));
+    assertFalse(basis.add(CVec.vec(2, 5, 1, 2)));
+    assertFalse(basis.add(CVec.vec(0, 0, 0, 0)));
+    assertEquals(2, basis.getRank());
+    assertTrue(basis.add(CVec.vec(0, 0, 0, 3)));
+    assertEquals(3, basis.getRank());
+    assertEquals(4, basis.dimension());
+    /*
+     * Every basis vector is 1 in its own pivot column and 0 in the others.
+     */
+    CMat mat = basis.toCMat();
+    int[] pivots = basis.getPivotColumns();
+    assertEquals(3, pivots.length);
+    for (int rI = 0; rI < 3; rI++ ) {
+      for (int k = 0; k < 3; k++ ) {
+        assertEquals((rI == k) ? 1.0 : 0.0, mat.get(rI, pivots[k]), 1e-15);
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.EchelonBasis#contains(mhc.lalg.Vector)} with a stream of
+   * {@link mhc.lalg.Vector}s that span five dimensions.
+   */
+  @Test
+  final void testContains() {
+    Random random = new Random(40);
+    int dim = 12;
+    CVec[] generators = new CVec[5];
+    for (int g = 0; g < generators.length; g++ ) {
+      generators[g] = new CVec(dim);
+      for (int i = 0; i < dim; i++ ) {
+        generators[g].set(i, random.nextDouble() - 0.5);
+      }
+    }
+    EchelonBasis basis = new EchelonBasis(dim);
+    for (int t = 0; t < 20; t++ ) {
+      CVec vec = new CVec(dim);
+      for (CVec generator : generators) {
+        Vec.axpy(random.nextInt(5) - 2, generator, vec);
+      }
+      basis.add(vec);
+    }
+    assertEquals(5, basis.getRank());
+    CVec inSpan = new CVec(dim);
+    Vec.axpy(3.5, generators[0], inSpan);
+    Vec.axpy( -1.25, generators[4], inSpan);
+    assertTrue(basis.contains(inSpan));
+    inSpan.set(0, inSpan.get(0) + 1e-3);
+    assertFalse(basis.contains(inSpan));
+    assertEquals(5, basis.toCMat().getNumRows());
+  }
+}
@@ -0,0 +1,126 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.ExactEchelon;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: ExactEchelonTest
+ */
+class ExactEchelonTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ExactEchelon#nullSpace()}.
+   */
+  @Test
+  final void testNullSpace() {
+    long[][] rows = { { 1, 2, 3, 4 }, { 2, 4, 7, 9 }, { 3, 6, 10, 13 } };
+    ExactEchelon echelon = ExactEchelon.of(rows);
+    assertEquals(2, echelon.getRank());
+    assertArrayEquals(new int[] { 0, 2 }, echelon.getPivotColumns());
+    BigInteger[][] basis = echelon.nullSpace();
+    assertEquals(2, basis.length);
+    assertArrayEquals(new BigInteger[] { BigInteger.valueOf( -2), BigInteger.ONE, BigInteger.ZERO,
+        BigInteger.ZERO }, basis[0]);
+    assertArrayEquals(new BigInteger[] { BigInteger.valueOf( -1), BigInteger.ZERO,
+        BigInteger.valueOf( -1), BigInteger.ONE }, basis[1]);
+    for (BigInteger[] vec : basis) {
+      for (long[] row : rows) {
+        BigInteger sum = BigInteger.ZERO;
+        for (int cI = 0; cI < row.length; cI++ ) {
+          sum = sum.add(BigInteger.valueOf(row[cI]).multiply(vec[cI]));
+        }
+        assertEquals(BigInteger.ZERO, sum);
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ExactEchelon#of(long[][])} with elements large enough that
+   * the elimination overflows <code>long</code>.
+   */
+  @Test
+  final void testOfOverflow() {
+    long big = 1L << 40;
+    long[][] rows = { { big, 3, 7 }, { 5, big, 11 }, { 13, 17, big } };
+    ExactEchelon echelon = ExactEchelon.of(rows);
+    assertEquals(3, echelon.getRank());
+    BigInteger denominator = echelon.getDenominator();
+    assertTrue(denominator.bitLength() > 64);
+    for (int rI = 0; rI < 3; rI++ ) {
+      for (int cI = 0; cI < 3; cI++ ) {
+        assertEquals((rI == cI) ? denominator : BigInteger.ZERO, echelon.getNumerator(rI, cI));
+      }
+    }
+    /*
+     * The second row is an exact multiple of the first, which a double elimination misses.
+     */
+    long[][] dependent = { { big + 1, big + 3 }, { 3 * (big + 1), 3 * (big + 3) } };
+    assertEquals(1, ExactEchelon.of(dependent).getRank());
+    assertEquals(1, ExactEchelon.of(new long[][] { { Long.MIN_VALUE, 1 } }).getRank());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ExactEchelon#of(mhc.lalg.Matrix)}.
+   */
+  @Test
+  final void testOfMatrix() {
+    CMat mat = CMat.mat(CVec.vec(2, 4, 1), CVec.vec(1, 3, 0), CVec.vec(3, 7, 1));
+    ExactEchelon echelon = ExactEchelon.of(mat);
+    assertEquals(2, echelon.getRank());
+    assertArrayEquals(new int[] { 0, 1 }, echelon.getPivotColumns());
+    assertEquals(BigInteger.TWO, echelon.getDenominator());
+    assertEquals("[1, 0, 3/2]\n[0, 1, -1/2]\n[0, 0, 0]\n", echelon.toString());
+    assertEquals(1.5, echelon.get(0, 2));
+    CMat rref = echelon.toCMat();
+    assertEquals( -0.5, rref.get(1, 2));
+    assertEquals(0.0, rref.get(2, 2));
+    assertThrows(RuntimeException.class, () -> ExactEchelon.of(CMat.mat(CVec.vec(0.5))));
+    ExactEchelon zero = ExactEchelon.of(new CMat(2, 2));
+    assertEquals(0, zero.getRank());
+    assertEquals(BigInteger.ONE, zero.getDenominator());
+  }
+}
@@ -0,0 +1,77 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.FLUDecomp;
+import mhc.lalg.FVec;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: FLUDecompTest
+ */
+class FLUDecompTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.FLUDecomp#isSingular()}.
+   */
+  @Test
+  final void testIsSingular() {
+    CMat singular = CMat.mat(CVec.vec(1, 2), CVec.vec(2, 4));
+    FLUDecomp lu = new FLUDecomp(singular);
+    assertTrue(lu.isSingular());
+    assertThrows(RuntimeException.class, () -> lu.solve(CVec.vec(1, 1)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.FLUDecomp#solve(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testSolve() {
+    CMat mat = CMat.mat(CVec.vec(0, 2, 1), CVec.vec(1, 1, 1), CVec.vec(2, 1, 0));
+    FLUDecomp lu = new FLUDecomp(mat);
+    assertEquals(3.0, lu.determinant(), 1e-6);
+    FVec x = lu.solve(CVec.vec(7, 6, 4));
+    assertEquals(1.0, x.get(0), 1e-6);
+    assertEquals(2.0, x.get(1), 1e-6);
+    assertEquals(3.0, x.get(2), 1e-6);
+  }
+}
@@ -0,0 +1,129 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.FMat;
+import mhc.lalg.FVec;
+import mhc.lalg.Mat;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: FMatTest
+ */
+class FMatTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.FMat#of(mhc.lalg.Matrix)} and
+   * {@link mhc.lalg.FMat#toCMat()}.
+   */
+  @Test
+  final void testOf() {
+    CMat mat = CMat.mat(CVec.vec(1, 2, 3), CVec.vec(4, 5, 6));
+    FMat fMat = FMat.of(mat);
+    assertEquals(2, fMat.getNumRows());
+    assertEquals(3, fMat.getNumCols());
+    assertEquals(6.0, fMat.get(1, 2));
+    assertEquals(fMat.toString(), mat.toString());
+    CMat back = fMat.toCMat();
+    assertEquals(mat.toString(), back.toString());
+    FMat fromView = FMat.of(mat.getSubMatrix(0, 2, 1, 2));
+    assertEquals(5.0, fromView.get(1, 0));
+    fMat.set(0, 0, 0.1);
+    assertEquals((float) 0.1, fMat.get(0, 0));
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.Mat#sgemm(float, mhc.lalg.FMat, mhc.lalg.FMat, float, mhc.lalg.FMat,
+   * boolean)}.
+   */
+  @Test
+  final void testSgemm() {
+    CMat a = CMat.mat(CVec.vec(1, 2), CVec.vec(3, 4), CVec.vec(5, 6));
+    CMat b = CMat.mat(CVec.vec(1, 0, 2), CVec.vec( -1, 3, 1));
+    CMat expected = new CMat(3, 3);
+    Mat.gemm(2.0, a, b, 0.0, expected);
+    for (boolean accumulateDouble : new boolean[] { true, false }) {
+      FMat c = new FMat(3, 3);
+      Mat.sgemm(2.0f, FMat.of(a), FMat.of(b), 0.0f, c, accumulateDouble);
+      assertEquals(expected.toString(), c.toString());
+      Mat.sgemm(1.0f, FMat.of(a), FMat.of(b), -2.0f, c, accumulateDouble);
+      for (int rI = 0; rI < 3; rI++ ) {
+        for (int cI = 0; cI < 3; cI++ ) {
+          assertEquals( -expected.get(rI, cI) * 1.5, c.get(rI, cI));
+        }
+      }
+    }
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.Mat#sgemv(boolean, float, mhc.lalg.FMat, mhc.lalg.FVec, float,
+   * mhc.lalg.FVec, boolean)}.
+   */
+  @Test
+  final void testSgemv() {
+    FMat a = FMat.of(CMat.mat(CVec.vec(1, 2, 3), CVec.vec(4, 5, 6)));
+    for (boolean accumulateDouble : new boolean[] { true, false }) {
+      FVec y = FVec.vec(1, 1);
+      Mat.sgemv(false, 2.0f, a, FVec.vec(1, 0, -1), 3.0f, y, accumulateDouble);
+      assertEquals(FVec.vec( -1, -1), y);
+      FVec yt = FVec.vec(0, 0, 0);
+      Mat.sgemv(true, 1.0f, a, FVec.vec(1, 2), 0.0f, yt, accumulateDouble);
+      assertEquals(FVec.vec(9, 12, 15), yt);
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#toReducedEchelonForm(mhc.lalg.Matrix)} with an
+   * {@link FMat}, which uses its row and sub-matrix views.
+   */
+  @Test
+  final void testToReducedEchelonForm() {
+    FMat fMat = FMat.of(CMat.mat(CVec.vec(2, 4, 2), CVec.vec(1, 3, 2)));
+    Mat.toReducedEchelonForm(fMat);
+    assertEquals(1.0, fMat.get(0, 0));
+    assertEquals(0.0, fMat.get(0, 1));
+    assertEquals( -1.0, fMat.get(0, 2));
+    assertEquals(0.0, fMat.get(1, 0));
+    assertEquals(1.0, fMat.get(1, 1));
+    assertEquals(1.0, fMat.get(1, 2));
+  }
+}
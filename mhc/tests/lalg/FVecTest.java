@@ -0,0 +1,99 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CVec;
+import mhc.lalg.FVec;
+import mhc.lalg.Vec;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: FVecTest
+ */
+class FVecTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec#dsdot(mhc.lalg.FVec, mhc.lalg.FVec)} and
+   * {@link mhc.lalg.Vec#sdot(mhc.lalg.FVec, mhc.lalg.FVec)}.
+   */
+  @Test
+  final void testDsdot() {
+    FVec x = FVec.vec(1, 2, 3, 4);
+    FVec y = FVec.vec(4, 3, 2, 1);
+    assertEquals(20.0, Vec.dsdot(x, y));
+    assertEquals(20.0f, Vec.sdot(x, y));
+    /*
+     * 2^24 + 1 + 1 is exact in double but each + 1 is lost in float.
+     */
+    FVec big = FVec.vec(0x1.0p24f, 1, 1);
+    FVec ones = FVec.vec(1, 1, 1);
+    assertEquals(0x1.0p24 + 2, Vec.dsdot(big, ones));
+    assertEquals(0x1.0p24f, Vec.sdot(big, ones));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.FVec#of(mhc.lalg.Vector)} and
+   * {@link mhc.lalg.FVec#toCVec()}.
+   */
+  @Test
+  final void testOf() {
+    CVec vec = (CVec) CVec.vec(1.5, -2.25, 0.1);
+    FVec fVec = FVec.of(vec);
+    assertEquals(3, fVec.dimension());
+    assertEquals(1.5, fVec.get(0));
+    assertEquals((float) 0.1, fVec.get(2));
+    CVec back = fVec.toCVec();
+    assertEquals( -2.25, back.get(1));
+    assertTrue(Math.abs(back.get(2) - 0.1) < 1e-7);
+    fVec.set(0, 1.0 / 3.0);
+    assertEquals((float) (1.0 / 3.0), fVec.get(0));
+    assertEquals(fVec, FVec.of(fVec));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec#saxpy(float, mhc.lalg.FVec, mhc.lalg.FVec)}.
+   */
+  @Test
+  final void testSaxpy() {
+    FVec x = FVec.vec(1, 2, 3);
+    FVec y = FVec.vec(10, 20, 30);
+    Vec.saxpy(2.0f, x, y);
+    assertEquals(FVec.vec(12, 24, 36), y);
+  }
+}
@@ -0,0 +1,132 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.FactorizationCache;
+import mhc.lalg.LUDecomp;
+import mhc.lalg.Mat;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: FactorizationCacheTest
+ */
+class FactorizationCacheTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.FactorizationCache#lu(mhc.lalg.Matrix)}.
+   */
+  @Test
+  final void testLu() {
+    FactorizationCache cache = new FactorizationCache(1 << 20);
+    CMat a = CMat.mat(CVec.vec(4, 3), CVec.vec(6, 3));
+    LUDecomp first = cache.lu(a);
+    assertSame(first, cache.lu(a));
+    assertSame(first, cache.lu(Mat.copy(a))); // the same contents
+    assertEquals(2, cache.getNumHits());
+    assertEquals(1, cache.getNumMisses());
+    assertEquals(1, cache.getNumEntries());
+    a.set(0, 0, 5.0);
+    LUDecomp changed = cache.lu(a);
+    assertNotSame(first, changed);
+    assertEquals( -3.0, changed.determinant(), 1e-12);
+    a.swapRows(0, 1);
+    assertEquals(3.0, cache.lu(a).determinant(), 1e-12);
+    assertEquals(3, cache.getNumMisses());
+    assertThrows(RuntimeException.class, () -> cache.lu(new CMat(2, 3)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.FactorizationCache#lu(mhc.lalg.Matrix)} when entries must
+   * be evicted.
+   */
+  @Test
+  final void testLuEviction() {
+    FactorizationCache cache = new FactorizationCache(3 * (8 * 16 + 4 * 4 + 128));
+    CMat[] mats = new CMat[4];
+    for (int i = 0; i < mats.length; i++ ) {
+      mats[i] = new CMat(4, 4);
+      for (int k = 0; k < 4; k++ ) {
+        mats[i].set(k, k, 1.0);
+      }
+      mats[i].set(0, 3, i);
+    }
+    cache.lu(mats[0]);
+    cache.lu(mats[1]);
+    cache.lu(mats[2]);
+    cache.lu(mats[0]); // now mats[1] is the least recently used
+    cache.lu(mats[3]);
+    assertEquals(3, cache.getNumEntries());
+    assertEquals(1, cache.getNumEvictions());
+    assertEquals(3 * (8 * 16 + 4 * 4 + 128), cache.getNumBytes());
+    long misses = cache.getNumMisses();
+    cache.lu(mats[0]);
+    cache.lu(mats[2]);
+    assertEquals(misses, cache.getNumMisses());
+    cache.lu(mats[1]);
+    assertEquals(misses + 1, cache.getNumMisses());
+    FactorizationCache small = new FactorizationCache(100);
+    assertEquals(1.0, small.lu(mats[0]).determinant(), 1e-12);
+    assertEquals(0, small.getNumEntries()); // too large to keep
+    small.clear();
+    cache.clear();
+    assertEquals(0, cache.getNumBytes());
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.FactorizationCache#solve(mhc.lalg.Matrix, mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testSolve() {
+    FactorizationCache cache = new FactorizationCache(1 << 20);
+    CMat a = CMat.mat(CVec.vec(2, 1), CVec.vec(1, 3));
+    CVec x = cache.solve(a, CVec.vec(3, 4));
+    assertEquals(1.0, x.get(0), 1e-12);
+    assertEquals(1.0, x.get(1), 1e-12);
+    x = cache.solve(a, CVec.vec(4, 5));
+    assertEquals(1.4, x.get(0), 1e-12);
+    assertEquals(1.2, x.get(1), 1e-12);
+    assertEquals(1, cache.getNumHits());
+  }
+
+}
@@ -0,0 +1,170 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.GF2Mat;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: GF2MatTest
+ */
+class GF2MatTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Puts the specified bits into reduced echelon form, one element at a time, and returns the
+   * rank.
+   */
+  private static int reduce(boolean[][] bits) {
+    int rank = 0;
+    for (int cI = 0; (cI < bits[0].length) && (rank < bits.length); cI++ ) {
+      int pivotRow = rank;
+      while ((pivotRow < bits.length) && !bits[pivotRow][cI]) {
+        pivotRow++ ;
+      }
+      if (pivotRow == bits.length) {
+        continue;
+      }
+      boolean[] temp = bits[rank];
+      bits[rank] = bits[pivotRow];
+      bits[pivotRow] = temp;
+      for (int rI = 0; rI < bits.length; rI++ ) {
+        if ((rI != rank) && bits[rI][cI]) {
+          for (int j = 0; j < bits[0].length; j++ ) {
+            bits[rI][j] ^= bits[rank][j];
+          }
+        }
+      }
+      rank++ ;
+    }
+    return rank;
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.GF2Mat#addRows(int, int)}.
+   */
+  @Test
+  final void testAddRows() {
+    GF2Mat bits = GF2Mat.of(CMat.mat(CVec.vec(1, 0, 1), CVec.vec(1, 1, 0)));
+    bits.addRows(0, 1);
+    assertEquals("|101|\n|011|\n", bits.toString());
+    assertEquals(1, bits.getLeadingEntryCol(1));
+    bits.addRows(0, 0);
+    assertEquals( -1, bits.getLeadingEntryCol(0));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.GF2Mat#of(mhc.lalg.Matrix)}.
+   */
+  @Test
+  final void testOf() {
+    GF2Mat bits = GF2Mat.of(CMat.mat(CVec.vec(3, -2, 0), CVec.vec( -1, 4, 7)));
+    assertTrue(bits.get(0, 0));
+    assertFalse(bits.get(0, 1));
+    assertTrue(bits.get(1, 0));
+    assertEquals("|100|\n|101|\n", bits.toString());
+    assertEquals(1.0, bits.toCMat().get(1, 2));
+    assertThrows(RuntimeException.class, () -> GF2Mat.of(CMat.mat(CVec.vec(0.5))));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.GF2Mat#set(int, int, boolean)} across word boundaries.
+   */
+  @Test
+  final void testSet() {
+    GF2Mat bits = new GF2Mat(2, 130);
+    bits.set(1, 63, true);
+    bits.set(1, 64, true);
+    bits.set(1, 129, true);
+    assertEquals(63, bits.getLeadingEntryCol(1));
+    bits.set(1, 63, false);
+    assertEquals(64, bits.getLeadingEntryCol(1));
+    assertTrue(bits.get(1, 129));
+    assertFalse(bits.get(0, 129));
+    GF2Mat copy = bits.copy();
+    assertEquals(bits, copy);
+    copy.swapRows(0, 1);
+    assertNotEquals(bits, copy);
+    assertEquals(64, copy.getLeadingEntryCol(0));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.GF2Mat#toReducedEchelonForm()} on matrices large enough
+   * to use the Method of Four Russians, compared with a plain elimination of the same bits.
+   */
+  @Test
+  final void testToReducedEchelonForm() {
+    Random random = new Random(39);
+    int[][] sizes = { { 5, 7 }, { 300, 300 }, { 260, 400 }, { 450, 270 } };
+    for (int[] size : sizes) {
+      int numRows = size[0];
+      int numCols = size[1];
+      GF2Mat bits = new GF2Mat(numRows, numCols);
+      for (int rI = 0; rI < numRows; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          bits.set(rI, cI, random.nextInt(4) == 0);
+        }
+      }
+      for (int rI = numRows / 2; rI < numRows; rI += 3) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          bits.set(rI, cI, bits.get(rI - (numRows / 2), cI) ^ bits.get(rI / 3, cI));
+        }
+      }
+      boolean[][] expected = new boolean[numRows][numCols];
+      for (int rI = 0; rI < numRows; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          expected[rI][cI] = bits.get(rI, cI);
+        }
+      }
+      int expectedRank = reduce(expected);
+      assertEquals(expectedRank, bits.toReducedEchelonForm());
+      for (int rI = 0; rI < numRows; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          assertEquals(expected[rI][cI], bits.get(rI, cI));
+        }
+      }
+    }
+  }
+}
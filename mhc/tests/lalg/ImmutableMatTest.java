@@ -0,0 +1,120 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.ImmutableMat;
+import mhc.lalg.ImmutableVec;
+import mhc.lalg.LUDecomp;
+import mhc.lalg.Mat;
+import mhc.lalg.Matrix;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: ImmutableMatTest
+ */
+class ImmutableMatTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ImmutableMat#getSubMatrix(int, int, int, int)}.
+   */
+  @Test
+  final void testGetSubMatrix() {
+    ImmutableMat mat = ImmutableMat.of(CMat.mat(CVec.vec(1, 2, 3), CVec.vec(4, 5, 6),
+            CVec.vec(7, 8, 9)));
+    Matrix sub = mat.getSubMatrix(1, 2, 1, 2);
+    assertTrue(sub instanceof ImmutableMat);
+    assertEquals(5.0, sub.get(0, 0));
+    assertEquals(9.0, sub.get(1, 1));
+    assertEquals(8.0, sub.getSubMatrix(1, 1, 0, 2).get(0, 0));
+    assertEquals(6.0, sub.getCol(1).get(0));
+    assertEquals(8.0, sub.getRow(1).get(0));
+    assertTrue(sub.getRow(0) instanceof ImmutableVec);
+    assertEquals(CVec.vec(2, 5, 8), mat.getCol(1));
+    CMat copy = Mat.copy(sub);
+    assertEquals(sub.toString(), copy.toString());
+    copy.set(0, 0, 0.0);
+    assertEquals(5.0, sub.get(0, 0));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ImmutableMat#of(mhc.lalg.Matrix)}.
+   */
+  @Test
+  final void testOf() {
+    CMat source = CMat.mat(CVec.vec(1, 2), CVec.vec(3, 4));
+    ImmutableMat mat = ImmutableMat.of(source);
+    source.set(0, 0, 9.0);
+    assertEquals(1.0, mat.get(0, 0));
+    assertSame(mat, ImmutableMat.of(mat));
+    assertEquals(2, mat.getNumRows());
+    assertEquals(2, mat.getNumCols());
+    /*
+     * The matrix operations read an ImmutableMat like any other.
+     */
+    CVec y = new CVec(2);
+    Mat.gemv(false, 1.0, mat.getSubMatrix(0, 2, 0, 2), CVec.vec(1, 1), 0.0, y);
+    assertEquals(3.0, y.get(0));
+    assertEquals(7.0, y.get(1));
+    assertEquals( -2.0, new LUDecomp(mat).determinant(), 1e-15);
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ImmutableMat#set(int, int, double)} and the row
+   * operations, all of which should throw.
+   */
+  @Test
+  final void testSet() {
+    ImmutableMat mat = ImmutableMat.of(CMat.mat(CVec.vec(1, 2), CVec.vec(0, 0)));
+    assertThrows(RuntimeException.class, () -> mat.set(0, 0, 1.0));
+    assertThrows(RuntimeException.class, () -> mat.addRowsWithMult(0, 1.0, 1));
+    assertThrows(RuntimeException.class, () -> mat.scaleRow(0, 2.0));
+    assertThrows(RuntimeException.class, () -> mat.swapRows(0, 1));
+    assertThrows(RuntimeException.class, () -> mat.normalize(1));
+    assertThrows(RuntimeException.class, () -> mat.setRow(0, CVec.vec(3, 4)));
+    assertThrows(RuntimeException.class, () -> mat.setCol(0, CVec.vec(3, 4)));
+    assertThrows(RuntimeException.class, () -> mat.getRow(0).set(0, 3.0));
+    assertThrows(RuntimeException.class, () -> mat.getSubMatrix(0, 1, 0, 1).set(0, 0, 3.0));
+    assertThrows(RuntimeException.class, () -> Mat.toEchelonForm(mat));
+    assertEquals(1.0, mat.get(0, 0));
+  }
+}
@@ -0,0 +1,89 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CVec;
+import mhc.lalg.ImmutableVec;
+import mhc.lalg.Vec;
+import mhc.lalg.Vector;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: ImmutableVecTest
+ */
+class ImmutableVecTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ImmutableVec#of(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testOf() {
+    Vector source = CVec.vec(1, 2, 3);
+    ImmutableVec vec = ImmutableVec.of(source);
+    source.set(0, 9.0);
+    assertEquals(1.0, vec.get(0));
+    assertEquals(3, vec.dimension());
+    assertSame(vec, ImmutableVec.of(vec));
+    assertEquals(CVec.vec(1, 2, 3), vec);
+    assertEquals(14.0, Vec.dotProduct(vec, vec));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ImmutableVec#set(int, double)}, which should throw.
+   */
+  @Test
+  final void testSet() {
+    ImmutableVec vec = ImmutableVec.vec(1, 2);
+    assertThrows(RuntimeException.class, () -> vec.set(0, 5.0));
+    assertEquals(1.0, vec.get(0));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ImmutableVec#vec(double[])}.
+   */
+  @Test
+  final void testVec() {
+    double[] values = { 4, 5 };
+    ImmutableVec vec = ImmutableVec.vec(values);
+    values[0] = 0.0;
+    assertEquals(4.0, vec.get(0));
+    assertEquals(5.0, vec.get(1));
+  }
+}
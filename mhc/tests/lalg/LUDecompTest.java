@@ -0,0 +1,95 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.LUDecomp;
+import mhc.lalg.Mat;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: LUDecompTest
+ */
+class LUDecompTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.LUDecomp#determinant()}.
+   */
+  @Test
+  final void testDeterminant() {
+    CMat mat = CMat.mat(CVec.vec(0, 2, 1), CVec.vec(1, 1, 1), CVec.vec(2, 1, 0));
+    assertEquals(3.0, new LUDecomp(mat).determinant(), 1e-12);
+    CMat swapped = Mat.copy(mat);
+    swapped.swapRows(0, 1);
+    assertEquals( -3.0, new LUDecomp(swapped).determinant(), 1e-12);
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.LUDecomp#isSingular()}.
+   */
+  @Test
+  final void testIsSingular() {
+    CMat singular = CMat.mat(CVec.vec(1, 2, 3), CVec.vec(2, 4, 6), CVec.vec(1, 1, 1));
+    LUDecomp lu = new LUDecomp(singular);
+    assertTrue(lu.isSingular());
+    assertEquals(0.0, Math.abs(lu.determinant()));
+    assertThrows(RuntimeException.class, () -> lu.solve(CVec.vec(1, 1, 1)));
+    assertThrows(RuntimeException.class, () -> new LUDecomp(new CMat(2, 3)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.LUDecomp#solve(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testSolve() {
+    CMat mat = CMat.mat(CVec.vec(0, 2, 1), CVec.vec(1, 1, 1), CVec.vec(2, 1, 0));
+    CMat copy = Mat.copy(mat);
+    LUDecomp lu = new LUDecomp(mat.getSubMatrix(0, 3, 0, 3));
+    assertFalse(lu.isSingular());
+    assertEquals(3, lu.dimension());
+    CVec x = lu.solve(CVec.vec(7, 6, 4));
+    assertEquals(1.0, x.get(0), 1e-12);
+    assertEquals(2.0, x.get(1), 1e-12);
+    assertEquals(3.0, x.get(2), 1e-12);
+    assertEquals(copy.toString(), mat.toString());
+  }
+}
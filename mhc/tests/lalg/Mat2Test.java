@@ -0,0 +1,157 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.Mat;
+import mhc.lalg.Mat2;
+import mhc.lalg.Vec2;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: Mat2Test
+ */
+class Mat2Test {
+  
+  public CMat tMat = null;
+  
+  public CMat tMat2 = null;
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+    tMat = CMat.mat( //
+            CVec.vec(5, -3), //
+            CVec.vec(-3, -8));
+    tMat2 = CMat.mat( //
+            CVec.vec(12, 0), //
+            CVec.vec(4, -8));
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Asserts that each element of the {@link Mat2} matches the {@link CMat}.
+   */
+  private static void assertMatEquals(CMat expected, Mat2 actual, double delta) {
+    for (int rI = 0; rI < 2; rI++ ) {
+      for (int cI = 0; cI < 2; cI++ ) {
+        assertEquals(expected.get(rI, cI), actual.get(rI, cI), delta);
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat2#determinant()}.
+   */
+  @Test
+  final void testDeterminant() {
+    Mat2 mat = Mat2.of(tMat);
+    /*
+     * The determinant is the product of the pivots of the echelon form.
+     */
+    CMat echelon = Mat.copy(tMat);
+    Mat.toEchelonForm(echelon);
+    double product = 1.0;
+    for (int i = 0; i < 2; i++ ) {
+      product *= echelon.get(i, i);
+    }
+    assertEquals(Math.abs(product), Math.abs(mat.determinant()), 1e-9);
+    assertEquals(1.0, Mat2.IDENTITY.determinant());
+    assertEquals(mat.determinant(), mat.transpose().determinant(), 1e-9);
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat2#inverse()}.
+   */
+  @Test
+  final void testInverse() {
+    Mat2 mat = Mat2.of(tMat);
+    Mat2 product = mat.times(mat.inverse());
+    assertMatEquals(Mat2.IDENTITY.toCMat(), product, 1e-12);
+    Mat2 singular = new Mat2(1.0, 1.0, 1.0, 1.0);
+    assertThrows(RuntimeException.class, () -> singular.inverse());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat2#of(mhc.lalg.Matrix)} and
+   * {@link mhc.lalg.Mat2#toCMat()}.
+   */
+  @Test
+  final void testOf() {
+    Mat2 mat = Mat2.of(tMat);
+    assertMatEquals(tMat, mat, 0.0);
+    CMat copy = mat.toCMat();
+    for (int rI = 0; rI < 2; rI++ ) {
+      assertEquals(0, tMat.getRow(rI).compareTo(copy.getRow(rI)));
+    }
+    assertEquals(mat, Mat2.of(copy));
+    assertEquals(mat.hashCode(), Mat2.of(copy).hashCode());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat2#solve(mhc.lalg.Vec2)}.
+   */
+  @Test
+  final void testSolve() {
+    Mat2 mat = Mat2.of(tMat);
+    Vec2 x = new Vec2(1, 2);
+    Vec2 b = mat.times(x);
+    Vec2 solution = mat.solve(b);
+    for (int i = 0; i < 2; i++ ) {
+      assertEquals(x.get(i), solution.get(i), 1e-12);
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat2#times(mhc.lalg.Mat2)} and
+   * {@link mhc.lalg.Mat2#times(mhc.lalg.Vec2)}.
+   */
+  @Test
+  final void testTimes() {
+    Mat2 product = Mat2.of(tMat).times(Mat2.of(tMat2));
+    CMat expected = new CMat(2, 2);
+    Mat.gemm(1.0, tMat, tMat2, 0.0, expected);
+    assertMatEquals(expected, product, 0.0);
+    Vec2 x = new Vec2(1, 2);
+    Vec2 y = Mat2.of(tMat).times(x);
+    CVec expectedY = new CVec(2);
+    Mat.gemv(false, 1.0, tMat, x.toCVec(), 0.0, expectedY);
+    for (int i = 0; i < 2; i++ ) {
+      assertEquals(expectedY.get(i), y.get(i));
+    }
+    assertMatEquals(tMat, Mat2.of(tMat).times(Mat2.IDENTITY), 0.0);
+    assertMatEquals(Mat.transpose(tMat), Mat2.of(tMat).transpose(), 0.0);
+    assertEquals(Mat2.of(tMat).times(2.0), Mat2.of(tMat).plus(Mat2.of(tMat)));
+  }
+}
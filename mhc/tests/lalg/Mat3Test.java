@@ -0,0 +1,159 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.Mat;
+import mhc.lalg.Mat3;
+import mhc.lalg.Vec3;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: Mat3Test
+ */
+class Mat3Test {
+  
+  public CMat tMat = null;
+  
+  public CMat tMat2 = null;
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+    tMat = CMat.mat( //
+            CVec.vec(8, 4, -2), //
+            CVec.vec(1, -6, -3), //
+            CVec.vec(-4, 3, 9));
+    tMat2 = CMat.mat( //
+            CVec.vec(9, 0, -2), //
+            CVec.vec(-1, -11, -1), //
+            CVec.vec(-2, -2, 6));
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Asserts that each element of the {@link Mat3} matches the {@link CMat}.
+   */
+  private static void assertMatEquals(CMat expected, Mat3 actual, double delta) {
+    for (int rI = 0; rI < 3; rI++ ) {
+      for (int cI = 0; cI < 3; cI++ ) {
+        assertEquals(expected.get(rI, cI), actual.get(rI, cI), delta);
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat3#determinant()}.
+   */
+  @Test
+  final void testDeterminant() {
+    Mat3 mat = Mat3.of(tMat);
+    /*
+     * The determinant is the product of the pivots of the echelon form.
+     */
+    CMat echelon = Mat.copy(tMat);
+    Mat.toEchelonForm(echelon);
+    double product = 1.0;
+    for (int i = 0; i < 3; i++ ) {
+      product *= echelon.get(i, i);
+    }
+    assertEquals(Math.abs(product), Math.abs(mat.determinant()), 1e-9);
+    assertEquals(1.0, Mat3.IDENTITY.determinant());
+    assertEquals(mat.determinant(), mat.transpose().determinant(), 1e-9);
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat3#inverse()}.
+   */
+  @Test
+  final void testInverse() {
+    Mat3 mat = Mat3.of(tMat);
+    Mat3 product = mat.times(mat.inverse());
+    assertMatEquals(Mat3.IDENTITY.toCMat(), product, 1e-12);
+    Mat3 singular = new Mat3(1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0);
+    assertThrows(RuntimeException.class, () -> singular.inverse());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat3#of(mhc.lalg.Matrix)} and
+   * {@link mhc.lalg.Mat3#toCMat()}.
+   */
+  @Test
+  final void testOf() {
+    Mat3 mat = Mat3.of(tMat);
+    assertMatEquals(tMat, mat, 0.0);
+    CMat copy = mat.toCMat();
+    for (int rI = 0; rI < 3; rI++ ) {
+      assertEquals(0, tMat.getRow(rI).compareTo(copy.getRow(rI)));
+    }
+    assertEquals(mat, Mat3.of(copy));
+    assertEquals(mat.hashCode(), Mat3.of(copy).hashCode());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat3#solve(mhc.lalg.Vec3)}.
+   */
+  @Test
+  final void testSolve() {
+    Mat3 mat = Mat3.of(tMat);
+    Vec3 x = new Vec3(1, 2, 3);
+    Vec3 b = mat.times(x);
+    Vec3 solution = mat.solve(b);
+    for (int i = 0; i < 3; i++ ) {
+      assertEquals(x.get(i), solution.get(i), 1e-12);
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat3#times(mhc.lalg.Mat3)} and
+   * {@link mhc.lalg.Mat3#times(mhc.lalg.Vec3)}.
+   */
+  @Test
+  final void testTimes() {
+    Mat3 product = Mat3.of(tMat).times(Mat3.of(tMat2));
+    CMat expected = new CMat(3, 3);
+    Mat.gemm(1.0, tMat, tMat2, 0.0, expected);
+    assertMatEquals(expected, product, 0.0);
+    Vec3 x = new Vec3(1, 2, 3);
+    Vec3 y = Mat3.of(tMat).times(x);
+    CVec expectedY = new CVec(3);
+    Mat.gemv(false, 1.0, tMat, x.toCVec(), 0.0, expectedY);
+    for (int i = 0; i < 3; i++ ) {
+      assertEquals(expectedY.get(i), y.get(i));
+    }
+    assertMatEquals(tMat, Mat3.of(tMat).times(Mat3.IDENTITY), 0.0);
+    assertMatEquals(Mat.transpose(tMat), Mat3.of(tMat).transpose(), 0.0);
+    assertEquals(Mat3.of(tMat).times(2.0), Mat3.of(tMat).plus(Mat3.of(tMat)));
+  }
+}
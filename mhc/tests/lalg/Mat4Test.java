@@ -0,0 +1,162 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.Mat;
+import mhc.lalg.Mat4;
+import mhc.lalg.Vec4;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: Mat4Test
+ */
+class Mat4Test {
+  
+  public CMat tMat = null;
+  
+  public CMat tMat2 = null;
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+    tMat = CMat.mat( //
+            CVec.vec(8, 0, -3, 2), //
+            CVec.vec(3, -11, -3, -3), //
+            CVec.vec(-4, 2, 13, 0), //
+            CVec.vec(-4, -1, 4, -5));
+    tMat2 = CMat.mat( //
+            CVec.vec(6, 4, -1, 0), //
+            CVec.vec(0, -9, -3, 3), //
+            CVec.vec(0, 3, 11, 2), //
+            CVec.vec(-3, 0, -1, -8));
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Asserts that each element of the {@link Mat4} matches the {@link CMat}.
+   */
+  private static void assertMatEquals(CMat expected, Mat4 actual, double delta) {
+    for (int rI = 0; rI < 4; rI++ ) {
+      for (int cI = 0; cI < 4; cI++ ) {
+        assertEquals(expected.get(rI, cI), actual.get(rI, cI), delta);
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat4#determinant()}.
+   */
+  @Test
+  final void testDeterminant() {
+    Mat4 mat = Mat4.of(tMat);
+    /*
+     * The determinant is the product of the pivots of the echelon form.
+     */
+    CMat echelon = Mat.copy(tMat);
+    Mat.toEchelonForm(echelon);
+    double product = 1.0;
+    for (int i = 0; i < 4; i++ ) {
+      product *= echelon.get(i, i);
+    }
+    assertEquals(Math.abs(product), Math.abs(mat.determinant()), 1e-9);
+    assertEquals(1.0, Mat4.IDENTITY.determinant());
+    assertEquals(mat.determinant(), mat.transpose().determinant(), 1e-9);
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat4#inverse()}.
+   */
+  @Test
+  final void testInverse() {
+    Mat4 mat = Mat4.of(tMat);
+    Mat4 product = mat.times(mat.inverse());
+    assertMatEquals(Mat4.IDENTITY.toCMat(), product, 1e-12);
+    Mat4 singular = new Mat4(1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0,
+            1.0, 1.0, 1.0);
+    assertThrows(RuntimeException.class, () -> singular.inverse());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat4#of(mhc.lalg.Matrix)} and
+   * {@link mhc.lalg.Mat4#toCMat()}.
+   */
+  @Test
+  final void testOf() {
+    Mat4 mat = Mat4.of(tMat);
+    assertMatEquals(tMat, mat, 0.0);
+    CMat copy = mat.toCMat();
+    for (int rI = 0; rI < 4; rI++ ) {
+      assertEquals(0, tMat.getRow(rI).compareTo(copy.getRow(rI)));
+    }
+    assertEquals(mat, Mat4.of(copy));
+    assertEquals(mat.hashCode(), Mat4.of(copy).hashCode());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat4#solve(mhc.lalg.Vec4)}.
+   */
+  @Test
+  final void testSolve() {
+    Mat4 mat = Mat4.of(tMat);
+    Vec4 x = new Vec4(1, 2, 3, 4);
+    Vec4 b = mat.times(x);
+    Vec4 solution = mat.solve(b);
+    for (int i = 0; i < 4; i++ ) {
+      assertEquals(x.get(i), solution.get(i), 1e-12);
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat4#times(mhc.lalg.Mat4)} and
+   * {@link mhc.lalg.Mat4#times(mhc.lalg.Vec4)}.
+   */
+  @Test
+  final void testTimes() {
+    Mat4 product = Mat4.of(tMat).times(Mat4.of(tMat2));
+    CMat expected = new CMat(4, 4);
+    Mat.gemm(1.0, tMat, tMat2, 0.0, expected);
+    assertMatEquals(expected, product, 0.0);
+    Vec4 x = new Vec4(1, 2, 3, 4);
+    Vec4 y = Mat4.of(tMat).times(x);
+    CVec expectedY = new CVec(4);
+    Mat.gemv(false, 1.0, tMat, x.toCVec(), 0.0, expectedY);
+    for (int i = 0; i < 4; i++ ) {
+      assertEquals(expectedY.get(i), y.get(i));
+    }
+    assertMatEquals(tMat, Mat4.of(tMat).times(Mat4.IDENTITY), 0.0);
+    assertMatEquals(Mat.transpose(tMat), Mat4.of(tMat).transpose(), 0.0);
+    assertEquals(Mat4.of(tMat).times(2.0), Mat4.of(tMat).plus(Mat4.of(tMat)));
+  }
+}
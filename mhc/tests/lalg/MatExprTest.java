@@ -0,0 +1,107 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.Mat;
+import mhc.lalg.MatExpr;
+import mhc.lalg.Matrix;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: MatExprTest
+ */
+class MatExprTest {
+  
+  public CMat aMat = null;
+  
+  public CMat bMat = null;
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+    aMat = CMat.mat( //
+            CVec.vec(1, 2), //
+            CVec.vec(3, 4) //
+    );
+    bMat = CMat.mat( //
+            CVec.vec(5, 6), //
+            CVec.vec(7, 8) //
+    );
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.MatExpr#assignTo(mhc.lalg.Matrix)} with a sum of
+   * {@link Matrix}s.
+   */
+  @Test
+  final void testAssignToSum() {
+    CMat result = MatExpr.of(aMat).times(2.0).plus(MatExpr.of(bMat)).eval();
+    Out.trace(true, "2a + b:%n%s%n", result);
+    assertEquals(7.0, result.get(0, 0));
+    assertEquals(16.0, result.get(1, 1));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.MatExpr#assignTo(mhc.lalg.Matrix)} with the gemm pattern
+   * where the target is also an operand of the product.
+   */
+  @Test
+  final void testAssignToGemm() {
+    MatExpr.of(aMat).times(MatExpr.of(bMat)).times(2.0).plus(MatExpr.of(aMat)).assignTo(aMat);
+    Out.trace(true, "2ab + a:%n%s%n", aMat);
+    assertEquals((2 * 19) + 1.0, aMat.get(0, 0));
+    assertEquals((2 * 22) + 2.0, aMat.get(0, 1));
+    assertEquals((2 * 43) + 3.0, aMat.get(1, 0));
+    assertEquals((2 * 50) + 4.0, aMat.get(1, 1));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.MatExpr#assignTo(mhc.lalg.Matrix)} with more than one
+   * product.
+   */
+  @Test
+  final void testAssignToProducts() {
+    Matrix result = new CMat(2, 2);
+    MatExpr.of(aMat).times(MatExpr.of(bMat)).minus(MatExpr.of(bMat).times(MatExpr.of(aMat)))
+            .assignTo(result);
+    Matrix ab = Mat.gemm(1.0, aMat, bMat, 0.0, new CMat(2, 2));
+    Matrix ba = Mat.gemm(1.0, bMat, aMat, 0.0, new CMat(2, 2));
+    for (int rI = 0; rI < 2; rI++ ) {
+      for (int cI = 0; cI < 2; cI++ ) {
+        assertEquals(ab.get(rI, cI) - ba.get(rI, cI), result.get(rI, cI));
+      }
+    }
+  }
+}
@@ -2,6 +2,8 @@ package mhc.tests.lalg;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -12,6 +14,8 @@ import mhc.lalg.CMat;
 import mhc.lalg.CVec;
 import mhc.lalg.Mat;
 import mhc.lalg.Matrix;
+import mhc.lalg.Vec;
+import mhc.lalg.Vector;
 import mhc.lalg.util.Out;
 
 /**
@@ -79,6 +83,157 @@ class MatTest {
   void tearDown() throws Exception {
   }
   
+  /**
+   * Test method for {@link mhc.lalg.Mat#copy(Matrix)}.
+   */
+  @Test
+  final void testCopy() {
+    CMat copyMat = Mat.copy(tMat);
+    assertEquals(6, copyMat.getNumRows());
+    assertEquals(34.0, copyMat.get(3, 4));
+    Matrix copySub = Mat.copy(tMatSub);
+    assertEquals(3, copySub.getNumRows());
+    assertEquals(4, copySub.getNumCols());
+    assertEquals(21.0, copySub.get(0, 0));
+    assertEquals(44.0, copySub.get(2, 3));
+    copySub.set(0, 0, 99.0);
+    assertEquals(21.0, tMat.get(2, 1));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#findPivotColumn(Matrix)} on a {@link Matrix} large
+   * enough to be searched in parallel.
+   */
+  @Test
+  final void testFindPivotColumn() {
+    CMat mat = new CMat(300, 300);
+    assertEquals( -1, Mat.findPivotColumn(mat));
+    mat.set(5, 9, 1.0);
+    mat.set(200, 7, 2.0);
+    mat.set(299, 8, 3.0);
+    assertEquals(7, Mat.findPivotColumn(mat));
+    assertEquals(9, Mat.findPivotColumn(mat.getSubMatrix(0, 100, 0, 300)));
+    assertEquals(1, Mat.findPivotColumn(mat.getSubMatrix(0, 300, 6, 294)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#findPivotRow(Matrix)} on a {@link Matrix} large enough
+   * to be searched in parallel.
+   */
+  @Test
+  final void testFindPivotRow() {
+    CMat mat = new CMat(300, 300);
+    mat.set(10, 0, -4.0);
+    mat.set(75, 0, Double.NaN);
+    mat.set(80, 0, 9.0);
+    mat.set(150, 0, -9.0);
+    mat.set(299, 0, 9.0);
+    /*
+     * The first of the largest wins, and NaN is never larger.
+     */
+    assertEquals(80, Mat.findPivotRow(mat));
+    mat.set(0, 0, Double.NaN);
+    assertEquals(0, Mat.findPivotRow(mat));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#gemm(double, Matrix, Matrix, double, Matrix)}.
+   */
+  @Test
+  final void testGemm() {
+    Matrix aMat = exp3Mat.getSubMatrix(0, 3, 0, 3);
+    CMat cMat = Mat.copy(tMat.getSubMatrix(0, 3, 0, 3));
+    Mat.gemm(2.0, aMat, tMat.getSubMatrix(0, 3, 0, 3), 1.0, cMat);
+    assertEquals((2 * (30 - 120)) + 0.0, cMat.get(0, 0));
+    Matrix copyA = Mat.copy(aMat);
+    CMat cMat2 = Mat.copy(tMat.getSubMatrix(0, 3, 0, 3));
+    Mat.gemm(2.0, copyA, Mat.copy(tMat.getSubMatrix(0, 3, 0, 3)), 1.0, cMat2);
+    for (int rI = 0; rI < 3; rI++ ) {
+      for (int cI = 0; cI < 3; cI++ ) {
+        assertEquals(cMat.get(rI, cI), cMat2.get(rI, cI));
+      }
+    }
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.Mat#gemv(boolean, double, Matrix, Vector, double, Vector)}.
+   */
+  @Test
+  final void testGemv() {
+    Vector x = CVec.vec(1, 0, -1, 2);
+    Vector y = CVec.vec(1, 1, 1);
+    Mat.gemv(false, 2.0, tMatSub, x, 3.0, y);
+    assertEquals((2 * (21 - 23 + 48)) + 3.0, y.get(0));
+    assertEquals((2 * (41 - 43 + 88)) + 3.0, y.get(2));
+    Vector xT = CVec.vec(1, 0, -1);
+    Vector yT = new CVec(4);
+    Mat.gemv(true, 1.0, tMatSub, xT, 0.0, yT);
+    assertEquals(21.0 - 41.0, yT.get(0));
+    assertEquals(24.0 - 44.0, yT.get(3));
+    CMat bigMat = new CMat(700, 600);
+    CVec bigX = new CVec(600);
+    for (int rI = 0; rI < 700; rI++ ) {
+      for (int cI = 0; cI < 600; cI++ ) {
+        bigMat.set(rI, cI, ((rI * 7) + (cI * 3)) % 11);
+      }
+    }
+    for (int cI = 0; cI < 600; cI++ ) {
+      bigX.set(cI, cI % 5);
+    }
+    CVec bigY = new CVec(700);
+    Mat.gemv(false, 1.0, bigMat, bigX, 0.0, bigY);
+    for (int rI = 0; rI < 700; rI += 37) {
+      assertEquals(Vec.dotProduct(bigMat.getRow(rI), bigX), bigY.get(rI));
+    }
+    CVec bigYT = new CVec(600);
+    Mat.gemv(true, 1.0, bigMat, bigY, 0.0, bigYT);
+    for (int cI = 0; cI < 600; cI += 37) {
+      assertEquals(Vec.dotProduct(bigMat.getCol(cI), bigY), bigYT.get(cI));
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#ger(double, Vector, Vector, Matrix)}.
+   */
+  @Test
+  final void testGer() {
+    Mat.ger(2.0, CVec.vec(1, 0, -1), CVec.vec(1, 2, 3, 4), tMatSub);
+    assertEquals(23.0, tMat.get(2, 1));
+    assertEquals(32.0, tMat.get(3, 2));
+    assertEquals(44.0 - 8.0, tMat.get(4, 4));
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.Mat#symv(boolean, double, Matrix, Vector, double, Vector)}.
+   */
+  @Test
+  final void testSymv() {
+    CMat sym = CMat.mat( //
+            CVec.vec(2, 1, 0), //
+            CVec.vec(1, 3, -1), //
+            CVec.vec(0, -1, 4) //
+    );
+    Vector x = CVec.vec(1, 2, 3);
+    CVec expected = new CVec(3);
+    Mat.gemv(false, 1.0, sym, x, 0.0, expected);
+    CMat upper = Mat.copy(sym);
+    upper.set(1, 0, 99.0);
+    upper.set(2, 0, 99.0);
+    upper.set(2, 1, 99.0);
+    Vector yUpper = Mat.symv(true, 1.0, upper, x, 0.0, new CVec(3));
+    CMat lower = Mat.copy(sym);
+    lower.set(0, 1, 99.0);
+    lower.set(0, 2, 99.0);
+    lower.set(1, 2, 99.0);
+    Vector yLower = Mat.symv(false, 1.0, lower, x, 0.0, new CVec(3));
+    for (int i = 0; i < 3; i++ ) {
+      assertEquals(expected.get(i), yUpper.get(i));
+      assertEquals(expected.get(i), yLower.get(i));
+    }
+  }
+  
   /**
    * Test method for {@link mhc.lalg.Mat#toEchelonForm(Matrix)}.
    */
@@ -90,6 +245,34 @@ class MatTest {
     Out.trace(true, "Example 3 matrix after transformation to echelon form:%n%s%n", mat);
   }
   
+  /**
+   * Test method for {@link mhc.lalg.Mat#toEchelonForm(Matrix, boolean)}, which should give the
+   * same result in parallel as serially.
+   */
+  @Test
+  final void testToEchelonFormParallel() {
+    Random random = new Random(42);
+    CMat serial = new CMat(320, 300);
+    for (int rI = 0; rI < serial.getNumRows(); rI++ ) {
+      for (int cI = 2; cI < serial.getNumCols(); cI++ ) {
+        /*
+         * Small integers give many ties in the pivot search.
+         */
+        serial.set(rI, cI, random.nextInt(7) - 3);
+      }
+    }
+    CMat parallel = Mat.copy(serial);
+    Mat.toEchelonForm(serial, false);
+    Mat.toEchelonForm(parallel, true);
+    for (int rI = 0; rI < serial.getNumRows(); rI++ ) {
+      for (int cI = 0; cI < serial.getNumCols(); cI++ ) {
+        assertEquals(serial.get(rI, cI), parallel.get(rI, cI));
+      }
+    }
+    assertEquals(0.0, serial.get(1, 2));
+    assertEquals(0.0, serial.get(299, 298));
+  }
+  
   /**
    * Test method for {@link mhc.lalg.Mat#toReducedEchelonForm(Matrix)}.
    */
@@ -105,4 +288,92 @@ class MatTest {
     assertEquals( -7.0, mat.get(1, 5), 0.000001);
     assertEquals(4.0, mat.get(2, 5), 0.000001);
   }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#transpose(Matrix)}.
+   */
+  @Test
+  final void testTranspose() {
+    CMat transMat = Mat.transpose(tMatSub);
+    assertEquals(4, transMat.getNumRows());
+    assertEquals(3, transMat.getNumCols());
+    for (int rI = 0; rI < 3; rI++ ) {
+      for (int cI = 0; cI < 4; cI++ ) {
+        assertEquals(tMatSub.get(rI, cI), transMat.get(cI, rI));
+      }
+    }
+    CMat bigMat = new CMat(300, 500);
+    for (int rI = 0; rI < 300; rI++ ) {
+      for (int cI = 0; cI < 500; cI++ ) {
+        bigMat.set(rI, cI, (rI * 1000) + cI);
+      }
+    }
+    CMat bigTrans = Mat.transpose(bigMat);
+    assertEquals(500, bigTrans.getNumRows());
+    assertEquals(123457.0, bigTrans.get(457, 123));
+    assertEquals(299499.0, bigTrans.get(499, 299));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#transposeInPlace(CMat)}.
+   */
+  @Test
+  final void testTransposeInPlace() {
+    Mat.transposeInPlace(tMat);
+    assertEquals(10.0, tMat.get(0, 1));
+    assertEquals(1.0, tMat.get(1, 0));
+    assertEquals(33.0, tMat.get(3, 3));
+    CMat bigMat = new CMat(301, 301);
+    for (int rI = 0; rI < 301; rI++ ) {
+      for (int cI = 0; cI < 301; cI++ ) {
+        bigMat.set(rI, cI, (rI * 1000) + cI);
+      }
+    }
+    Mat.transposeInPlace(bigMat);
+    for (int rI = 0; rI < 301; rI++ ) {
+      for (int cI = 0; cI < 301; cI++ ) {
+        assertEquals((cI * 1000) + rI, bigMat.get(rI, cI));
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#trmv(boolean, boolean, boolean, Matrix, Vector)} and
+   * {@link mhc.lalg.Mat#trsv(boolean, boolean, boolean, Matrix, Vector)}.
+   */
+  @Test
+  final void testTrsvTrmv() {
+    CMat tri = CMat.mat( //
+            CVec.vec(2, 1, -1), //
+            CVec.vec(3, 4, 2), //
+            CVec.vec(-2, 5, 8) //
+    );
+    for (int opt = 0; opt < 8; opt++ ) {
+      boolean upper = (opt & 1) != 0;
+      boolean trans = (opt & 2) != 0;
+      boolean unit = (opt & 4) != 0;
+      CMat full = new CMat(3, 3);
+      for (int rI = 0; rI < 3; rI++ ) {
+        for (int cI = 0; cI < 3; cI++ ) {
+          boolean used = upper ? cI > rI : cI < rI;
+          if (used) {
+            full.set(rI, cI, tri.get(rI, cI));
+          } else if (rI == cI) {
+            full.set(rI, cI, unit ? 1.0 : tri.get(rI, cI));
+          }
+        }
+      }
+      Vector x = CVec.vec(1, -2, 3);
+      CVec expected = new CVec(3);
+      Mat.gemv(trans, 1.0, full, x, 0.0, expected);
+      Vector product = Mat.trmv(upper, trans, unit, tri, Vec.copy(x));
+      for (int i = 0; i < 3; i++ ) {
+        assertEquals(expected.get(i), product.get(i), 1e-12);
+      }
+      Mat.trsv(upper, trans, unit, tri, product);
+      for (int i = 0; i < 3; i++ ) {
+        assertEquals(x.get(i), product.get(i), 1e-12);
+      }
+    }
+  }
 }
@@ -0,0 +1,119 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.ExactEchelon;
+import mhc.lalg.Matrix;
+import mhc.lalg.ModularEchelon;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: ModularEchelonTest
+ */
+class ModularEchelonTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Asserts that two {@link ExactEchelon}s hold the same reduced echelon form, which may be
+   * kept over different denominators.
+   */
+  private static void assertEchelonEquals(ExactEchelon expected, ExactEchelon actual) {
+    assertEquals(expected.getRank(), actual.getRank());
+    assertArrayEquals(expected.getPivotColumns(), actual.getPivotColumns());
+    for (int rI = 0; rI < expected.getNumRows(); rI++ ) {
+      for (int cI = 0; cI < expected.getNumCols(); cI++ ) {
+        assertEquals(expected.getNumerator(rI, cI).multiply(actual.getDenominator()),
+                actual.getNumerator(rI, cI).multiply(expected.getDenominator()));
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ModularEchelon#of(long[][])}, compared with the
+   * fraction-free {@link mhc.lalg.ExactEchelon#of(long[][])}.
+   */
+  @Test
+  final void testOf() {
+    Random random = new Random(38);
+    for (int t = 0; t < 50; t++ ) {
+      int numRows = 1 + random.nextInt(6);
+      int numCols = 1 + random.nextInt(6);
+      long range = ((t % 2) == 0) ? 7 : (1L << 40);
+      long[][] rows = new long[numRows][numCols];
+      for (int rI = 0; rI < numRows; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          rows[rI][cI] = random.nextLong() % range;
+        }
+      }
+      if (numRows > 1) {
+        rows[numRows - 1] = rows[0].clone(); // make sure some are rank deficient
+      }
+      assertEchelonEquals(ExactEchelon.of(rows), ModularEchelon.of(rows));
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ModularEchelon#of(mhc.lalg.Matrix)}.
+   */
+  @Test
+  final void testOfMatrix() {
+    CMat mat = CMat.mat(CVec.vec(2, 4, 1), CVec.vec(1, 3, 0), CVec.vec(3, 7, 1));
+    ExactEchelon echelon = ModularEchelon.of(mat);
+    assertEquals(2, echelon.getRank());
+    assertEquals(BigInteger.TWO, echelon.getDenominator());
+    assertEquals("[1, 0, 3/2]\n[0, 1, -1/2]\n[0, 0, 0]\n", echelon.toString());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.ModularEchelon#of(long[][])} with a {@link Matrix} that
+   * is singular modulo the first prime tried, <code>2^31 - 1</code>.
+   */
+  @Test
+  final void testOfUnluckyPrime() {
+    long p = Integer.MAX_VALUE;
+    long[][] rows = { { p, 3, 1 }, { 0, 1, 2 }, { 0, 2, 4 + p } };
+    ExactEchelon echelon = ModularEchelon.of(rows);
+    assertEquals(3, echelon.getRank());
+    assertEchelonEquals(ExactEchelon.of(rows), echelon);
+  }
+}
@@ -0,0 +1,214 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.LUDecomp;
+import mhc.lalg.Mat;
+import mhc.lalg.Vec;
+import mhc.lalg.util.OpCounters;
+import mhc.lalg.util.OpCounters.Snapshot;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: OpCountersTest
+ */
+class OpCountersTest {
+  
+  /**
+   * The dimension of the {@link LUDecomp} run by {@link #main(String[])}.
+   */
+  private static final int LU_DIM = 12;
+  
+  /**
+   * Runs a few kernels with the counters enabled and prints the counts each added, one kernel
+   * a line: its name, the flops, the elements read and written, and the row adds and pivot
+   * searches. Started in a separate JVM by {@link #testEnabled()}, as
+   * {@link OpCounters#ENABLED} is fixed when the class is loaded.
+   * 
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    if ( !OpCounters.ENABLED)
+      throw new RuntimeException("Run with -Dmhc.lalg.opCounters=true");
+    CMat a = new CMat(LU_DIM, LU_DIM);
+    for (int rI = 0; rI < LU_DIM; rI++ ) {
+      for (int cI = 0; cI < LU_DIM; cI++ ) {
+        a.set(rI, cI, 1.0 / (rI + cI + 1) + ((rI + 1) % 3));
+      }
+    }
+    Snapshot before = OpCounters.snapshot();
+    new LUDecomp(a);
+    printDelta("lu", before);
+    CMat b = CMat.mat(CVec.vec(1, 2, 3, 4), CVec.vec(5, 6, 7, 8), CVec.vec(9, 10, 11, 12));
+    before = OpCounters.snapshot();
+    b.addRowsWithMult(0, 2.0, 2);
+    printDelta("addRowsWithMult", before);
+    before = OpCounters.snapshot();
+    Mat.gemm(1.0, b, new CMat(4, 5), 0.0, new CMat(3, 5));
+    printDelta("gemm", before);
+    before = OpCounters.snapshot();
+    Vec.axpy(2.0, CVec.vec(1, 2, 3, 4, 5, 6), new CVec(6));
+    printDelta("axpy", before);
+  }
+  
+  /**
+   * Prints the counts added since the specified {@link Snapshot} was taken.
+   */
+  private static void printDelta(String kernel, Snapshot before) {
+    Snapshot delta = OpCounters.snapshot().minus(before);
+    System.out.println(kernel + " " + delta.getFlops() + " " + delta.getElementsRead() + " "
+            + delta.getElementsWritten() + " " + delta.getRowAdds() + " "
+            + delta.getPivotSearches());
+  }
+  
+  /**
+   * Runs {@link #main(String[])} in a new JVM with the counters enabled and returns the counts
+   * it printed by kernel.
+   */
+  private static Map<String, long[]> runEnabled() throws IOException, InterruptedException {
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    ProcessBuilder builder = new ProcessBuilder(java, "-cp",
+            System.getProperty("java.class.path"), "-Dmhc.lalg.opCounters=true",
+            OpCountersTest.class.getName());
+    builder.redirectErrorStream(true);
+    Process process = builder.start();
+    String output = new String(process.getInputStream().readAllBytes());
+    assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+    assertEquals(0, process.exitValue(), output);
+    Map<String, long[]> counts = new HashMap<>();
+    for (String line : output.split("\\R")) {
+      String[] fields = line.trim().split(" ");
+      long[] values = new long[fields.length - 1];
+      for (int i = 0; i < values.length; i++ ) {
+        values[i] = Long.parseLong(fields[i + 1]);
+      }
+      counts.put(fields[0], values);
+    }
+    return counts;
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.util.OpCounters#beginEvent(String, int, int)}.
+   */
+  @Test
+  final void testBeginEvent() {
+    assertNull(OpCounters.beginEvent("small", 1, (int) OpCounters.EVENT_SIZE - 1));
+    OpCounters.commitEvent(null, 8); // nothing to commit
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.util.OpCounters#snapshot()}.
+   */
+  @Test
+  final void testCounts() {
+    Snapshot before = OpCounters.snapshot();
+    OpCounters.count(10, 20, 5);
+    OpCounters.rowAdd(4);
+    OpCounters.rowScale(3);
+    OpCounters.rowSwap(2);
+    OpCounters.pivotSearch(7);
+    Snapshot delta = OpCounters.snapshot().minus(before);
+    assertEquals(10 + 8 + 3, delta.getFlops());
+    assertEquals(20 + 8 + 3 + 4 + 7, delta.getElementsRead());
+    assertEquals(5 + 4 + 3 + 4, delta.getElementsWritten());
+    assertEquals(1, delta.getRowAdds());
+    assertEquals(1, delta.getRowScales());
+    assertEquals(1, delta.getRowSwaps());
+    assertEquals(1, delta.getPivotSearches());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.util.OpCounters#ENABLED}, counting real kernels in a JVM
+   * started with <code>-Dmhc.lalg.opCounters=true</code>.
+   * 
+   * @throws java.lang.Exception
+   */
+  @Test
+  final void testEnabled() throws Exception {
+    Map<String, long[]> counts = runEnabled();
+    long[] lu = counts.get("lu");
+    assertEquals((2L * LU_DIM * LU_DIM * LU_DIM) / 3, lu[0]);
+    assertEquals(0, lu[3]);
+    assertEquals(LU_DIM, lu[4]); // one search per column
+    long[] rowAdd = counts.get("addRowsWithMult");
+    assertEquals(2 * 4, rowAdd[0]);
+    assertEquals(4, rowAdd[2]);
+    assertEquals(1, rowAdd[3]);
+    long[] gemm = counts.get("gemm");
+    assertEquals(2 * 3 * 4 * 5, gemm[0]);
+    assertEquals((3 * 4) + (4 * 5), gemm[1]);
+    assertEquals(3 * 5, gemm[2]);
+    long[] axpy = counts.get("axpy");
+    assertEquals(2 * 6, axpy[0]);
+    assertEquals(6, axpy[2]);
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.util.OpCounters#registerMBean()}.
+   * 
+   * @throws java.lang.Exception
+   */
+  @Test
+  final void testRegisterMBean() throws Exception {
+    OpCounters.registerMBean();
+    OpCounters.registerMBean(); // registering twice is allowed
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OpCounters.MBEAN_NAME);
+    assertTrue(server.isRegistered(name));
+    OpCounters.reset();
+    OpCounters.rowSwap(5);
+    assertEquals(1L, server.getAttribute(name, "RowSwaps"));
+    assertEquals(10L, server.getAttribute(name, "ElementsWritten"));
+    server.invoke(name, "reset", null, null);
+    assertEquals(0L, server.getAttribute(name, "RowSwaps"));
+  }
+}
@@ -0,0 +1,110 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.Mat;
+import mhc.lalg.QRDecomp;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: QRDecompTest
+ */
+class QRDecompTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.QRDecomp#getQ()}.
+   */
+  @Test
+  final void testGetQ() {
+    CMat mat = CMat.mat(CVec.vec(3, 1), CVec.vec(4, 2), CVec.vec(0, 2));
+    QRDecomp qr = new QRDecomp(mat);
+    assertEquals(3, qr.getNumRows());
+    assertEquals(2, qr.getNumCols());
+    CMat q = qr.getQ();
+    CMat qtq = new CMat(2, 2);
+    Mat.gemm(1.0, Mat.transpose(q), q, 0.0, qtq);
+    CMat qr2 = new CMat(3, 2);
+    Mat.gemm(1.0, q, qr.getR(), 0.0, qr2);
+    for (int rI = 0; rI < 2; rI++ ) {
+      for (int cI = 0; cI < 2; cI++ ) {
+        assertEquals((rI == cI) ? 1.0 : 0.0, qtq.get(rI, cI), 1e-15);
+      }
+    }
+    for (int rI = 0; rI < 3; rI++ ) {
+      for (int cI = 0; cI < 2; cI++ ) {
+        assertEquals(mat.get(rI, cI), qr2.get(rI, cI), 1e-14);
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.QRDecomp#getR()}.
+   */
+  @Test
+  final void testGetR() {
+    CMat mat = CMat.mat(CVec.vec(3, 1), CVec.vec(4, 2), CVec.vec(0, 2));
+    CMat r = new QRDecomp(mat).getR();
+    assertEquals(0.0, r.get(1, 0));
+    assertEquals(5.0, Math.abs(r.get(0, 0)), 1e-15);
+    assertEquals(2.2, Math.abs(r.get(0, 1)), 1e-15);
+    assertEquals(Math.sqrt(9.0 - (2.2 * 2.2)), Math.abs(r.get(1, 1)), 1e-14);
+    assertThrows(RuntimeException.class, () -> new QRDecomp(new CMat(2, 3)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.QRDecomp#solve(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testSolve() {
+    /*
+     * The least squares line through (0, 1), (1, 3), (2, 4) and (3, 8) is y = 0.7 + 2.2 x.
+     */
+    CMat mat = CMat.mat(CVec.vec(1, 0), CVec.vec(1, 1), CVec.vec(1, 2), CVec.vec(1, 3));
+    CMat copy = Mat.copy(mat);
+    CVec x = new QRDecomp(mat).solve(CVec.vec(1, 3, 4, 8));
+    assertEquals(0.7, x.get(0), 1e-14);
+    assertEquals(2.2, x.get(1), 1e-14);
+    assertEquals(copy.toString(), mat.toString());
+    CMat dependent = CMat.mat(CVec.vec(1, 2), CVec.vec(0, 0), CVec.vec(0, 0));
+    assertThrows(RuntimeException.class,
+            () -> new QRDecomp(dependent).solve(CVec.vec(1, 2, 3)));
+  }
+}
@@ -0,0 +1,116 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.LA;
+import mhc.lalg.Mat;
+import mhc.lalg.Refinement;
+import mhc.lalg.Refinement.Result;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: RefinementTest
+ */
+class RefinementTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Refinement#solve(mhc.lalg.Matrix, mhc.lalg.Vector)} with
+   * a well conditioned {@link mhc.lalg.Matrix}, which should reach double accuracy without
+   * falling back.
+   */
+  @Test
+  final void testSolve() {
+    Random random = new Random(36);
+    int dim = 60;
+    CMat a = new CMat(dim, dim);
+    CVec x = new CVec(dim);
+    for (int rI = 0; rI < dim; rI++ ) {
+      for (int cI = 0; cI < dim; cI++ ) {
+        a.set(rI, cI, random.nextDouble() - 0.5);
+      }
+      x.set(rI, random.nextDouble());
+    }
+    CVec b = new CVec(dim);
+    Mat.gemv(false, 1.0, a, x, 0.0, b);
+    Result result = LA.solveRefined(a, b);
+    assertFalse(result.usedDouble());
+    assertTrue(result.getIterations() > 0);
+    assertTrue(result.getBackwardError() < 1e-15);
+    for (int i = 0; i < dim; i++ ) {
+      assertEquals(x.get(i), result.getSolution().get(i), 1e-12);
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Refinement#solve(mhc.lalg.Matrix, mhc.lalg.Vector, int)}
+   * with a {@link mhc.lalg.Matrix} that is too ill conditioned for a float factorization,
+   * which should fall back to double.
+   */
+  @Test
+  final void testSolveFallback() {
+    int dim = 10;
+    CMat hilbert = new CMat(dim, dim);
+    for (int rI = 0; rI < dim; rI++ ) {
+      for (int cI = 0; cI < dim; cI++ ) {
+        hilbert.set(rI, cI, 1.0 / (rI + cI + 1));
+      }
+    }
+    CVec b = new CVec(dim);
+    for (int i = 0; i < dim; i++ ) {
+      b.set(i, 1.0);
+    }
+    Result result = Refinement.solve(hilbert, b, 5);
+    assertTrue(result.usedDouble());
+    assertTrue(result.getIterations() <= 5);
+    assertTrue(result.getBackwardError() < 1e-14);
+    /*
+     * Elements too large for a float also force the fallback.
+     */
+    CMat big = CMat.mat(CVec.vec(1e300, 0), CVec.vec(0, 1e300));
+    Result bigResult = Refinement.solve(big, CVec.vec(1e300, 2e300));
+    assertTrue(bigResult.usedDouble());
+    assertEquals(1.0, bigResult.getSolution().get(0), 1e-15);
+    assertEquals(2.0, bigResult.getSolution().get(1), 1e-15);
+  }
+}
@@ -0,0 +1,211 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.LA;
+import mhc.lalg.Mat;
+import mhc.lalg.Matrix;
+import mhc.lalg.SolveService;
+import mhc.lalg.Vector;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: SolveServiceTest
+ */
+class SolveServiceTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * A {@link Matrix} whose first read waits for a latch, to hold a compute thread busy.
+   */
+  private static final class GatedMat extends Matrix {
+    
+    private final CMat mat;
+    
+    private final CountDownLatch gate;
+    
+    GatedMat(CMat mat, CountDownLatch gate) {
+      this.mat = mat;
+      this.gate = gate;
+    }
+    
+    @Override
+    public double get(int rowIndex, int colIndex) {
+      try {
+        gate.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return mat.get(rowIndex, colIndex);
+    }
+    
+    @Override
+    public int getNumCols() {
+      return mat.getNumCols();
+    }
+    
+    @Override
+    public int getNumRows() {
+      return mat.getNumRows();
+    }
+    
+    @Override
+    public Vector getSubCol(int colIndex, int firstRow, int numRows) {
+      return mat.getSubCol(colIndex, firstRow, numRows);
+    }
+    
+    @Override
+    public Matrix getSubMatrix(int firstRow, int numRows, int firstCol, int numCols) {
+      return mat.getSubMatrix(firstRow, numRows, firstCol, numCols);
+    }
+    
+    @Override
+    public Vector getSubRow(int rowIndex, int firstCol, int numCols) {
+      return mat.getSubRow(rowIndex, firstCol, numCols);
+    }
+    
+    @Override
+    public void set(int rowIndex, int colIndex, double value) {
+      mat.set(rowIndex, colIndex, value);
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.SolveService#solveAsync(mhc.lalg.Matrix, mhc.lalg.Vector)}
+   * with identical requests in flight, which should be run once.
+   */
+  @Test
+  final void testCoalescing() {
+    CMat mat = CMat.mat(CVec.vec(2, 1), CVec.vec(1, 3));
+    CountDownLatch gate = new CountDownLatch(1);
+    try (SolveService service = new SolveService(1, 10)) {
+      CompletableFuture<CVec> blocker = service.solveAsync(new GatedMat(mat, gate), CVec.vec(1,
+              1));
+      Vector b = CVec.vec(3, 5);
+      CompletableFuture<CVec> first = service.solveAsync(mat, b);
+      b.set(0, 4.0); // the request holds its own copy
+      CompletableFuture<CVec> second = service.solveAsync(mat, CVec.vec(3, 5));
+      CompletableFuture<CVec> other = service.solveAsync(mat, CVec.vec(4, 5));
+      CompletableFuture<CVec> otherMat = service.solveAsync(Mat.copy(mat), CVec.vec(3, 5));
+      assertEquals(1, service.getNumCoalesced());
+      assertEquals(4, service.getNumInFlight());
+      gate.countDown();
+      CVec x1 = first.join();
+      CVec x2 = second.join();
+      assertNotSame(x1, x2);
+      assertEquals(x1, x2);
+      assertEquals(0.8, x1.get(0), 1e-15);
+      assertEquals(1.4, x1.get(1), 1e-15);
+      assertEquals(x1, otherMat.join());
+      assertEquals(1.4, other.join().get(0), 1e-15);
+      blocker.join();
+      assertEquals(0, service.getNumInFlight());
+      /*
+       * Once the first has completed the same request is run again.
+       */
+      service.solveAsync(mat, CVec.vec(3, 5)).join();
+      assertEquals(1, service.getNumCoalesced());
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.SolveService#multiplyAsync(mhc.lalg.Matrix, mhc.lalg.Matrix)}
+   * and {@link mhc.lalg.LA#multiplyAsync(mhc.lalg.Matrix, mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testMultiplyAsync() {
+    CMat a = CMat.mat(CVec.vec(1, 2), CVec.vec(3, 4));
+    CVec y = LA.multiplyAsync(a, CVec.vec(1, 1)).join();
+    assertEquals(3.0, y.get(0));
+    assertEquals(7.0, y.get(1));
+    CMat c = LA.multiplyAsync(a, a).join();
+    assertEquals(7.0, c.get(0, 0));
+    assertEquals(22.0, c.get(1, 1));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.SolveService#getNumRejected()} with more requests than are
+   * allowed in flight, and after the {@link mhc.lalg.SolveService} is closed.
+   */
+  @Test
+  final void testRejection() {
+    CMat mat = CMat.mat(CVec.vec(2, 1), CVec.vec(1, 3));
+    CountDownLatch gate = new CountDownLatch(1);
+    SolveService service = new SolveService(1, 2);
+    CompletableFuture<CVec> blocker = service.solveAsync(new GatedMat(mat, gate), CVec.vec(1,
+            1));
+    CompletableFuture<CVec> queued = service.solveAsync(mat, CVec.vec(1, 0));
+    CompletableFuture<CVec> rejected = service.solveAsync(mat, CVec.vec(0, 1));
+    assertTrue(rejected.isCompletedExceptionally());
+    CompletionException e = assertThrows(CompletionException.class, () -> rejected.join());
+    assertTrue(e.getCause() instanceof RejectedExecutionException);
+    assertEquals(1, service.getNumRejected());
+    gate.countDown();
+    blocker.join();
+    queued.join();
+    service.close();
+    assertTrue(service.solveAsync(mat, CVec.vec(0, 1)).isCompletedExceptionally());
+    assertEquals(2, service.getNumRejected());
+    assertEquals(0, service.getNumInFlight());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.LA#solveAsync(mhc.lalg.Matrix, mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testSolveAsync() {
+    CMat mat = CMat.mat(CVec.vec(0, 2, 1), CVec.vec(1, 1, 1), CVec.vec(2, 1, 0));
+    CVec x = LA.solveAsync(mat, CVec.vec(7, 6, 4)).join();
+    assertEquals(1.0, x.get(0), 1e-12);
+    assertEquals(2.0, x.get(1), 1e-12);
+    assertEquals(3.0, x.get(2), 1e-12);
+    CMat singular = CMat.mat(CVec.vec(1, 2), CVec.vec(2, 4));
+    CompletableFuture<CVec> failed = LA.solveAsync(singular, CVec.vec(1, 1));
+    CompletionException e = assertThrows(CompletionException.class, () -> failed.join());
+    assertEquals("Matrix is singular", e.getCause().getMessage());
+  }
+}
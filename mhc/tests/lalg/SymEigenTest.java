@@ -0,0 +1,185 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.Mat;
+import mhc.lalg.Matrix;
+import mhc.lalg.SymEigen;
+import mhc.lalg.Vec;
+import mhc.lalg.Vector;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: SymEigenTest
+ */
+class SymEigenTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Returns a random symmetric {@link CMat} with elements in <code>[-1, 1)</code>.
+   */
+  private static CMat randomSymmetric(int dim, long seed) {
+    Random random = new Random(seed);
+    CMat mat = new CMat(dim, dim);
+    for (int rI = 0; rI < dim; rI++ ) {
+      for (int cI = 0; cI <= rI; cI++ ) {
+        double value = (2.0 * random.nextDouble()) - 1.0;
+        mat.set(rI, cI, value);
+        mat.set(cI, rI, value);
+      }
+    }
+    return mat;
+  }
+  
+  /**
+   * Checks that each column of the eigenvectors is a unit eigenvector of <code>mat</code> for
+   * its eigenvalue and that the columns are orthogonal.
+   */
+  private static void checkEigenpairs(Matrix mat, SymEigen eigen, double tolerance) {
+    CVec values = eigen.getEigenvalues();
+    CMat vectors = eigen.getEigenvectors();
+    int count = eigen.getNumEigenvalues();
+    for (int j = 0; j < count; j++ ) {
+      Vector v = vectors.getCol(j);
+      CVec av = new CVec(mat.getNumRows());
+      Mat.gemv(false, 1.0, mat, v, 0.0, av);
+      Vec.axpy( -values.get(j), v, av);
+      assertEquals(0.0, Vec.nrm2(av), tolerance);
+      for (int k = 0; k <= j; k++ ) {
+        assertEquals((k == j) ? 1.0 : 0.0, Vec.dotProduct(v, vectors.getCol(k)), tolerance);
+      }
+      if (j > 0) {
+        assertTrue(values.get(j - 1) <= values.get(j));
+      }
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.SymEigen#SymEigen(mhc.lalg.Matrix)}.
+   */
+  @Test
+  final void testSymEigen() {
+    SymEigen small = new SymEigen(CMat.mat(CVec.vec(2, 1), CVec.vec(1, 2)));
+    assertEquals(2, small.getNumEigenvalues());
+    assertEquals(1.0, small.getEigenvalues().get(0), 1e-14);
+    assertEquals(3.0, small.getEigenvalues().get(1), 1e-14);
+    CMat v = small.getEigenvectors();
+    assertEquals(0.0, v.get(0, 0) + v.get(1, 0), 1e-14);
+    assertEquals(0.0, v.get(0, 1) - v.get(1, 1), 1e-14);
+    for (int dim : new int[] { 1, 3, 10, 40, 150 }) {
+      CMat mat = randomSymmetric(dim, dim);
+      SymEigen eigen = new SymEigen(mat);
+      assertEquals(dim, eigen.dimension());
+      checkEigenpairs(mat, eigen, 1e-11);
+      double trace = 0.0;
+      double sum = 0.0;
+      for (int k = 0; k < dim; k++ ) {
+        trace += mat.get(k, k);
+        sum += eigen.getEigenvalues().get(k);
+      }
+      assertEquals(trace, sum, 1e-10);
+    }
+    CMat diagonal = new CMat(4, 4);
+    diagonal.set(0, 0, 3.0);
+    diagonal.set(1, 1, -1.0);
+    diagonal.set(3, 3, 2.0);
+    SymEigen eigen = new SymEigen(diagonal);
+    assertEquals( -1.0, eigen.getEigenvalues().get(0));
+    assertEquals(0.0, eigen.getEigenvalues().get(1));
+    assertEquals(3.0, eigen.getEigenvalues().get(3));
+    checkEigenpairs(diagonal, eigen, 1e-14);
+    checkEigenpairs(new CMat(3, 3), new SymEigen(new CMat(3, 3)), 0.0);
+    assertThrows(RuntimeException.class, () -> new SymEigen(new CMat(2, 3)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.SymEigen#SymEigen(mhc.lalg.Matrix, boolean)}.
+   */
+  @Test
+  final void testSymEigenValuesOnly() {
+    CMat mat = randomSymmetric(60, 7);
+    CMat lower = Mat.copy(mat);
+    for (int rI = 0; rI < 60; rI++ ) {
+      for (int cI = rI + 1; cI < 60; cI++ ) {
+        lower.set(rI, cI, 99.0); // the upper triangle is not read
+      }
+    }
+    SymEigen values = new SymEigen(lower, false);
+    SymEigen full = new SymEigen(mat);
+    assertFalse(values.hasEigenvectors());
+    assertTrue(full.hasEigenvectors());
+    for (int k = 0; k < 60; k++ ) {
+      assertEquals(full.getEigenvalues().get(k), values.getEigenvalues().get(k), 1e-12);
+    }
+    assertThrows(RuntimeException.class, () -> values.getEigenvectors());
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.SymEigen#byIndex(mhc.lalg.Matrix, int, int, boolean)} and
+   * {@link mhc.lalg.SymEigen#byValue(mhc.lalg.Matrix, double, double, boolean)}.
+   */
+  @Test
+  final void testSubsets() {
+    CMat mat = randomSymmetric(50, 11);
+    CVec all = new SymEigen(mat, false).getEigenvalues();
+    SymEigen top = SymEigen.byIndex(mat, 45, 5, true);
+    assertEquals(45, top.getFirstIndex());
+    assertEquals(5, top.getNumEigenvalues());
+    assertEquals(50, top.getEigenvectors().getNumRows());
+    assertEquals(5, top.getEigenvectors().getNumCols());
+    for (int j = 0; j < 5; j++ ) {
+      assertEquals(all.get(45 + j), top.getEigenvalues().get(j), 1e-12);
+    }
+    checkEigenpairs(mat, top, 1e-11);
+    SymEigen range = SymEigen.byValue(mat, all.get(9), all.get(19), true);
+    assertEquals(10, range.getFirstIndex());
+    assertEquals(10, range.getNumEigenvalues());
+    checkEigenpairs(mat, range, 1e-11);
+    assertEquals(0, SymEigen.byValue(mat, 100.0, 200.0, false).getNumEigenvalues());
+    assertEquals(0, SymEigen.byIndex(mat, 50, 0, true).getNumEigenvalues());
+    assertThrows(RuntimeException.class, () -> SymEigen.byIndex(mat, 48, 3, false));
+  }
+
+}
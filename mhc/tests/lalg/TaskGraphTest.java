@@ -0,0 +1,155 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.TaskGraph;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: TaskGraphTest
+ */
+class TaskGraphTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.TaskGraph#add(java.lang.String, double, java.lang.Runnable, long[], long[])}.
+   */
+  @Test
+  final void testAdd() {
+    long a = TaskGraph.tile(0, 0);
+    long b = TaskGraph.tile(0, 1);
+    long[] none = new long[0];
+    TaskGraph graph = new TaskGraph();
+    graph.add("write a", 1, () -> {}, none, new long[] { a });
+    graph.add("read a", 1, () -> {}, new long[] { a }, new long[] { b });
+    graph.add("read a again", 1, () -> {}, new long[] { a }, none);
+    graph.add("write a again", 1, () -> {}, none, new long[] { a });
+    graph.add("write b", 1, () -> {}, none, new long[] { b });
+    assertEquals(5, graph.numTasks());
+    /*
+     * 1 and 2 wait for 0, 3 waits for 0, 1 and 2, and 4 waits for 1.
+     */
+    assertEquals(6, graph.numDependencies());
+    assertNotEquals(TaskGraph.tile(1, 0), TaskGraph.tile(0, 1));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.TaskGraph#criticalPath()}.
+   */
+  @Test
+  final void testCriticalPath() {
+    long[] none = new long[0];
+    TaskGraph graph = new TaskGraph();
+    graph.add("a", 2, () -> {}, none, new long[] { TaskGraph.tile(0, 0) });
+    graph.add("b", 3, () -> {}, none, new long[] { TaskGraph.tile(1, 1) });
+    graph.add("c", 4, () -> {}, new long[] { TaskGraph.tile(0, 0) },
+            new long[] { TaskGraph.tile(2, 2) });
+    assertEquals(6.0, graph.criticalPath());
+    assertEquals(0.0, new TaskGraph().criticalPath());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.TaskGraph#run(java.util.concurrent.ForkJoinPool)}.
+   */
+  @Test
+  final void testRun() {
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      List<String> order = Collections.synchronizedList(new ArrayList<>());
+      long[] none = new long[0];
+      TaskGraph graph = new TaskGraph();
+      graph.add("short", 0.5, () -> order.add("short"), none, new long[] { TaskGraph.tile(0, 0) });
+      graph.add("long", 5, () -> order.add("long"), none, new long[] { TaskGraph.tile(1, 0) });
+      graph.add("after long", 1, () -> order.add("after long"),
+              new long[] { TaskGraph.tile(1, 0) }, new long[] { TaskGraph.tile(2, 0) });
+      graph.run(pool);
+      /*
+       * The one worker takes the task on the longest path first, and its successor becomes
+       * ready with a higher priority than the short task.
+       */
+      assertEquals(List.of("long", "after long", "short"), order);
+      /*
+       * Many independent chains all finish.
+       */
+      AtomicInteger sum = new AtomicInteger();
+      TaskGraph chains = new TaskGraph();
+      for (int step = 0; step < 10; step++ ) {
+        for (int chain = 0; chain < 20; chain++ ) {
+          chains.add("step", 1, () -> sum.incrementAndGet(), none,
+                  new long[] { TaskGraph.tile(chain, 0) });
+        }
+      }
+      chains.run();
+      assertEquals(200, sum.get());
+      new TaskGraph().run(pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.TaskGraph#run(java.util.concurrent.ForkJoinPool)} with a
+   * task that throws.
+   */
+  @Test
+  final void testRunFailure() {
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      AtomicInteger numRun = new AtomicInteger();
+      long[] tile = new long[] { TaskGraph.tile(0, 0) };
+      TaskGraph graph = new TaskGraph();
+      graph.add("fails", 1, () -> {
+        throw new IllegalStateException("fails");
+      }, new long[0], tile);
+      graph.add("after", 1, () -> numRun.incrementAndGet(), new long[0], tile);
+      RuntimeException e = assertThrows(IllegalStateException.class, () -> graph.run(pool));
+      assertEquals("fails", e.getMessage());
+      assertEquals(0, numRun.get());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.LUDecomp;
+import mhc.lalg.Mat;
+import mhc.lalg.QRDecomp;
+import mhc.lalg.TiledLA;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: TiledLATest
+ */
+class TiledLATest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Returns a {@link CMat} of the indicated size with random elements between -0.5 and 0.5.
+   */
+  private static CMat randomMat(Random random, int numRows, int numCols) {
+    CMat mat = new CMat(numRows, numCols);
+    for (int rI = 0; rI < numRows; rI++ ) {
+      for (int cI = 0; cI < numCols; cI++ ) {
+        mat.set(rI, cI, random.nextDouble() - 0.5);
+      }
+    }
+    return mat;
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.TiledLA#cholesky(mhc.lalg.Matrix, int, java.util.concurrent.ForkJoinPool)}.
+   */
+  @Test
+  final void testCholesky() {
+    Random random = new Random(41);
+    int dim = 50;
+    CMat b = randomMat(random, dim, dim);
+    CMat a = new CMat(dim, dim);
+    Mat.gemm(1.0, b, Mat.transpose(b), 0.0, a);
+    for (int i = 0; i < dim; i++ ) {
+      a.set(i, i, a.get(i, i) + dim);
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      CMat l = TiledLA.cholesky(a, 16, pool);
+      CMat llt = new CMat(dim, dim);
+      Mat.gemm(1.0, l, Mat.transpose(l), 0.0, llt);
+      for (int rI = 0; rI < dim; rI++ ) {
+        for (int cI = 0; cI < dim; cI++ ) {
+          if (cI > rI) {
+            assertEquals(0.0, l.get(rI, cI));
+          }
+          assertEquals(a.get(rI, cI), llt.get(rI, cI), 1e-12);
+        }
+      }
+      CMat indefinite = CMat.mat(CVec.vec(1, 2), CVec.vec(2, 1));
+      assertThrows(RuntimeException.class, () -> TiledLA.cholesky(indefinite, 1, pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.TiledLA#lu(mhc.lalg.Matrix, int, java.util.concurrent.ForkJoinPool)}.
+   */
+  @Test
+  final void testLu() {
+    Random random = new Random(41);
+    int dim = 70;
+    CMat a = randomMat(random, dim, dim);
+    CVec b = new CVec(dim);
+    for (int i = 0; i < dim; i++ ) {
+      b.set(i, random.nextDouble());
+    }
+    CMat copy = Mat.copy(a);
+    LUDecomp serial = new LUDecomp(a);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      LUDecomp tiled = TiledLA.lu(a, 16, pool);
+      assertEquals(copy.toString(), a.toString());
+      assertFalse(tiled.isSingular());
+      assertEquals(1.0, tiled.determinant() / serial.determinant(), 1e-10);
+      CVec x = serial.solve(b);
+      CVec y = tiled.solve(b);
+      for (int i = 0; i < dim; i++ ) {
+        assertEquals(x.get(i), y.get(i), 1e-10);
+      }
+      CMat singular = CMat.mat(CVec.vec(1, 2, 3), CVec.vec(2, 4, 6), CVec.vec(1, 1, 1));
+      assertTrue(TiledLA.lu(singular, 2, pool).isSingular());
+      assertEquals(4.0, TiledLA.lu(CMat.mat(CVec.vec(0, 2), CVec.vec(2, 0)), 1, pool)
+              .determinant() * -1.0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.TiledLA#qr(mhc.lalg.Matrix, int, java.util.concurrent.ForkJoinPool)}.
+   */
+  @Test
+  final void testQr() {
+    Random random = new Random(41);
+    int numRows = 60;
+    int numCols = 45;
+    CMat a = randomMat(random, numRows, numCols);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      QRDecomp tiled = TiledLA.qr(a, 16, pool);
+      /*
+       * Each column sees the same operations in the same order as the serial factorization.
+       */
+      assertEquals(new QRDecomp(a).getR().toString(), tiled.getR().toString());
+      CMat q = tiled.getQ();
+      CMat qtq = new CMat(numCols, numCols);
+      Mat.gemm(1.0, Mat.transpose(q), q, 0.0, qtq);
+      for (int rI = 0; rI < numCols; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          assertEquals((rI == cI) ? 1.0 : 0.0, qtq.get(rI, cI), 1e-13);
+        }
+      }
+      CMat product = new CMat(numRows, numCols);
+      Mat.gemm(1.0, q, tiled.getR(), 0.0, product);
+      for (int rI = 0; rI < numRows; rI++ ) {
+        for (int cI = 0; cI < numCols; cI++ ) {
+          assertEquals(a.get(rI, cI), product.get(rI, cI), 1e-13);
+        }
+      }
+      assertThrows(RuntimeException.class, () -> TiledLA.qr(new CMat(2, 3), 2, pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
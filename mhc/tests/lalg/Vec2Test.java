@@ -0,0 +1,98 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CVec;
+import mhc.lalg.Vec;
+import mhc.lalg.Vec2;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: Vec2Test
+ */
+class Vec2Test {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec2#dot(mhc.lalg.Vec2)}.
+   */
+  @Test
+  final void testDot() {
+    Vec2 a = new Vec2(1, 2);
+    Vec2 b = new Vec2(3, 1);
+    assertEquals(Vec.dotProduct(a.toCVec(), b.toCVec()), a.dot(b));
+    assertEquals(Math.sqrt(a.dot(a)), a.length());
+    assertEquals(1.0, a.normalize().length(), 1e-15);
+    assertThrows(RuntimeException.class, () -> Vec2.ZERO.normalize());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec2#of(mhc.lalg.Vector)} and
+   * {@link mhc.lalg.Vec2#toCVec()}.
+   */
+  @Test
+  final void testOf() {
+    Vec2 a = new Vec2(1, 2);
+    CVec vec = a.toCVec();
+    assertEquals(2, vec.dimension());
+    for (int i = 0; i < 2; i++ ) {
+      assertEquals(i + 1.0, vec.get(i));
+    }
+    assertEquals(a, Vec2.of(vec));
+    assertEquals(a.hashCode(), Vec2.of(vec).hashCode());
+    assertEquals(vec.toString(), a.toString());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec2#plus(mhc.lalg.Vec2)},
+   * {@link mhc.lalg.Vec2#minus(mhc.lalg.Vec2)} and {@link mhc.lalg.Vec2#times(double)}.
+   */
+  @Test
+  final void testPlus() {
+    Vec2 a = new Vec2(1, 2);
+    Vec2 b = new Vec2(3, 1);
+    Vec2 sum = a.plus(b);
+    Vec2 diff = a.minus(b);
+    Vec2 scaled = a.times(3.0);
+    for (int i = 0; i < 2; i++ ) {
+      assertEquals(a.get(i) + b.get(i), sum.get(i));
+      assertEquals(a.get(i) - b.get(i), diff.get(i));
+      assertEquals(3.0 * a.get(i), scaled.get(i));
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CVec;
+import mhc.lalg.Vec;
+import mhc.lalg.Vec3;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: Vec3Test
+ */
+class Vec3Test {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec3#dot(mhc.lalg.Vec3)}.
+   */
+  @Test
+  final void testDot() {
+    Vec3 a = new Vec3(1, 2, 3);
+    Vec3 b = new Vec3(3, 1, -1);
+    assertEquals(Vec.dotProduct(a.toCVec(), b.toCVec()), a.dot(b));
+    assertEquals(Math.sqrt(a.dot(a)), a.length());
+    assertEquals(1.0, a.normalize().length(), 1e-15);
+    assertThrows(RuntimeException.class, () -> Vec3.ZERO.normalize());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec3#of(mhc.lalg.Vector)} and
+   * {@link mhc.lalg.Vec3#toCVec()}.
+   */
+  @Test
+  final void testOf() {
+    Vec3 a = new Vec3(1, 2, 3);
+    CVec vec = a.toCVec();
+    assertEquals(3, vec.dimension());
+    for (int i = 0; i < 3; i++ ) {
+      assertEquals(i + 1.0, vec.get(i));
+    }
+    assertEquals(a, Vec3.of(vec));
+    assertEquals(a.hashCode(), Vec3.of(vec).hashCode());
+    assertEquals(vec.toString(), a.toString());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec3#plus(mhc.lalg.Vec3)},
+   * {@link mhc.lalg.Vec3#minus(mhc.lalg.Vec3)} and {@link mhc.lalg.Vec3#times(double)}.
+   */
+  @Test
+  final void testPlus() {
+    Vec3 a = new Vec3(1, 2, 3);
+    Vec3 b = new Vec3(3, 1, -1);
+    Vec3 sum = a.plus(b);
+    Vec3 diff = a.minus(b);
+    Vec3 scaled = a.times(3.0);
+    for (int i = 0; i < 3; i++ ) {
+      assertEquals(a.get(i) + b.get(i), sum.get(i));
+      assertEquals(a.get(i) - b.get(i), diff.get(i));
+      assertEquals(3.0 * a.get(i), scaled.get(i));
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec3#cross(mhc.lalg.Vec3)}.
+   */
+  @Test
+  final void testCross() {
+    Vec3 x = new Vec3(1, 0, 0);
+    Vec3 y = new Vec3(0, 1, 0);
+    assertEquals(new Vec3(0, 0, 1), x.cross(y));
+    assertEquals(new Vec3(0, 0, -1), y.cross(x));
+    Vec3 a = new Vec3(1, 2, 3);
+    Vec3 b = new Vec3(3, 1, -2);
+    assertEquals(0.0, a.cross(b).dot(a));
+    assertEquals(0.0, a.cross(b).dot(b));
+  }
+}
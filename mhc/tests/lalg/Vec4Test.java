@@ -0,0 +1,98 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CVec;
+import mhc.lalg.Vec;
+import mhc.lalg.Vec4;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: Vec4Test
+ */
+class Vec4Test {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec4#dot(mhc.lalg.Vec4)}.
+   */
+  @Test
+  final void testDot() {
+    Vec4 a = new Vec4(1, 2, 3, 4);
+    Vec4 b = new Vec4(3, 1, -1, -3);
+    assertEquals(Vec.dotProduct(a.toCVec(), b.toCVec()), a.dot(b));
+    assertEquals(Math.sqrt(a.dot(a)), a.length());
+    assertEquals(1.0, a.normalize().length(), 1e-15);
+    assertThrows(RuntimeException.class, () -> Vec4.ZERO.normalize());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec4#of(mhc.lalg.Vector)} and
+   * {@link mhc.lalg.Vec4#toCVec()}.
+   */
+  @Test
+  final void testOf() {
+    Vec4 a = new Vec4(1, 2, 3, 4);
+    CVec vec = a.toCVec();
+    assertEquals(4, vec.dimension());
+    for (int i = 0; i < 4; i++ ) {
+      assertEquals(i + 1.0, vec.get(i));
+    }
+    assertEquals(a, Vec4.of(vec));
+    assertEquals(a.hashCode(), Vec4.of(vec).hashCode());
+    assertEquals(vec.toString(), a.toString());
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec4#plus(mhc.lalg.Vec4)},
+   * {@link mhc.lalg.Vec4#minus(mhc.lalg.Vec4)} and {@link mhc.lalg.Vec4#times(double)}.
+   */
+  @Test
+  final void testPlus() {
+    Vec4 a = new Vec4(1, 2, 3, 4);
+    Vec4 b = new Vec4(3, 1, -1, -3);
+    Vec4 sum = a.plus(b);
+    Vec4 diff = a.minus(b);
+    Vec4 scaled = a.times(3.0);
+    for (int i = 0; i < 4; i++ ) {
+      assertEquals(a.get(i) + b.get(i), sum.get(i));
+      assertEquals(a.get(i) - b.get(i), diff.get(i));
+      assertEquals(3.0 * a.get(i), scaled.get(i));
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.MatExpr;
+import mhc.lalg.Matrix;
+import mhc.lalg.VecExpr;
+import mhc.lalg.Vector;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: VecExprTest
+ */
+class VecExprTest {
+  
+  public CMat tMat = null;
+  
+  public Matrix tMatSub = null;
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+    tMat = CMat.mat( //
+            CVec.vec(0, 1, 2, 3, 4, 5), //
+            CVec.vec(10, 11, 12, 13, 14, 15),//
+            CVec.vec(20, 21, 22, 23, 24, 25),//
+            CVec.vec(30, 31, 32, 33, 34, 35),//
+            CVec.vec(40, 41, 42, 43, 44, 45),//
+            CVec.vec(50, 51, 52, 53, 54, 55)//
+    );
+    tMatSub = tMat.getSubMatrix(2, 3, 1, 4);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.VecExpr#assignTo(mhc.lalg.Vector)} with a linear
+   * combination of {@link Vector}s.
+   */
+  @Test
+  final void testAssignToLinear() {
+    Vector x = CVec.vec(1, 2, 3);
+    Vector y = CVec.vec(4, 5, 6);
+    VecExpr.of(x).times(2.0).plus(y).minus(VecExpr.of(y).times(3.0)).assignTo(y);
+    Out.trace(true, "2x + y - 3y:%n%s%n", y);
+    assertEquals( -6.0, y.get(0));
+    assertEquals( -6.0, y.get(1));
+    assertEquals( -6.0, y.get(2));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.VecExpr#assignTo(mhc.lalg.Vector)} with a {@link Matrix}
+   * {@link Vector} product.
+   */
+  @Test
+  final void testAssignToGemv() {
+    Vector x = CVec.vec(1, 0, -1, 2);
+    Vector y = CVec.vec(1, 1, 1);
+    VecExpr.mult(tMatSub, x).times(2.0).plus(VecExpr.of(y).times(3.0)).assignTo(y);
+    Out.trace(true, "2 * A * x + 3 * y:%n%s%n", y);
+    assertEquals((2 * (21 - 23 + 48)) + 3.0, y.get(0));
+    assertEquals((2 * (31 - 33 + 68)) + 3.0, y.get(1));
+    assertEquals((2 * (41 - 43 + 88)) + 3.0, y.get(2));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.VecExpr#assignTo(mhc.lalg.Vector)} where the target is a
+   * view on the {@link Matrix} in the expression.
+   */
+  @Test
+  final void testAssignToView() {
+    Matrix square = tMat.getSubMatrix(0, 3, 0, 3);
+    Vector col = square.getCol(0);
+    VecExpr.mult(square, col).assignTo(col);
+    assertEquals(0 + 10 + 40, tMat.get(0, 0));
+    assertEquals(0 + 110 + 240, tMat.get(1, 0));
+    assertEquals(0 + 210 + 440, tMat.get(2, 0));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.VecExpr#eval()} with a product of {@link Matrix}s.
+   */
+  @Test
+  final void testEvalMatProduct() {
+    Matrix square = tMat.getSubMatrix(0, 2, 0, 2);
+    Vector x = CVec.vec(1, 1);
+    CVec result = MatExpr.of(square).times(MatExpr.of(square)).times(x).eval();
+    /*
+     * square is |0 1|, square * x is <1, 21> and square * <1, 21> is <21, 241>.
+     *           |10 11|
+     */
+    assertEquals(21.0, result.get(0));
+    assertEquals(241.0, result.get(1));
+  }
+}
@@ -1,6 +1,8 @@
 package mhc.tests.lalg;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -12,6 +14,7 @@ import mhc.lalg.CMat;
 import mhc.lalg.CVec;
 import mhc.lalg.Matrix;
 import mhc.lalg.Vec;
+import mhc.lalg.Vec.Reduction;
 import mhc.lalg.Vector;
 import mhc.lalg.util.Out;
 
@@ -71,6 +74,36 @@ class VecTest {
   void tearDown() throws Exception {
   }
   
+  /**
+   * A {@link Vector} with no backing array, so the {@link Vec} kernels must use get and set.
+   */
+  private static final class PlainVec extends Vector {
+    
+    private final double[] values;
+    
+    PlainVec(Vector vec) {
+      values = new double[vec.dimension()];
+      for (int i = 0; i < values.length; i++ ) {
+        values[i] = vec.get(i);
+      }
+    }
+    
+    @Override
+    public int dimension() {
+      return values.length;
+    }
+    
+    @Override
+    public double get(int index) {
+      return values[index];
+    }
+    
+    @Override
+    public void set(int index, double value) {
+      values[index] = value;
+    }
+  }
+  
   /**
    * Test method for
    * {@link mhc.lalg.Vec#add(mhc.lalg.Vector, mhc.lalg.Vector, mhc.lalg.Vector)}.
@@ -108,4 +141,188 @@ class VecTest {
     Out.trace(true, "Base vec times 2:%n%s%n", vec1);
     assertEquals(66.0, tMat.get(3, 3));
   }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec#asum(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testAsum() {
+    assertEquals(6.0, Vec.asum(CVec.vec(1, -2, 3)));
+    assertEquals(21.0 + 22.0 + 23.0 + 24.0, Vec.asum(tMatSub.getRow(0)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec#axpby(double, mhc.lalg.Vector, double, mhc.lalg.Vector)}
+   * and {@link mhc.lalg.Vec#axpy(double, mhc.lalg.Vector, mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testAxpy() {
+    Vector x = CVec.vec(1, 2, 3);
+    Vector y = CVec.vec(4, 5, 6);
+    Vec.axpy(2.0, x, y);
+    assertEquals(12.0, y.get(2));
+    Vec.axpby(1.0, x, -1.0, y);
+    assertEquals( -7.0, y.get(1));
+    Vector row = tMatSub.getRow(1);
+    Vec.axpy( -1.0, tMatSub.getRow(0), row);
+    assertEquals(10.0, tMat.get(3, 2));
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.Vec#axpyDot(double, mhc.lalg.Vector, mhc.lalg.Vector, mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testAxpyDot() {
+    Vector x = CVec.vec(1, 1, 1);
+    Vector y = CVec.vec(1, 2, 3);
+    double dp = Vec.axpyDot( -1.0, x, y, y);
+    assertEquals(5.0, dp);
+    assertEquals(2.0, y.get(2));
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.Vec#dotProduct(mhc.lalg.Vector, mhc.lalg.Vector, mhc.lalg.Vec.Reduction)}.
+   */
+  @Test
+  final void testDotProductReductions() {
+    Vector vec1 = CVec.vec(1, 2, 3);
+    Vector vec2 = CVec.vec(4, 5, 6);
+    for (Reduction reduction : Reduction.values()) {
+      assertEquals(32.0, Vec.dotProduct(vec1, vec2, reduction));
+      assertEquals(32.0, Vec.dotProduct(tMat.getSubRow(0, 1, 3), vec2, reduction));
+    }
+    Vector illCond = CVec.vec(1.0e16, 1.0, -1.0e16, 1.0);
+    Vector ones = CVec.vec(1, 1, 1, 1);
+    assertEquals(2.0, Vec.dotProduct(illCond, ones, Reduction.COMPENSATED));
+    int dim = 1_000_003;
+    CVec big = new CVec(dim);
+    for (int i = 0; i < dim; i++ ) {
+      big.set(i, 1.0 / (1 + (i % 1000)));
+    }
+    double compensated = Vec.dotProduct(big, big, Reduction.COMPENSATED);
+    for (Reduction reduction : Reduction.values()) {
+      assertEquals(compensated, Vec.dotProduct(big, big, reduction), 1e-9 * compensated);
+    }
+    double parallel = Vec.dotProduct(big, big, Reduction.PARALLEL);
+    for (int run = 0; run < 5; run++ ) {
+      assertEquals(parallel, Vec.dotProduct(big, big, Reduction.PARALLEL));
+    }
+    assertEquals(Math.sqrt(parallel), Vec.nrm2(big, Reduction.PARALLEL));
+    assertEquals(6.0, Vec.asum(CVec.vec(1, -2, 3), Reduction.UNROLLED));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec#iamax(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testIamax() {
+    assertEquals(1, Vec.iamax(CVec.vec(1, -7, 7, 3)));
+    assertEquals(2, Vec.iamax(tMatSub.getCol(0)));
+    assertEquals( -1, Vec.iamax(new CVec(0)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec#nrm2(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testNrm2() {
+    assertEquals(5.0, Vec.nrm2(CVec.vec(3, 4)));
+    assertEquals(5.0e300, Vec.nrm2(CVec.vec(3.0e300, 4.0e300)), 1.0e286);
+    assertEquals(5.0e-300, Vec.nrm2(CVec.vec(3.0e-300, -4.0e-300)), 1.0e-314);
+    assertEquals(0.0, Vec.nrm2(CVec.vec(0, 0)));
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec#rot(mhc.lalg.Vector, mhc.lalg.Vector, double, double)}
+   * and {@link mhc.lalg.Vec#rotg(double, double)}.
+   */
+  @Test
+  final void testRot() {
+    Vector x = CVec.vec(3, 1);
+    Vector y = CVec.vec(4, 2);
+    double[] csr = Vec.rotg(3, 4);
+    assertEquals(5.0, csr[2], 1e-12);
+    Vec.rot(x, y, csr[0], csr[1]);
+    assertEquals(5.0, x.get(0), 1e-12);
+    assertEquals(0.0, y.get(0), 1e-12);
+    assertEquals((0.6 * 1) + (0.8 * 2), x.get(1), 1e-12);
+    csr = Vec.rotg(1, -1); // on a tie r takes the sign of b
+    assertTrue(csr[2] < 0.0);
+    assertEquals(-Math.sqrt(2.0), csr[2], 1e-12);
+    assertEquals((csr[0] * 1) + (csr[1] * -1), csr[2], 1e-12);
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Vec#scal(double, mhc.lalg.Vector)} and
+   * {@link mhc.lalg.Vec#swap(mhc.lalg.Vector, mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testScalSwap() {
+    Vector x = CVec.vec(1, 2, 3);
+    Vector y = CVec.vec(4, 5, 6);
+    Vec.scal(2.0, x);
+    Vec.swap(x, y);
+    assertEquals(6.0, y.get(2));
+    assertEquals(4.0, x.get(0));
+    Vec.swap(tMatSub.getRow(0), tMatSub.getRow(2));
+    assertEquals(41.0, tMat.get(2, 1));
+    assertEquals(20.0, tMat.get(2, 0));
+  }
+  
+  /**
+   * Test method for the {@link Vec} kernels on strided views that expose
+   * {@link mhc.lalg.Vector#getArray()}, checked against the same kernels on plain
+   * {@link Vector}s.
+   */
+  @Test
+  final void testStridedViews() {
+    CMat mat = new CMat(5, 4);
+    for (int rI = 0; rI < 5; rI++ ) {
+      for (int cI = 0; cI < 4; cI++ ) {
+        mat.set(rI, cI, ((rI * 7) + (cI * 3)) % 11 - 5.0);
+      }
+    }
+    Vector col1 = mat.getSubCol(1, 1, 4);
+    Vector col3 = mat.getSubCol(3, 1, 4);
+    Vector row0 = mat.getSubRow(0, 0, 4);
+    assertEquals(5, col1.getOffset());
+    assertEquals(4, col1.getStride());
+    assertNull(new PlainVec(row0).getArray());
+    Vector plain1 = new PlainVec(col1);
+    Vector plain3 = new PlainVec(col3);
+    Vector plainRow = new PlainVec(row0);
+    assertEquals(Vec.dotProduct(plain1, plainRow), Vec.dotProduct(col1, row0));
+    assertEquals(Vec.asum(plain3), Vec.asum(col3));
+    assertEquals(Vec.nrm2(plain3), Vec.nrm2(col3));
+    assertEquals(Vec.iamax(plain1), Vec.iamax(col1));
+    assertEquals(Vec.dotProduct(plain1, plain3, Reduction.PAIRWISE),
+            Vec.dotProduct(col1, col3, Reduction.PAIRWISE));
+    Vec.axpy(2.0, col1, col3);
+    Vec.axpy(2.0, plain1, plain3);
+    Vec.axpby(0.5, row0, -1.0, col1);
+    Vec.axpby(0.5, plainRow, -1.0, plain1);
+    assertEquals(Vec.axpyDot(1.5, col3, col1, row0),
+            Vec.axpyDot(1.5, plain3, plain1, plainRow));
+    Vec.rot(col1, col3, 0.6, 0.8);
+    Vec.rot(plain1, plain3, 0.6, 0.8);
+    Vec.scal( -3.0, col3);
+    Vec.scal( -3.0, plain3);
+    Vec.add(col1, row0, col1);
+    Vec.add(plain1, plainRow, plain1);
+    Vec.mult(0.25, col3, row0);
+    Vec.mult(0.25, plain3, plainRow);
+    Vec.swap(col1, row0);
+    Vec.swap(plain1, plainRow);
+    for (int i = 0; i < 4; i++ ) {
+      assertEquals(plain1.get(i), col1.get(i));
+      assertEquals(plain3.get(i), col3.get(i));
+      assertEquals(plainRow.get(i), row0.get(i));
+    }
+    CVec copy = Vec.copy(col3);
+    for (int i = 0; i < 4; i++ ) {
+      assertEquals(mat.get(i + 1, 3), copy.get(i));
+    }
+  }
 }
@@ -0,0 +1,224 @@
+package mhc.tests.lalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mhc.lalg.CMat;
+import mhc.lalg.CVec;
+import mhc.lalg.LA;
+import mhc.lalg.LUDecomp;
+import mhc.lalg.Mat;
+import mhc.lalg.Vec;
+import mhc.lalg.Workspace;
+import mhc.lalg.util.Out;
+
+/**
+ * Class: WorkspaceTest
+ */
+class WorkspaceTest {
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeAll
+  static void setUpBeforeClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterAll
+  static void tearDownAfterClass() throws Exception {
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @BeforeEach
+  void setUp() throws Exception {
+    Out.setDevelopmentMode(true);
+  }
+  
+  /**
+   * @throws java.lang.Exception
+   */
+  @AfterEach
+  void tearDown() throws Exception {
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Workspace#copy(mhc.lalg.Matrix)} and
+   * {@link mhc.lalg.Workspace#copy(mhc.lalg.Vector)}.
+   */
+  @Test
+  final void testCopy() {
+    Workspace workspace = new Workspace();
+    CMat mat = CMat.mat(CVec.vec(1, 2, 3), CVec.vec(4, 5, 6));
+    Workspace.Scope scope = workspace.open();
+    try {
+      CMat copy = workspace.copy(mat.getSubMatrix(0, 2, 1, 2));
+      assertEquals(2, copy.getNumRows());
+      assertEquals(2, copy.getNumCols());
+      assertEquals(6.0, copy.get(1, 1));
+      copy.set(0, 0, 9.0);
+      assertEquals(2.0, mat.get(0, 1));
+      CVec vec = workspace.copy(mat.getRow(1));
+      assertEquals(3, vec.dimension());
+      assertEquals(5.0, vec.get(1));
+    } finally {
+      scope.close();
+    }
+    assertEquals(0, workspace.getNumTaken());
+  }
+  
+  /**
+   * Returns a {@link CVec} from the specified {@link Workspace} holding the specified values,
+   * whose array is longer than its dimension and holds garbage past it.
+   */
+  private static CVec dirtyVec(Workspace workspace, double... values) {
+    Workspace.Scope scope = workspace.open();
+    try {
+      CVec full = workspace.vec(Workspace.MIN_BUFFER_SIZE);
+      for (int i = 0; i < Workspace.MIN_BUFFER_SIZE; i++ ) {
+        full.set(i, 99.0);
+      }
+    } finally {
+      scope.close();
+    }
+    CVec vec = workspace.copy(CVec.vec(values));
+    assertEquals(99.0, vec.getArray()[values.length]); // the reused buffer is not cleared
+    return vec;
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Mat#ger(double, mhc.lalg.Vector, mhc.lalg.Vector,
+   * mhc.lalg.Matrix)}, {@link mhc.lalg.Mat#gemv(boolean, double, mhc.lalg.Matrix,
+   * mhc.lalg.Vector, double, mhc.lalg.Vector)} and the {@link mhc.lalg.Vec} kernels on
+   * {@link CVec}s from a {@link Workspace}, whose arrays are longer than their dimensions.
+   */
+  @Test
+  final void testKernels() {
+    Workspace workspace = new Workspace();
+    Workspace.Scope scope = workspace.open();
+    try {
+      CVec x = dirtyVec(workspace, 1, 2, 3, 4);
+      CVec y = dirtyVec(workspace, 1, -2, 3);
+      CMat a = new CMat(5, 3);
+      Mat.ger(1.0, x, y, a.getSubMatrix(0, 4, 0, 3));
+      assertEquals( -8.0, a.get(3, 1));
+      assertEquals(12.0, a.get(3, 2));
+      assertEquals(0.0, a.get(4, 0)); // the row past the update is untouched
+      CVec ax = dirtyVec(workspace, 0, 0, 0, 0);
+      Mat.gemv(false, 1.0, a.getSubMatrix(0, 4, 0, 3), y, 0.0, ax);
+      assertEquals(4.0 * 14.0, ax.get(3));
+      CVec aty = dirtyVec(workspace, 0, 0, 0);
+      Mat.gemv(true, 1.0, a.getSubMatrix(0, 4, 0, 3), x, 0.0, aty);
+      assertEquals( -2.0 * 30.0, aty.get(1));
+      assertEquals(1.0 + 4.0 + 9.0, Vec.dotProduct(y, y));
+      assertEquals(Math.sqrt(14.0), Vec.nrm2(y), 1e-12);
+      assertEquals(6.0, Vec.asum(y));
+      assertEquals(3, Vec.iamax(x));
+      CVec z = dirtyVec(workspace, 1, 1, 1);
+      Vec.axpy(2.0, y, z);
+      assertEquals( -3.0, z.get(1));
+      assertEquals(99.0, z.getArray()[3]); // nothing written past the dimension
+      Vec.scal(2.0, z);
+      assertEquals(14.0, z.get(2));
+      assertEquals(99.0, z.getArray()[3]);
+    } finally {
+      scope.close();
+    }
+  }
+  
+  /**
+   * Test method for {@link mhc.lalg.Workspace#mat(int, int)} and
+   * {@link mhc.lalg.Workspace#open()}.
+   */
+  @Test
+  final void testMat() {
+    Workspace workspace = new Workspace();
+    Workspace.Scope scope = workspace.open();
+    try {
+      CMat temp = workspace.mat(4, 5);
+      temp.set(3, 4, 7.0);
+      assertEquals(1, workspace.getNumTaken());
+      Workspace.Scope inner = workspace.open();
+      try {
+        workspace.mat(2, 2);
+        workspace.vec(3);
+        assertEquals(3, workspace.getNumTaken());
+      } finally {
+        inner.close();
+      }
+      assertEquals(1, workspace.getNumTaken());
+      assertEquals(7.0, temp.get(3, 4));
+    } finally {
+      scope.close();
+    }
+    assertEquals(0, workspace.getNumTaken());
+    assertEquals(3, workspace.getNumAllocated());
+    assertEquals(8L * (32 + 16 + 16), workspace.getNumPooledBytes());
+    Workspace.Scope again = workspace.open();
+    try {
+      CMat temp = workspace.mat(5, 5); // the same size class as 4 x 5
+      assertEquals(0.0, temp.get(3, 4)); // reused buffers are zeroed
+      workspace.vec(10);
+      workspace.vec(10);
+      workspace.vec(10);
+    } finally {
+      again.close();
+    }
+    assertEquals(4, workspace.getNumAllocated());
+    assertEquals(3, workspace.getNumReused());
+    Workspace small = new Workspace(8 * 16);
+    Workspace.Scope smallScope = small.open();
+    try {
+      small.vec(3);
+      small.vec(3);
+    } finally {
+      smallScope.close();
+    }
+    assertEquals(8 * 16, small.getNumPooledBytes()); // the second buffer was dropped
+    assertThrows(RuntimeException.class, () -> small.vec(Workspace.MAX_BUFFER_SIZE + 1));
+    assertThrows(RuntimeException.class, () -> small.mat(1 << 16, 1 << 15));
+    assertEquals(0, small.getNumTaken());
+  }
+  
+  /**
+   * Test method for
+   * {@link mhc.lalg.LA#solve(mhc.lalg.Matrix, mhc.lalg.Vector, mhc.lalg.Workspace)}.
+   */
+  @Test
+  final void testSolve() {
+    Workspace workspace = new Workspace();
+    CMat a = CMat.mat(CVec.vec(2, 1), CVec.vec(1, 3));
+    for (int i = 0; i < 3; i++ ) {
+      Workspace.Scope scope = workspace.open();
+      try {
+        CVec x = LA.solve(a, CVec.vec(3, 4), workspace);
+        assertEquals(1.0, x.get(0), 1e-12);
+        assertEquals(1.0, x.get(1), 1e-12);
+        assertEquals(1, workspace.getNumTaken());
+      } finally {
+        scope.close();
+      }
+    }
+    assertEquals(2, workspace.getNumAllocated());
+    assertEquals(4, workspace.getNumReused());
+    Workspace.Scope scope = workspace.open();
+    try {
+      LUDecomp lu = new LUDecomp(a, workspace);
+      assertEquals(5.0, lu.determinant(), 1e-12);
+    } finally {
+      scope.close();
+    }
+    assertThrows(RuntimeException.class, () -> new LUDecomp(new CMat(2, 3), workspace));
+  }
+
+}